@@ -22,10 +22,7 @@ package it.unibz.inf.ontop.owlapi.impl;
 
 import it.unibz.inf.ontop.answering.OntopQueryEngine;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
-import it.unibz.inf.ontop.answering.connection.OntopStatement;
-import it.unibz.inf.ontop.answering.reformulation.input.AskQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
-import it.unibz.inf.ontop.answering.resultset.BooleanResultSet;
 import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.exception.OBDASpecificationException;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
@@ -33,6 +30,7 @@ import it.unibz.inf.ontop.injection.OntopSystemOWLAPIConfiguration;
 import it.unibz.inf.ontop.owlapi.OntopOWLReasoner;
 import it.unibz.inf.ontop.owlapi.connection.OntopOWLConnection;
 import it.unibz.inf.ontop.owlapi.connection.impl.DefaultOntopOWLConnection;
+import it.unibz.inf.ontop.owlapi.validation.BatchedProbeEvaluator;
 import it.unibz.inf.ontop.spec.ontology.*;
 import it.unibz.inf.ontop.spec.ontology.owlapi.OWLAPITranslatorUtility;
 import it.unibz.inf.ontop.utils.VersionInfo;
@@ -46,9 +44,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nonnull;
-import java.util.Collection;
-import java.util.Iterator;
-import java.util.Set;
+import java.util.*;
 
 /**
  * The OBDAOWLReformulationPlatform implements the OWL reasoner interface and is
@@ -106,6 +102,10 @@ public class QuestOWL extends OWLReasonerBase implements OntopOWLReasoner {
 
 	private final OntopQueryEngine queryEngine;
 	private final InputQueryFactory inputQueryFactory;
+
+	/* Consistency checks */
+	private final int validationBatchSize;
+	private final int validationParallelism;
 	
 	/* Used to signal whether to apply the user constraints above */
 	//private boolean applyExcludeFromTMappings = false;
@@ -142,6 +142,9 @@ public class QuestOWL extends OWLReasonerBase implements OntopOWLReasoner {
 
 		inputQueryFactory = ontopConfiguration.getInputQueryFactory();
 
+		validationBatchSize = ontopConfiguration.getSettings().getValidationBatchSize();
+		validationParallelism = ontopConfiguration.getSettings().getValidationParallelism();
+
 		pm = owlConfiguration.getProgressMonitor();
 
 		version = extractVersion();
@@ -375,7 +378,7 @@ public class QuestOWL extends OWLReasonerBase implements OntopOWLReasoner {
 	@Override
     public boolean isConsistent() throws ReasonerInterruptedException, TimeOutException {
 		try {
-			return isDisjointAxiomsConsistent() && isFunctionalPropertyAxiomsConsistent();
+			return isAxiomsConsistent();
 		} catch (OWLException e) {
 			throw new ReasonerInterruptedException(e);
 		}
@@ -387,120 +390,82 @@ public class QuestOWL extends OWLReasonerBase implements OntopOWLReasoner {
 		return inconsistent;
 	}
 	
-	private boolean isDisjointAxiomsConsistent() throws ReasonerInterruptedException, TimeOutException, OWLException {
+	/**
+	 * One probe per disjointness and functional axiom, evaluated in batches (see BatchedProbeEvaluator).
+	 *
+	 * The first violated axiom (in the order of the probes) is reported as the inconsistent axiom.
+	 */
+	private boolean isAxiomsConsistent() throws OWLException {
+		List<Object> axioms = new ArrayList<>();
+		List<String> probes = new ArrayList<>();
 
 		//deal with disjoint classes
-		{
-			final String strQueryClass = "ASK {?x a <%s>; a <%s> }";
-			
-			for (NaryAxiom<ClassExpression> dda : translatedOntologyMerge.getDisjointClassesAxioms()) {
-				// TODO: handle complex class expressions and many pairs of disjoint classes
-				Collection<ClassExpression> disj = dda.getComponents();
-				Iterator<ClassExpression> classIterator = disj.iterator();
-				ClassExpression s1 = classIterator.next();
-				ClassExpression s2 = classIterator.next();
-				String strQuery = String.format(strQueryClass, s1, s2);
-				
-				boolean isConsistent = executeConsistencyQuery(strQuery);
-				if (!isConsistent) {
-					inconsistent = dda;
-					return false;
-				}
-			}
+		for (NaryAxiom<ClassExpression> dda : translatedOntologyMerge.getDisjointClassesAxioms()) {
+			// TODO: handle complex class expressions and many pairs of disjoint classes
+			Iterator<ClassExpression> classIterator = dda.getComponents().iterator();
+			ClassExpression s1 = classIterator.next();
+			ClassExpression s2 = classIterator.next();
+			axioms.add(dda);
+			probes.add(String.format("?x a <%s>; a <%s>", s1, s2));
 		}
-		
+
 		//deal with disjoint properties
-		{
-			final String strQueryProp = "ASK {?x <%s> ?y; <%s> ?y }";
-
-			for(NaryAxiom<ObjectPropertyExpression> dda
-						: translatedOntologyMerge.getDisjointObjectPropertiesAxioms()) {		
-				// TODO: handle role inverses and multiple arguments			
-				Collection<ObjectPropertyExpression> props = dda.getComponents();
-				Iterator<ObjectPropertyExpression> iterator = props.iterator();
-				ObjectPropertyExpression p1 = iterator.next();
-				ObjectPropertyExpression p2 = iterator.next();
-				String strQuery = String.format(strQueryProp, p1, p2);
-				
-				boolean isConsistent = executeConsistencyQuery(strQuery);
-				if (!isConsistent) {
-					inconsistent = dda;
-					return false;
-				}
-			}
+		// TODO: handle role inverses and multiple arguments
+		final String strQueryProp = "?x <%s> ?y; <%s> ?y";
+		for (NaryAxiom<ObjectPropertyExpression> dda : translatedOntologyMerge.getDisjointObjectPropertiesAxioms()) {
+			Iterator<ObjectPropertyExpression> iterator = dda.getComponents().iterator();
+			ObjectPropertyExpression p1 = iterator.next();
+			ObjectPropertyExpression p2 = iterator.next();
+			axioms.add(dda);
+			probes.add(String.format(strQueryProp, p1, p2));
 		}
-		
-		{
-			final String strQueryProp = "ASK {?x <%s> ?y; <%s> ?y }";
-
-			for(NaryAxiom<DataPropertyExpression> dda
-						: translatedOntologyMerge.getDisjointDataPropertiesAxioms()) {		
-				// TODO: handle role inverses and multiple arguments			
-				Collection<DataPropertyExpression> props = dda.getComponents();
-				Iterator<DataPropertyExpression> iterator = props.iterator();
-				DataPropertyExpression p1 = iterator.next();
-				DataPropertyExpression p2 = iterator.next();
-				String strQuery = String.format(strQueryProp, p1, p2);
-				
-				boolean isConsistent = executeConsistencyQuery(strQuery);
-				if (!isConsistent) {
-					inconsistent = dda;
-					return false;
-				}
-			}
+		for (NaryAxiom<DataPropertyExpression> dda : translatedOntologyMerge.getDisjointDataPropertiesAxioms()) {
+			Iterator<DataPropertyExpression> iterator = dda.getComponents().iterator();
+			DataPropertyExpression p1 = iterator.next();
+			DataPropertyExpression p2 = iterator.next();
+			axioms.add(dda);
+			probes.add(String.format(strQueryProp, p1, p2));
 		}
-		
-		return true;
-	}
-	
-	private boolean isFunctionalPropertyAxiomsConsistent() throws ReasonerInterruptedException, TimeOutException, OWLException {
-		
-		//deal with functional properties
 
-		final String strQueryFunc = "ASK { ?x <%s> ?y; <%s> ?z. FILTER (?z != ?y) }";
-		
+		//deal with functional properties
+		// TODO: handle inverses
+		final String strQueryFunc = "?x <%s> ?y; <%s> ?z. FILTER (?z != ?y)";
 		for (ObjectPropertyExpression pfa : translatedOntologyMerge.getFunctionalObjectProperties()) {
-			// TODO: handle inverses
-			String propFunc = pfa.getName();
-			String strQuery = String.format(strQueryFunc, propFunc, propFunc);
-			
-			boolean isConsistent = executeConsistencyQuery(strQuery);
-			if (!isConsistent) {
-				inconsistent = pfa;
-				return false;
-			}
+			axioms.add(pfa);
+			probes.add(String.format(strQueryFunc, pfa.getName(), pfa.getName()));
 		}
-		
 		for (DataPropertyExpression pfa : translatedOntologyMerge.getFunctionalDataProperties()) {
-			String propFunc = pfa.getName();
-			String strQuery = String.format(strQueryFunc, propFunc, propFunc);
-			
-			boolean isConsistent = executeConsistencyQuery(strQuery);
-			if (!isConsistent) {
-				inconsistent = pfa;
-				return false;
-			}
+			axioms.add(pfa);
+			probes.add(String.format(strQueryFunc, pfa.getName(), pfa.getName()));
 		}
-		
-		return true;
-	}
-	
-	private boolean executeConsistencyQuery(String strQuery) throws OWLException {
-		try (OntopConnection connection = queryEngine.getConnection();
-			 OntopStatement st = connection.createStatement()) {
-
-			AskQuery query = inputQueryFactory.createAskQuery(strQuery);
-			BooleanResultSet trs = st.execute(query);
-			if (trs != null) {
-				boolean b = trs.getValue();
-				trs.close();
-				if (b)
-					return false;
-			}
-			return true;
-		} catch (Exception e) {
-			throw new OWLException(e);
+
+		BatchedProbeEvaluator evaluator = BatchedProbeEvaluator.forReasoner(this, validationBatchSize,
+				validationParallelism);
+		BatchedProbeEvaluator.ProbeResults results;
+		pm.reasonerTaskStarted("Checking the consistency...");
+		try {
+			results = evaluator.findFirstSatisfied(probes, pm::reasonerTaskProgressChanged);
+		} finally {
+			pm.reasonerTaskStopped();
+		}
+
+		Optional<Integer> firstViolation = results.getSatisfiedProbes().isEmpty()
+				? Optional.empty()
+				: Optional.of(results.getSatisfiedProbes().first());
+
+		// A failed probe before the first violation leaves the result undetermined
+		Optional<OWLException> failure = results.getFailures().entrySet().stream()
+				.filter(e -> (!firstViolation.isPresent()) || e.getKey() < firstViolation.get())
+				.map(Map.Entry::getValue)
+				.findFirst();
+		if (failure.isPresent())
+			throw failure.get();
+
+		if (firstViolation.isPresent()) {
+			inconsistent = axioms.get(firstViolation.get());
+			return false;
 		}
+		return true;
 	}
 
 	@Override
@@ -0,0 +1,267 @@
+package it.unibz.inf.ontop.owlapi.validation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unibz.inf.ontop.owlapi.OntopOWLReasoner;
+import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
+import it.unibz.inf.ontop.owlapi.connection.OWLStatement;
+import it.unibz.inf.ontop.owlapi.exception.OntopOWLException;
+import it.unibz.inf.ontop.owlapi.resultset.OWLBindingSet;
+import it.unibz.inf.ontop.owlapi.resultset.TupleOWLResultSet;
+import org.semanticweb.owlapi.model.OWLException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates many boolean probes (e.g. "has this class an instance?") with few queries.
+ *
+ * A probe is a SPARQL graph pattern (without the enclosing braces).
+ * The probes are grouped into batches of consecutive probes: a batch is one SELECT DISTINCT query
+ * whose UNION branches are tagged with the index of their probe, which is translated
+ * into one UNION ALL SQL query.
+ *
+ * The batches are evaluated concurrently, each one on its own connection
+ * (taken from the connection pool of the reasoner).
+ * When a batch fails, its probes are evaluated one by one, so that the failure is attributed to the right probe.
+ */
+public class BatchedProbeEvaluator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BatchedProbeEvaluator.class);
+    private static final String PROBE_VARIABLE = "probe";
+
+    @FunctionalInterface
+    public interface ProgressListener {
+        /**
+         * Called (never concurrently) each time a batch has been evaluated
+         */
+        void onProgress(int evaluatedProbes, int totalProbes);
+    }
+
+    @FunctionalInterface
+    private interface ConnectionSupplier {
+        OWLConnection get() throws OWLException;
+    }
+
+    private final ConnectionSupplier connectionSupplier;
+    // False when the connection is shared with the caller
+    private final boolean closeConnections;
+    private final int batchSize;
+    private final int parallelism;
+
+    private BatchedProbeEvaluator(ConnectionSupplier connectionSupplier, boolean closeConnections,
+                                  int batchSize, int parallelism) {
+        if (batchSize < 1 || parallelism < 1)
+            throw new IllegalArgumentException("The batch size and the parallelism must be positive");
+        this.connectionSupplier = connectionSupplier;
+        this.closeConnections = closeConnections;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Each batch uses a new connection of the reasoner
+     */
+    public static BatchedProbeEvaluator forReasoner(OntopOWLReasoner reasoner, int batchSize, int parallelism) {
+        return new BatchedProbeEvaluator(reasoner::getConnection, true, batchSize, parallelism);
+    }
+
+    /**
+     * The batches are evaluated sequentially on the given connection, which is not closed
+     */
+    public static BatchedProbeEvaluator forConnection(OWLConnection connection, int batchSize) {
+        return new BatchedProbeEvaluator(() -> connection, false, batchSize, 1);
+    }
+
+    /**
+     * Evaluates all the probes
+     */
+    public ProbeResults evaluate(List<String> probes, ProgressListener listener) throws OWLException {
+        return run(probes, false, listener);
+    }
+
+    /**
+     * Only guarantees to find the satisfied probe with the lowest index: the batches that only contain
+     * probes after an already satisfied one are skipped.
+     */
+    public ProbeResults findFirstSatisfied(List<String> probes, ProgressListener listener) throws OWLException {
+        return run(probes, true, listener);
+    }
+
+    private ProbeResults run(List<String> probes, boolean stopAtFirst, ProgressListener listener)
+            throws OWLException {
+        ProbeCollector collector = new ProbeCollector(probes.size(), stopAtFirst, listener);
+        if (probes.isEmpty())
+            return collector.getResults();
+
+        List<List<Integer>> batches = Lists.partition(
+                IntStream.range(0, probes.size()).boxed().collect(Collectors.toList()),
+                batchSize);
+
+        if (parallelism == 1 || batches.size() == 1) {
+            for (List<Integer> batch : batches)
+                evaluateBatch(probes, batch, collector);
+            return collector.getResults();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, batches.size()),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("ontop-validation-%d")
+                        .setDaemon(true)
+                        .build());
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (List<Integer> batch : batches)
+                futures.add(executor.submit(() -> {
+                    evaluateBatch(probes, batch, collector);
+                    return null;
+                }));
+
+            for (Future<Void> future : futures)
+                future.get();
+            return collector.getResults();
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new OntopOWLException("Interrupted while evaluating the probes");
+        } catch (ExecutionException e) {
+            throw new OntopOWLException(e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void evaluateBatch(List<String> probes, List<Integer> batch, ProbeCollector collector) {
+        if (collector.canSkip(batch.get(0))) {
+            collector.markEvaluated(batch.size());
+            return;
+        }
+
+        try {
+            collector.addSatisfied(executeBatchQuery(probes, batch));
+        } catch (OWLException e) {
+            if (batch.size() == 1) {
+                LOGGER.warn("The probe {} has failed: {}", probes.get(batch.get(0)), e.getMessage());
+                collector.addFailure(batch.get(0), e);
+            }
+            else {
+                LOGGER.debug("Batch of probes failed, evaluating them one by one: {}", e.getMessage());
+                for (Integer index : batch) {
+                    try {
+                        collector.addSatisfied(executeBatchQuery(probes, ImmutableList.of(index)));
+                    } catch (OWLException e1) {
+                        LOGGER.warn("The probe {} has failed: {}", probes.get(index), e1.getMessage());
+                        collector.addFailure(index, e1);
+                    }
+                }
+            }
+        }
+        collector.markEvaluated(batch.size());
+    }
+
+    private Set<Integer> executeBatchQuery(List<String> probes, List<Integer> batch) throws OWLException {
+        String query = buildBatchQuery(probes, batch);
+        Set<Integer> satisfied = new HashSet<>();
+
+        OWLConnection connection = connectionSupplier.get();
+        try (OWLStatement st = connection.createStatement();
+             TupleOWLResultSet rs = st.executeSelectQuery(query)) {
+            while (rs.hasNext()) {
+                OWLBindingSet bindingSet = rs.next();
+                satisfied.add(bindingSet.getOWLLiteral(PROBE_VARIABLE).parseInteger());
+            }
+        } finally {
+            if (closeConnections)
+                connection.close();
+        }
+        return satisfied;
+    }
+
+    /**
+     * SELECT DISTINCT ?probe WHERE { { P_i BIND(i AS ?probe) } UNION { P_j BIND(j AS ?probe) } ... } LIMIT n
+     *
+     * The LIMIT (the number of probes) lets the database stop as soon as every probe has a solution,
+     * and one solution is enough for a single probe. A LIMIT inside a UNION branch would be applied
+     * to the whole query by the SPARQL translator.
+     */
+    static String buildBatchQuery(List<String> probes, List<Integer> batch) {
+        return batch.stream()
+                .map(i -> "{ " + probes.get(i) + " BIND(" + i + " AS ?" + PROBE_VARIABLE + ") }")
+                .collect(Collectors.joining("\n UNION ",
+                        "SELECT DISTINCT ?" + PROBE_VARIABLE + " WHERE {\n ", "\n}\nLIMIT " + batch.size()));
+    }
+
+
+    /**
+     * Thread-safe accumulator of the results of the batches
+     */
+    private static class ProbeCollector {
+        private final int totalProbes;
+        private final boolean stopAtFirst;
+        private final ProgressListener listener;
+
+        private final SortedSet<Integer> satisfied = new TreeSet<>();
+        private final Map<Integer, OWLException> failures = new TreeMap<>();
+        private int evaluatedProbes = 0;
+
+        ProbeCollector(int totalProbes, boolean stopAtFirst, ProgressListener listener) {
+            this.totalProbes = totalProbes;
+            this.stopAtFirst = stopAtFirst;
+            this.listener = listener;
+        }
+
+        synchronized boolean canSkip(int firstIndex) {
+            return stopAtFirst && (!satisfied.isEmpty()) && satisfied.first() < firstIndex;
+        }
+
+        synchronized void addSatisfied(Set<Integer> indexes) {
+            satisfied.addAll(indexes);
+        }
+
+        synchronized void addFailure(int index, OWLException exception) {
+            failures.put(index, exception);
+        }
+
+        synchronized void markEvaluated(int count) {
+            evaluatedProbes += count;
+            listener.onProgress(evaluatedProbes, totalProbes);
+        }
+
+        synchronized ProbeResults getResults() {
+            return new ProbeResults(ImmutableSortedSet.copyOf(satisfied), ImmutableMap.copyOf(failures));
+        }
+    }
+
+
+    public static class ProbeResults {
+        private final ImmutableSortedSet<Integer> satisfiedProbes;
+        private final ImmutableMap<Integer, OWLException> failures;
+
+        private ProbeResults(ImmutableSortedSet<Integer> satisfiedProbes,
+                             ImmutableMap<Integer, OWLException> failures) {
+            this.satisfiedProbes = satisfiedProbes;
+            this.failures = failures;
+        }
+
+        /**
+         * Indexes of the probes having at least one solution
+         */
+        public ImmutableSortedSet<Integer> getSatisfiedProbes() {
+            return satisfiedProbes;
+        }
+
+        /**
+         * Indexes of the probes that could not be evaluated (sorted)
+         */
+        public ImmutableMap<Integer, OWLException> getFailures() {
+            return failures;
+        }
+    }
+}
@@ -20,54 +20,133 @@ package it.unibz.inf.ontop.owlapi.validation;
  * #L%
  */
 
+import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+import it.unibz.inf.ontop.owlapi.OntopOWLReasoner;
 import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
-import it.unibz.inf.ontop.owlapi.connection.OWLStatement;
-import it.unibz.inf.ontop.owlapi.resultset.TupleOWLResultSet;
 import it.unibz.inf.ontop.spec.ontology.DataPropertyExpression;
 import it.unibz.inf.ontop.spec.ontology.OClass;
 import it.unibz.inf.ontop.spec.ontology.ObjectPropertyExpression;
 import it.unibz.inf.ontop.spec.ontology.Ontology;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 import org.semanticweb.owlapi.model.OWLException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 /**
  * Return empty concepts and roles, based on the mappings. Given an ontology,
  * which is connected to a database via mappings, generate a suitable set of
  * queries that test if there are empty concepts, concepts that are no populated
  * to anything.
+ *
+ * The emptiness probes are evaluated in batches (see BatchedProbeEvaluator),
+ * when the iterator of the concepts (roles) is requested.
+ * An entity whose probe fails is not reported as empty.
  */
 public class QuestOWLEmptyEntitiesChecker {
 
-	private Ontology onto;
-	private OWLConnection conn;
+	public static final int DEFAULT_BATCH_SIZE = 100;
+
+	private static final String CONCEPT_PROBE = "?x a <%s>";
+	private static final String ROLE_PROBE = "?x <%s> ?y";
+
+	private static final Logger log = LoggerFactory.getLogger(QuestOWLEmptyEntitiesChecker.class);
+
+	private final Ontology onto;
+	private final BatchedProbeEvaluator evaluator;
+
+	private BatchedProbeEvaluator.ProgressListener progressListener = (evaluated, total) -> { };
 
 	private int nEmptyConcepts = 0;
 	private int nEmptyRoles = 0;
 
 
 	/**
-	 * Generate SPARQL queries to check if there are instances for each concept and role in the ontology
+	 * Generate SPARQL queries to check if there are instances for each concept and role in the ontology.
+	 * The queries are evaluated sequentially on the given connection.
 	 *
 	 * @param translatedOntologyMerge the OWLAPI ontology, conn QuestOWL connection
 	 * @throws Exception
 	 */
 	public QuestOWLEmptyEntitiesChecker(Ontology translatedOntologyMerge, OWLConnection conn) throws Exception {
 		this.onto = translatedOntologyMerge;
-		this.conn = conn;
+		this.evaluator = BatchedProbeEvaluator.forConnection(conn, DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * The queries are evaluated concurrently, each one on a new connection of the reasoner.
+	 *
+	 * @param batchSize maximal number of entities checked by one query
+	 * @param parallelism number of queries evaluated concurrently
+	 */
+	public QuestOWLEmptyEntitiesChecker(Ontology translatedOntologyMerge, OntopOWLReasoner reasoner,
+										int batchSize, int parallelism) {
+		this.onto = translatedOntologyMerge;
+		this.evaluator = BatchedProbeEvaluator.forReasoner(reasoner, batchSize, parallelism);
+	}
 
+	/**
+	 * Notified after each evaluated query
+	 */
+	public void setProgressListener(BatchedProbeEvaluator.ProgressListener progressListener) {
+		this.progressListener = progressListener;
 	}
 
 	public Iterator<Predicate> iEmptyConcepts() {
-		return new EmptyEntitiesIterator( onto.getVocabulary().getClasses().iterator(), conn);
+		List<Predicate> concepts = onto.getVocabulary().getClasses().stream()
+				.filter(c -> !c.isTop() && !c.isBottom())
+				.map(OClass::getPredicate)
+				.collect(Collectors.toList());
+
+		List<Predicate> emptyConcepts = findEmptyEntities(concepts, CONCEPT_PROBE);
+		log.debug("No more empty concepts");
+		nEmptyConcepts = emptyConcepts.size();
+		return emptyConcepts.iterator();
 	}
 
 
 	public Iterator<Predicate> iEmptyRoles() {
-		return new EmptyEntitiesIterator(onto.getVocabulary().getObjectProperties().iterator(), onto.getVocabulary().getDataProperties().iterator(), conn);
+		List<Predicate> roles = Stream.concat(
+				onto.getVocabulary().getObjectProperties().stream()
+						.filter(p -> !p.isTop() && !p.isBottom())
+						.map(ObjectPropertyExpression::getPredicate),
+				onto.getVocabulary().getDataProperties().stream()
+						.filter(p -> !p.isTop() && !p.isBottom())
+						.map(DataPropertyExpression::getPredicate))
+				.collect(Collectors.toList());
+
+		List<Predicate> emptyRoles = findEmptyEntities(roles, ROLE_PROBE);
+		log.debug("No more empty roles");
+		nEmptyRoles = emptyRoles.size();
+		return emptyRoles.iterator();
+	}
+
+	private List<Predicate> findEmptyEntities(List<Predicate> entities, String probeTemplate) {
+		List<String> probes = entities.stream()
+				.map(p -> String.format(probeTemplate, p.toString()))
+				.collect(Collectors.toList());
+
+		BatchedProbeEvaluator.ProbeResults results;
+		try {
+			results = evaluator.evaluate(probes, progressListener);
+		} catch (OWLException e) {
+			log.error("Cannot check the empty entities: " + e.getMessage());
+			return ImmutableList.of();
+		}
+
+		ImmutableList<Predicate> emptyEntities = IntStream.range(0, entities.size())
+				.filter(i -> !results.getSatisfiedProbes().contains(i))
+				.filter(i -> !results.getFailures().containsKey(i))
+				.mapToObj(entities::get)
+				.collect(ImmutableCollectors.toList());
+		emptyEntities.forEach(e -> log.debug("Empty " + e));
+		return emptyEntities;
 	}
 
 	public int getEConceptsSize() {
@@ -88,191 +167,4 @@ public class QuestOWLEmptyEntitiesChecker {
 		str += String.format("- %s Empty %s\n", nEmptyRoles, (nEmptyRoles == 1) ? "role" : "roles");
 		return str;
 	}
-
-
-	/***
-	 * An iterator that will dynamically construct ABox assertions for the given
-	 * predicate based on the results of executing the mappings for the
-	 * predicate in each data source.
-	 *
-	 */
-	private class EmptyEntitiesIterator implements Iterator<Predicate> {
-
-
-		private String queryConcepts = "SELECT ?x WHERE {?x a <%s>.} LIMIT 1";
-		private String queryRoles = "SELECT * WHERE {?x <%s> ?y.} LIMIT 1";
-
-		private OWLConnection questConn;
-		private boolean hasNext = false;
-		private Predicate nextConcept;
-
-		Iterator<OClass> classIterator;
-		Iterator<ObjectPropertyExpression> objectRoleIterator;
-		Iterator<DataPropertyExpression> dataRoleIterator;
-
-		private Logger log = LoggerFactory.getLogger(EmptyEntitiesIterator.class);
-
-		/** iterator for classes  of the ontologies */
-		public EmptyEntitiesIterator(Iterator<OClass> classIterator, OWLConnection questConn) {
-
-			this.questConn = questConn;
-
-			this.classIterator = classIterator;
-
-			this.objectRoleIterator = new Iterator<ObjectPropertyExpression>() {
-				@Override
-				public boolean hasNext() {
-					return false;
-				}
-
-				@Override
-				public ObjectPropertyExpression next() {
-					return null;
-				}
-			};
-
-			this.dataRoleIterator = new Iterator<DataPropertyExpression>() {
-				@Override
-				public boolean hasNext() {
-					return false;
-				}
-
-				@Override
-				public DataPropertyExpression next() {
-					return null;
-				}
-			};
-		}
-
-		/** iterator for roles of the ontologies */
-		public EmptyEntitiesIterator(Iterator<ObjectPropertyExpression> objectRoleIterator, Iterator<DataPropertyExpression> dataRoleIterator, OWLConnection questConn) {
-
-			this.questConn = questConn;
-
-			this.classIterator = new Iterator<OClass>() {
-				@Override
-				public boolean hasNext() {
-					return false;
-				}
-
-				@Override
-				public OClass next() {
-					return null;
-				}
-			};
-
-			this.objectRoleIterator = objectRoleIterator;
-
-			this.dataRoleIterator = dataRoleIterator;
-
-		}
-
-		private String getPredicateQuery(Predicate p) {
-			return String.format(queryRoles, p.toString()); }
-
-		private String getClassQuery(Predicate p) {
-			return String.format(queryConcepts, p.toString()); }
-
-		private String getQuery(Predicate p)
-		{
-			if (p.getArity() == 1)
-				return getClassQuery(p);
-			else if (p.getArity() == 2)
-				return getPredicateQuery(p);
-			return "";
-		}
-
-		@Override
-		public boolean hasNext() {
-			while (classIterator.hasNext()){
-				OClass next = classIterator.next();
-				if (!next.isTop() && !next.isBottom()) {
-					Predicate entity = next.getPredicate();
-					if (nextEmptyEntity(entity)) {
-						nEmptyConcepts++;
-						return hasNext;
-					}
-				}
-
-			}
-			log.debug( "No more empty concepts" );
-
-			while (objectRoleIterator.hasNext()){
-				ObjectPropertyExpression next = objectRoleIterator.next();
-				if (!next.isTop() && !next.isBottom()) {
-					Predicate entity = next.getPredicate();
-					if (nextEmptyEntity(entity)) {
-						nEmptyRoles++;
-						return hasNext;
-					}
-				}
-			}
-			log.debug( "No more empty object roles" );
-
-			while (dataRoleIterator.hasNext()){
-				DataPropertyExpression next = dataRoleIterator.next();
-				if (!next.isTop() && !next.isBottom()) {
-					Predicate entity = next.getPredicate();
-					if (nextEmptyEntity(entity)) {
-						nEmptyRoles++;
-						return hasNext;
-					}
-				}
-
-			}
-			log.debug( "No more empty data roles" );
-			hasNext = false;
-
-			return hasNext;
-		}
-
-		private boolean nextEmptyEntity(Predicate entity) {
-
-			String query =getQuery(entity);
-
-			//execute next query
-			try (OWLStatement stm = questConn.createStatement()){
-
-				try (TupleOWLResultSet rs = stm.executeSelectQuery(query)) {
-
-					if (!rs.hasNext()) {
-
-						nextConcept = entity;
-						log.debug( "Empty " + entity );
-
-						hasNext = true;
-						return true;
-
-					}
-
-					return false;
-
-				}
-			} catch (OWLException e) {
-				e.printStackTrace();
-			}
-
-			return false;
-		}
-
-		@Override
-		public Predicate next() {
-
-			if(hasNext) {
-				return nextConcept;
-			}
-
-			return null;
-
-
-		}
-
-
-		@Override
-		public void remove() {
-			throw new UnsupportedOperationException();
-		}
-	}
-
 }
-
@@ -186,6 +186,32 @@ public class QuestOWLEmptyEntitiesCheckerTest {
 
 	}
 
+	/**
+	 * Small batches evaluated concurrently on new connections
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testEmptyEntitiesInParallel() throws Exception {
+		QuestOWLEmptyEntitiesChecker empties = new QuestOWLEmptyEntitiesChecker(onto, reasoner, 2, 3);
+		List<Integer> progress = new ArrayList<>();
+		empties.setProgressListener((evaluated, total) -> progress.add(total - evaluated));
+
+		Iterator<Predicate> conceptIterator = empties.iEmptyConcepts();
+		while (conceptIterator.hasNext()){
+			emptyConcepts.add(conceptIterator.next());
+		}
+		assertEquals(1, emptyConcepts.size());
+		assertEquals(0, (int) progress.get(progress.size() - 1));
+
+		Iterator<Predicate> roleIterator = empties.iEmptyRoles();
+		while (roleIterator.hasNext()){
+			emptyRoles.add(roleIterator.next());
+		}
+		assertEquals(2, emptyRoles.size());
+		assertEquals(0, (int) progress.get(progress.size() - 1));
+	}
+
 
 
 }
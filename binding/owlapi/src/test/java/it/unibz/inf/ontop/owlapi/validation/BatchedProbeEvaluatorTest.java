@@ -0,0 +1,221 @@
+package it.unibz.inf.ontop.owlapi.validation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.owlapi.OntopOWLFactory;
+import it.unibz.inf.ontop.owlapi.OntopOWLReasoner;
+import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
+import it.unibz.inf.ontop.spec.ontology.ClassExpression;
+import it.unibz.inf.ontop.spec.ontology.NaryAxiom;
+import it.unibz.inf.ontop.spec.ontology.OClass;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Probes evaluated in batches over the "empties" database:
+ * two clients (a man and a woman), a big and a small company
+ */
+public class BatchedProbeEvaluatorTest {
+
+	private static final String OWL_FILE = "src/test/resources/test/emptiesDatabase.owl";
+	private static final String OBDA_FILE = "src/test/resources/test/emptiesDatabase.obda";
+	private static final String CREATE_DB_FILE = "src/test/resources/test/emptiesDatabase-h2.sql";
+	private static final String DROP_DB_FILE = "src/test/resources/test/emptiesDatabase-drop-h2.sql";
+	private static final String URL = "jdbc:h2:mem:batchedprobes";
+	private static final String USER = "sa";
+	private static final String PASSWORD = "";
+	private static final String NS = "http://www.semanticweb.org/smallDatabase#";
+
+	private static final String CLIENT_PROBE = "?x a <" + NS + "Client>";
+	private static final String FAIRTRADE_PROBE = "?x a <" + NS + "Fairtrade>";
+	private static final String MAN_PROBE = "?x a <" + NS + "Man>";
+	// Not a valid graph pattern
+	private static final String FAILING_PROBE = "?x a <" + NS;
+
+	private Connection connection;
+	private final List<OntopOWLReasoner> reasoners = new ArrayList<>();
+
+	@Before
+	public void setUp() throws Exception {
+		connection = DriverManager.getConnection(URL, USER, PASSWORD);
+		executeFile(CREATE_DB_FILE);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		for (OntopOWLReasoner reasoner : reasoners)
+			reasoner.dispose();
+		executeFile(DROP_DB_FILE);
+		connection.close();
+	}
+
+	@Test
+	public void testBatchQuery() {
+		assertEquals("SELECT DISTINCT ?probe WHERE {\n" +
+						" { ?x a <a> BIND(0 AS ?probe) }\n" +
+						" UNION { ?x a <b> BIND(1 AS ?probe) }\n" +
+						"}\n" +
+						"LIMIT 2",
+				BatchedProbeEvaluator.buildBatchQuery(ImmutableList.of("?x a <a>", "?x a <b>"),
+						ImmutableList.of(0, 1)));
+		// One solution is enough for a single probe
+		assertTrue(BatchedProbeEvaluator.buildBatchQuery(ImmutableList.of("?x a <a>", "?x a <b>"),
+				ImmutableList.of(1)).endsWith("\nLIMIT 1"));
+	}
+
+	@Test
+	public void testEvaluate() throws Exception {
+		List<String> probes = ImmutableList.of(FAIRTRADE_PROBE, CLIENT_PROBE, FAIRTRADE_PROBE, MAN_PROBE,
+				FAIRTRADE_PROBE);
+		List<Integer> progress = new ArrayList<>();
+
+		BatchedProbeEvaluator.ProbeResults results = BatchedProbeEvaluator.forReasoner(createReasoner(), 2, 3)
+				.evaluate(probes, (evaluated, total) -> progress.add(total - evaluated));
+
+		assertEquals(ImmutableSortedSet.of(1, 3), results.getSatisfiedProbes());
+		assertTrue(results.getFailures().isEmpty());
+		assertEquals(3, progress.size());
+		assertEquals(0, (int) progress.get(progress.size() - 1));
+	}
+
+	/**
+	 * The batch fails as a whole: its probes are evaluated one by one and only the failing one is reported
+	 */
+	@Test
+	public void testFallbackAfterFailedBatch() throws Exception {
+		List<String> probes = ImmutableList.of(CLIENT_PROBE, FAILING_PROBE, FAIRTRADE_PROBE, MAN_PROBE);
+		OWLConnection owlConnection = createReasoner().getConnection();
+
+		BatchedProbeEvaluator.ProbeResults results = BatchedProbeEvaluator.forConnection(owlConnection, 4)
+				.evaluate(probes, (evaluated, total) -> { });
+
+		assertEquals(ImmutableSortedSet.of(0, 3), results.getSatisfiedProbes());
+		assertEquals(ImmutableSet.of(1), results.getFailures().keySet());
+		// The connection of the caller is not closed
+		assertFalse(owlConnection.isClosed());
+		owlConnection.close();
+	}
+
+	/**
+	 * The batches after the first satisfied probe are skipped (the failing probe is never evaluated),
+	 * but still counted in the progress
+	 */
+	@Test
+	public void testFindFirstSatisfied() throws Exception {
+		List<String> probes = ImmutableList.of(FAIRTRADE_PROBE, CLIENT_PROBE, FAILING_PROBE, MAN_PROBE);
+		List<Integer> progress = new ArrayList<>();
+		OWLConnection owlConnection = createReasoner().getConnection();
+
+		BatchedProbeEvaluator.ProbeResults results = BatchedProbeEvaluator.forConnection(owlConnection, 1)
+				.findFirstSatisfied(probes, (evaluated, total) -> progress.add(evaluated));
+		owlConnection.close();
+
+		assertEquals(ImmutableSortedSet.of(1), results.getSatisfiedProbes());
+		assertTrue(results.getFailures().isEmpty());
+		assertEquals(ImmutableList.of(1, 2, 3, 4), progress);
+	}
+
+	/**
+	 * Several disjointness axioms, in batches of 2 evaluated concurrently
+	 */
+	@Test
+	public void testConsistent() throws Exception {
+		OntopOWLReasoner reasoner = createReasoner(
+				ImmutableList.of("Man", "Woman"),
+				ImmutableList.of("BigBusiness", "SmallBusiness"),
+				ImmutableList.of("Address", "Client"),
+				ImmutableList.of("Company", "Client"));
+
+		assertTrue(reasoner.isConsistent());
+	}
+
+	@Test
+	public void testInconsistent() throws Exception {
+		OntopOWLReasoner reasoner = createReasoner(
+				ImmutableList.of("Man", "Woman"),
+				ImmutableList.of("BigBusiness", "SmallBusiness"),
+				ImmutableList.of("Address", "Client"),
+				ImmutableList.of("Man", "Client"),
+				ImmutableList.of("Company", "Client"));
+
+		assertFalse(reasoner.isConsistent());
+
+		// The only violated axiom
+		@SuppressWarnings("unchecked")
+		NaryAxiom<ClassExpression> axiom = (NaryAxiom<ClassExpression>) reasoner.getInconsistentAxiom();
+		List<String> names = new ArrayList<>();
+		for (ClassExpression component : axiom.getComponents())
+			names.add(((OClass) component).getName());
+		assertEquals(ImmutableSet.of(NS + "Man", NS + "Client"), ImmutableSet.copyOf(names));
+	}
+
+	/**
+	 * Each list is a pair of disjoint classes. Batches of 2 probes, evaluated by 2 threads.
+	 */
+	@SafeVarargs
+	private final OntopOWLReasoner createReasoner(List<String>... disjointClasses) throws Exception {
+		OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+		OWLOntology ontology = manager.loadOntologyFromOntologyDocument(new File(OWL_FILE));
+		OWLDataFactory dataFactory = manager.getOWLDataFactory();
+		for (List<String> pair : disjointClasses) {
+			OWLClass c1 = dataFactory.getOWLClass(IRI.create(NS + pair.get(0)));
+			OWLClass c2 = dataFactory.getOWLClass(IRI.create(NS + pair.get(1)));
+			manager.addAxiom(ontology, dataFactory.getOWLDisjointClassesAxiom(c1, c2));
+		}
+
+		Properties properties = new Properties();
+		properties.setProperty(OntopSystemSettings.VALIDATION_BATCH_SIZE, "2");
+		properties.setProperty(OntopSystemSettings.VALIDATION_PARALLELISM, "2");
+
+		OntopSQLOWLAPIConfiguration config = OntopSQLOWLAPIConfiguration.defaultBuilder()
+				.nativeOntopMappingFile(OBDA_FILE)
+				.ontology(ontology)
+				.jdbcUrl(URL)
+				.jdbcUser(USER)
+				.jdbcPassword(PASSWORD)
+				.properties(properties)
+				.enableTestMode()
+				.build();
+		OntopOWLReasoner reasoner = OntopOWLFactory.defaultFactory().createReasoner(config);
+		reasoners.add(reasoner);
+		return reasoner;
+	}
+
+	private void executeFile(String file) throws Exception {
+		try (Statement st = connection.createStatement();
+			 BufferedReader in = new BufferedReader(new FileReader(file))) {
+			StringBuilder bf = new StringBuilder();
+			String line = in.readLine();
+			while (line != null) {
+				bf.append(line);
+				line = in.readLine();
+			}
+			st.executeUpdate(bf.toString());
+		}
+		connection.commit();
+	}
+}
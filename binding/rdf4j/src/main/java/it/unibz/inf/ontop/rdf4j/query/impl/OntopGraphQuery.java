@@ -23,22 +23,15 @@ package it.unibz.inf.ontop.rdf4j.query.impl;
 import it.unibz.inf.ontop.answering.reformulation.input.GraphSPARQLQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JInputQueryFactory;
 import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
-import it.unibz.inf.ontop.spec.ontology.Assertion;
 
 import java.util.HashMap;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
 
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
 import it.unibz.inf.ontop.answering.reformulation.input.SPARQLQueryUtility;
-import it.unibz.inf.ontop.rdf4j.utils.RDF4JHelper;
-import org.eclipse.rdf4j.model.Statement;
 import org.eclipse.rdf4j.query.GraphQuery;
 import org.eclipse.rdf4j.query.GraphQueryResult;
 import org.eclipse.rdf4j.query.QueryEvaluationException;
-import org.eclipse.rdf4j.query.algebra.evaluation.iterator.CollectionIteration;
 import org.eclipse.rdf4j.query.impl.GraphQueryResultImpl;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.rio.RDFHandler;
@@ -59,46 +52,45 @@ public class OntopGraphQuery extends AbstractOntopQuery implements GraphQuery {
 		this.inputQueryFactory = inputQueryFactory;
 	}
 
-	private Statement createStatement(Assertion assertion) {
-
-		Statement stm = RDF4JHelper.createStatement(assertion);
-		if (stm.getSubject()!=null && stm.getPredicate()!=null && stm.getObject()!=null)
-			return stm;
-		else 
-			return null;
-	}
-
+	/**
+	 * Streams the statements: the JDBC cursor is consumed row by row
+	 * and the Ontop statement is closed when the result is exhausted or closed.
+	 */
     @Override
 	public GraphQueryResult evaluate() throws QueryEvaluationException {
 		ParsedQuery parsedQuery = getParsedQuery();
 		GraphSPARQLQuery query = isConstruct
 				? inputQueryFactory.createConstructQuery(getQueryString(), parsedQuery)
 				: inputQueryFactory.createDescribeQuery(getQueryString(), parsedQuery);
-		try (
-				OntopStatement stm = conn.createStatement();
-				SimpleGraphResultSet res = stm.execute(query)
-		){
-			
-			Map<String, String> namespaces = new HashMap<>();
-			List<Statement> results = new LinkedList<>();
-			if (res != null) {
-				while (res.hasNext()) {
-					Assertion as = res.next();
-					Statement st = createStatement(as);
-					if (st!=null)
-						results.add(st);
-				}
-			}
-			
-			//return new GraphQueryResultImpl(namespaces, results.iterator());
-            return new GraphQueryResultImpl(namespaces, new CollectionIteration<>(results));
-			
+		OntopStatement stm = null;
+		try {
+			stm = conn.createStatement();
+			if (this.queryTimeout > 0)
+				stm.setQueryTimeout(this.queryTimeout);
+			SimpleGraphResultSet res = stm.execute(query);
+
+			return new GraphQueryResultImpl(new HashMap<>(), new OntopGraphQueryIteration(stm, res));
+
 		} catch (Exception e) {
+			closeQuietly(stm);
 			throw new QueryEvaluationException(e);
 		}
 	}
 
-        @Override
+	private static void closeQuietly(OntopStatement stm) {
+		if (stm == null)
+			return;
+		try {
+			stm.close();
+		} catch (Exception e) {
+			// ignored: the evaluation exception is more relevant
+		}
+	}
+
+	/**
+	 * Pushes the statements to the handler as they are produced (constant memory).
+	 */
+    @Override
 	public void evaluate(RDFHandler handler) throws QueryEvaluationException,
 			RDFHandlerException {
 		try(GraphQueryResult result =  evaluate()) {
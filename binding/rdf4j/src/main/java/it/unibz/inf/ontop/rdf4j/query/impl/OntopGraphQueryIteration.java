@@ -0,0 +1,71 @@
+package it.unibz.inf.ontop.rdf4j.query.impl;
+
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopResultConversionException;
+import it.unibz.inf.ontop.rdf4j.utils.RDF4JHelper;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
+import org.eclipse.rdf4j.common.iteration.LookAheadIteration;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.query.QueryEvaluationException;
+
+/**
+ * Lazily converts the assertions of a graph result set into RDF4J statements.
+ *
+ * Rows are pulled from the underlying result set on demand.
+ * The result set and its Ontop statement are closed once the iteration
+ * is exhausted or explicitly closed.
+ */
+class OntopGraphQueryIteration extends LookAheadIteration<Statement, QueryEvaluationException> {
+
+    private final OntopStatement statement;
+    private final SimpleGraphResultSet resultSet;
+
+    /**
+     * The result set may be null (no result)
+     */
+    OntopGraphQueryIteration(OntopStatement statement, SimpleGraphResultSet resultSet) {
+        this.statement = statement;
+        this.resultSet = resultSet;
+    }
+
+    @Override
+    protected Statement getNextElement() throws QueryEvaluationException {
+        if (resultSet == null)
+            return null;
+        try {
+            while (resultSet.hasNext()) {
+                Statement statement = createStatement(resultSet.next());
+                if (statement != null)
+                    return statement;
+            }
+            return null;
+        } catch (OntopConnectionException | OntopResultConversionException e) {
+            throw new QueryEvaluationException(e);
+        }
+    }
+
+    private static Statement createStatement(Assertion assertion) {
+        Statement stm = RDF4JHelper.createStatement(assertion);
+        if (stm.getSubject()!=null && stm.getPredicate()!=null && stm.getObject()!=null)
+            return stm;
+        else
+            return null;
+    }
+
+    @Override
+    protected void handleClose() throws QueryEvaluationException {
+        try {
+            super.handleClose();
+        } finally {
+            try {
+                if (resultSet != null)
+                    resultSet.close();
+                statement.close();
+            } catch (Exception e) {
+                throw new QueryEvaluationException(e);
+            }
+        }
+    }
+}
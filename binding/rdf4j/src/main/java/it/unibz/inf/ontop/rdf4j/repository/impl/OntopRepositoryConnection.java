@@ -21,16 +21,19 @@ package it.unibz.inf.ontop.rdf4j.repository.impl;
  */
 
 import it.unibz.inf.ontop.answering.reformulation.input.RDF4JInputQueryFactory;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
 import it.unibz.inf.ontop.rdf4j.query.impl.OntopBooleanQuery;
 import it.unibz.inf.ontop.rdf4j.query.impl.OntopGraphQuery;
 import it.unibz.inf.ontop.rdf4j.query.impl.OntopTupleQuery;
 import it.unibz.inf.ontop.rdf4j.repository.OntopRepository;
 import org.eclipse.rdf4j.IsolationLevel;
 import org.eclipse.rdf4j.IsolationLevels;
-import org.eclipse.rdf4j.common.iteration.CloseableIteration;
 import org.eclipse.rdf4j.common.iteration.CloseableIteratorIteration;
+import org.eclipse.rdf4j.common.iteration.EmptyIteration;
+import org.eclipse.rdf4j.common.iteration.ExceptionConvertingIteration;
 import org.eclipse.rdf4j.model.*;
 import org.eclipse.rdf4j.model.impl.NamespaceImpl;
 import org.eclipse.rdf4j.model.impl.ValueFactoryImpl;
@@ -40,6 +43,7 @@ import org.eclipse.rdf4j.repository.Repository;
 import org.eclipse.rdf4j.repository.RepositoryException;
 import org.eclipse.rdf4j.repository.RepositoryResult;
 import org.eclipse.rdf4j.rio.*;
+import org.eclipse.rdf4j.rio.ntriples.NTriplesUtil;
 
 import java.io.*;
 import java.net.URL;
@@ -175,12 +179,14 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
 
         handler.startRDF();
         // handle
-        if (stms != null) {
+        try {
             while (stms.hasNext()) {
                 Statement st = stms.next();
                 if (st != null)
                     handler.handleStatement(st);
             }
+        } finally {
+            stms.close();
         }
         handler.endRDF();
 
@@ -231,6 +237,10 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
 		return this.repository;
 	}
 
+	/**
+	 * Streams the matching statements from the DB cursor:
+	 * the RepositoryResult must be closed (or exhausted) to release the underlying statement.
+	 */
 	@Override
     public RepositoryResult<Statement> getStatements(Resource subj, org.eclipse.rdf4j.model.IRI pred,
                                                      Value obj, boolean includeInferred, Resource... contexts)
@@ -238,53 +248,24 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
 		//Gets all statements with a specific subject, 
 		//predicate and/or object from the repository.
 		//The result is optionally restricted to the specified set of named contexts. 
-		
-		//construct query for it
-		String queryString = "CONSTRUCT {";
-		String s="", p="", o="";
-		if (subj == null)
-			s = "?s ";
-		else {		
-			s = subj.toString();
-			if (subj instanceof IRI) {
-				s = "<" + s + ">";
-			}
-		}
-		
-		if (pred == null)
-			p = " ?p ";
-		else 
-			p = "<" + pred.stringValue()  + ">";
-		if (obj == null)
-			o = " ?o ";
-		else {
-			if (obj instanceof IRI) {
-				o = "<" + obj.stringValue() + ">";
-			} else {
-				o = obj.stringValue();
-			}
-		}
-		queryString+= s+p+o+"} WHERE {"+s+p+o+"}";	
-		
+
+		if (!isDefaultGraphOnly(contexts))
+			return new RepositoryResult<>(new EmptyIteration<>());
+
+		String triplePattern = getTriplePattern(subj, pred, obj);
+		String queryString = "CONSTRUCT { " + triplePattern + " } WHERE { " + triplePattern + " }";
+
 		//execute construct query
 		try {
-			List<Statement> list = new LinkedList<Statement>();
-			
-			if (contexts.length == 0 || (contexts.length > 0 && contexts[0] == null)) {
-					GraphQuery query = prepareGraphQuery(QueryLanguage.SPARQL,
-							queryString);
-					GraphQueryResult result = query.evaluate();
-
-					// System.out.println("result: "+result.hasNext());
-					while (result.hasNext())
-						list.add(result.next());
-					// result.close();
-			}
-			CloseableIteration<Statement, RepositoryException> iter = new CloseableIteratorIteration<Statement, RepositoryException>(
-					list.iterator());
-			RepositoryResult<Statement> repoResult = new RepositoryResult<Statement>(iter);
-
-			return repoResult;
+			GraphQuery query = prepareGraphQuery(QueryLanguage.SPARQL, queryString);
+			GraphQueryResult result = query.evaluate();
+
+			return new RepositoryResult<>(new ExceptionConvertingIteration<Statement, RepositoryException>(result) {
+				@Override
+				protected RepositoryException convert(Exception e) {
+					return new RepositoryException(e);
+				}
+			});
 		} catch (MalformedQueryException e) {
 			throw new RepositoryException(e);
 
@@ -294,6 +275,23 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
 		}
 	}
 
+	/**
+	 * Only the default graph is supported
+	 */
+	private static boolean isDefaultGraphOnly(Resource... contexts) {
+		return contexts.length == 0 || (contexts.length > 0 && contexts[0] == null);
+	}
+
+	/**
+	 * Unbound positions become the variables ?s, ?p and ?o
+	 */
+	private static String getTriplePattern(Resource subj, org.eclipse.rdf4j.model.IRI pred, Value obj) {
+		String s = (subj == null) ? "?s" : NTriplesUtil.toNTriplesString(subj);
+		String p = (pred == null) ? "?p" : NTriplesUtil.toNTriplesString(pred);
+		String o = (obj == null) ? "?o" : NTriplesUtil.toNTriplesString(obj);
+		return s + " " + p + " " + o;
+	}
+
 	@Override
     public ValueFactory getValueFactory() {
 		//Gets a ValueFactory for this OntopRepositoryConnection.
@@ -309,21 +307,24 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
                 .getObject(), includeInferred, contexts);
 	}
 
+	/**
+	 * Evaluated as an ASK query: the matching statements are not retrieved.
+	 */
 	@Override
     public boolean hasStatement(Resource subj, org.eclipse.rdf4j.model.IRI pred, Value obj,
                                 boolean includeInferred, Resource... contexts) throws RepositoryException {
 		//Checks whether the repository contains statements with a specific subject, 
 		//predicate and/or object, optionally in the specified contexts. 
-		    RepositoryResult<Statement> stIter = getStatements(subj, pred,
-                     obj, includeInferred, contexts);
-             try {
-                 return stIter.hasNext();
-             } finally {
-                 stIter.close();
-             }
-         }
-
+		if (!isDefaultGraphOnly(contexts))
+			return false;
 
+		String queryString = "ASK { " + getTriplePattern(subj, pred, obj) + " }";
+		try {
+			return prepareBooleanQuery(QueryLanguage.SPARQL, queryString).evaluate();
+		} catch (MalformedQueryException | QueryEvaluationException e) {
+			throw new RepositoryException(e);
+		}
+	}
 
 	@Override
     public boolean isAutoCommit() throws RepositoryException {
@@ -556,7 +557,17 @@ public class OntopRepositoryConnection implements org.eclipse.rdf4j.repository.R
 	@Override
     public long size(Resource... contexts) throws RepositoryException {
 		//Returns the number of (explicit) statements that are in the specified contexts in this repository. 
-		return 0;
+		if (!isDefaultGraphOnly(contexts))
+			return 0;
+
+		// The count is computed by the DB (a triple may be produced by several mapping assertions)
+		String queryString = "SELECT DISTINCT * WHERE { " + getTriplePattern(null, null, null) + " }";
+		try (OntopStatement statement = ontopConnection.createStatement()) {
+			ParsedQuery parsedQuery = QueryParserUtil.parseQuery(QueryLanguage.SPARQL, queryString, null);
+			return statement.getTupleCount(inputQueryFactory.createSelectQuery(queryString, parsedQuery));
+		} catch (OntopConnectionException | OntopQueryAnsweringException | MalformedQueryException e) {
+			throw new RepositoryException(e);
+		}
 	}
 
 
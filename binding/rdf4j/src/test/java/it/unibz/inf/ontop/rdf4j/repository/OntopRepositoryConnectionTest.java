@@ -0,0 +1,140 @@
+package it.unibz.inf.ontop.rdf4j.repository;
+
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import org.eclipse.rdf4j.model.IRI;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.model.Value;
+import org.eclipse.rdf4j.model.ValueFactory;
+import org.eclipse.rdf4j.model.impl.SimpleValueFactory;
+import org.eclipse.rdf4j.repository.RepositoryConnection;
+import org.eclipse.rdf4j.repository.RepositoryResult;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Scanner;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * getStatements, hasStatement and size are evaluated by the DB
+ */
+public class OntopRepositoryConnectionTest {
+
+    private static final String OWL_FILE = "src/test/resources/userconstraints/uc.owl";
+    private static final String R2RML_FILE = "src/test/resources/userconstraints/uc.ttl";
+    private static final String CREATE_FILE = "src/test/resources/userconstraints/create.sql";
+
+    private static final String URL = "jdbc:h2:mem:repoconnection";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    private static final String PREFIX = "http://www.semanticweb.org/ontologies/2013/7/untitled-ontology-150#";
+    private static final ValueFactory VALUE_FACTORY = SimpleValueFactory.getInstance();
+    private static final IRI HAS_VAL_1 = VALUE_FACTORY.createIRI(PREFIX + "hasVal1");
+
+    private Connection sqlConnection;
+    private RepositoryConnection conn;
+
+    @Before
+    public void init() throws Exception {
+        sqlConnection = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (java.sql.Statement s = sqlConnection.createStatement();
+             Scanner sqlFile = new Scanner(new File(CREATE_FILE))) {
+            s.execute(sqlFile.useDelimiter("\\A").next());
+            for (int i = 1; i <= 100; i++) {
+                s.execute("INSERT INTO TABLE1 VALUES (" + i + "," + i + ");");
+            }
+            // Duplicate row: its triples must only be counted once
+            s.execute("INSERT INTO TABLE1 VALUES (1,1);");
+        }
+
+        OntopSQLOWLAPIConfiguration config = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .ontologyFile(OWL_FILE)
+                .r2rmlMappingFile(R2RML_FILE)
+                .jdbcUrl(URL)
+                .jdbcUser(USER)
+                .jdbcPassword(PASSWORD)
+                .enableTestMode()
+                .build();
+
+        OntopRepository repo = OntopRepository.defaultRepository(config);
+        repo.initialize();
+        conn = repo.getConnection();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        conn.close();
+        try (java.sql.Statement s = sqlConnection.createStatement()) {
+            s.execute("DROP ALL OBJECTS DELETE FILES");
+        } catch (SQLException e) {
+            // Nothing to drop
+        } finally {
+            sqlConnection.close();
+        }
+    }
+
+    @Test
+    public void testGetStatementsBySubject() throws Exception {
+        IRI subject = VALUE_FACTORY.createIRI(PREFIX + "Class1-2");
+        int count = 0;
+        try (RepositoryResult<Statement> statements = conn.getStatements(subject, null, null, false)) {
+            while (statements.hasNext()) {
+                assertEquals(subject, statements.next().getSubject());
+                count++;
+            }
+        }
+        // hasVal1 and hasVal2
+        assertEquals(2, count);
+    }
+
+    @Test
+    public void testGetStatementsClosedBeforeExhaustion() throws Exception {
+        RepositoryResult<Statement> statements = conn.getStatements(null, HAS_VAL_1, null, false);
+        assertTrue(statements.hasNext());
+        assertEquals(HAS_VAL_1, statements.next().getPredicate());
+        statements.close();
+
+        // The connection remains usable
+        assertTrue(conn.hasStatement(null, HAS_VAL_1, null, false));
+    }
+
+    @Test
+    public void testHasStatementWithLiteral() throws Exception {
+        IRI subject = VALUE_FACTORY.createIRI(PREFIX + "Class1-3");
+        Value object;
+        try (RepositoryResult<Statement> statements = conn.getStatements(subject, HAS_VAL_1, null, false)) {
+            assertTrue(statements.hasNext());
+            object = statements.next().getObject();
+        }
+
+        assertTrue(conn.hasStatement(null, HAS_VAL_1, object, false));
+        assertTrue(conn.hasStatement(subject, HAS_VAL_1, object, false));
+        assertFalse(conn.hasStatement(VALUE_FACTORY.createIRI(PREFIX + "Class1-4"), HAS_VAL_1, object, false));
+    }
+
+    @Test
+    public void testHasStatementMissing() throws Exception {
+        assertFalse(conn.hasStatement(VALUE_FACTORY.createIRI(PREFIX + "Class1-107"), null, null, false));
+    }
+
+    @Test
+    public void testNamedGraph() throws Exception {
+        IRI graph = VALUE_FACTORY.createIRI(PREFIX + "graph");
+        assertFalse(conn.hasStatement(null, HAS_VAL_1, null, false, graph));
+        assertEquals(0, conn.size(graph));
+    }
+
+    @Test
+    public void testSize() throws Exception {
+        // 100 distinct rows, 2 triples per row
+        assertEquals(200, conn.size());
+    }
+}
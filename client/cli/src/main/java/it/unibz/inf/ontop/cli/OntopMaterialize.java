@@ -35,15 +35,21 @@ import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
 import it.unibz.inf.ontop.materialization.MaterializationParams;
 import it.unibz.inf.ontop.owlapi.resultset.MaterializedGraphOWLResultSet;
 import it.unibz.inf.ontop.owlapi.OntopOWLAPIMaterializer;
+import it.unibz.inf.ontop.rdf4j.materialization.MaterializationGraphQuery;
+import it.unibz.inf.ontop.rdf4j.materialization.RDF4JMaterializer;
+import org.eclipse.rdf4j.rio.RDFFormat;
 import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.io.WriterDocumentTarget;
 import org.semanticweb.owlapi.model.*;
 
+import javax.annotation.Nullable;
 import java.io.*;
 import java.net.URI;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Optional;
+import java.util.function.IntFunction;
 
 import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
 
@@ -56,14 +62,30 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
     private static final String OWL_XML = "owlxml";
     private static final String TURTLE = "turtle";
     private static final String N3 = "n3";
+    private static final String NTRIPLES = "ntriples";
+    private static final String NQUADS = "nquads";
+    private static final String NO_COMPRESSION = "none";
+    private static final String GZIP = "gzip";
+    private static final long MEGABYTE = 1024L * 1024L;
 
     @Option(type = OptionType.COMMAND, name = {"-f", "--format"}, title = "outputFormat",
             description = "The format of the materialized ontology. " +
-                    //" Options: rdfxml, owlxml, turtle, n3. " +
+                    //" Options: rdfxml, owlxml, turtle, n3, ntriples, nquads. " +
+                    "Turtle, N-Triples and N-Quads are streamed to the output. " +
                     "Default: rdfxml")
-    @AllowedValues(allowedValues = {RDF_XML, OWL_XML, TURTLE, N3})
+    @AllowedValues(allowedValues = {RDF_XML, OWL_XML, TURTLE, N3, NTRIPLES, NQUADS})
     public String format;
 
+    @Option(type = OptionType.COMMAND, name = {"--compression"}, title = "compression",
+            description = "Compression of the output (only for turtle, ntriples and nquads). Default: none")
+    @AllowedValues(allowedValues = {NO_COMPRESSION, GZIP})
+    public String compression = NO_COMPRESSION;
+
+    @Option(type = OptionType.COMMAND, name = {"--max-file-size"}, title = "maximum file size (MB)",
+            description = "Starts a new output file when the current one exceeds this size " +
+                    "(only for turtle, ntriples and nquads). Default: no limit")
+    public int maxFileSize = 0;
+
     @Option(type = OptionType.COMMAND, name = {"--separate-files"}, title = "output to separate files",
             description = "generating separate files for different classes/properties. This is useful for" +
                     " materializing large OBDA setting. Default: false.")
@@ -73,6 +95,11 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             description = "All the SQL results of one big query will be stored in memory. Not recommended. Default: false.")
     private boolean noStream = false;
 
+    @Option(type = OptionType.COMMAND, name = {"--parallelism"}, title = "number of threads",
+            description = "Number of classes/properties materialized concurrently, each one on its own " +
+                    "DB connection. Default: 1")
+    public int parallelism = 1;
+
     private boolean doStreamResults = true;
 
     public OntopMaterialize(){}
@@ -125,7 +152,10 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
             int numPredicates = predicates.size();
             for (Predicate predicate : predicates) {
                 System.err.println(String.format("Materializing %s (%d/%d)", predicate, i, numPredicates));
-                serializePredicate(materializationConfig, predicate, outputFile, format, ontology);
+                if (isStreamingFormat(format))
+                    streamPredicate(materializationConfig, predicate, outputFile);
+                else
+                    serializePredicate(materializationConfig, predicate, outputFile, format, ontology);
                 i++;
             }
 
@@ -158,21 +188,24 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         return ImmutableList.copyOf(predicates);
     }
 
-    /**
-     * Serializes the A-box corresponding to a predicate into one or multiple file.
-     */
-    private void serializePredicate(OntopSQLOWLAPIConfiguration materializationConfig, Predicate predicate,
-                                    String outputFile, String format, OWLOntology ontology) throws Exception {
-        final long startTime = System.currentTimeMillis();
-
-
-        System.err.println("Starts writing triples into files.");
-
-        int tripleCount = 0;
-        int fileCount = 0;
+    private static boolean isStreamingFormat(String format) {
+        return TURTLE.equals(format) || NTRIPLES.equals(format) || NQUADS.equals(format);
+    }
 
-        String outputDir = outputFile;
+    private static RDFFormat getRDFFormat(String format) throws Exception {
+        switch (format) {
+            case TURTLE:
+                return RDFFormat.TURTLE;
+            case NTRIPLES:
+                return RDFFormat.NTRIPLES;
+            case NQUADS:
+                return RDFFormat.NQUADS;
+            default:
+                throw new Exception("Unsupported streaming format: " + format);
+        }
+    }
 
+    private static String getFilePrefix(String outputDir, Predicate predicate) {
         String typePred;
         if (predicate.isClass()){
             typePred = "C";
@@ -183,12 +216,86 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         else{
             typePred = "P";
         }
+        return Paths.get(outputDir, predicate.getName().replaceAll("[^a-zA-Z0-9]", "_") +typePred +"_" ).toString();
+    }
+
+    /**
+     * Streams the A-box corresponding to a predicate into one or multiple files (if a maximum size is given).
+     */
+    private void streamPredicate(OntopSQLOWLAPIConfiguration materializationConfig, Predicate predicate,
+                                 String outputDir) throws Exception {
+        final long startTime = System.currentTimeMillis();
+
+        String filePrefix = getFilePrefix(outputDir, predicate);
+        String suffix = "." + getRDFFormat(format).getDefaultFileExtension();
+
+        streamTriples(materializationConfig, Optional.of(ImmutableSet.of(URI.create(predicate.getName()))),
+                i -> filePrefix + i + suffix);
+
+        final long endTime = System.currentTimeMillis();
+        final long time = endTime - startTime;
+        System.out.println("Elapsed time to materialize: " + time + " {ms}");
+    }
+
+    /**
+     * Writes the triples as they come, without building an OWLAPI ontology.
+     *
+     * fileNameFactory: if null, writes into the standard output
+     */
+    private void streamTriples(OntopSQLOWLAPIConfiguration materializationConfig,
+                               Optional<ImmutableSet<URI>> selectedVocabulary,
+                               @Nullable IntFunction<String> fileNameFactory) throws Exception {
+        RDF4JMaterializer materializer = RDF4JMaterializer.defaultMaterializer();
+        MaterializationParams materializationParams = createMaterializationParams();
+
+        MaterializationGraphQuery graphQuery = selectedVocabulary.isPresent()
+                ? materializer.materialize(materializationConfig, selectedVocabulary.get(), materializationParams)
+                : materializer.materialize(materializationConfig, materializationParams);
+
+        try (RollingRDFFileWriter writer = new RollingRDFFileWriter(getRDFFormat(format), fileNameFactory,
+                GZIP.equals(compression), maxFileSize * MEGABYTE)) {
+            graphQuery.evaluate(writer);
+
+            System.err.println("NR of TRIPLES: " + graphQuery.getTripleCountSoFar());
+            System.err.println("VOCABULARY SIZE (NR of QUERIES): " + graphQuery.getSelectedVocabulary().size());
+            if (writer.getFileCount() > 1)
+                System.err.println("NR of FILES: " + writer.getFileCount());
+        }
+    }
+
+    /**
+     * Inserts the index of the file before the extension when the output is split into several files.
+     */
+    private IntFunction<String> getSingleOutputFileNameFactory() {
+        if (maxFileSize <= 0)
+            return i -> outputFile;
+
+        int extensionIndex = outputFile.lastIndexOf('.');
+        int separatorIndex = outputFile.lastIndexOf(File.separatorChar);
+        if (extensionIndex <= separatorIndex + 1)
+            return i -> outputFile + "." + i;
+
+        String base = outputFile.substring(0, extensionIndex);
+        String extension = outputFile.substring(extensionIndex);
+        return i -> base + "." + i + extension;
+    }
+
+    /**
+     * Serializes the A-box corresponding to a predicate into one or multiple file.
+     */
+    private void serializePredicate(OntopSQLOWLAPIConfiguration materializationConfig, Predicate predicate,
+                                    String outputFile, String format, OWLOntology ontology) throws Exception {
+        final long startTime = System.currentTimeMillis();
 
-        String filePrefix = Paths.get(outputDir, predicate.getName().replaceAll("[^a-zA-Z0-9]", "_") +typePred +"_" ).toString();
+
+        System.err.println("Starts writing triples into files.");
+
+        int tripleCount = 0;
+        int fileCount = 0;
+
+        String filePrefix = getFilePrefix(outputFile, predicate);
         OntopOWLAPIMaterializer materializer = OntopOWLAPIMaterializer.defaultMaterializer();
-        MaterializationParams materializationParams = MaterializationParams.defaultBuilder()
-                .enableDBResultsStreaming(doStreamResults)
-                .build();
+        MaterializationParams materializationParams = createMaterializationParams();
 
 
         try (MaterializedGraphOWLResultSet graphResultSet = materializer.materialize(materializationConfig,
@@ -267,13 +374,6 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
         try {
             final long startTime = System.currentTimeMillis();
 
-            if (outputFile != null) {
-                output = new BufferedOutputStream(new FileOutputStream(outputFile));
-            } else {
-                output = new BufferedOutputStream(System.out);
-            }
-            writer = new BufferedWriter(new OutputStreamWriter(output, "UTF-8"));
-
             Builder configBuilder = createAndInitConfigurationBuilder();
 
             if (owlFile != null) {
@@ -307,10 +407,24 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
                         .build();
             }
 
+            if (isStreamingFormat(format)) {
+                streamTriples(materializerConfiguration, Optional.empty(),
+                        outputFile == null ? null : getSingleOutputFileNameFactory());
+
+                final long endTime = System.currentTimeMillis();
+                System.out.println("Elapsed time to materialize: " + (endTime - startTime) + " {ms}");
+                return;
+            }
+
+            if (outputFile != null) {
+                output = new BufferedOutputStream(new FileOutputStream(outputFile));
+            } else {
+                output = new BufferedOutputStream(System.out);
+            }
+            writer = new BufferedWriter(new OutputStreamWriter(output, "UTF-8"));
+
             OntopOWLAPIMaterializer materializer = OntopOWLAPIMaterializer.defaultMaterializer();
-            MaterializationParams materializationParams = MaterializationParams.defaultBuilder()
-                    .enableDBResultsStreaming(doStreamResults)
-                    .build();
+            MaterializationParams materializationParams = createMaterializationParams();
 
 
             // OBDAModelSynchronizer.declarePredicates(ontology, obdaModel);
@@ -343,6 +457,13 @@ public class OntopMaterialize extends OntopReasoningCommandBase {
     }
 
 
+    private MaterializationParams createMaterializationParams() {
+        return MaterializationParams.defaultBuilder()
+                .enableDBResultsStreaming(doStreamResults)
+                .parallelism(parallelism)
+                .build();
+    }
+
     /**
      * Mapping file + connection info
      */
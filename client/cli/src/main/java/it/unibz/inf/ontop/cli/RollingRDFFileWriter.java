@@ -0,0 +1,169 @@
+package it.unibz.inf.ontop.cli;
+
+import com.google.common.io.CountingOutputStream;
+import org.eclipse.rdf4j.model.Statement;
+import org.eclipse.rdf4j.rio.RDFFormat;
+import org.eclipse.rdf4j.rio.RDFHandler;
+import org.eclipse.rdf4j.rio.RDFHandlerException;
+import org.eclipse.rdf4j.rio.RDFWriter;
+import org.eclipse.rdf4j.rio.Rio;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams RDF statements into files (or into the standard output) with a RDF4J Rio writer.
+ *
+ * Runs in constant memory: the statements are written as they come, nothing is kept besides the output buffer.
+ *
+ * When a maximum file size is given, a new file is started as soon as the current one exceeds it.
+ * The size is the one of the (possibly compressed) bytes flushed to the file, so it is approximate.
+ *
+ */
+class RollingRDFFileWriter implements RDFHandler, AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final RDFFormat format;
+    @Nullable
+    private final IntFunction<String> fileNameFactory;
+    private final boolean compress;
+    private final long maxFileSize;
+    // Re-declared at the beginning of each file
+    private final Map<String, String> namespaces;
+
+    private int fileCount;
+    private long statementCount;
+    @Nullable
+    private CountingOutputStream currentFileStream;
+    @Nullable
+    private OutputStream currentOutput;
+    @Nullable
+    private RDFWriter currentWriter;
+
+    /**
+     * fileNameFactory: gives the name of the i-th file (starting at 0). If null, writes into the standard output.
+     * maxFileSize: in bytes. If not positive, everything is written into one file.
+     */
+    RollingRDFFileWriter(RDFFormat format, @Nullable IntFunction<String> fileNameFactory, boolean compress,
+                         long maxFileSize) {
+        this.format = format;
+        this.fileNameFactory = fileNameFactory;
+        this.compress = compress;
+        this.maxFileSize = (fileNameFactory == null) ? 0 : maxFileSize;
+        this.namespaces = new LinkedHashMap<>();
+        this.fileCount = 0;
+        this.statementCount = 0;
+    }
+
+    @Override
+    public void startRDF() throws RDFHandlerException {
+        if (currentWriter == null)
+            openNextFile();
+    }
+
+    @Override
+    public void endRDF() throws RDFHandlerException {
+        if (currentWriter == null)
+            openNextFile();
+        closeCurrentFile();
+    }
+
+    @Override
+    public void handleNamespace(String prefix, String uri) throws RDFHandlerException {
+        namespaces.put(prefix, uri);
+        if (currentWriter != null)
+            currentWriter.handleNamespace(prefix, uri);
+    }
+
+    @Override
+    public void handleStatement(Statement st) throws RDFHandlerException {
+        if (currentWriter == null)
+            openNextFile();
+        else if (maxFileSize > 0 && currentFileStream.getCount() >= maxFileSize) {
+            closeCurrentFile();
+            openNextFile();
+        }
+        currentWriter.handleStatement(st);
+        statementCount++;
+    }
+
+    @Override
+    public void handleComment(String comment) throws RDFHandlerException {
+        if (currentWriter != null)
+            currentWriter.handleComment(comment);
+    }
+
+    long getStatementCount() {
+        return statementCount;
+    }
+
+    int getFileCount() {
+        return fileCount;
+    }
+
+    private void openNextFile() throws RDFHandlerException {
+        try {
+            OutputStream output;
+            if (fileNameFactory == null) {
+                // Not counted: never rolled
+                output = new FilterOutputStream(System.out) {
+                    @Override
+                    public void close() throws IOException {
+                        // Does not close the standard output
+                        flush();
+                    }
+                };
+                currentFileStream = null;
+            }
+            else {
+                String fileName = fileNameFactory.apply(fileCount) + (compress ? ".gz" : "");
+                currentFileStream = new CountingOutputStream(new FileOutputStream(fileName));
+                output = currentFileStream;
+            }
+            if (compress)
+                output = new GZIPOutputStream(output, BUFFER_SIZE);
+            currentOutput = new BufferedOutputStream(output, BUFFER_SIZE);
+        } catch (IOException e) {
+            throw new RDFHandlerException(e);
+        }
+        fileCount++;
+
+        currentWriter = Rio.createWriter(format, currentOutput);
+        currentWriter.startRDF();
+        for (Map.Entry<String, String> namespace : namespaces.entrySet())
+            currentWriter.handleNamespace(namespace.getKey(), namespace.getValue());
+    }
+
+    private void closeCurrentFile() throws RDFHandlerException {
+        if (currentWriter == null)
+            return;
+        try {
+            currentWriter.endRDF();
+            currentOutput.close();
+        } catch (IOException e) {
+            throw new RDFHandlerException(e);
+        } finally {
+            currentWriter = null;
+            currentOutput = null;
+            currentFileStream = null;
+        }
+    }
+
+    /**
+     * Releases the current file (if any). Does not write the end of the document.
+     */
+    @Override
+    public void close() throws IOException {
+        if (currentOutput != null) {
+            currentOutput.close();
+            currentOutput = null;
+            currentWriter = null;
+            currentFileStream = null;
+        }
+    }
+}
@@ -84,6 +84,28 @@ public class OntopMaterializeTest {
         Ontop.main(argv);
     }
 
+    @Test
+    public void testOntopMaterializeNTriplesGzip (){
+        String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
+                "-t", "src/test/resources/books/exampleBooks.owl",
+                "-p", "src/test/resources/books/exampleBooks.properties",
+                "-f", "ntriples", "-o", "src/test/resources/output/exampleBooks.materialized.nt",
+                "--compression", "gzip"
+        };
+        Ontop.main(argv);
+    }
+
+    @Test
+    public void testOntopMaterializeParallel (){
+        String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
+                "-t", "src/test/resources/books/exampleBooks.owl",
+                "-p", "src/test/resources/books/exampleBooks.properties",
+                "-f", "ntriples", "-o", "src/test/resources/output/exampleBooks.materialized.parallel.nt",
+                "--parallelism", "3"
+        };
+        Ontop.main(argv);
+    }
+
     @Test
     public void testOntopMaterializeSeparatefiles (){
         String[] argv = {"materialize", "-m", "src/test/resources/books/exampleBooks.obda",
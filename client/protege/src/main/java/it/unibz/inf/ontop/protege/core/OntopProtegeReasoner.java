@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.protege.core;
 
 import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
 import it.unibz.inf.ontop.owlapi.OntopOWLFactory;
 import it.unibz.inf.ontop.owlapi.OntopOWLReasoner;
 import it.unibz.inf.ontop.owlapi.connection.OWLConnection;
@@ -26,6 +27,7 @@ public class OntopProtegeReasoner extends OWLReasonerBase implements AutoCloseab
     private final OntopOWLFactory factory = OntopOWLFactory.defaultFactory();
     private final OntopConfigurationManager configurationManager;
     private OntopOWLConnection owlConnection;
+    private final OntopSystemSettings settings;
 
 
     protected OntopProtegeReasoner(OWLOntology rootOntology, OntopProtegeOWLConfiguration configuration) throws IllegalConfigurationException {
@@ -33,6 +35,7 @@ public class OntopProtegeReasoner extends OWLReasonerBase implements AutoCloseab
 
         reasoner = factory.createReasoner(rootOntology, configuration);
         this.configurationManager = configuration.getOntopConfigurationManager();
+        this.settings = configuration.getOntopConfiguration().getSettings();
         owlConnection = reasoner.getConnection();
     }
 
@@ -317,12 +320,13 @@ public class OntopProtegeReasoner extends OWLReasonerBase implements AutoCloseab
 
     /**
      * Methods to get the empty concepts and roles in the ontology using the given mappings.
-     * It generates SPARQL queries to check for entities.
+     * It generates SPARQL queries to check for entities, evaluated concurrently on new connections.
      * @return QuestOWLEmptyEntitiesChecker class to get empty concepts and roles
      * @throws Exception
      */
     public QuestOWLEmptyEntitiesChecker getEmptyEntitiesChecker() throws Exception {
-        return new QuestOWLEmptyEntitiesChecker(loadOntologies(getRootOntology()), owlConnection);
+        return new QuestOWLEmptyEntitiesChecker(loadOntologies(getRootOntology()), reasoner,
+                settings.getValidationBatchSize(), settings.getValidationParallelism());
     }
 
     /**
@@ -330,7 +330,8 @@ public class QueryInterfaceView extends AbstractOWLViewComponent implements Save
 			public String executeQuery(OntopOWLStatement st, String query) throws OWLException{
 				removeResultTable();
 				// UGLY!!! SQL-specific!
-				return ((SQLExecutableQuery)st.getExecutableQuery(query)).getSQL();
+				// With the values of the parameters (if any)
+				return ((SQLExecutableQuery)st.getExecutableQuery(query)).toString();
 			}
 
 			@Override
@@ -2,6 +2,7 @@ package it.unibz.inf.ontop.datalog.impl;
 
 
 import it.unibz.inf.ontop.datalog.AlgebraOperatorPredicate;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
 
 public class DatalogAlgebraOperatorPredicates {
 
@@ -9,4 +10,18 @@ public class DatalogAlgebraOperatorPredicates {
     public static final AlgebraOperatorPredicate SPARQL_LEFTJOIN = new AlgebraOperatorPredicateImpl("LeftJoin");
     public static final AlgebraOperatorPredicate SPARQL_GROUP = new AlgebraOperatorPredicateImpl("Group");
     public static final AlgebraOperatorPredicate SPARQL_HAVING = new AlgebraOperatorPredicateImpl("Having");
+    /**
+     * Transitive closure of the binary relation defined by the rest of the body.
+     * Arguments: the source and the target variables (not atoms), optionally followed by the source
+     * and the target of the paths, when one of them is ground (the other one is then the variable itself)
+     */
+    public static final AlgebraOperatorPredicate SPARQL_ONE_OR_MORE_PATH = new AlgebraOperatorPredicateImpl("OneOrMorePath");
+    /**
+     * Reflexive and transitive closure (same arguments)
+     */
+    public static final AlgebraOperatorPredicate SPARQL_ZERO_OR_MORE_PATH = new AlgebraOperatorPredicateImpl("ZeroOrMorePath");
+
+    public static boolean isPathPredicate(Predicate predicate) {
+        return (predicate == SPARQL_ONE_OR_MORE_PATH) || (predicate == SPARQL_ZERO_OR_MORE_PATH);
+    }
 }
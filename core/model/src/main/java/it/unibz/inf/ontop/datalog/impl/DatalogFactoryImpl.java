@@ -11,6 +11,7 @@ import it.unibz.inf.ontop.model.term.Term;
 import it.unibz.inf.ontop.model.term.Variable;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
 
@@ -115,7 +116,7 @@ public class DatalogFactoryImpl implements DatalogFactory {
     @Override
     public CQIE getFreshCQIECopy(CQIE rule) {
 
-        int suff = ++suffix;
+        int suff = suffix.incrementAndGet();
 
         // This method doesn't support nested functional terms
         CQIE freshRule = rule.clone();
@@ -139,7 +140,8 @@ public class DatalogFactoryImpl implements DatalogFactory {
         return freshRule;
     }
 
-    private int suffix = 0;
+    // shared by the threads saturating the mapping (chase of the foreign keys)
+    private final AtomicInteger suffix = new AtomicInteger(0);
 
     private Term getFreshTerm(Term term, int suff) {
         Term newTerm;
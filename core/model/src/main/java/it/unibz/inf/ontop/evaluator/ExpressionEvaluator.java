@@ -317,6 +317,9 @@ public class ExpressionEvaluator {
 			case MAX:
 			case MIN:
 			case COUNT:
+			case COUNT_DISTINCT:
+			case SAMPLE:
+			case GROUP_CONCAT:
 				return term;
 			default:
 					throw new RuntimeException(
@@ -1,12 +1,14 @@
 package it.unibz.inf.ontop.injection;
 
 import com.google.common.collect.ImmutableSet;
+import com.google.inject.assistedinject.Assisted;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
 import it.unibz.inf.ontop.iq.node.*;
 import it.unibz.inf.ontop.iq.*;
 import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
 import it.unibz.inf.ontop.model.atom.DataAtom;
 import it.unibz.inf.ontop.model.term.ImmutableExpression;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
 import it.unibz.inf.ontop.model.term.ImmutableTerm;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
@@ -34,6 +36,15 @@ public interface IntermediateQueryFactory {
 
     UnionNode createUnionNode(ImmutableSet<Variable> projectedVariables);
 
+    AggregationNode createAggregationNode(ImmutableSet<Variable> groupingVariables,
+                                          ImmutableSubstitution<ImmutableFunctionalTerm> substitution);
+
+    TransitiveClosureNode createTransitiveClosureNode(@Assisted("childSource") Variable childSourceVariable,
+                                                      @Assisted("childTarget") Variable childTargetVariable,
+                                                      @Assisted("source") ImmutableTerm source,
+                                                      @Assisted("target") ImmutableTerm target,
+                                                      boolean includesZeroLengthPaths);
+
     InnerJoinNode createInnerJoinNode();
     InnerJoinNode createInnerJoinNode(ImmutableExpression joiningCondition);
     InnerJoinNode createInnerJoinNode(Optional<ImmutableExpression> joiningCondition);
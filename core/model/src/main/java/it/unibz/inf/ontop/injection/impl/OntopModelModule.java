@@ -40,6 +40,8 @@ public class OntopModelModule extends OntopAbstractModule {
                 IntermediateQueryBuilder.class,
                 ConstructionNode.class,
                 UnionNode.class,
+                AggregationNode.class,
+                TransitiveClosureNode.class,
                 InnerJoinNode.class,
                 LeftJoinNode.class,
                 FilterNode.class,
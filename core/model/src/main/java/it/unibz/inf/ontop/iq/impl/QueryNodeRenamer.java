@@ -54,6 +54,22 @@ public class QueryNodeRenamer implements HomogeneousQueryNodeTransformer {
 //        return unionNode.clone();
     }
 
+    @Override
+    public AggregationNode transform(AggregationNode aggregationNode) {
+        return iqFactory.createAggregationNode(renameProjectedVars(aggregationNode.getGroupingVariables()),
+                renamingSubstitution.applyRenaming(aggregationNode.getSubstitution()));
+    }
+
+    @Override
+    public TransitiveClosureNode transform(TransitiveClosureNode transitiveClosureNode) {
+        return iqFactory.createTransitiveClosureNode(
+                renamingSubstitution.applyToVariable(transitiveClosureNode.getChildSourceVariable()),
+                renamingSubstitution.applyToVariable(transitiveClosureNode.getChildTargetVariable()),
+                renamingSubstitution.apply(transitiveClosureNode.getSource()),
+                renamingSubstitution.apply(transitiveClosureNode.getTarget()),
+                transitiveClosureNode.includesZeroLengthPaths());
+    }
+
     @Override
     public IntensionalDataNode transform(IntensionalDataNode intensionalDataNode) {
         return iqFactory.createIntensionalDataNode(renameDataAtom(intensionalDataNode.getProjectionAtom()));
@@ -0,0 +1,52 @@
+package it.unibz.inf.ontop.iq.node;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.exception.QueryNodeSubstitutionException;
+import it.unibz.inf.ontop.iq.exception.QueryNodeTransformationException;
+import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+
+/**
+ * Groups the tuples of its unique child according to the grouping variables
+ * and computes aggregation functions (COUNT, SUM, AVG, MIN, MAX, SAMPLE, GROUP_CONCAT) over each group.
+ *
+ * Projects the grouping variables and the variables defined by the substitution.
+ *
+ * When there is no grouping variable, all the tuples of the child form one group.
+ */
+public interface AggregationNode extends ExplicitVariableProjectionNode {
+
+    ImmutableSet<Variable> getGroupingVariables();
+
+    /**
+     * Aggregation variable --> aggregation functional term (over the variables of the child)
+     */
+    ImmutableSubstitution<ImmutableFunctionalTerm> getSubstitution();
+
+    @Override
+    AggregationNode clone();
+
+    @Override
+    AggregationNode acceptNodeTransformer(HomogeneousQueryNodeTransformer transformer)
+            throws QueryNodeTransformationException;
+
+    /**
+     * Blocks the ascending substitution (inserts a construction node)
+     */
+    @Override
+    SubstitutionResults<AggregationNode> applyAscendingSubstitution(
+            ImmutableSubstitution<? extends ImmutableTerm> substitution,
+            QueryNode childNode, IntermediateQuery query);
+
+    /**
+     * Only renamings are accepted for the aggregation variables
+     */
+    @Override
+    SubstitutionResults<AggregationNode> applyDescendingSubstitution(
+            ImmutableSubstitution<? extends ImmutableTerm> substitution, IntermediateQuery query)
+            throws QueryNodeSubstitutionException;
+}
@@ -1,6 +1,8 @@
 package it.unibz.inf.ontop.iq.node;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.term.Constant;
 import it.unibz.inf.ontop.model.term.Variable;
 
 import java.util.Optional;
@@ -15,4 +17,10 @@ public interface NodeTransformationProposal {
     Optional<QueryNode> getOptionalNewNodeOrReplacingChild();
 
     ImmutableSet<Variable> getNullVariables();
+
+    /**
+     * Variables that are bound to a non-null constant after the transformation
+     * (e.g. a COUNT over an empty child). Propagated like the null variables.
+     */
+    ImmutableMap<Variable, Constant> getConstantBindings();
 }
@@ -14,6 +14,10 @@ public interface QueryNodeVisitor {
 
     void visit(UnionNode unionNode);
 
+    void visit(AggregationNode aggregationNode);
+
+    void visit(TransitiveClosureNode transitiveClosureNode);
+
     void visit(InnerJoinNode innerJoinNode);
 
     void visit(LeftJoinNode leftJoinNode);
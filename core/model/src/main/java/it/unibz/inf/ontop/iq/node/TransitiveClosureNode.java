@@ -0,0 +1,57 @@
+package it.unibz.inf.ontop.iq.node;
+
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.exception.QueryNodeTransformationException;
+import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+
+/**
+ * Transitive closure of the binary relation computed by its unique child
+ * (SPARQL property paths p+ and p*).
+ *
+ * The child projects the source and the target of each edge (the child source and target variables).
+ * A tuple is returned for each path (of length at least one, or zero for p*) from the source term
+ * to the target term. When these terms are not variables, they restrict the paths.
+ *
+ * Projects the variables of the source and target terms. The variables of the child are NOT visible
+ * from outside (they may have the same names).
+ */
+public interface TransitiveClosureNode extends ExplicitVariableProjectionNode {
+
+    Variable getChildSourceVariable();
+
+    Variable getChildTargetVariable();
+
+    ImmutableTerm getSource();
+
+    ImmutableTerm getTarget();
+
+    /**
+     * True for p* (the zero-length paths are built from the sources and the targets of the edges)
+     */
+    boolean includesZeroLengthPaths();
+
+    @Override
+    TransitiveClosureNode clone();
+
+    @Override
+    TransitiveClosureNode acceptNodeTransformer(HomogeneousQueryNodeTransformer transformer)
+            throws QueryNodeTransformationException;
+
+    /**
+     * Blocks the ascending substitution (inserts a construction node)
+     */
+    @Override
+    SubstitutionResults<TransitiveClosureNode> applyAscendingSubstitution(
+            ImmutableSubstitution<? extends ImmutableTerm> substitution,
+            QueryNode childNode, IntermediateQuery query);
+
+    /**
+     * Applied to the source and target terms. Never propagated to the child.
+     */
+    @Override
+    SubstitutionResults<TransitiveClosureNode> applyDescendingSubstitution(
+            ImmutableSubstitution<? extends ImmutableTerm> substitution, IntermediateQuery query);
+}
@@ -0,0 +1,301 @@
+package it.unibz.inf.ontop.iq.node.impl;
+
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.exception.InvalidIntermediateQueryException;
+import it.unibz.inf.ontop.iq.exception.InvalidQueryNodeException;
+import it.unibz.inf.ontop.iq.exception.QueryNodeSubstitutionException;
+import it.unibz.inf.ontop.iq.exception.QueryNodeTransformationException;
+import it.unibz.inf.ontop.iq.impl.DefaultSubstitutionResults;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.transform.node.HeterogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.model.term.Constant;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static it.unibz.inf.ontop.iq.node.NodeTransformationProposedState.*;
+import static it.unibz.inf.ontop.model.OntopModelSingletons.SUBSTITUTION_FACTORY;
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
+
+public class AggregationNodeImpl extends QueryNodeImpl implements AggregationNode {
+
+    private static final String AGGREGATION_NODE_STR = "AGGREGATE";
+
+    private final ImmutableSet<Variable> groupingVariables;
+    private final ImmutableSubstitution<ImmutableFunctionalTerm> substitution;
+    private final ImmutableSet<Variable> projectedVariables;
+
+    @AssistedInject
+    private AggregationNodeImpl(@Assisted ImmutableSet<Variable> groupingVariables,
+                                @Assisted ImmutableSubstitution<ImmutableFunctionalTerm> substitution) {
+        this.groupingVariables = groupingVariables;
+        this.substitution = substitution;
+        this.projectedVariables = Sets.union(groupingVariables, substitution.getDomain()).immutableCopy();
+
+        validate();
+    }
+
+    private void validate() {
+        if (substitution.getDomain().stream().anyMatch(groupingVariables::contains)) {
+            throw new InvalidQueryNodeException("AggregationNode: a grouping variable cannot be defined " +
+                    "by the substitution.\n" + toString());
+        }
+
+        substitution.getImmutableMap().values().stream()
+                .filter(t -> !isAggregationTerm(t))
+                .findAny()
+                .ifPresent(t -> {
+                    throw new InvalidQueryNodeException("AggregationNode: " + t
+                            + " is not an aggregation functional term.\n" + toString());
+                });
+    }
+
+    private static boolean isAggregationTerm(ImmutableFunctionalTerm term) {
+        Predicate functionSymbol = term.getFunctionSymbol();
+        return (functionSymbol instanceof ExpressionOperation)
+                && ((ExpressionOperation) functionSymbol).isAggregation();
+    }
+
+    @Override
+    public ImmutableSet<Variable> getGroupingVariables() {
+        return groupingVariables;
+    }
+
+    @Override
+    public ImmutableSubstitution<ImmutableFunctionalTerm> getSubstitution() {
+        return substitution;
+    }
+
+    @Override
+    public ImmutableSet<Variable> getVariables() {
+        return projectedVariables;
+    }
+
+    @Override
+    public void acceptVisitor(QueryNodeVisitor visitor) {
+        visitor.visit(this);
+    }
+
+    /**
+     * Immutable fields, can be shared.
+     */
+    @Override
+    public AggregationNode clone() {
+        return new AggregationNodeImpl(groupingVariables, substitution);
+    }
+
+    @Override
+    public AggregationNode acceptNodeTransformer(HomogeneousQueryNodeTransformer transformer)
+            throws QueryNodeTransformationException {
+        return transformer.transform(this);
+    }
+
+    @Override
+    public NodeTransformationProposal acceptNodeTransformer(HeterogeneousQueryNodeTransformer transformer) {
+        return transformer.transform(this);
+    }
+
+    /**
+     * Blocks an ascending substitution by inserting a construction node
+     * (the bindings cannot be lifted above the grouping).
+     *
+     * Like for the UnionNode, expects that the substitution does not rename a required variable
+     * into a non-required one.
+     */
+    @Override
+    public SubstitutionResults<AggregationNode> applyAscendingSubstitution(
+            ImmutableSubstitution<? extends ImmutableTerm> substitution,
+            QueryNode childNode, IntermediateQuery query) {
+        ImmutableSet<Variable> childVariables = getLocallyRequiredVariables();
+
+        ImmutableSubstitution<ImmutableTerm> reducedSubstitution = ConstructionNodeTools
+                .extractRelevantDescendingSubstitution(substitution, childVariables);
+
+        if (reducedSubstitution.isEmpty()) {
+            return DefaultSubstitutionResults.noChange();
+        }
+        else {
+            ConstructionNode newParentOfChildNode = query.getFactory().createConstructionNode(childVariables,
+                    reducedSubstitution);
+            return DefaultSubstitutionResults.insertConstructionNode(newParentOfChildNode, childNode);
+        }
+    }
+
+    /**
+     * The bindings of the grouping variables are applied and propagated to the child.
+     *
+     * The aggregation variables can only be renamed: they are defined by this node.
+     */
+    @Override
+    public SubstitutionResults<AggregationNode> applyDescendingSubstitution(
+            ImmutableSubstitution<? extends ImmutableTerm> descendingSubstitution, IntermediateQuery query)
+            throws QueryNodeSubstitutionException {
+
+        ImmutableSubstitution<ImmutableTerm> groupingSubstitution = ConstructionNodeTools
+                .extractRelevantDescendingSubstitution(descendingSubstitution, groupingVariables);
+        ImmutableSubstitution<ImmutableTerm> aggregationSubstitution = ConstructionNodeTools
+                .extractRelevantDescendingSubstitution(descendingSubstitution, substitution.getDomain());
+
+        if (groupingSubstitution.isEmpty() && aggregationSubstitution.isEmpty()) {
+            return DefaultSubstitutionResults.noChange();
+        }
+
+        ImmutableMap.Builder<Variable, ImmutableFunctionalTerm> newMapBuilder = ImmutableMap.builder();
+        for (Map.Entry<Variable, ImmutableFunctionalTerm> e : substitution.getImmutableMap().entrySet()) {
+            ImmutableTerm newKey = aggregationSubstitution.applyToVariable(e.getKey());
+            if (!(newKey instanceof Variable))
+                throw new QueryNodeSubstitutionException("The aggregation variable " + e.getKey()
+                        + " of " + this + " cannot be bound to " + newKey);
+            newMapBuilder.put((Variable) newKey, groupingSubstitution.applyToFunctionalTerm(e.getValue()));
+        }
+
+        AggregationNode newNode = new AggregationNodeImpl(
+                ConstructionNodeTools.computeNewProjectedVariables(groupingSubstitution, groupingVariables),
+                SUBSTITUTION_FACTORY.getSubstitution(newMapBuilder.build()));
+
+        return groupingSubstitution.isEmpty()
+                ? DefaultSubstitutionResults.newNode(newNode)
+                : DefaultSubstitutionResults.newNode(newNode, groupingSubstitution);
+    }
+
+    @Override
+    public boolean isVariableNullable(IntermediateQuery query, Variable variable) {
+        if (groupingVariables.contains(variable))
+            return isChildVariableNullable(query, variable);
+
+        ImmutableFunctionalTerm aggregationTerm = substitution.get(variable);
+        if (aggregationTerm == null)
+            throw new IllegalArgumentException("The variable " + variable + " is not projected by " + this);
+
+        switch ((ExpressionOperation) aggregationTerm.getFunctionSymbol()) {
+            case COUNT:
+            case COUNT_DISTINCT:
+                return false;
+            default:
+                /*
+                 * Without grouping variable, the aggregation is also applied to an empty child
+                 */
+                if (groupingVariables.isEmpty())
+                    return !getEmptyInputValue(aggregationTerm).isPresent();
+                ImmutableTerm argument = aggregationTerm.getArguments().get(0);
+                return (!(argument instanceof Variable))
+                        || isChildVariableNullable(query, (Variable) argument);
+        }
+    }
+
+    /**
+     * Value of the aggregate over an empty input (SPARQL 1.1, Section 18.5.1).
+     * MIN, MAX and SAMPLE are unbound (empty).
+     *
+     * The SQL generator is expected to return the same values (e.g. with COALESCE).
+     */
+    private static Optional<Constant> getEmptyInputValue(ImmutableFunctionalTerm aggregationTerm) {
+        switch ((ExpressionOperation) aggregationTerm.getFunctionSymbol()) {
+            case COUNT:
+            case COUNT_DISTINCT:
+            case SUM:
+            case AVG:
+                return Optional.of(TERM_FACTORY.getConstantLiteral("0", Predicate.COL_TYPE.INTEGER));
+            case GROUP_CONCAT:
+                return Optional.of(TERM_FACTORY.getConstantLiteral("", Predicate.COL_TYPE.STRING));
+            default:
+                return Optional.empty();
+        }
+    }
+
+    private boolean isChildVariableNullable(IntermediateQuery query, Variable variable) {
+        return query.getFirstChild(this)
+                .map(c -> c.isVariableNullable(query, variable))
+                .orElseThrow(() -> new InvalidIntermediateQueryException(
+                        "An aggregation node must have a child"));
+    }
+
+    @Override
+    public boolean isSyntacticallyEquivalentTo(QueryNode node) {
+        if (node instanceof AggregationNode) {
+            AggregationNode aggregationNode = (AggregationNode) node;
+            return groupingVariables.equals(aggregationNode.getGroupingVariables())
+                    && substitution.equals(aggregationNode.getSubstitution());
+        }
+        return false;
+    }
+
+    /**
+     * With grouping variables, no group can be formed.
+     *
+     * Without grouping variable, one tuple is still expected: the node is replaced by a TrueNode
+     * and the aggregation variables are bound to their value over an empty input (null for MIN, MAX and SAMPLE).
+     */
+    @Override
+    public NodeTransformationProposal reactToEmptyChild(IntermediateQuery query, EmptyNode emptyChild) {
+        if (groupingVariables.isEmpty()) {
+            ImmutableMap<Variable, Constant> constantBindings = substitution.getImmutableMap().entrySet().stream()
+                    .filter(e -> getEmptyInputValue(e.getValue()).isPresent())
+                    .collect(ImmutableCollectors.toMap(
+                            Map.Entry::getKey,
+                            e -> getEmptyInputValue(e.getValue()).get()));
+            ImmutableSet<Variable> nullVariables = projectedVariables.stream()
+                    .filter(v -> !constantBindings.containsKey(v))
+                    .collect(ImmutableCollectors.toSet());
+            return new NodeTransformationProposalImpl(REPLACE_BY_NEW_NODE, query.getFactory().createTrueNode(),
+                    nullVariables, constantBindings);
+        }
+
+        return new NodeTransformationProposalImpl(DECLARE_AS_EMPTY, projectedVariables);
+    }
+
+    @Override
+    public NodeTransformationProposal reactToTrueChildRemovalProposal(IntermediateQuery query, TrueNode trueNode) {
+        throw new UnsupportedOperationException("The TrueNode child of an AggregationNode is not expected to be removed");
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocalVariables() {
+        return Stream.concat(projectedVariables.stream(), getAggregationArgumentVariables())
+                .collect(ImmutableCollectors.toSet());
+    }
+
+    /**
+     * Grouping variables and variables used by the aggregation functions
+     */
+    @Override
+    public ImmutableSet<Variable> getLocallyRequiredVariables() {
+        return Stream.concat(groupingVariables.stream(), getAggregationArgumentVariables())
+                .collect(ImmutableCollectors.toSet());
+    }
+
+    private Stream<Variable> getAggregationArgumentVariables() {
+        return substitution.getImmutableMap().values().stream()
+                .flatMap(ImmutableTerm::getVariableStream);
+    }
+
+    @Override
+    public ImmutableSet<Variable> getRequiredVariables(IntermediateQuery query) {
+        return getLocallyRequiredVariables();
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocallyDefinedVariables() {
+        return substitution.getDomain();
+    }
+
+    @Override
+    public String toString() {
+        return AGGREGATION_NODE_STR + " " + groupingVariables + " " + "[" + substitution + "]";
+    }
+}
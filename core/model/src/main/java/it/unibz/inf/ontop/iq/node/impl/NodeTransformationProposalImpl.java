@@ -1,6 +1,8 @@
 package it.unibz.inf.ontop.iq.node.impl;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.model.term.Constant;
 import it.unibz.inf.ontop.model.term.Variable;
 import it.unibz.inf.ontop.iq.node.NodeTransformationProposal;
 import it.unibz.inf.ontop.iq.node.NodeTransformationProposedState;
@@ -13,9 +15,16 @@ public class NodeTransformationProposalImpl implements NodeTransformationProposa
     private final NodeTransformationProposedState state;
     private final Optional<QueryNode> optionalNewNodeOrReplacingChild;
     private final ImmutableSet<Variable> nullVariables;
+    private final ImmutableMap<Variable, Constant> constantBindings;
 
     public NodeTransformationProposalImpl(NodeTransformationProposedState state, QueryNode newNodeOrReplacingChild,
                                           ImmutableSet<Variable> nullVariables) {
+        this(state, newNodeOrReplacingChild, nullVariables, ImmutableMap.of());
+    }
+
+    public NodeTransformationProposalImpl(NodeTransformationProposedState state, QueryNode newNodeOrReplacingChild,
+                                          ImmutableSet<Variable> nullVariables,
+                                          ImmutableMap<Variable, Constant> constantBindings) {
         switch(state) {
             case REPLACE_BY_UNIQUE_NON_EMPTY_CHILD:
                 break;
@@ -31,6 +40,7 @@ public class NodeTransformationProposalImpl implements NodeTransformationProposa
         this.state = state;
         this.optionalNewNodeOrReplacingChild = Optional.of(newNodeOrReplacingChild);
         this.nullVariables = nullVariables;
+        this.constantBindings = constantBindings;
     }
 
     public NodeTransformationProposalImpl(NodeTransformationProposedState state, ImmutableSet<Variable> nullVariables) {
@@ -48,6 +58,7 @@ public class NodeTransformationProposalImpl implements NodeTransformationProposa
         this.state = state;
         this.optionalNewNodeOrReplacingChild = Optional.empty();
         this.nullVariables = nullVariables;
+        this.constantBindings = ImmutableMap.of();
     }
 
     @Override
@@ -64,4 +75,9 @@ public class NodeTransformationProposalImpl implements NodeTransformationProposa
     public ImmutableSet<Variable> getNullVariables() {
         return nullVariables;
     }
+
+    @Override
+    public ImmutableMap<Variable, Constant> getConstantBindings() {
+        return constantBindings;
+    }
 }
@@ -0,0 +1,215 @@
+package it.unibz.inf.ontop.iq.node.impl;
+
+
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.exception.InvalidQueryNodeException;
+import it.unibz.inf.ontop.iq.exception.QueryNodeTransformationException;
+import it.unibz.inf.ontop.iq.impl.DefaultSubstitutionResults;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.iq.transform.node.HeterogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.iq.transform.node.HomogeneousQueryNodeTransformer;
+import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import java.util.stream.Stream;
+
+import static it.unibz.inf.ontop.iq.node.NodeTransformationProposedState.DECLARE_AS_EMPTY;
+
+public class TransitiveClosureNodeImpl extends QueryNodeImpl implements TransitiveClosureNode {
+
+    private static final String TRANSITIVE_CLOSURE_NODE_STR = "TRANSITIVE_CLOSURE";
+    private static final String ZERO_LENGTH_STR = "(with zero-length paths)";
+
+    private final Variable childSourceVariable;
+    private final Variable childTargetVariable;
+    private final ImmutableTerm source;
+    private final ImmutableTerm target;
+    private final boolean includesZeroLengthPaths;
+    private final ImmutableSet<Variable> projectedVariables;
+
+    @AssistedInject
+    private TransitiveClosureNodeImpl(@Assisted("childSource") Variable childSourceVariable,
+                                      @Assisted("childTarget") Variable childTargetVariable,
+                                      @Assisted("source") ImmutableTerm source,
+                                      @Assisted("target") ImmutableTerm target,
+                                      @Assisted boolean includesZeroLengthPaths) {
+        this.childSourceVariable = childSourceVariable;
+        this.childTargetVariable = childTargetVariable;
+        this.source = source;
+        this.target = target;
+        this.includesZeroLengthPaths = includesZeroLengthPaths;
+        this.projectedVariables = Stream.concat(source.getVariableStream(), target.getVariableStream())
+                .collect(ImmutableCollectors.toSet());
+
+        if (childSourceVariable.equals(childTargetVariable))
+            throw new InvalidQueryNodeException("TransitiveClosureNode: the source and the target of the edges " +
+                    "must be distinct variables.\n" + toString());
+    }
+
+    @Override
+    public Variable getChildSourceVariable() {
+        return childSourceVariable;
+    }
+
+    @Override
+    public Variable getChildTargetVariable() {
+        return childTargetVariable;
+    }
+
+    @Override
+    public ImmutableTerm getSource() {
+        return source;
+    }
+
+    @Override
+    public ImmutableTerm getTarget() {
+        return target;
+    }
+
+    @Override
+    public boolean includesZeroLengthPaths() {
+        return includesZeroLengthPaths;
+    }
+
+    @Override
+    public ImmutableSet<Variable> getVariables() {
+        return projectedVariables;
+    }
+
+    @Override
+    public void acceptVisitor(QueryNodeVisitor visitor) {
+        visitor.visit(this);
+    }
+
+    /**
+     * Immutable fields, can be shared.
+     */
+    @Override
+    public TransitiveClosureNode clone() {
+        return new TransitiveClosureNodeImpl(childSourceVariable, childTargetVariable, source, target,
+                includesZeroLengthPaths);
+    }
+
+    @Override
+    public TransitiveClosureNode acceptNodeTransformer(HomogeneousQueryNodeTransformer transformer)
+            throws QueryNodeTransformationException {
+        return transformer.transform(this);
+    }
+
+    @Override
+    public NodeTransformationProposal acceptNodeTransformer(HeterogeneousQueryNodeTransformer transformer) {
+        return transformer.transform(this);
+    }
+
+    /**
+     * Blocks an ascending substitution by inserting a construction node
+     * (the bindings cannot be lifted above the closure).
+     */
+    @Override
+    public SubstitutionResults<TransitiveClosureNode> applyAscendingSubstitution(
+            ImmutableSubstitution<? extends ImmutableTerm> substitution,
+            QueryNode childNode, IntermediateQuery query) {
+        ImmutableSet<Variable> childVariables = getLocallyRequiredVariables();
+
+        ImmutableSubstitution<ImmutableTerm> reducedSubstitution = ConstructionNodeTools
+                .extractRelevantDescendingSubstitution(substitution, childVariables);
+
+        if (reducedSubstitution.isEmpty()) {
+            return DefaultSubstitutionResults.noChange();
+        }
+        else {
+            ConstructionNode newParentOfChildNode = query.getFactory().createConstructionNode(childVariables,
+                    reducedSubstitution);
+            return DefaultSubstitutionResults.insertConstructionNode(newParentOfChildNode, childNode);
+        }
+    }
+
+    /**
+     * The variables of the child are not affected: the substitution is only applied to the source and target terms.
+     */
+    @Override
+    public SubstitutionResults<TransitiveClosureNode> applyDescendingSubstitution(
+            ImmutableSubstitution<? extends ImmutableTerm> descendingSubstitution, IntermediateQuery query) {
+
+        ImmutableTerm newSource = descendingSubstitution.apply(source);
+        ImmutableTerm newTarget = descendingSubstitution.apply(target);
+
+        if (newSource.equals(source) && newTarget.equals(target))
+            return DefaultSubstitutionResults.noChange();
+
+        return DefaultSubstitutionResults.newNode(new TransitiveClosureNodeImpl(childSourceVariable,
+                childTargetVariable, newSource, newTarget, includesZeroLengthPaths));
+    }
+
+    /**
+     * Paths only connect non-null values
+     */
+    @Override
+    public boolean isVariableNullable(IntermediateQuery query, Variable variable) {
+        if (projectedVariables.contains(variable))
+            return false;
+
+        throw new IllegalArgumentException("The variable " + variable + " is not projected by " + this);
+    }
+
+    @Override
+    public boolean isSyntacticallyEquivalentTo(QueryNode node) {
+        if (node instanceof TransitiveClosureNode) {
+            TransitiveClosureNode closureNode = (TransitiveClosureNode) node;
+            return childSourceVariable.equals(closureNode.getChildSourceVariable())
+                    && childTargetVariable.equals(closureNode.getChildTargetVariable())
+                    && source.equals(closureNode.getSource())
+                    && target.equals(closureNode.getTarget())
+                    && (includesZeroLengthPaths == closureNode.includesZeroLengthPaths());
+        }
+        return false;
+    }
+
+    /**
+     * No edge, no path (the zero-length paths are also built from the edges)
+     */
+    @Override
+    public NodeTransformationProposal reactToEmptyChild(IntermediateQuery query, EmptyNode emptyChild) {
+        return new NodeTransformationProposalImpl(DECLARE_AS_EMPTY, projectedVariables);
+    }
+
+    @Override
+    public NodeTransformationProposal reactToTrueChildRemovalProposal(IntermediateQuery query, TrueNode trueNode) {
+        throw new UnsupportedOperationException("The TrueNode child of a TransitiveClosureNode is not expected to be removed");
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocalVariables() {
+        return Stream.concat(projectedVariables.stream(), getLocallyRequiredVariables().stream())
+                .collect(ImmutableCollectors.toSet());
+    }
+
+    /**
+     * Source and target variables of the edges
+     */
+    @Override
+    public ImmutableSet<Variable> getLocallyRequiredVariables() {
+        return ImmutableSet.of(childSourceVariable, childTargetVariable);
+    }
+
+    @Override
+    public ImmutableSet<Variable> getRequiredVariables(IntermediateQuery query) {
+        return getLocallyRequiredVariables();
+    }
+
+    @Override
+    public ImmutableSet<Variable> getLocallyDefinedVariables() {
+        return projectedVariables;
+    }
+
+    @Override
+    public String toString() {
+        return TRANSITIVE_CLOSURE_NODE_STR + " " + source + " -> " + target + " [" + childSourceVariable + " -> "
+                + childTargetVariable + "]" + (includesZeroLengthPaths ? " " + ZERO_LENGTH_STR : "");
+    }
+}
@@ -15,6 +15,10 @@ public interface HeterogeneousQueryNodeTransformer<P extends NodeTransformationP
 
     P transform(UnionNode unionNode);
 
+    P transform(AggregationNode aggregationNode);
+
+    P transform(TransitiveClosureNode transitiveClosureNode);
+
     P transform(IntensionalDataNode intensionalDataNode);
 
     P transform(InnerJoinNode innerJoinNode);
@@ -17,6 +17,10 @@ public interface HomogeneousQueryNodeTransformer<T1 extends QueryNodeTransformat
 
     UnionNode transform(UnionNode unionNode) throws T1, T2;
 
+    AggregationNode transform(AggregationNode aggregationNode) throws T1, T2;
+
+    TransitiveClosureNode transform(TransitiveClosureNode transitiveClosureNode) throws T1, T2;
+
     IntensionalDataNode transform(IntensionalDataNode intensionalDataNode) throws T1, T2;
 
     InnerJoinNode transform(InnerJoinNode innerJoinNode) throws T1, T2;
@@ -27,6 +27,16 @@ public class IdentityQueryNodeTransformer implements HomogeneousQueryNodeTransfo
         return unionNode;
     }
 
+    @Override
+    public AggregationNode transform(AggregationNode aggregationNode) {
+        return aggregationNode;
+    }
+
+    @Override
+    public TransitiveClosureNode transform(TransitiveClosureNode transitiveClosureNode) {
+        return transitiveClosureNode;
+    }
+
     @Override
     public IntensionalDataNode transform(IntensionalDataNode intensionalDataNode) {
         return intensionalDataNode;
@@ -24,6 +24,16 @@ public class QueryNodeCloner implements HomogeneousQueryNodeTransformer {
         return unionNode.clone();
     }
 
+    @Override
+    public AggregationNode transform(AggregationNode aggregationNode) {
+        return aggregationNode.clone();
+    }
+
+    @Override
+    public TransitiveClosureNode transform(TransitiveClosureNode transitiveClosureNode) {
+        return transitiveClosureNode.clone();
+    }
+
     @Override
     public IntensionalDataNode transform(IntensionalDataNode intensionalDataNode) {
         return intensionalDataNode.clone();
@@ -73,6 +73,46 @@ public class StandardIntermediateQueryValidator implements IntermediateQueryVali
             }
         }
 
+        @Override
+        public void visit(AggregationNode aggregationNode) {
+            if (query.getChildren(aggregationNode).size() != 1) {
+                throw new InvalidIntermediateQueryException("AGGREGATION node " + aggregationNode
+                        + " must have ONE and ONLY ONE child.\n" + query);
+            }
+
+            ImmutableSet<Variable> requiredChildVariables = aggregationNode.getLocallyRequiredVariables();
+
+            for (QueryNode child : query.getChildren(aggregationNode)) {
+                ImmutableSet<Variable> childProjectedVariables = query.getVariables(child);
+
+                if (!childProjectedVariables.containsAll(requiredChildVariables)) {
+                    throw new InvalidIntermediateQueryException("This child " + child
+                            + " does not project all the variables " +
+                            "required by the AGGREGATION node (" + requiredChildVariables + ")\n" + query);
+                }
+            }
+        }
+
+        @Override
+        public void visit(TransitiveClosureNode transitiveClosureNode) {
+            if (query.getChildren(transitiveClosureNode).size() != 1) {
+                throw new InvalidIntermediateQueryException("TRANSITIVE_CLOSURE node " + transitiveClosureNode
+                        + " must have ONE and ONLY ONE child.\n" + query);
+            }
+
+            ImmutableSet<Variable> requiredChildVariables = transitiveClosureNode.getLocallyRequiredVariables();
+
+            for (QueryNode child : query.getChildren(transitiveClosureNode)) {
+                ImmutableSet<Variable> childProjectedVariables = query.getVariables(child);
+
+                if (!childProjectedVariables.containsAll(requiredChildVariables)) {
+                    throw new InvalidIntermediateQueryException("This child " + child
+                            + " does not project all the variables " +
+                            "required by the TRANSITIVE_CLOSURE node (" + requiredChildVariables + ")\n" + query);
+                }
+            }
+        }
+
         @Override
         public void visit(InnerJoinNode innerJoinNode) {
             if (query.getChildren(innerJoinNode).size() < 2) {
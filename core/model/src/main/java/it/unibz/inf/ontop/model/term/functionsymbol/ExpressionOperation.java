@@ -101,9 +101,13 @@ public enum ExpressionOperation implements OperationPredicate {
 
 	AVG("AVG", TermTypeInferenceRules.NON_INTEGER_NUMERIC_RULE, null),
 	SUM("SUM", TermTypeInferenceRules.STANDARD_NUMERIC_RULE, null),
-	MAX("MAX", TermTypeInferenceRules.STANDARD_NUMERIC_RULE, null),
-	MIN("MIN", TermTypeInferenceRules.STANDARD_NUMERIC_RULE, null),
-	COUNT("COUNT", TermTypeInferenceRules.PREDEFINED_INTEGER_RULE, null);
+	MAX("MAX", TermTypeInferenceRules.FIRST_ARG_RULE, null),
+	MIN("MIN", TermTypeInferenceRules.FIRST_ARG_RULE, null),
+	COUNT("COUNT", TermTypeInferenceRules.PREDEFINED_INTEGER_RULE, null),
+	COUNT_DISTINCT("COUNT_DISTINCT", TermTypeInferenceRules.PREDEFINED_INTEGER_RULE, null),
+	SAMPLE("SAMPLE", TermTypeInferenceRules.FIRST_ARG_RULE, null),
+	// Second argument: separator (constant)
+	GROUP_CONCAT("GROUP_CONCAT", TermTypeInferenceRules.PREDEFINED_LITERAL_RULE, null, null);
 
 
 	// 0-ary operations
@@ -199,6 +203,26 @@ public enum ExpressionOperation implements OperationPredicate {
 		return false;
 	}
 
+	/**
+	 * Aggregation functions are only expected in the substitution of an AggregationNode
+	 * (and in the head of a Datalog rule having a GROUP atom)
+	 */
+	public boolean isAggregation() {
+		switch (this) {
+			case AVG:
+			case SUM:
+			case MAX:
+			case MIN:
+			case COUNT:
+			case COUNT_DISTINCT:
+			case SAMPLE:
+			case GROUP_CONCAT:
+				return true;
+			default:
+				return false;
+		}
+	}
+
 	public TermTypeInferenceRule getTermTypeInferenceRule() {
 		return termTypeInferenceRule;
 	}
@@ -36,6 +36,11 @@ public class TermTypeInferenceRules {
      */
     public static final TermTypeInferenceRule FIRST_STRING_LANG_ARG_RULE = new FirstStringLangArgTermTypeInferenceRule();
 
+    /**
+     * Type of the first argument (e.g. MIN, MAX)
+     */
+    public static final TermTypeInferenceRule FIRST_ARG_RULE = new FirstArgumentTermTypeInferenceRule();
+
     /**
      * TODO: explain
      */
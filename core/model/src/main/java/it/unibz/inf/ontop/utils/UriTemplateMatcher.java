@@ -22,166 +22,255 @@ package it.unibz.inf.ontop.utils;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.model.term.functionsymbol.URITemplatePredicate;
 import it.unibz.inf.ontop.model.term.*;
 
 import java.util.*;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Stream;
 
 import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
 
+/**
+ * Finds the most specific IRI template matching a given IRI and extracts its arguments.
+ *
+ * The templates are indexed by their leading constant part in a prefix trie: walking the trie along the IRI
+ * collects, in one pass, the only templates that can match. These candidates are then checked from
+ * the most specific to the least specific one, without regular expressions.
+ *
+ * Like the regular expressions it replaces (where each "{}" was a greedy "(.+)"), the arguments are non-empty
+ * and the first ones are as long as possible. The constant parts are matched literally.
+ *
+ * Immutable, and therefore thread-safe.
+ */
 public class UriTemplateMatcher {
 
-    private UriTemplateMatcher() {
-    }
-
-    private final Map<Pattern, ImmutableFunctionalTerm> uriTemplateMatcher = new HashMap<>();
-
     /**
-     * TODO: refactor using streaming.
+     * Template string for URIs directly coming from a column: uri(x)
      */
-    public static UriTemplateMatcher create(Stream<? extends ImmutableFunctionalTerm> targetAtomStream) {
-        Set<String> templateStrings = new HashSet<>();
-
-        UriTemplateMatcher uriTemplateMatcher = new UriTemplateMatcher();
-
-        ImmutableList<? extends ImmutableFunctionalTerm> targetAtoms = targetAtomStream.collect(ImmutableCollectors.toList());
+    private static final String IDENTITY_TEMPLATE = "{}";
+    private static final String PLACEHOLDER = "{}";
 
-        for (ImmutableFunctionalTerm fun : targetAtoms) {
+    // Insertion-ordered
+    private final ImmutableMap<String, ImmutableFunctionalTerm> templateMap;
+    // Sorted from the most specific to the least specific
+    private final ImmutableList<Template> templates;
+    private final TrieNode trieRoot;
 
-            // Collecting URI templates and making pattern matchers for them.
-            if (!(fun.getFunctionSymbol() instanceof URITemplatePredicate)) {
-                continue;
-            }
-            /*
-			 * This is a URI function, so it can generate pattern matchers
-			 * for the URIs. We have two cases, one where the arity is 1,
-			 * and there is a constant/variable. The second case is
-			 * where the first element is a string template of the URI, and
-			 * the rest of the terms are variables/constants
-			 */
-            if (fun.getTerms().size() == 1) {
-				/*
-				 * URI without template, we get it directly from the column
-				 * of the table, and the function is only f(x)
-				 */
-                if (templateStrings.contains("(.+)")) {
-                    continue;
-                }
+    private UriTemplateMatcher(ImmutableMap<String, ImmutableFunctionalTerm> templateMap) {
+        this.templateMap = templateMap;
 
-                ImmutableFunctionalTerm templateFunction = TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getVariable("x"));
-                Pattern matcher = Pattern.compile("(.+)");
-                uriTemplateMatcher.uriTemplateMatcher.put(matcher, templateFunction);
-                templateStrings.add("(.+)");
-            } else {
-                ValueConstant template = (ValueConstant) fun.getTerms().get(0);
-                String templateString = template.getValue();
-                templateString = templateString.replace("{}", "(.+)");
-
-                if (templateStrings.contains(templateString)) {
-                    continue;
-                }
-
-                Pattern matcher = Pattern.compile(templateString);
-                uriTemplateMatcher.uriTemplateMatcher.put(matcher, fun);
-                templateStrings.add(templateString);
+        List<Template> templateList = new ArrayList<>();
+        int order = 0;
+        for (Map.Entry<String, ImmutableFunctionalTerm> e : templateMap.entrySet())
+            templateList.add(new Template(e.getKey(), e.getValue(), order++));
+        templateList.sort(Comparator
+                .comparingInt((Template t) -> t.specificity).reversed()
+                .thenComparingInt(t -> t.order));
+        this.templates = ImmutableList.copyOf(templateList);
 
-            }
-        }
-        return uriTemplateMatcher;
+        this.trieRoot = new TrieNode();
+        for (int rank = 0; rank < templates.size(); rank++)
+            trieRoot.insert(templates.get(rank).literals[0], rank);
     }
 
-    public static UriTemplateMatcher merge(Stream<UriTemplateMatcher> uriTemplateMatchers) {
+    public static UriTemplateMatcher create(Stream<? extends ImmutableFunctionalTerm> targetAtomStream) {
+        Map<String, ImmutableFunctionalTerm> templateMap = new LinkedHashMap<>();
 
-        ImmutableMap<Pattern, Collection<ImmutableFunctionalTerm>> pattern2Terms = uriTemplateMatchers
-                .flatMap(m -> m.getMap().entrySet().stream())
-                .collect(ImmutableCollectors.toMultimap())
-                .asMap();
-
-        ImmutableMap<Pattern, ImmutableFunctionalTerm> pattern2Term = pattern2Terms.entrySet().stream()
-                .collect(ImmutableCollectors.toMap(
-                        e -> e.getKey(),
-                        e -> flatten(e.getKey(), e.getValue())
-                ));
-        UriTemplateMatcher uriTemplateMatcher = new UriTemplateMatcher();
-        uriTemplateMatcher.uriTemplateMatcher.putAll(pattern2Term);
-        return uriTemplateMatcher;
+        targetAtomStream
+                // Collecting URI templates
+                .filter(fun -> fun.getFunctionSymbol() instanceof URITemplatePredicate)
+                .forEach(fun -> {
+                    /*
+                     * We have two cases, one where the arity is 1,
+                     * and there is a constant/variable. The second case is
+                     * where the first element is a string template of the URI, and
+                     * the rest of the terms are variables/constants
+                     */
+                    if (fun.getTerms().size() == 1) {
+                        /*
+                         * URI without template, we get it directly from the column
+                         * of the table, and the function is only f(x)
+                         */
+                        templateMap.putIfAbsent(IDENTITY_TEMPLATE,
+                                TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getVariable("x")));
+                    } else {
+                        ValueConstant template = (ValueConstant) fun.getTerms().get(0);
+                        templateMap.putIfAbsent(template.getValue(), fun);
+                    }
+                });
+        return new UriTemplateMatcher(ImmutableMap.copyOf(templateMap));
     }
 
-    private static ImmutableFunctionalTerm flatten(Pattern pattern, Collection<ImmutableFunctionalTerm> collection) {
-        if (ImmutableSet.copyOf(collection).size() == 1) {
-            return collection.iterator().next();
-        }
-        throw new IllegalArgumentException("Conflicting term for pattern" + pattern + ": " + collection);
+    /**
+     * When several matchers have the same template, the term of the first one is kept
+     * (only its template string matters, see generateURIFunction()).
+     */
+    public static UriTemplateMatcher merge(Stream<UriTemplateMatcher> uriTemplateMatchers) {
+        Map<String, ImmutableFunctionalTerm> templateMap = new LinkedHashMap<>();
+        uriTemplateMatchers
+                .flatMap(m -> m.templateMap.entrySet().stream())
+                .forEach(e -> templateMap.putIfAbsent(e.getKey(), e.getValue()));
+        return new UriTemplateMatcher(ImmutableMap.copyOf(templateMap));
     }
 
     /***
-     * We will try to match the URI to one of our patterns, if this happens, we
+     * We will try to match the URI to one of our templates, if this happens, we
      * have a corresponding function, and the parameters for this function. The
-     * parameters are the values for the groups of the pattern.
+     * parameters are the values of the placeholders of the template.
      */
     public ImmutableFunctionalTerm generateURIFunction(String uriString) {
-        ImmutableFunctionalTerm functionURI = null;
-
-        List<Pattern> patternsMatched = new LinkedList<>();
-        for (Pattern pattern : uriTemplateMatcher.keySet()) {
+        int[] candidates = trieRoot.collectCandidates(uriString);
+        // From the most specific to the least specific
+        Arrays.sort(candidates);
 
-            Matcher matcher = pattern.matcher(uriString);
-            boolean match = matcher.matches();
-            if (!match) {
+        for (int rank : candidates) {
+            Template template = templates.get(rank);
+            Optional<ImmutableList<String>> arguments = template.match(uriString);
+            if (!arguments.isPresent())
                 continue;
-            }
-            patternsMatched.add(pattern);
-        }
-        Comparator<Pattern> comparator = new Comparator<Pattern>() {
-            public int compare(Pattern c1, Pattern c2) {
-                return c2.pattern().length() - c1.pattern().length(); // use your logic
-            }
-        };
 
-        Collections.sort(patternsMatched, comparator);
-        for (Pattern pattern : patternsMatched) {
-            ImmutableFunctionalTerm matchingFunction = uriTemplateMatcher.get(pattern);
-            ImmutableTerm baseParameter = matchingFunction.getTerm(0);
+            ImmutableTerm baseParameter = template.term.getTerm(0);
             if (baseParameter instanceof Constant) {
-				/*
-				 * This is a general template function of the form
-				 * uri("http://....", var1, var2,...) <p> we need to match var1,
-				 * var2, etc with substrings from the subjectURI
-				 */
-                Matcher matcher = pattern.matcher(uriString);
-                if (matcher.matches()) {
-                    ImmutableList.Builder<ImmutableTerm> values = ImmutableList.builder();
-                    values.add(baseParameter);
-                    for (int i = 0; i < matcher.groupCount(); i++) {
-                        String value = matcher.group(i + 1);
-                        values.add(TERM_FACTORY.getConstantLiteral(value));
-                    }
-                    functionURI = TERM_FACTORY.getImmutableUriTemplate(values.build());
-                }
-            } else if (baseParameter instanceof Variable) {
-				/*
-				 * This is a direct mapping to a column, uri(x)
-				 * we need to match x with the subjectURI
-				 */
-                functionURI = TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(uriString));
+                /*
+                 * This is a general template function of the form
+                 * uri("http://....", var1, var2,...) <p> we need to match var1,
+                 * var2, etc with substrings from the subjectURI
+                 */
+                ImmutableList.Builder<ImmutableTerm> values = ImmutableList.builder();
+                values.add(baseParameter);
+                for (String value : arguments.get())
+                    values.add(TERM_FACTORY.getConstantLiteral(value));
+                return TERM_FACTORY.getImmutableUriTemplate(values.build());
             }
+            /*
+             * This is a direct mapping to a column, uri(x)
+             * we need to match x with the subjectURI
+             */
             break;
         }
-        if (functionURI == null) {
-			/* If we cannot match against a template, we try to match against the most general template (which will
-			 * generate empty queries later in the query answering process
-			 */
-            functionURI = TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(uriString));
+        /* If we cannot match against a template, we use the most general template (which will
+         * generate empty queries later in the query answering process
+         */
+        return TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(uriString));
+    }
+
+
+    private static class Template {
+        private final ImmutableFunctionalTerm term;
+        /**
+         * Constant parts: before the first placeholder, between the placeholders and after the last one.
+         * Possibly empty.
+         */
+        private final String[] literals;
+        /**
+         * Length of the former regular expression, in which each placeholder was "(.+)"
+         */
+        private final int specificity;
+        private final int order;
+
+        private Template(String templateString, ImmutableFunctionalTerm term, int order) {
+            this.term = term;
+            this.order = order;
+
+            List<String> literalList = new ArrayList<>();
+            int start = 0;
+            int index;
+            while ((index = templateString.indexOf(PLACEHOLDER, start)) >= 0) {
+                literalList.add(templateString.substring(start, index));
+                start = index + PLACEHOLDER.length();
+            }
+            literalList.add(templateString.substring(start));
+            this.literals = literalList.toArray(new String[0]);
+
+            int placeholderCount = literals.length - 1;
+            this.specificity = templateString.length() + placeholderCount * ("(.+)".length() - PLACEHOLDER.length());
+        }
+
+        /**
+         * The first constant part is assumed to be a prefix of the IRI (see the trie)
+         */
+        Optional<ImmutableList<String>> match(String iri) {
+            int placeholderCount = literals.length - 1;
+            if (placeholderCount == 0)
+                return iri.length() == literals[0].length()
+                        ? Optional.of(ImmutableList.of())
+                        : Optional.empty();
+
+            int[] argumentEnds = new int[placeholderCount];
+            if (!matchArguments(iri, 0, literals[0].length(), argumentEnds))
+                return Optional.empty();
+
+            ImmutableList.Builder<String> arguments = ImmutableList.builder();
+            int start = literals[0].length();
+            for (int i = 0; i < placeholderCount; i++) {
+                arguments.add(iri.substring(start, argumentEnds[i]));
+                start = argumentEnds[i] + literals[i + 1].length();
+            }
+            return Optional.of(arguments.build());
         }
 
-        return functionURI;
+        /**
+         * Backtracking, the longest argument first (like the greedy groups of a regular expression).
+         *
+         * placeholderIndex: 0-based
+         * start: where the argument starts
+         */
+        private boolean matchArguments(String iri, int placeholderIndex, int start, int[] argumentEnds) {
+            String nextLiteral = literals[placeholderIndex + 1];
+
+            // Last placeholder: the last constant part must be a suffix
+            if (placeholderIndex == literals.length - 2) {
+                int end = iri.length() - nextLiteral.length();
+                if (end > start && iri.endsWith(nextLiteral)) {
+                    argumentEnds[placeholderIndex] = end;
+                    return true;
+                }
+                return false;
+            }
+
+            for (int end = iri.lastIndexOf(nextLiteral, iri.length() - nextLiteral.length());
+                 end > start;
+                 end = iri.lastIndexOf(nextLiteral, end - 1)) {
+                argumentEnds[placeholderIndex] = end;
+                if (matchArguments(iri, placeholderIndex + 1, end + nextLiteral.length(), argumentEnds))
+                    return true;
+            }
+            return false;
+        }
     }
 
-    private ImmutableMap<Pattern, ImmutableFunctionalTerm> getMap() {
-        return ImmutableMap.copyOf(uriTemplateMatcher);
+    /**
+     * Indexes the templates (by rank) by their first constant part
+     */
+    private static class TrieNode {
+        private final Map<Character, TrieNode> children = new HashMap<>();
+        private int[] ranks = new int[0];
+
+        void insert(String prefix, int rank) {
+            TrieNode node = this;
+            for (int i = 0; i < prefix.length(); i++)
+                node = node.children.computeIfAbsent(prefix.charAt(i), c -> new TrieNode());
+            node.ranks = Arrays.copyOf(node.ranks, node.ranks.length + 1);
+            node.ranks[node.ranks.length - 1] = rank;
+        }
+
+        /**
+         * Ranks of the templates whose first constant part is a prefix of the IRI (new array)
+         */
+        int[] collectCandidates(String iri) {
+            int[] candidates = ranks.clone();
+            TrieNode node = this;
+            for (int i = 0; i < iri.length(); i++) {
+                node = node.children.get(iri.charAt(i));
+                if (node == null)
+                    break;
+                if (node.ranks.length > 0) {
+                    int[] merged = Arrays.copyOf(candidates, candidates.length + node.ranks.length);
+                    System.arraycopy(node.ranks, 0, merged, candidates.length, node.ranks.length);
+                    candidates = merged;
+                }
+            }
+            return candidates;
+        }
     }
 }
@@ -0,0 +1,62 @@
+package it.unibz.inf.ontop.utils;
+
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import org.junit.Test;
+
+import java.util.stream.Stream;
+
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
+import static org.junit.Assert.assertEquals;
+
+public class UriTemplateMatcherTest {
+
+    private static final ImmutableFunctionalTerm PERSON = template("http://example.org/person/{}");
+    private static final ImmutableFunctionalTerm PERSON_ADDRESS = template("http://example.org/person/{}/address/{}");
+    private static final ImmutableFunctionalTerm DIRECT = TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getVariable("y"));
+
+    private static final UriTemplateMatcher MATCHER = UriTemplateMatcher.create(
+            Stream.of(PERSON, PERSON_ADDRESS, DIRECT));
+
+    @Test
+    public void testMostSpecificTemplate() {
+        assertEquals(TERM_FACTORY.getImmutableUriTemplate(PERSON_ADDRESS.getTerm(0),
+                TERM_FACTORY.getConstantLiteral("1"), TERM_FACTORY.getConstantLiteral("2")),
+                MATCHER.generateURIFunction("http://example.org/person/1/address/2"));
+    }
+
+    @Test
+    public void testGreedyArguments() {
+        assertEquals(TERM_FACTORY.getImmutableUriTemplate(PERSON_ADDRESS.getTerm(0),
+                TERM_FACTORY.getConstantLiteral("1/address/2"), TERM_FACTORY.getConstantLiteral("3")),
+                MATCHER.generateURIFunction("http://example.org/person/1/address/2/address/3"));
+    }
+
+    @Test
+    public void testLessSpecificTemplate() {
+        assertEquals(TERM_FACTORY.getImmutableUriTemplate(PERSON.getTerm(0), TERM_FACTORY.getConstantLiteral("1/x")),
+                MATCHER.generateURIFunction("http://example.org/person/1/x"));
+    }
+
+    @Test
+    public void testNoTemplate() {
+        String iri = "http://example.org/company/1";
+        assertEquals(TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(iri)),
+                MATCHER.generateURIFunction(iri));
+    }
+
+    /**
+     * The constant parts are not regular expressions
+     */
+    @Test
+    public void testLiteralMatching() {
+        UriTemplateMatcher matcher = UriTemplateMatcher.create(Stream.of(template("http://example.org/p?id={}")));
+        String iri = "http://example.org/pid=1";
+        assertEquals(TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(iri)),
+                matcher.generateURIFunction(iri));
+    }
+
+    private static ImmutableFunctionalTerm template(String templateString) {
+        return TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(templateString),
+                TERM_FACTORY.getVariable("x"));
+    }
+}
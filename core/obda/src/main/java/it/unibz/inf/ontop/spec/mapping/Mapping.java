@@ -2,10 +2,12 @@ package it.unibz.inf.ontop.spec.mapping;
 
 
 import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
 import it.unibz.inf.ontop.iq.IntermediateQuery;
 import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
 
 import java.util.Optional;
 
@@ -18,6 +20,15 @@ public interface Mapping {
 
     Optional<IntermediateQuery> getDefinition(AtomPredicate predicate);
 
+    /**
+     * Definition restricted to the branches (of its top union) that may produce
+     * the ground arguments (e.g., the IRIs of a query atom).
+     *
+     * Returns an empty optional if no branch can.
+     */
+    Optional<IntermediateQuery> getDefinition(AtomPredicate predicate,
+                                              ImmutableList<? extends VariableOrGroundTerm> arguments);
+
     ImmutableSet<AtomPredicate> getPredicates();
 
     ImmutableCollection<IntermediateQuery> getQueries();
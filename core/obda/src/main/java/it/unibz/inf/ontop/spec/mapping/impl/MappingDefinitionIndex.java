@@ -0,0 +1,253 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.IntermediateQueryBuilder;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.QueryNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.substitution.impl.ImmutableUnificationTools;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+
+import java.util.*;
+
+/**
+ * Indexes the branches of a mapping definition (the children of its top UNION, if any)
+ * by the terms (IRI templates, datatypes, etc.) they construct for each argument of the projection atom.
+ *
+ * Used for discarding in advance the branches that cannot unify with the ground arguments
+ * of an intensional atom, instead of unfolding them and letting the optimizers drop them.
+ *
+ * Immutable
+ */
+class MappingDefinitionIndex {
+
+    private final IntermediateQuery definition;
+    // Top UNION (absent when the definition is made of a single branch)
+    private final Optional<UnionNode> unionNode;
+    private final ImmutableList<QueryNode> branches;
+
+    // By argument position
+    private final ImmutableList<Optional<ImmutableTerm>> rootTerms;
+    private final ImmutableList<PositionIndex> positionIndexes;
+
+    MappingDefinitionIndex(IntermediateQuery definition) {
+        this.definition = definition;
+
+        QueryNode rootNode = definition.getRootNode();
+        Optional<ImmutableSubstitution<ImmutableTerm>> rootSubstitution = (rootNode instanceof ConstructionNode)
+                ? Optional.of(((ConstructionNode) rootNode).getSubstitution())
+                : Optional.empty();
+
+        ImmutableList<QueryNode> rootChildren = definition.getChildren(rootNode);
+        this.unionNode = (rootNode instanceof ConstructionNode && rootChildren.size() == 1
+                && rootChildren.get(0) instanceof UnionNode)
+                ? Optional.of((UnionNode) rootChildren.get(0))
+                : Optional.empty();
+        this.branches = unionNode
+                .map(definition::getChildren)
+                .orElseGet(() -> ImmutableList.of(rootNode));
+
+        ImmutableList<Variable> projectedVariables = definition.getProjectionAtom().getArguments();
+
+        this.rootTerms = projectedVariables.stream()
+                .map(v -> rootSubstitution
+                        .filter(s -> s.isDefining(v))
+                        .map(s -> (ImmutableTerm) s.get(v)))
+                .collect(ImmutableCollectors.toList());
+
+        this.positionIndexes = projectedVariables.stream()
+                .map(v -> new PositionIndex(branches.stream()
+                        // NB: in the absence of UNION, the root is the only branch (its terms are the root terms)
+                        .map(b -> unionNode.isPresent() ? getBranchTerm(b, v) : Optional.<ImmutableTerm>empty())
+                        .collect(ImmutableCollectors.toList())))
+                .collect(ImmutableCollectors.toList());
+    }
+
+    private static Optional<ImmutableTerm> getBranchTerm(QueryNode branchRoot, Variable variable) {
+        if (!(branchRoot instanceof ConstructionNode))
+            return Optional.empty();
+
+        ImmutableSubstitution<ImmutableTerm> substitution = ((ConstructionNode) branchRoot).getSubstitution();
+        return substitution.isDefining(variable)
+                ? Optional.of(substitution.get(variable))
+                : Optional.empty();
+    }
+
+    /**
+     * Definition restricted to the branches compatible with the ground arguments.
+     *
+     * Returns an empty optional if no branch is compatible.
+     */
+    Optional<IntermediateQuery> getDefinition(ImmutableList<? extends VariableOrGroundTerm> arguments) {
+        if (arguments.size() != rootTerms.size())
+            return Optional.of(definition);
+
+        BitSet candidates = new BitSet(branches.size());
+        candidates.set(0, branches.size());
+
+        for (int i = 0; i < arguments.size(); i++) {
+            VariableOrGroundTerm argument = arguments.get(i);
+            if (argument instanceof Variable)
+                continue;
+
+            Optional<ImmutableTerm> rootTerm = rootTerms.get(i);
+            if (rootTerm.isPresent()) {
+                if (!isCompatible(rootTerm.get(), argument))
+                    return Optional.empty();
+            }
+            else
+                positionIndexes.get(i).retainCandidates(argument, candidates);
+        }
+
+        int candidateCount = candidates.cardinality();
+        if (candidateCount == branches.size())
+            return Optional.of(definition);
+        if (candidateCount == 0)
+            return Optional.empty();
+
+        return Optional.of(buildRestrictedDefinition(candidates));
+    }
+
+    /**
+     * Conservative: false only if the terms are known not to unify
+     */
+    private static boolean isCompatible(ImmutableTerm mappingTerm, VariableOrGroundTerm argument) {
+        if (mappingTerm instanceof ImmutableFunctionalTerm && argument instanceof ImmutableFunctionalTerm)
+            return ImmutableUnificationTools.computeMGU((ImmutableFunctionalTerm) mappingTerm,
+                    (ImmutableFunctionalTerm) argument).isPresent();
+        if (mappingTerm instanceof Constant && argument instanceof Constant)
+            return mappingTerm.equals(argument);
+        return true;
+    }
+
+    private IntermediateQuery buildRestrictedDefinition(BitSet candidates) {
+        QueryNode rootNode = definition.getRootNode();
+        UnionNode union = unionNode
+                .orElseThrow(() -> new IllegalStateException("A single-branch definition cannot be restricted"));
+
+        IntermediateQueryBuilder queryBuilder = definition.newBuilder();
+        queryBuilder.init(definition.getProjectionAtom(), rootNode);
+
+        // A UNION needs at least two children
+        QueryNode parentNode;
+        if (candidates.cardinality() > 1) {
+            queryBuilder.addChild(rootNode, union);
+            parentNode = union;
+        }
+        else
+            parentNode = rootNode;
+
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            QueryNode branchRoot = branches.get(i);
+            queryBuilder.addChild(parentNode, branchRoot);
+            definition.getSubTreeNodesInTopDownOrder(branchRoot).stream()
+                    .skip(1)
+                    .forEach(node -> queryBuilder.addChild(
+                            definition.getParent(node)
+                                    .orElseThrow(() -> new IllegalStateException("Unknown parent")),
+                            node,
+                            definition.getOptionalPosition(node)));
+        }
+        return queryBuilder.build();
+    }
+
+
+    /**
+     * Branches by the term they construct for a given argument position
+     */
+    private static class PositionIndex {
+        // Branches that do not construct the argument themselves (e.g., projected from a data node)
+        private final BitSet unconstrainedBranches = new BitSet();
+        // Functional terms whose first argument is not a constant (e.g., URI(x))
+        private final ImmutableMap<Predicate, BitSet> branchesBySymbol;
+        // Functional terms whose first argument is a constant (e.g., an IRI template string)
+        private final ImmutableMap<FunctionalTermKey, BitSet> branchesByKey;
+        private final ImmutableList<Optional<ImmutableTerm>> branchTerms;
+
+        PositionIndex(ImmutableList<Optional<ImmutableTerm>> branchTerms) {
+            this.branchTerms = branchTerms;
+
+            Map<Predicate, BitSet> bySymbol = new HashMap<>();
+            Map<FunctionalTermKey, BitSet> byKey = new HashMap<>();
+            for (int i = 0; i < branchTerms.size(); i++) {
+                Optional<ImmutableTerm> term = branchTerms.get(i);
+                if (term.isPresent() && term.get() instanceof ImmutableFunctionalTerm) {
+                    ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term.get();
+                    Optional<FunctionalTermKey> key = FunctionalTermKey.of(functionalTerm);
+                    if (key.isPresent())
+                        byKey.computeIfAbsent(key.get(), k -> new BitSet()).set(i);
+                    else
+                        bySymbol.computeIfAbsent(functionalTerm.getFunctionSymbol(), k -> new BitSet()).set(i);
+                }
+                // Constants are compared directly
+                else if (!(term.isPresent() && term.get() instanceof Constant))
+                    unconstrainedBranches.set(i);
+            }
+            this.branchesBySymbol = ImmutableMap.copyOf(bySymbol);
+            this.branchesByKey = ImmutableMap.copyOf(byKey);
+        }
+
+        /**
+         * Side-effect on candidates
+         */
+        void retainCandidates(VariableOrGroundTerm argument, BitSet candidates) {
+            if (argument instanceof ImmutableFunctionalTerm) {
+                ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) argument;
+                BitSet compatibleBranches = (BitSet) unconstrainedBranches.clone();
+                Optional.ofNullable(branchesBySymbol.get(functionalTerm.getFunctionSymbol()))
+                        .ifPresent(compatibleBranches::or);
+                FunctionalTermKey.of(functionalTerm)
+                        .map(branchesByKey::get)
+                        .ifPresent(compatibleBranches::or);
+                candidates.and(compatibleBranches);
+            }
+
+            // Checks the remaining arguments (or compares the constants)
+            for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+                Optional<ImmutableTerm> term = branchTerms.get(i);
+                if (term.isPresent() && !isCompatible(term.get(), argument))
+                    candidates.clear(i);
+            }
+        }
+    }
+
+    /**
+     * Function symbol and constant first argument of a functional term
+     */
+    private static class FunctionalTermKey {
+        private final Predicate functionSymbol;
+        private final Constant firstArgument;
+
+        private FunctionalTermKey(Predicate functionSymbol, Constant firstArgument) {
+            this.functionSymbol = functionSymbol;
+            this.firstArgument = firstArgument;
+        }
+
+        static Optional<FunctionalTermKey> of(ImmutableFunctionalTerm functionalTerm) {
+            if (functionalTerm.getArity() == 0)
+                return Optional.empty();
+            ImmutableTerm firstArgument = functionalTerm.getTerm(0);
+            return (firstArgument instanceof Constant)
+                    ? Optional.of(new FunctionalTermKey(functionalTerm.getFunctionSymbol(), (Constant) firstArgument))
+                    : Optional.empty();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FunctionalTermKey)) return false;
+            FunctionalTermKey other = (FunctionalTermKey) o;
+            return functionSymbol.equals(other.functionSymbol) && firstArgument.equals(other.firstArgument);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(functionSymbol, firstArgument);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.spec.mapping.impl;
 
 import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.assistedinject.Assisted;
@@ -10,10 +11,14 @@ import it.unibz.inf.ontop.iq.IntermediateQuery;
 import it.unibz.inf.ontop.iq.node.QueryNode;
 import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
 import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.VariableOrGroundTerm;
 import it.unibz.inf.ontop.spec.mapping.Mapping;
 import it.unibz.inf.ontop.spec.mapping.MappingMetadata;
 
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 
 public class MappingImpl implements Mapping {
@@ -24,6 +29,10 @@ public class MappingImpl implements Mapping {
      * TODO: remove it when the conversion to Datalog will not be needed anymore
      */
     private final ExecutorRegistry executorRegistry;
+    /**
+     * Built on demand (most predicates are never queried with ground arguments)
+     */
+    private final Map<AtomPredicate, MappingDefinitionIndex> definitionIndexes = new ConcurrentHashMap<>();
 
     @AssistedInject
     private MappingImpl(@Assisted MappingMetadata metadata,
@@ -62,6 +71,17 @@ public class MappingImpl implements Mapping {
             Optional.empty();
     }
 
+    @Override
+    public Optional<IntermediateQuery> getDefinition(AtomPredicate predicate,
+                                                     ImmutableList<? extends VariableOrGroundTerm> arguments) {
+        if (arguments.stream().allMatch(a -> a instanceof Variable))
+            return getDefinition(predicate);
+
+        return getDefinition(predicate)
+                .flatMap(d -> definitionIndexes.computeIfAbsent(predicate, p -> new MappingDefinitionIndex(d))
+                        .getDefinition(arguments));
+    }
+
     @Override
     public ImmutableSet<AtomPredicate> getPredicates() {
         return definitions.keySet();
@@ -213,7 +213,9 @@ public class DatalogNormalizer {
 
 	public static void addMinimalEqualityToLeftJoin(CQIE query) {
 		for (Function f : query.getBody()) {
-			if (f.isAlgebraFunction()) {
+			// The GROUP and path atoms only contain variables
+			if (f.isAlgebraFunction() && (f.getFunctionSymbol() != DatalogAlgebraOperatorPredicates.SPARQL_GROUP)
+					&& (!DatalogAlgebraOperatorPredicates.isPathPredicate(f.getFunctionSymbol()))) {
 				addMinimalEqualityToLeftJoin(f);
 			}
 		}
@@ -9,6 +9,8 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import it.unibz.inf.ontop.datalog.CQIE;
 import it.unibz.inf.ontop.datalog.CQContainmentCheck;
@@ -32,7 +34,8 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(CQContainmentCheckUnderLIDs.class);
 	
-	private final Map<CQIE,IndexedCQ> indexedCQcache = new HashMap<>();
+	// concurrent: the T-mappings of independent predicates are computed in parallel
+	private final Map<CQIE,IndexedCQ> indexedCQcache = new ConcurrentHashMap<>();
 	
 	private final LinearInclusionDependencies dependencies;
 	
@@ -177,7 +180,7 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 		return indexedQ1.computeHomomorphism(q2);
 	}	
 
-	static int redundantCounter = 0;
+	private static final AtomicInteger redundantCounter = new AtomicInteger();
 	public static int twoAtomQs = 0;
 	public static int oneAtomQs = 0;
 	
@@ -206,7 +209,7 @@ public class CQContainmentCheckUnderLIDs implements CQContainmentCheck {
 		for (int i = 0; i < databaseAtoms.size(); i++) {
 			Function atomToBeRemoved = databaseAtoms.get(i);
 			if (checkRedundant(db, groundTerms, atomToBeRemoved)) {
-				LOGGER.warn("  REDUNDANT " + ++redundantCounter + ": " + atomToBeRemoved + " IN " + query);
+				LOGGER.warn("  REDUNDANT " + redundantCounter.incrementAndGet() + ": " + atomToBeRemoved + " IN " + query);
 				query.getBody().remove(atomToBeRemoved);
 				databaseAtoms.remove(atomToBeRemoved);
 				i--;
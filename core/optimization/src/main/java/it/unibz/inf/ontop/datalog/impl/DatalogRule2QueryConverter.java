@@ -1,7 +1,10 @@
 package it.unibz.inf.ontop.datalog.impl;
 
+import java.util.Map;
 import java.util.Optional;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import fj.P2;
 import fj.data.List;
 import it.unibz.inf.ontop.datalog.CQIE;
@@ -14,16 +17,21 @@ import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
 import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
 import it.unibz.inf.ontop.model.term.Function;
 import it.unibz.inf.ontop.model.term.ImmutableExpression;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
 import it.unibz.inf.ontop.model.term.ImmutableTerm;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation;
 import it.unibz.inf.ontop.iq.node.BinaryOrderedOperatorNode.ArgumentPosition;
 import it.unibz.inf.ontop.iq.*;
 import it.unibz.inf.ontop.datalog.TargetAtom;
 import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.Collection;
 import java.util.HashSet;
 
+import static it.unibz.inf.ontop.model.OntopModelSingletons.SUBSTITUTION_FACTORY;
 import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
 
 /**
@@ -40,6 +48,7 @@ public class DatalogRule2QueryConverter {
         private final List<Function> dataAndCompositeAtoms;
         private final List<Function> booleanAtoms;
         private final Optional<Function> optionalGroupAtom;
+        private final Optional<Function> optionalPathAtom;
 
         protected AtomClassification(List<Function> atoms) throws DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException {
             dataAndCompositeAtoms = DatalogTools.filterDataAndCompositeAtoms(atoms);
@@ -50,11 +59,16 @@ public class DatalogRule2QueryConverter {
                 throw new DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException("No data or composite atom in " + atoms);
 
             optionalGroupAtom = extractOptionalGroupAtom(otherAtoms);
+            optionalPathAtom = extractOptionalPathAtom(otherAtoms);
+
+            if (optionalGroupAtom.isPresent() && optionalPathAtom.isPresent())
+                throw new DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException(
+                        "A GROUP atom and a path atom found in the same body! " + atoms);
 
             /*
              * May throw a NotSupportedConversionException
              */
-            checkNonDataOrCompositeAtomSupport(otherAtoms, booleanAtoms, optionalGroupAtom);
+            checkNonDataOrCompositeAtomSupport(otherAtoms, booleanAtoms, optionalGroupAtom, optionalPathAtom);
         }
 
         private static Optional<Function> extractOptionalGroupAtom(List<Function> atoms)
@@ -73,21 +87,39 @@ public class DatalogRule2QueryConverter {
             }
         }
 
+        private static Optional<Function> extractOptionalPathAtom(List<Function> atoms)
+                throws DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException {
+            List<Function> pathAtoms = atoms.filter(atom -> DatalogAlgebraOperatorPredicates.isPathPredicate(
+                    atom.getFunctionSymbol()));
+
+            switch(pathAtoms.length()) {
+                case 0:
+                    return Optional.empty();
+                case 1:
+                    return Optional.of(pathAtoms.head());
+                default:
+                    throw new DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException("Multiple path atoms found in the same body! " +
+                            pathAtoms);
+            }
+        }
+
         /**
          * All the other atoms are currently presumed to be boolean atoms
          */
         private static void checkNonDataOrCompositeAtomSupport(List<Function> otherAtoms,
                                                                List<Function> booleanAtoms,
-                                                               Optional<Function> optionalGroupAtom)
+                                                               Optional<Function> optionalGroupAtom,
+                                                               Optional<Function> optionalPathAtom)
                 throws DatalogProgram2QueryConverterImpl.NotSupportedConversionException {
 
             int groupCount = optionalGroupAtom.isPresent()? 1 : 0;
+            int pathCount = optionalPathAtom.isPresent()? 1 : 0;
 
-            if (booleanAtoms.length() + groupCount < otherAtoms.length()) {
+            if (booleanAtoms.length() + groupCount + pathCount < otherAtoms.length()) {
                 HashSet<Function> unsupportedAtoms = new HashSet<>(otherAtoms.toCollection());
                 unsupportedAtoms.removeAll(booleanAtoms.toCollection());
-                if (groupCount == 1)
-                    unsupportedAtoms.remove(optionalGroupAtom.get());
+                optionalGroupAtom.ifPresent(unsupportedAtoms::remove);
+                optionalPathAtom.ifPresent(unsupportedAtoms::remove);
 
                 throw new DatalogProgram2QueryConverterImpl.NotSupportedConversionException(
                         "Conversion of the following atoms to the intermediate query is not (yet) supported: "
@@ -116,22 +148,86 @@ public class DatalogRule2QueryConverter {
 
         DistinctVariableOnlyDataAtom projectionAtom = targetAtom.getProjectionAtom();
 
-        ConstructionNode rootNode = iqFactory.createConstructionNode(projectionAtom.getVariables(),
-                targetAtom.getSubstitution(), optionalModifiers);
-
         List<Function> bodyAtoms = List.iterableList(datalogRule.getBody());
         if (bodyAtoms.isEmpty()) {
+            ConstructionNode rootNode = iqFactory.createConstructionNode(projectionAtom.getVariables(),
+                    targetAtom.getSubstitution(), optionalModifiers);
             return createFact(dbMetadata, rootNode, projectionAtom, executorRegistry, iqFactory);
         }
         else {
             AtomClassification atomClassification = new AtomClassification(bodyAtoms);
 
+            ImmutableSubstitution<ImmutableTerm> substitution = targetAtom.getSubstitution();
+            Optional<AggregationNode> optionalAggregationNode = atomClassification.optionalGroupAtom
+                    .map(g -> createAggregationNode(g, substitution, iqFactory));
+
+            /*
+             * The aggregation terms are defined by the aggregation node, not by the root
+             */
+            ImmutableSubstitution<ImmutableTerm> rootSubstitution = optionalAggregationNode
+                    .map(n -> SUBSTITUTION_FACTORY.getSubstitution(substitution.getImmutableMap().entrySet().stream()
+                            .filter(e -> !n.getSubstitution().isDefining(e.getKey()))
+                            .collect(ImmutableCollectors.toMap())))
+                    .orElse(substitution);
+
+            ConstructionNode rootNode = iqFactory.createConstructionNode(projectionAtom.getVariables(),
+                    rootSubstitution, optionalModifiers);
+
+            Optional<? extends QueryNode> optionalIntermediateNode;
+            if (optionalAggregationNode.isPresent())
+                optionalIntermediateNode = optionalAggregationNode;
+            else
+                optionalIntermediateNode = atomClassification.optionalPathAtom
+                        .map(p -> createTransitiveClosureNode(p, iqFactory));
+
             return createDefinition(dbMetadata, rootNode, projectionAtom, tablePredicates,
                     atomClassification.dataAndCompositeAtoms, atomClassification.booleanAtoms,
-                    atomClassification.optionalGroupAtom, iqFactory, executorRegistry);
+                    optionalIntermediateNode, iqFactory, executorRegistry);
         }
     }
 
+    /**
+     * The arguments of the path atom are the source and the target variables of the relation
+     * defined by the rest of the body.
+     */
+    private static TransitiveClosureNode createTransitiveClosureNode(Function pathAtom,
+                                                                     IntermediateQueryFactory iqFactory) {
+        Variable source = (Variable) pathAtom.getTerm(0);
+        Variable target = (Variable) pathAtom.getTerm(1);
+        boolean includesZeroLengthPaths = pathAtom.getFunctionSymbol()
+                .equals(DatalogAlgebraOperatorPredicates.SPARQL_ZERO_OR_MORE_PATH);
+
+        return iqFactory.createTransitiveClosureNode(source, target, source, target, includesZeroLengthPaths);
+    }
+
+    /**
+     * Grouping variables: arguments of the GROUP atom.
+     * Aggregation terms: extracted from the substitution of the head.
+     */
+    private static AggregationNode createAggregationNode(Function groupAtom,
+                                                         ImmutableSubstitution<ImmutableTerm> headSubstitution,
+                                                         IntermediateQueryFactory iqFactory) {
+        ImmutableSet<Variable> groupingVariables = groupAtom.getTerms().stream()
+                .map(t -> (Variable) t)
+                .collect(ImmutableCollectors.toSet());
+
+        ImmutableMap<Variable, ImmutableFunctionalTerm> aggregationMap = headSubstitution.getImmutableMap().entrySet().stream()
+                .filter(e -> isAggregationTerm(e.getValue()))
+                .collect(ImmutableCollectors.toMap(
+                        Map.Entry::getKey,
+                        e -> (ImmutableFunctionalTerm) e.getValue()));
+
+        return iqFactory.createAggregationNode(groupingVariables, SUBSTITUTION_FACTORY.getSubstitution(aggregationMap));
+    }
+
+    private static boolean isAggregationTerm(ImmutableTerm term) {
+        if (!(term instanceof ImmutableFunctionalTerm))
+            return false;
+        Predicate functionSymbol = ((ImmutableFunctionalTerm) term).getFunctionSymbol();
+        return (functionSymbol instanceof ExpressionOperation)
+                && ((ExpressionOperation) functionSymbol).isAggregation();
+    }
+
     private static IntermediateQuery createFact(DBMetadata dbMetadata, ConstructionNode rootNode,
                                                 DistinctVariableOnlyDataAtom projectionAtom, ExecutorRegistry executorRegistry,
                                                 IntermediateQueryFactory modelFactory) {
@@ -149,7 +245,8 @@ public class DatalogRule2QueryConverter {
                                                       DistinctVariableOnlyDataAtom projectionAtom,
                                                       Collection<Predicate> tablePredicates,
                                                       List<Function> dataAndCompositeAtoms,
-                                                      List<Function> booleanAtoms, Optional<Function> optionalGroupAtom,
+                                                      List<Function> booleanAtoms,
+                                                      Optional<? extends QueryNode> optionalIntermediateNode,
                                                       IntermediateQueryFactory iqFactory,
                                                       ExecutorRegistry executorRegistry)
             throws DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException {
@@ -165,13 +262,12 @@ public class DatalogRule2QueryConverter {
             queryBuilder.init(projectionAtom, rootNode);
 
             /*
-             * Intermediate node: ConstructionNode root or GROUP node
+             * Intermediate node: ConstructionNode root, aggregation node or transitive closure node
              */
             QueryNode intermediateNode;
-            if (optionalGroupAtom.isPresent()) {
-                throw new RuntimeException("Conversion of the GROUP atom is not supported yet");
-                // intermediateNode = createGroupNode(optionalGroupAtom.get());
-                // queryBuilder.addChild(rootNode, intermediateNode);
+            if (optionalIntermediateNode.isPresent()) {
+                intermediateNode = optionalIntermediateNode.get();
+                queryBuilder.addChild(rootNode, intermediateNode);
             }
             else {
                 intermediateNode = rootNode;
@@ -187,7 +283,7 @@ public class DatalogRule2QueryConverter {
                 queryBuilder.addChild(intermediateNode, bottomNode);
             }
             else {
-                bottomNode = rootNode;
+                bottomNode = intermediateNode;
             }
 
             /*
@@ -343,6 +439,9 @@ public class DatalogRule2QueryConverter {
         if (classification.optionalGroupAtom.isPresent()) {
             throw new DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException("GROUP atom found inside a LJ meta-atom");
         }
+        if (classification.optionalPathAtom.isPresent()) {
+            throw new DatalogProgram2QueryConverterImpl.InvalidDatalogProgramException("Path atom found inside a LJ meta-atom");
+        }
 
         Optional<ImmutableExpression> optionalFilterCondition = createFilterExpression(
                 classification.booleanAtoms);
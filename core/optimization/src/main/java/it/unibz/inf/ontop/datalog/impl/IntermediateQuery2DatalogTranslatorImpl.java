@@ -22,6 +22,7 @@ package it.unibz.inf.ontop.datalog.impl;
 
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import it.unibz.inf.ontop.datalog.CQIE;
@@ -38,13 +39,19 @@ import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.model.term.impl.ImmutabilityTools;
 import it.unibz.inf.ontop.model.term.impl.MutableQueryModifiersImpl;
 import it.unibz.inf.ontop.substitution.ImmutableSubstitution;
+import it.unibz.inf.ontop.utils.VariableGenerator;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static it.unibz.inf.ontop.model.OntopModelSingletons.ATOM_FACTORY;
 import static it.unibz.inf.ontop.model.OntopModelSingletons.DATALOG_FACTORY;
 import static it.unibz.inf.ontop.model.OntopModelSingletons.SUBSTITUTION_FACTORY;
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
+import static it.unibz.inf.ontop.datalog.impl.DatalogAlgebraOperatorPredicates.SPARQL_GROUP;
+import static it.unibz.inf.ontop.datalog.impl.DatalogAlgebraOperatorPredicates.SPARQL_ONE_OR_MORE_PATH;
+import static it.unibz.inf.ontop.datalog.impl.DatalogAlgebraOperatorPredicates.SPARQL_ZERO_OR_MORE_PATH;
 import static it.unibz.inf.ontop.model.term.impl.ImmutabilityTools.convertToMutableFunction;
 
 /***
@@ -65,26 +72,35 @@ public class IntermediateQuery2DatalogTranslatorImpl implements IntermediateQuer
 		public final ImmutableSubstitution<ImmutableTerm> substitution;
 		public final DataAtom atom;
 		public final Optional<QueryNode> optionalChildNode;
+		// GROUP atom (for the rules produced by an aggregation node)
+		// or path atom (for the rules produced by a transitive closure node)
+		public final Optional<Function> optionalAlgebraAtom;
 
 		private RuleHead(ImmutableSubstitution<ImmutableTerm> substitution, DataAtom atom, Optional<QueryNode> optionalChildNode) {
+			this(substitution, atom, optionalChildNode, Optional.empty());
+		}
+
+		private RuleHead(ImmutableSubstitution<ImmutableTerm> substitution, DataAtom atom, Optional<QueryNode> optionalChildNode,
+						 Optional<Function> optionalAlgebraAtom) {
 			this.atom = atom;
             this.substitution = substitution;
             this.optionalChildNode = optionalChildNode;
+            this.optionalAlgebraAtom = optionalAlgebraAtom;
         }
 	}
 
 
 	private static final org.slf4j.Logger log = LoggerFactory.getLogger(IntermediateQuery2DatalogTranslatorImpl.class);
 
-	// Incremented
-	private int subQueryCounter;
-	private int dummyPredCounter;
+	// Incremented (atomically, the translator may be shared between threads)
+	private final AtomicInteger subQueryCounter;
+	private final AtomicInteger dummyPredCounter;
 
 	@Inject
 	private IntermediateQuery2DatalogTranslatorImpl(IntermediateQueryFactory iqFactory) {
 		this.iqFactory = iqFactory;
-		this.subQueryCounter = 0;
-		this.dummyPredCounter = 0;
+		this.subQueryCounter = new AtomicInteger(0);
+		this.dummyPredCounter = new AtomicInteger(0);
 	}
 
 	/**
@@ -132,6 +148,8 @@ public class IntermediateQuery2DatalogTranslatorImpl implements IntermediateQuer
 	private void translate(IntermediateQuery query, DatalogProgram pr, QueryNode root) {
 
 		Queue<RuleHead> heads = new LinkedList<>();
+		// For the equalities introduced by the transitive closures
+		VariableGenerator variableGenerator = new VariableGenerator(query.getKnownVariables());
 
 		ImmutableSubstitution<ImmutableTerm> topSubstitution = Optional.of(root)
 				.filter(r -> r instanceof ConstructionNode)
@@ -162,9 +180,11 @@ public class IntermediateQuery2DatalogTranslatorImpl implements IntermediateQuer
 			pr.appendRule(newrule);
 
             head.optionalChildNode.ifPresent(node -> {
-                List<Function> uAtoms = getAtomFrom(query, node, heads, subQueryProjectionAtoms, false);
+                List<Function> uAtoms = getAtomFrom(query, node, heads, subQueryProjectionAtoms, variableGenerator,
+						false);
                 newrule.getBody().addAll(uAtoms);
             });
+            head.optionalAlgebraAtom.ifPresent(newrule.getBody()::add);
 
 		}
 	}
@@ -178,7 +198,7 @@ public class IntermediateQuery2DatalogTranslatorImpl implements IntermediateQuer
 	 */
 	private List<Function> getAtomFrom(IntermediateQuery te, QueryNode node, Queue<RuleHead> heads,
 									   Map<QueryNode, DataAtom> subQueryProjectionAtoms,
-									   boolean isNested) {
+									   VariableGenerator variableGenerator, boolean isNested) {
 		
 		List<Function> body = new ArrayList<>();
 		
@@ -199,10 +219,70 @@ public class IntermediateQuery2DatalogTranslatorImpl implements IntermediateQuer
 			body.add(mutAt);
 			return body;
 			
+		} else if (node instanceof AggregationNode) {
+			/*
+			 * New sub-rule: the aggregation terms are in its head, the grouping variables in its GROUP atom
+			 */
+			AggregationNode aggregationNode = (AggregationNode) node;
+			DistinctVariableOnlyDataAtom projectionAtom = generateProjectionAtom(aggregationNode.getVariables());
+			ImmutableSubstitution<ImmutableTerm> aggregationSubstitution = SUBSTITUTION_FACTORY.getSubstitution(
+					ImmutableMap.<Variable, ImmutableTerm>copyOf(aggregationNode.getSubstitution().getImmutableMap()));
+			Function groupAtom = TERM_FACTORY.getFunction(SPARQL_GROUP,
+					new ArrayList<Term>(aggregationNode.getGroupingVariables()));
+
+			heads.add(new RuleHead(aggregationSubstitution, projectionAtom, te.getFirstChild(aggregationNode),
+					Optional.of(groupAtom)));
+			subQueryProjectionAtoms.put(aggregationNode, projectionAtom);
+			body.add(convertToMutableFunction(projectionAtom));
+			return body;
+
+		} else if (node instanceof TransitiveClosureNode) {
+			/*
+			 * New sub-rule: the child variables are in its head and in its path atom.
+			 * A ground source or target is also passed to the path atom (the paths start from it)
+			 */
+			TransitiveClosureNode closureNode = (TransitiveClosureNode) node;
+			ImmutableList<Variable> childVariables = ImmutableList.of(closureNode.getChildSourceVariable(),
+					closureNode.getChildTargetVariable());
+			AtomPredicate newPredicate = ATOM_FACTORY.getAtomPredicate(
+					SUBQUERY_PRED_PREFIX + subQueryCounter.incrementAndGet(), 2);
+			List<Term> pathArguments = new ArrayList<>(childVariables);
+			if (closureNode.getSource().isGround() || closureNode.getTarget().isGround()) {
+				pathArguments.add(getPathEnd(closureNode.getSource(), closureNode.getChildSourceVariable()));
+				pathArguments.add(getPathEnd(closureNode.getTarget(), closureNode.getChildTargetVariable()));
+			}
+			Function pathAtom = TERM_FACTORY.getFunction(
+					closureNode.includesZeroLengthPaths() ? SPARQL_ZERO_OR_MORE_PATH : SPARQL_ONE_OR_MORE_PATH,
+					pathArguments);
+
+			heads.add(new RuleHead(SUBSTITUTION_FACTORY.getSubstitution(),
+					ATOM_FACTORY.getDistinctVariableOnlyDataAtom(newPredicate, childVariables),
+					te.getFirstChild(closureNode), Optional.of(pathAtom)));
+
+			/*
+			 * The non-variable source and target are compared to fresh variables
+			 */
+			List<Function> equalities = new ArrayList<>();
+			List<Term> arguments = new ArrayList<>();
+			for (ImmutableTerm term : ImmutableList.of(closureNode.getSource(), closureNode.getTarget())) {
+				if (term instanceof Variable)
+					arguments.add((Variable) term);
+				else {
+					Variable freshVariable = variableGenerator.generateNewVariable();
+					arguments.add(freshVariable);
+					equalities.add(TERM_FACTORY.getFunctionEQ(freshVariable, (term instanceof ImmutableFunctionalTerm)
+							? convertToMutableFunction((ImmutableFunctionalTerm) term)
+							: term));
+				}
+			}
+			body.add(TERM_FACTORY.getFunction(newPredicate, arguments));
+			body.addAll(equalities);
+			return body;
+
 		} else if (node instanceof FilterNode) {
 			ImmutableExpression filter = ((FilterNode) node).getFilterCondition();
 			List<QueryNode> listnode =  te.getChildren(node);
-			body.addAll(getAtomFrom(te, listnode.get(0), heads, subQueryProjectionAtoms, true));
+			body.addAll(getAtomFrom(te, listnode.get(0), heads, subQueryProjectionAtoms, variableGenerator, true));
 
 			filter.flattenAND().stream()
 					.map(ImmutabilityTools::convertToMutableBooleanExpression)
@@ -223,14 +303,15 @@ public class IntermediateQuery2DatalogTranslatorImpl implements IntermediateQuer
 		 * Nested Atoms	
 		 */
 		} else  if (node instanceof InnerJoinNode) {
-			return getAtomsFromJoinNode((InnerJoinNode)node, te, heads, subQueryProjectionAtoms, isNested);
+			return getAtomsFromJoinNode((InnerJoinNode)node, te, heads, subQueryProjectionAtoms, variableGenerator,
+					isNested);
 			
 		} else if (node instanceof LeftJoinNode) {
 			Optional<ImmutableExpression> filter = ((LeftJoinNode)node).getOptionalFilterCondition();
 			List<QueryNode> listnode =  te.getChildren(node);
 
-			List<Function> atomsListLeft = getAtomFrom(te, listnode.get(0), heads, subQueryProjectionAtoms, true);
-			List<Function> atomsListRight = getAtomFrom(te, listnode.get(1), heads, subQueryProjectionAtoms, true);
+			List<Function> atomsListLeft = getAtomFrom(te, listnode.get(0), heads, subQueryProjectionAtoms, variableGenerator, true);
+			List<Function> atomsListRight = getAtomFrom(te, listnode.get(1), heads, subQueryProjectionAtoms, variableGenerator, true);
 				
 			if (filter.isPresent()){
 				ImmutableExpression filter2 = filter.get();
@@ -293,7 +374,7 @@ public class IntermediateQuery2DatalogTranslatorImpl implements IntermediateQuer
 			if (isNested) {
 				body.add(ATOM_FACTORY.getDistinctVariableOnlyDataAtom(
 						ATOM_FACTORY.getAtomPredicate(
-								"dummy" + (++dummyPredCounter),
+								"dummy" + dummyPredCounter.incrementAndGet(),
 								0
 						),
 						ImmutableList.of()
@@ -310,13 +391,13 @@ public class IntermediateQuery2DatalogTranslatorImpl implements IntermediateQuer
 
 	private List<Function> getAtomsFromJoinNode(InnerJoinNode node, IntermediateQuery te, Queue<RuleHead> heads,
 												Map<QueryNode, DataAtom> subQueryProjectionAtoms,
-												boolean isNested) {
+												VariableGenerator variableGenerator, boolean isNested) {
 		List<Function> body = new ArrayList<>();
 		Optional<ImmutableExpression> filter = node.getOptionalFilterCondition();
 		List<Function> atoms = new ArrayList<>();
 		List<QueryNode> listnode =  te.getChildren(node);
 		for (QueryNode childnode: listnode) {
-			List<Function> atomsList = getAtomFrom(te, childnode, heads, subQueryProjectionAtoms, true);
+			List<Function> atomsList = getAtomFrom(te, childnode, heads, subQueryProjectionAtoms, variableGenerator, true);
 			atoms.addAll(atomsList);
 		}
 
@@ -347,11 +428,22 @@ public class IntermediateQuery2DatalogTranslatorImpl implements IntermediateQuer
 	}
 
 	private DistinctVariableOnlyDataAtom generateProjectionAtom(ImmutableSet<Variable> projectedVariables) {
-		AtomPredicate newPredicate = ATOM_FACTORY.getAtomPredicate(SUBQUERY_PRED_PREFIX+ ++subQueryCounter,
+		AtomPredicate newPredicate = ATOM_FACTORY.getAtomPredicate(SUBQUERY_PRED_PREFIX + subQueryCounter.incrementAndGet(),
 				projectedVariables.size());
 		return ATOM_FACTORY.getDistinctVariableOnlyDataAtom(newPredicate, ImmutableList.copyOf(projectedVariables));
 	}
 
+	/**
+	 * The ground source (or target) of the paths, or the child variable otherwise
+	 */
+	private static Term getPathEnd(ImmutableTerm term, Variable childVariable) {
+		if (!term.isGround())
+			return childVariable;
+		return (term instanceof ImmutableFunctionalTerm)
+				? convertToMutableFunction((ImmutableFunctionalTerm) term)
+				: term;
+	}
+
 	private static Function getSPARQLJoin(List<Function> atoms, Optional<Function> optionalCondition) {
 		int atomCount = atoms.size();
 		Function rightTerm;
@@ -477,7 +477,10 @@ public class SelfJoinLikeExecutor {
 
     private Stream<Variable> extractPriorityVariables(IntermediateQuery query, QueryNode node,
                                                       Optional<ArgumentPosition> childPosition) {
-        if (node instanceof ExplicitVariableProjectionNode)
+        if (node instanceof TransitiveClosureNode)
+            return node.getLocallyRequiredVariables().stream();
+
+        else if (node instanceof ExplicitVariableProjectionNode)
             return ((ExplicitVariableProjectionNode)node).getVariables().stream();
 
         /*
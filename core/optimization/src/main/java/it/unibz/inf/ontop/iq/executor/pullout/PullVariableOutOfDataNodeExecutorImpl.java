@@ -156,7 +156,8 @@ public class PullVariableOutOfDataNodeExecutorImpl implements PullVariableOutOfD
                 }
 
             }
-            else if (ancestorNode instanceof ConstructionNode || ancestorNode instanceof UnionNode) {
+            else if (ancestorNode instanceof ConstructionNode || ancestorNode instanceof UnionNode
+                    || ancestorNode instanceof AggregationNode || ancestorNode instanceof TransitiveClosureNode) {
                 return insertFilterNode(treeComponent, lastChildNode, newEqualities);
             }
             else {
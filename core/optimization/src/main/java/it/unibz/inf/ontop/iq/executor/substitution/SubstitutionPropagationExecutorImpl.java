@@ -10,6 +10,7 @@ import it.unibz.inf.ontop.model.term.ImmutableTerm;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
 import it.unibz.inf.ontop.iq.IntermediateQuery;
 import it.unibz.inf.ontop.iq.node.QueryNode;
+import it.unibz.inf.ontop.iq.node.TransitiveClosureNode;
 import it.unibz.inf.ontop.iq.exception.QueryNodeSubstitutionException;
 import it.unibz.inf.ontop.iq.impl.QueryTreeComponent;
 import it.unibz.inf.ontop.iq.exception.InvalidQueryOptimizationProposalException;
@@ -139,7 +140,10 @@ public class SubstitutionPropagationExecutorImpl<N extends QueryNode>
                 .filter(a -> a instanceof ExplicitVariableProjectionNode)
                 .map(a -> (ExplicitVariableProjectionNode) a)
                 .findFirst()
-                .map(ExplicitVariableProjectionNode::getVariables)
+                // The variables of the child of a transitive closure are not projected by it
+                .map(a -> (a instanceof TransitiveClosureNode)
+                        ? a.getLocallyRequiredVariables()
+                        : a.getVariables())
                 .orElseGet(() -> query.getProjectionAtom().getVariables());
 
         return ImmutableSubstitutionTools.prioritizeRenaming(substitution, priorityVariables);
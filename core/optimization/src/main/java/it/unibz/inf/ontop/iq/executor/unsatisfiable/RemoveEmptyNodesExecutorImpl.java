@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.iq.executor.unsatisfiable;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
@@ -22,6 +23,7 @@ import it.unibz.inf.ontop.iq.proposal.impl.NodeTrackingResultsImpl;
 import java.util.Optional;
 
 import static it.unibz.inf.ontop.iq.executor.substitution.AscendingPropagationTools.propagateSubstitutionUp;
+import static it.unibz.inf.ontop.model.OntopModelSingletons.SUBSTITUTION_FACTORY;
 import static it.unibz.inf.ontop.substitution.impl.ImmutableSubstitutionTools.computeNullSubstitution;
 
 /**
@@ -125,7 +127,8 @@ public class RemoveEmptyNodesExecutorImpl implements RemoveEmptyNodesExecutor {
              * After removing the empty node(s), second phase: propagates the null variables
              */
             return propagateNullVariables(query, optionalClosestAncestorNode.get(), optionalNewNextSibling, treeComponent,
-                    transformationProposal.getNullVariables(), propagatingNode, iqFactory, optionalTracker);
+                    transformationProposal.getNullVariables(), transformationProposal.getConstantBindings(),
+                    propagatingNode, iqFactory, optionalTracker);
         }
         /**
          * Special case: the promoted child is now the root the query
@@ -182,17 +185,23 @@ public class RemoveEmptyNodesExecutorImpl implements RemoveEmptyNodesExecutor {
                                                                          Optional<QueryNode> optionalNextSiblingOfFocusNode,
                                                                          QueryTreeComponent treeComponent,
                                                                          ImmutableSet<Variable> nullVariables,
+                                                                         ImmutableMap<Variable, Constant> constantBindings,
                                                                          QueryNode propagatingNode,
                                                                          IntermediateQueryFactory iqFactory,
                                                                          Optional<NodeTracker> optionalAncestorTracker)
             throws EmptyQueryException {
 
-        if (nullVariables.isEmpty()) {
+        if (nullVariables.isEmpty() && constantBindings.isEmpty()) {
             return new NodeTrackingResultsImpl<>(query, optionalNextSiblingOfFocusNode,
                     Optional.of(ancestorNode), optionalAncestorTracker);
         }
 
-        ImmutableSubstitution<Constant> ascendingSubstitution = computeNullSubstitution(nullVariables);
+        ImmutableSubstitution<Constant> ascendingSubstitution = constantBindings.isEmpty()
+                ? computeNullSubstitution(nullVariables)
+                : SUBSTITUTION_FACTORY.getSubstitution(ImmutableMap.<Variable, Constant>builder()
+                        .putAll(computeNullSubstitution(nullVariables).getImmutableMap())
+                        .putAll(constantBindings)
+                        .build());
 
         NodeTrackingResults<QueryNode> propagationResults =
                 propagateSubstitutionUp(propagatingNode, ascendingSubstitution, query, treeComponent, iqFactory,
@@ -52,6 +52,8 @@ public class ProjectionShrinkingOptimizer implements IntermediateQueryOptimizer
             retainedVariables = updateRetainedVariables((JoinOrFilterNode) focusNode, query, retainedVariables);
         } else if (focusNode instanceof ConstructionNode) {
             retainedVariables = updateRetainedVariables((ConstructionNode) focusNode, query, retainedVariables);
+        } else if (focusNode instanceof AggregationNode || focusNode instanceof TransitiveClosureNode) {
+            retainedVariables = focusNode.getLocallyRequiredVariables();
         }
 
 
@@ -348,7 +348,7 @@ public class PushDownBooleanExpressionOptimizerImpl implements PushDownBooleanEx
             throw new IllegalTreeException("This query should not contain an EmptyNode");
         }
         /**
-         * for GroupNodes only (not supported yet) ?
+         * E.g. AggregationNode, TransitiveClosureNode: the expression cannot be pushed below the grouping or the closure
          */
         else {
             return findRecipientsInUnexpectedNodeRootedSubtree(query, expression, providerNode, subtreeRoot);
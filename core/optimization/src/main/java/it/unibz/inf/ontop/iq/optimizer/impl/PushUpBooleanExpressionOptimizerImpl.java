@@ -163,6 +163,14 @@ public class PushUpBooleanExpressionOptimizerImpl implements PushUpBooleanExpres
                     stopPropagation = true;
                 }
 
+            } else if (currentParentNode instanceof AggregationNode) {
+                /* a filter below an aggregation applies before the grouping */
+                stopPropagation = true;
+
+            } else if (currentParentNode instanceof TransitiveClosureNode) {
+                /* a filter below a transitive closure applies to the edges */
+                stopPropagation = true;
+
             } else if (currentParentNode instanceof LeftJoinNode && (query.getOptionalPosition(currentChildNode)
                     .orElseThrow(() -> new InvalidIntermediateQueryException("The child of a LeftJoin node must have a position"))
                     == RIGHT)) {
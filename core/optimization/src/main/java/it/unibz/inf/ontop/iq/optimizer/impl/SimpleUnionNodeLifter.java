@@ -76,8 +76,9 @@ public class SimpleUnionNodeLifter implements UnionNodeLifter {
                     }
                 }
             }
-            else if (ancestorNode instanceof UnionNode){
-                //cannot lift over a union
+            else if ((ancestorNode instanceof UnionNode) || (ancestorNode instanceof AggregationNode)
+                    || (ancestorNode instanceof TransitiveClosureNode)){
+                //cannot lift over a union, an aggregation or a transitive closure
                 return filterJoin;
 
             }
@@ -165,7 +165,9 @@ public class TopDownBindingLiftOptimizer implements BindingLiftOptimizer {
 
         Optional<QueryNode> parentNode = currentQuery.getParent(currentNode);
         if(parentNode.isPresent()){
-            if (parentNode.get() instanceof UnionNode){
+            // The bindings cannot be lifted above a union, an aggregation or a transitive closure
+            if ((parentNode.get() instanceof UnionNode) || (parentNode.get() instanceof AggregationNode)
+                    || (parentNode.get() instanceof TransitiveClosureNode)){
                 return new NextNodeAndQuery(getDepthFirstNextNode(currentQuery, currentNode), currentQuery);
             }
         }
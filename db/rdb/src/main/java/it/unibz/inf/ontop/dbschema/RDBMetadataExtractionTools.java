@@ -21,12 +21,20 @@ package it.unibz.inf.ontop.dbschema;
 */
 
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
 
 /**
  * Retrieves the database metadata (table schema and database constraints) 
@@ -104,6 +112,12 @@ public class RDBMetadataExtractionTools {
 	
 	private static Logger log = LoggerFactory.getLogger(RDBMetadataExtractionTools.class);
 
+	/**
+	 * Minimal number of relations of a schema for using schema-wide catalog queries
+	 */
+	private static final int SCHEMA_WIDE_THRESHOLD = 20;
+	private static final int MIN_RELATIONS_PER_CONNECTION = 10;
+
 	
 	public static RDBMetadata createDummyMetadata() {
 		return createDummyMetadata("dummy class");
@@ -178,6 +192,14 @@ public class RDBMetadataExtractionTools {
 		return metadata;	
 	}
 	
+	/**
+	 * Opens additional connections to the database (used for extracting the metadata in parallel)
+	 */
+	@FunctionalInterface
+	public interface ConnectionSupplier {
+		Connection get() throws SQLException;
+	}
+
 	/**
 	 * Retrieves the database metadata (table schema and database constraints) 
 	 * 
@@ -189,42 +211,193 @@ public class RDBMetadataExtractionTools {
 	 */
 
 	public static void loadMetadata(RDBMetadata metadata, Connection conn, Set<RelationID> realTables) throws SQLException {
+		loadMetadata(metadata, conn, realTables, null, 1);
+	}
+
+	/**
+	 * Retrieves the database metadata (table schema and database constraints)
+	 *
+	 * When many relations of a schema are needed, their columns (and their constraints, for Oracle)
+	 * are retrieved in a few schema-wide catalog queries. The remaining per-relation queries
+	 * are distributed over up to parallelism connections: conn and the ones opened
+	 * by the connectionSupplier (closed afterwards).
+	 *
+	 * @param connectionSupplier if null, everything is retrieved with conn
+	 */
+	public static void loadMetadata(RDBMetadata metadata, Connection conn, Set<RelationID> realTables,
+									@Nullable ConnectionSupplier connectionSupplier, int parallelism) throws SQLException {
 		
 		if (printouts)
 			System.out.println("GETTING METADATA WITH " + conn + " ON " + realTables);
+
+		final long startTime = System.currentTimeMillis();
 		
 		final DatabaseMetaData md = conn.getMetaData();
 		String productName = md.getDatabaseProductName();
-
-		List<RelationID> seedRelationIds;
 		QuotedIDFactory idfac =  metadata.getQuotedIDFactory();
+		boolean isOracle = productName.contains("Oracle");
+
+		List<RelationID> seedRelationIds = getSeedRelationIds(conn, realTables, idfac);
+		final long relationListTime = System.currentTimeMillis();
+
+		Map<RelationID, List<ColumnRecord>> seedColumns = getSeedColumns(conn, connectionSupplier, parallelism,
+				seedRelationIds, idfac);
+
+		Map<RelationID, DatabaseRelationDefinition> extractedRelations = new LinkedHashMap<>();
+		for (RelationID seedId : seedRelationIds) {
+			// the same seedId can be mapped to many tables (if the seedId has no schema)
+			// we collect attributes from all of them
+			List<ColumnRecord> columns = seedColumns.get(seedId);
+
+			// relations already extracted for another seedId are ignored
+			Set<RelationID> newRelationIds = new HashSet<>();
+			for (ColumnRecord column : columns) {
+				DatabaseRelationDefinition currentRelation = extractedRelations.get(column.relationId);
+				if (currentRelation == null) {
+					currentRelation = metadata.createDatabaseRelation(column.relationId);
+					extractedRelations.put(column.relationId, currentRelation);
+					newRelationIds.add(column.relationId);
+				}
+				else if (!newRelationIds.contains(column.relationId))
+					continue;
+
+				if (printouts)
+					System.out.println("         " + column.relationId + "." + column.attributeId);
+				currentRelation.addAttribute(column.attributeId, column.dataType, column.typeName, column.isNullable);
+			}
+		}
+		final long columnTime = System.currentTimeMillis();
+
+		/*
+		 * Constraints: schema-wide when supported by the database engine, per relation otherwise
+		 */
+		Map<RelationID, RelationConstraints> constraints = new HashMap<>();
+		List<RelationID> remainingRelationIds = new ArrayList<>();
+		if (isOracle) {
+			ConstraintListProvider constraintListProvider = new OracleConstraintListProvider(idfac);
+			for (Map.Entry<String, List<RelationID>> e
+					: groupBySchema(extractedRelations.keySet(), remainingRelationIds).entrySet()) {
+				if (e.getValue().size() >= SCHEMA_WIDE_THRESHOLD)
+					constraints.putAll(getSchemaConstraints(conn, constraintListProvider, e.getKey()));
+				else
+					remainingRelationIds.addAll(e.getValue());
+			}
+		}
+		else
+			remainingRelationIds.addAll(extractedRelations.keySet());
+
+		constraints.putAll(readPerRelation(conn, connectionSupplier, parallelism, remainingRelationIds,
+				(m, id) -> getConstraints(m, id, idfac)));
+
+		for (DatabaseRelationDefinition relation : extractedRelations.values())	{
+			RelationConstraints relationConstraints = constraints.get(relation.getID());
+			if (relationConstraints != null)
+				insertConstraints(relation, relationConstraints, metadata);
+			if (printouts) {
+				System.out.println(relation + ";");
+				for (UniqueConstraint uc : relation.getUniqueConstraints())
+					System.out.println(uc + ";");
+				for (ForeignKeyConstraint fk : relation.getForeignKeys())
+					System.out.println(fk +  ";");
+				System.out.println("");
+			}
+		}
+		final long endTime = System.currentTimeMillis();
+
+		log.info("Metadata of {} relations extracted in {} ms (relation list: {} ms, columns: {} ms, constraints: {} ms)",
+				extractedRelations.size(), endTime - startTime, relationListTime - startTime,
+				columnTime - relationListTime, endTime - columnTime);
+
+		if (printouts) {
+			System.out.println("RESULTING METADATA:\n" + metadata);
+			System.out.println("DBMetadataExtractor END OF REPORT\n=================================");
+		}
+	}
+
+	/**
+	 * Hash of the columns (relation, name, type and nullability) of the relations that loadMetadata
+	 * extracts with the same arguments. The catalog queries are the ones of the column extraction:
+	 * only the relations of realTables (or, if it is null or empty, the relation list of loadMetadata,
+	 * without the system schemas) are considered.
+	 *
+	 * Adding, dropping or altering one of these relations or one of their columns changes the fingerprint.
+	 * Changing only the constraints does not.
+	 */
+	public static HashCode computeColumnFingerprint(RDBMetadata metadata, Connection conn, Set<RelationID> realTables,
+													@Nullable ConnectionSupplier connectionSupplier, int parallelism)
+			throws SQLException {
+		QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+		List<RelationID> seedRelationIds = getSeedRelationIds(conn, realTables, idfac);
+		Map<RelationID, List<ColumnRecord>> seedColumns = getSeedColumns(conn, connectionSupplier, parallelism,
+				seedRelationIds, idfac);
+
+		Hasher hasher = Hashing.sha256().newHasher();
+		List<RelationID> sortedSeedIds = seedRelationIds.stream()
+				.sorted(Comparator.comparing(RelationID::getSQLRendering))
+				.collect(Collectors.toList());
+		hasher.putInt(sortedSeedIds.size());
+		for (RelationID seedId : sortedSeedIds) {
+			RDBMetadataSnapshotTools.putString(hasher, seedId.getSQLRendering());
+			List<ColumnRecord> columns = seedColumns.get(seedId);
+			hasher.putInt(columns.size());
+			for (ColumnRecord column : columns) {
+				RDBMetadataSnapshotTools.putString(hasher, column.relationId.getSQLRendering());
+				RDBMetadataSnapshotTools.putString(hasher, column.attributeId.getSQLRendering());
+				hasher.putInt(column.dataType);
+				RDBMetadataSnapshotTools.putString(hasher, column.typeName);
+				hasher.putBoolean(column.isNullable);
+			}
+		}
+		return hasher.hash();
+	}
+
+	/**
+	 * The relations to extract: the given ones (qualified by the default schema for Oracle)
+	 * or, if there are none, all the relations outside the system schemas
+	 */
+	private static List<RelationID> getSeedRelationIds(Connection conn, @Nullable Set<RelationID> realTables,
+													   QuotedIDFactory idfac) throws SQLException {
+		DatabaseMetaData md = conn.getMetaData();
+		String productName = md.getDatabaseProductName();
 
 		if (productName.contains("Oracle")) {
 			String defaultSchema = getOracleDefaultOwner(conn);
 			if (realTables == null || realTables.isEmpty())
-				seedRelationIds = getTableList(conn, new OracleRelationListProvider(idfac, defaultSchema), idfac);
+				return getTableList(conn, new OracleRelationListProvider(idfac, defaultSchema), idfac);
 			else
-				seedRelationIds = getTableList(defaultSchema, realTables, idfac);		
-		} 
+				return getTableList(defaultSchema, realTables, idfac);
+		}
 		else {
 			if (realTables == null || realTables.isEmpty())  {
-				if (productName.contains("DB2")) 
+				if (productName.contains("DB2"))
 					// select CURRENT SCHEMA  from  SYSIBM.SYSDUMMY1
-					seedRelationIds = getTableListDefault(md, 
+					return getTableListDefault(md,
 							ImmutableSet.of("SYSTOOLS", "SYSCAT", "SYSIBM", "SYSIBMADM", "SYSSTAT"), idfac);
 				else if (productName.contains("SQL Server"))  // MS SQL Server
 					// SELECT SCHEMA_NAME() would give default schema name
 					// https://msdn.microsoft.com/en-us/library/ms175068.aspx
-					seedRelationIds = getTableListDefault(md, 
+					return getTableListDefault(md,
 							ImmutableSet.of("sys", "INFORMATION_SCHEMA"), idfac);
-				else 
+				else
 					// for other database engines, including H2, HSQL, PostgreSQL and MySQL
-					seedRelationIds = getTableListDefault(md, ImmutableSet.<String>of(), idfac);
+					return getTableListDefault(md, ImmutableSet.<String>of(), idfac);
 			}
-			else 
-				seedRelationIds = getTableList(null, realTables, idfac);
+			else
+				return getTableList(null, realTables, idfac);
 		}
-		
+	}
+
+	/**
+	 * Columns of each seed relation id (possibly of several relations, if the seed id has no schema):
+	 * schema-wide for the schemas with many seed relations, per relation otherwise
+	 */
+	private static Map<RelationID, List<ColumnRecord>> getSeedColumns(Connection conn,
+																	  @Nullable ConnectionSupplier connectionSupplier,
+																	  int parallelism, List<RelationID> seedRelationIds,
+																	  QuotedIDFactory idfac) throws SQLException {
+		DatabaseMetaData md = conn.getMetaData();
+		String productName = md.getDatabaseProductName();
+
 		DatatypeNormalizer dt = DefaultTypeFixer;
 		if (productName.contains("Oracle"))
 			dt = OracleTypeFixer;
@@ -233,62 +406,171 @@ public class RDBMetadataExtractionTools {
 		else if (productName.contains("Microsoft SQL Server"))
 			dt = SQLServerTypeFixer;
 
-		List<DatabaseRelationDefinition> extractedRelations = new LinkedList<>();
-		
-		for (RelationID seedId : seedRelationIds) {
-			// the same seedId can be mapped to many tables (if the seedId has no schema)
-			// we collect attributes from all of them
-			DatabaseRelationDefinition currentRelation = null;
-			
-			// catalog is ignored for now (rs.getString("TABLE_CAT"))
-			try (ResultSet rs = md.getColumns(null, seedId.getSchemaName(), seedId.getTableName(), null)) {
-				while (rs.next()) {
-					String schema = rs.getString("TABLE_SCHEM");
-					// MySQL workaround
-					if (schema == null)
-						schema = rs.getString("TABLE_CAT");
-
-					RelationID relationId = RelationID.createRelationIdFromDatabaseRecord(idfac, schema,
-										rs.getString("TABLE_NAME"));
-					QuotedID attributeId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("COLUMN_NAME"));
-					if (printouts)
-						System.out.println("         " + relationId + "." + attributeId);
-					
-					if (currentRelation == null || !currentRelation.getID().equals(relationId)) {
-						// switch to the next database relation
-						currentRelation = metadata.createDatabaseRelation(relationId);
-						extractedRelations.add(currentRelation);
+		Map<RelationID, List<ColumnRecord>> columnsPerRelation = new HashMap<>();
+		List<RelationID> remainingSeedIds = new ArrayList<>();
+		for (Map.Entry<String, List<RelationID>> e : groupBySchema(seedRelationIds, remainingSeedIds).entrySet()) {
+			if (e.getValue().size() >= SCHEMA_WIDE_THRESHOLD)
+				columnsPerRelation.putAll(getSchemaColumns(md, e.getKey(), ImmutableSet.copyOf(e.getValue()), idfac, dt));
+			else
+				remainingSeedIds.addAll(e.getValue());
+		}
+		final DatatypeNormalizer datatypeNormalizer = dt;
+		Map<RelationID, List<ColumnRecord>> seedColumns = readPerRelation(conn, connectionSupplier, parallelism,
+				remainingSeedIds, (m, id) -> getColumns(m, id, idfac, datatypeNormalizer));
+
+		Map<RelationID, List<ColumnRecord>> result = new HashMap<>();
+		for (RelationID seedId : seedRelationIds)
+			result.put(seedId, seedColumns.containsKey(seedId)
+					? seedColumns.get(seedId)
+					: columnsPerRelation.getOrDefault(seedId, ImmutableList.of()));
+		return result;
+	}
+
+	/**
+	 * Groups the relation ids by schema. The ones without schema are added to withoutSchema.
+	 */
+	private static Map<String, List<RelationID>> groupBySchema(Collection<RelationID> relationIds,
+															   List<RelationID> withoutSchema) {
+		Map<String, List<RelationID>> map = new LinkedHashMap<>();
+		for (RelationID id : relationIds) {
+			if (id.hasSchema())
+				map.computeIfAbsent(id.getSchemaName(), s -> new ArrayList<>()).add(id);
+			else
+				withoutSchema.add(id);
+		}
+		return map;
+	}
+
+	/**
+	 * Reads the metadata of each relation, in parallel if there are enough relations and additional connections
+	 * can be opened.
+	 *
+	 * The reader must not modify the metadata (it is not thread-safe).
+	 */
+	private static <T> Map<RelationID, T> readPerRelation(Connection conn, @Nullable ConnectionSupplier connectionSupplier,
+														  int parallelism, Collection<RelationID> relationIds,
+														  RelationMetadataReader<T> reader) throws SQLException {
+		Map<RelationID, T> results = new ConcurrentHashMap<>();
+		Queue<RelationID> queue = new ConcurrentLinkedQueue<>(relationIds);
+
+		int connectionCount = (connectionSupplier == null)
+				? 1
+				: Math.min(parallelism, relationIds.size() / MIN_RELATIONS_PER_CONNECTION);
+		if (connectionCount <= 1) {
+			readAll(conn.getMetaData(), queue, reader, results);
+			return results;
+		}
+
+		ExecutorService executor = Executors.newFixedThreadPool(connectionCount - 1, new ThreadFactoryBuilder()
+				.setNameFormat("ontop-metadata-%d")
+				.setDaemon(true)
+				.build());
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 1; i < connectionCount; i++) {
+				futures.add(executor.submit(() -> {
+					Connection additionalConnection;
+					try {
+						additionalConnection = connectionSupplier.get();
 					}
-					
-					// columnNoNulls, columnNullable, columnNullableUnknown 
-					boolean isNullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
-					String typeName = rs.getString("TYPE_NAME");
-					int dataType = dt.getCorrectedDatatype(rs.getInt("DATA_TYPE"), typeName);
-					
-					currentRelation.addAttribute(attributeId, dataType, typeName, isNullable);
-				}
+					catch (SQLException e) {
+						// Not critical: the other connections take over
+						log.warn("Cannot open an additional connection for extracting the metadata: " + e);
+						return null;
+					}
+					try (Connection c = additionalConnection) {
+						readAll(c.getMetaData(), queue, reader, results);
+					}
+					return null;
+				}));
 			}
+			// The current thread uses the given connection
+			readAll(conn.getMetaData(), queue, reader, results);
+
+			for (Future<?> future : futures)
+				future.get();
 		}
-			
-		for (DatabaseRelationDefinition relation : extractedRelations)	{
-			getPrimaryKey(md, relation, metadata.getQuotedIDFactory());
-			getUniqueAttributes(md, relation, metadata.getQuotedIDFactory());
-			getForeignKeys(md, relation, metadata);
-			if (printouts) {
-				System.out.println(relation + ";");
-				for (UniqueConstraint uc : relation.getUniqueConstraints())
-					System.out.println(uc + ";");
-				for (ForeignKeyConstraint fk : relation.getForeignKeys())
-					System.out.println(fk +  ";");
-				System.out.println("");
+		catch (ExecutionException e) {
+			if (e.getCause() instanceof SQLException)
+				throw (SQLException) e.getCause();
+			throw new SQLException(e.getCause());
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException(e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+		return results;
+	}
+
+	private static <T> void readAll(DatabaseMetaData md, Queue<RelationID> queue, RelationMetadataReader<T> reader,
+									Map<RelationID, T> results) throws SQLException {
+		RelationID id;
+		while ((id = queue.poll()) != null)
+			results.put(id, reader.read(md, id));
+	}
+
+	/**
+	 * Retrieves the columns of the relations matching the seed id (may contain a pattern)
+	 */
+	private static List<ColumnRecord> getColumns(DatabaseMetaData md, RelationID seedId, QuotedIDFactory idfac,
+												 DatatypeNormalizer dt) throws SQLException {
+		List<ColumnRecord> columns = new ArrayList<>();
+		// catalog is ignored for now (rs.getString("TABLE_CAT"))
+		try (ResultSet rs = md.getColumns(null, seedId.getSchemaName(), seedId.getTableName(), null)) {
+			while (rs.next())
+				columns.add(new ColumnRecord(rs, idfac, dt));
+		}
+		return columns;
+	}
+
+	/**
+	 * Retrieves the columns of all the relations of the schema in one query, but keeps only
+	 * the ones of the given relations
+	 */
+	private static Map<RelationID, List<ColumnRecord>> getSchemaColumns(DatabaseMetaData md, String schema,
+																	   ImmutableSet<RelationID> relationIds,
+																	   QuotedIDFactory idfac, DatatypeNormalizer dt)
+			throws SQLException {
+		Map<RelationID, List<ColumnRecord>> map = new HashMap<>();
+		try (ResultSet rs = md.getColumns(null, schema, null, null)) {
+			while (rs.next()) {
+				ColumnRecord column = new ColumnRecord(rs, idfac, dt);
+				if (relationIds.contains(column.relationId))
+					map.computeIfAbsent(column.relationId, id -> new ArrayList<>()).add(column);
 			}
 		}
+		return map;
+	}
 
-		if (printouts) {
-			System.out.println("RESULTING METADATA:\n" + metadata);
-			System.out.println("DBMetadataExtractor END OF REPORT\n=================================");
+	private static final class ColumnRecord {
+		private final RelationID relationId;
+		private final QuotedID attributeId;
+		private final int dataType;
+		private final String typeName;
+		private final boolean isNullable;
+
+		private ColumnRecord(ResultSet rs, QuotedIDFactory idfac, DatatypeNormalizer dt) throws SQLException {
+			String schema = rs.getString("TABLE_SCHEM");
+			// MySQL workaround
+			if (schema == null)
+				schema = rs.getString("TABLE_CAT");
+
+			this.relationId = RelationID.createRelationIdFromDatabaseRecord(idfac, schema, rs.getString("TABLE_NAME"));
+			this.attributeId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("COLUMN_NAME"));
+			// columnNoNulls, columnNullable, columnNullableUnknown 
+			this.isNullable = rs.getInt("NULLABLE") != DatabaseMetaData.columnNoNulls;
+			this.typeName = rs.getString("TYPE_NAME");
+			this.dataType = dt.getCorrectedDatatype(rs.getInt("DATA_TYPE"), typeName);
 		}
 	}
+
+	@FunctionalInterface
+	private interface RelationMetadataReader<T> {
+		T read(DatabaseMetaData md, RelationID id) throws SQLException;
+	}
 	
 	
 	/**
@@ -547,12 +829,54 @@ public class RDBMetadataExtractionTools {
 	
 	
 
+	/**
+	 * Constraints of a relation, as retrieved from the database (attributes are not resolved yet)
+	 */
+	private static final class RelationConstraints {
+		private final List<KeyRecord> uniqueConstraints = new ArrayList<>();
+		private final List<ForeignKeyRecord> foreignKeys = new ArrayList<>();
+	}
+
+	private static final class KeyRecord {
+		private final String name; // may be null
+		private final boolean isPrimaryKey;
+		private final List<String> columns = new ArrayList<>();
+
+		private KeyRecord(String name, boolean isPrimaryKey) {
+			this.name = name;
+			this.isPrimaryKey = isPrimaryKey;
+		}
+	}
+
+	private static final class ForeignKeyRecord {
+		private final String name; // may be null
+		private final RelationID referencedRelationId;
+		private final List<String> columns = new ArrayList<>();
+		private final List<String> referencedColumns = new ArrayList<>();
+
+		private ForeignKeyRecord(String name, RelationID referencedRelationId) {
+			this.name = name;
+			this.referencedRelationId = referencedRelationId;
+		}
+	}
+
+	/**
+	 * Retrieves the constraints (primary key, unique attributes and foreign keys) of the relation
+	 */
+	private static RelationConstraints getConstraints(DatabaseMetaData md, RelationID id, QuotedIDFactory idfac) throws SQLException {
+		RelationConstraints constraints = new RelationConstraints();
+		getPrimaryKey(md, id, idfac)
+				.ifPresent(constraints.uniqueConstraints::add);
+		constraints.uniqueConstraints.addAll(getUniqueAttributes(md, id));
+		constraints.foreignKeys.addAll(getForeignKeys(md, id, idfac));
+		return constraints;
+	}
+
 	/** 
 	 * Retrieves the primary key for the table 
 	 * 
 	 */
-	private static void getPrimaryKey(DatabaseMetaData md, DatabaseRelationDefinition relation, QuotedIDFactory idfac) throws SQLException {
-		RelationID id = relation.getID();
+	private static Optional<KeyRecord> getPrimaryKey(DatabaseMetaData md, RelationID id, QuotedIDFactory idfac) throws SQLException {
 		// Retrieves a description of the given table's primary key columns. They are ordered by COLUMN_NAME (sic!)
 		try (ResultSet rs = md.getPrimaryKeys(null, id.getSchemaName(), id.getTableName())) {
 			Map<Integer, String> primaryKeyAttributes = new HashMap<>();
@@ -568,15 +892,14 @@ public class RDBMetadataExtractionTools {
 					primaryKeyAttributes.put(seq, attr);
 				}
 			}
-			if (!primaryKeyAttributes.isEmpty()) {
-				// use the KEY_SEQ values to restore the correct order of attributes in the PK
-				UniqueConstraint.Builder builder = UniqueConstraint.builder(relation);
-				for (int i = 1; i <= primaryKeyAttributes.size(); i++) {
-					QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, primaryKeyAttributes.get(i));
-					builder.add(relation.getAttribute(attrId));
-				}
-				relation.addUniqueConstraint(builder.build(currentName, true));
-			}
+			if (primaryKeyAttributes.isEmpty())
+				return Optional.empty();
+
+			// use the KEY_SEQ values to restore the correct order of attributes in the PK
+			KeyRecord primaryKey = new KeyRecord(currentName, true);
+			for (int i = 1; i <= primaryKeyAttributes.size(); i++)
+				primaryKey.columns.add(primaryKeyAttributes.get(i));
+			return Optional.of(primaryKey);
 		} 
 	}
 	
@@ -586,42 +909,34 @@ public class RDBMetadataExtractionTools {
 	 * @return
 	 * @throws SQLException 
 	 */
-	private static void getUniqueAttributes(DatabaseMetaData md, DatabaseRelationDefinition relation, QuotedIDFactory idfac) throws SQLException {
+	private static List<KeyRecord> getUniqueAttributes(DatabaseMetaData md, RelationID id) throws SQLException {
 		
-		RelationID id = relation.getID();
+		List<KeyRecord> uniqueConstraints = new ArrayList<>();
 		// extracting unique 
 		try (ResultSet rs = md.getIndexInfo(null, id.getSchemaName(), id.getTableName(), true, true)) {
-			UniqueConstraint.Builder builder = null;
-			String currentName = null;
+			KeyRecord current = null;
 			while (rs.next()) {
 				// TYPE: tableIndexStatistic - this identifies table statistics that are returned in conjunction with a table's index descriptions
 				//       tableIndexClustered - this is a clustered index
 				//       tableIndexHashed - this is a hashed index
 				//       tableIndexOther (all are static final int in DatabaseMetaData)
 				if (rs.getShort("TYPE") == DatabaseMetaData.tableIndexStatistic) {
-					if (builder != null)
-						relation.addUniqueConstraint(builder.build(currentName, false));
-					
-					builder = null;
+					current = null;
 					continue;
 				}
 				if (rs.getShort("ORDINAL_POSITION") == 1) {
-					if (builder != null)
-						relation.addUniqueConstraint(builder.build(currentName, false));
-
 					// TABLE_CAT is ignored for now; assume here that relation has a fully specified name
 					// and so, no need to check whether TABLE_SCHEM and TABLE_NAME match
 					
 					if (!rs.getBoolean("NON_UNIQUE")) {
-						builder = UniqueConstraint.builder(relation);
-						currentName = rs.getString("INDEX_NAME"); 
+						current = new KeyRecord(rs.getString("INDEX_NAME"), false);
+						uniqueConstraints.add(current);
 					}
 					else 
-						builder = null;
+						current = null;
 				}
 				
-				if (builder != null) {
-					QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("COLUMN_NAME"));
+				if (current != null) {
 					// ASC_OR_DESC String => column sort sequence, "A" => ascending, "D" => descending,
 					//        may be null if sort sequence is not supported; null when TYPE is tableIndexStatistic
 					// CARDINALITY int => When TYPE is tableIndexStatistic, then this is the number of rows in the table; 
@@ -629,61 +944,210 @@ public class RDBMetadataExtractionTools {
 					// PAGES int => When TYPE is tableIndexStatisic then this is the number of pages used for the table, 
 					//                    otherwise it is the number of pages used for the current index.
 					// FILTER_CONDITION String => Filter condition, if any. (may be null)
-					Attribute attr = relation.getAttribute(attrId);
-					if (attr == null) { // Compensate for the bug in PostgreSQL JBDC driver that
-						// strips off the quatation marks
-						attrId = QuotedID.createIdFromDatabaseRecord(idfac, "\"" + rs.getString("COLUMN_NAME") + "\"");
-						attr = relation.getAttribute(attrId);
-					}
-					builder.add(attr);
+					current.columns.add(rs.getString("COLUMN_NAME"));
 				}
 			}
-			if (builder != null)
-				relation.addUniqueConstraint(builder.build(currentName, false));
 		}
+		return uniqueConstraints;
 	}
 	
 	/** 
 	 * Retrieves the foreign keys for the table 
 	 * 
 	 */
-	private static void getForeignKeys(DatabaseMetaData md, DatabaseRelationDefinition relation, DBMetadata metadata) throws SQLException {
+	private static List<ForeignKeyRecord> getForeignKeys(DatabaseMetaData md, RelationID relationId, QuotedIDFactory idfac) throws SQLException {
 		
-		QuotedIDFactory idfac = metadata.getQuotedIDFactory();
-		
-		RelationID relationId = relation.getID();	
+		List<ForeignKeyRecord> foreignKeys = new ArrayList<>();
 		try (ResultSet rs = md.getImportedKeys(null, relationId.getSchemaName(), relationId.getTableName())) {
-			ForeignKeyConstraint.Builder builder = null;
-			String currentName = null;
+			ForeignKeyRecord current = null;
 			while (rs.next()) {
-				RelationID refId = RelationID.createRelationIdFromDatabaseRecord(idfac,
-										rs.getString("PKTABLE_SCHEM"), rs.getString("PKTABLE_NAME"));
-				DatabaseRelationDefinition ref = metadata.getDatabaseRelation(refId);
 				// FKTABLE_SCHEM and FKTABLE_NAME are ignored for now  
 				int seq = rs.getShort("KEY_SEQ");
 				if (seq == 1) {
-					if (builder != null) 
-						relation.addForeignKeyConstraint(builder.build(currentName));
-					
-					currentName = rs.getString("FK_NAME"); // String => foreign key name (may be null)
-					
-					if (ref != null) {
-						builder = new ForeignKeyConstraint.Builder(relation, ref);
-					}
-					else {
-						builder = null; // do not add this foreign key 
-						                // because there is no table it refers to
-						log.warn("Cannot find table: " + refId + " for FK " + currentName);
-					}
+					RelationID refId = RelationID.createRelationIdFromDatabaseRecord(idfac,
+											rs.getString("PKTABLE_SCHEM"), rs.getString("PKTABLE_NAME"));
+					current = new ForeignKeyRecord(rs.getString("FK_NAME"), refId); // FK_NAME may be null
+					foreignKeys.add(current);
 				}
-				if (builder != null) {
-					QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("FKCOLUMN_NAME"));
-					QuotedID refAttrId = QuotedID.createIdFromDatabaseRecord(idfac, rs.getString("PKCOLUMN_NAME"));
-					builder.add(relation.getAttribute(attrId), ref.getAttribute(refAttrId));
+				if (current != null) {
+					current.columns.add(rs.getString("FKCOLUMN_NAME"));
+					current.referencedColumns.add(rs.getString("PKCOLUMN_NAME"));
 				}
 			}
-			if (builder != null)
-				relation.addForeignKeyConstraint(builder.build(currentName));
 		} 
+		return foreignKeys;
+	}
+
+	/**
+	 * Inserts the constraints into the relation (requires all the relations to be extracted)
+	 */
+	private static void insertConstraints(DatabaseRelationDefinition relation, RelationConstraints constraints,
+										  DBMetadata metadata) {
+		QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+
+		for (KeyRecord key : constraints.uniqueConstraints) {
+			UniqueConstraint.Builder builder = UniqueConstraint.builder(relation);
+			for (String column : key.columns) {
+				Attribute attr = getAttribute(relation, column, idfac);
+				if (attr == null) {
+					log.warn("Cannot find attribute " + column + " in " + relation.getID() + " for key " + key.name);
+					builder = null;
+					break;
+				}
+				builder.add(attr);
+			}
+			if (builder != null && !key.columns.isEmpty())
+				relation.addUniqueConstraint(builder.build(key.name, key.isPrimaryKey));
+		}
+
+		for (ForeignKeyRecord fk : constraints.foreignKeys) {
+			DatabaseRelationDefinition ref = metadata.getDatabaseRelation(fk.referencedRelationId);
+			if (ref == null) {
+				// do not add this foreign key because there is no table it refers to
+				log.warn("Cannot find table: " + fk.referencedRelationId + " for FK " + fk.name);
+				continue;
+			}
+			ForeignKeyConstraint.Builder builder = new ForeignKeyConstraint.Builder(relation, ref);
+			for (int i = 0; i < fk.columns.size(); i++) {
+				QuotedID attrId = QuotedID.createIdFromDatabaseRecord(idfac, fk.columns.get(i));
+				QuotedID refAttrId = QuotedID.createIdFromDatabaseRecord(idfac, fk.referencedColumns.get(i));
+				builder.add(relation.getAttribute(attrId), ref.getAttribute(refAttrId));
+			}
+			if (!fk.columns.isEmpty())
+				relation.addForeignKeyConstraint(builder.build(fk.name));
+		}
+	}
+
+	private static Attribute getAttribute(DatabaseRelationDefinition relation, String column, QuotedIDFactory idfac) {
+		Attribute attr = relation.getAttribute(QuotedID.createIdFromDatabaseRecord(idfac, column));
+		if (attr == null) // Compensate for the bug in PostgreSQL JBDC driver that
+			// strips off the quatation marks
+			attr = relation.getAttribute(QuotedID.createIdFromDatabaseRecord(idfac, "\"" + column + "\""));
+		return attr;
+	}
+
+	/**
+	 * Retrieves the constraints of the relations of a schema with a few queries
+	 */
+	private static Map<RelationID, RelationConstraints> getSchemaConstraints(Connection conn,
+																			ConstraintListProvider provider,
+																			String schema) throws SQLException {
+		Map<RelationID, RelationConstraints> map = new HashMap<>();
+
+		try (PreparedStatement stmt = conn.prepareStatement(provider.getPrimaryKeyQuery())) {
+			stmt.setString(1, schema);
+			try (ResultSet rs = stmt.executeQuery()) {
+				readKeys(rs, provider, schema, map, true);
+			}
+		}
+		try (PreparedStatement stmt = conn.prepareStatement(provider.getUniqueConstraintQuery())) {
+			stmt.setString(1, schema);
+			try (ResultSet rs = stmt.executeQuery()) {
+				readKeys(rs, provider, schema, map, false);
+			}
+		}
+		try (PreparedStatement stmt = conn.prepareStatement(provider.getForeignKeyQuery())) {
+			stmt.setString(1, schema);
+			try (ResultSet rs = stmt.executeQuery()) {
+				ForeignKeyRecord current = null;
+				RelationID currentRelationId = null;
+				while (rs.next()) {
+					RelationID relationId = provider.getRelationID(schema, rs);
+					String name = rs.getString("constraint_name");
+					if (current == null || !relationId.equals(currentRelationId) || !name.equals(current.name)) {
+						current = new ForeignKeyRecord(name, provider.getReferencedRelationID(rs));
+						currentRelationId = relationId;
+						map.computeIfAbsent(relationId, id -> new RelationConstraints()).foreignKeys.add(current);
+					}
+					current.columns.add(rs.getString("column_name"));
+					current.referencedColumns.add(rs.getString("r_column_name"));
+				}
+			}
+		}
+		return map;
+	}
+
+	private static void readKeys(ResultSet rs, ConstraintListProvider provider, String schema,
+								 Map<RelationID, RelationConstraints> map, boolean isPrimaryKey) throws SQLException {
+		KeyRecord current = null;
+		RelationID currentRelationId = null;
+		while (rs.next()) {
+			RelationID relationId = provider.getRelationID(schema, rs);
+			String name = rs.getString("constraint_name");
+			if (current == null || !relationId.equals(currentRelationId) || !name.equals(current.name)) {
+				current = new KeyRecord(name, isPrimaryKey);
+				currentRelationId = relationId;
+				map.computeIfAbsent(relationId, id -> new RelationConstraints()).uniqueConstraints.add(current);
+			}
+			current.columns.add(rs.getString("column_name"));
+		}
+	}
+
+	/**
+	 * Schema-wide constraint queries for a specific database engine
+	 *
+	 * Each query has the schema as parameter and returns the columns constraint_name and column_name
+	 * (and r_column_name for foreign keys), ordered by relation, constraint and position.
+	 */
+	private interface ConstraintListProvider {
+		String getPrimaryKeyQuery();
+		String getUniqueConstraintQuery();
+		String getForeignKeyQuery();
+		RelationID getRelationID(String schema, ResultSet rs) throws SQLException;
+		RelationID getReferencedRelationID(ResultSet rs) throws SQLException;
+	}
+
+	/**
+	 * Constraints for Oracle (from the ALL_* dictionary views)
+	 */
+	private static final class OracleConstraintListProvider implements ConstraintListProvider {
+
+		private final QuotedIDFactory idfac;
+
+		OracleConstraintListProvider(QuotedIDFactory idfac) {
+			this.idfac = idfac;
+		}
+
+		@Override
+		public String getPrimaryKeyQuery() {
+			return "SELECT c.table_name, c.constraint_name, cc.column_name " +
+					"FROM all_constraints c JOIN all_cons_columns cc " +
+					"   ON c.owner = cc.owner AND c.constraint_name = cc.constraint_name " +
+					"WHERE c.constraint_type = 'P' AND c.owner = ? " +
+					"ORDER BY c.table_name, c.constraint_name, cc.position";
+		}
+
+		@Override
+		public String getUniqueConstraintQuery() {
+			// same as getIndexInfo: unique indexes (including the ones of the primary keys)
+			return "SELECT i.table_name, i.index_name AS constraint_name, ic.column_name " +
+					"FROM all_indexes i JOIN all_ind_columns ic " +
+					"   ON i.owner = ic.index_owner AND i.index_name = ic.index_name " +
+					"WHERE i.uniqueness = 'UNIQUE' AND i.table_owner = ? " +
+					"ORDER BY i.table_name, i.index_name, ic.column_position";
+		}
+
+		@Override
+		public String getForeignKeyQuery() {
+			return "SELECT c.table_name, c.constraint_name, cc.column_name, " +
+					"       rc.owner AS r_owner, rc.table_name AS r_table_name, rcc.column_name AS r_column_name " +
+					"FROM all_constraints c " +
+					"   JOIN all_cons_columns cc ON c.owner = cc.owner AND c.constraint_name = cc.constraint_name " +
+					"   JOIN all_constraints rc ON c.r_owner = rc.owner AND c.r_constraint_name = rc.constraint_name " +
+					"   JOIN all_cons_columns rcc ON rc.owner = rcc.owner AND rc.constraint_name = rcc.constraint_name " +
+					"                             AND cc.position = rcc.position " +
+					"WHERE c.constraint_type = 'R' AND c.owner = ? " +
+					"ORDER BY c.table_name, c.constraint_name, cc.position";
+		}
+
+		@Override
+		public RelationID getRelationID(String schema, ResultSet rs) throws SQLException {
+			return RelationID.createRelationIdFromDatabaseRecord(idfac, schema, rs.getString("table_name"));
+		}
+
+		@Override
+		public RelationID getReferencedRelationID(ResultSet rs) throws SQLException {
+			return RelationID.createRelationIdFromDatabaseRecord(idfac, rs.getString("r_owner"), rs.getString("r_table_name"));
+		}
 	}
 }
@@ -0,0 +1,203 @@
+package it.unibz.inf.ontop.dbschema;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.io.ByteStreams;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves the relations extracted from the database (attributes, unique constraints and foreign keys)
+ * into a compact binary snapshot, and loads them back without querying the database metadata.
+ *
+ * The snapshot does not contain the driver information (see RDBMetadataExtractionTools.createMetadata())
+ * nor the user-supplied constraints.
+ *
+ * A snapshot is only valid for the schema it has been extracted from: the callers are expected to
+ * select it by a key that includes the column fingerprint (see RDBMetadataExtractionTools.computeColumnFingerprint()).
+ *
+ */
+public class RDBMetadataSnapshotTools {
+
+	private static final int MAGIC_NUMBER = 0x4f444d53; // "ODMS"
+	private static final int FORMAT_VERSION = 1;
+
+	private static final Logger log = LoggerFactory.getLogger(RDBMetadataSnapshotTools.class);
+
+	/**
+	 * Writes the database relations of the metadata into the file.
+	 *
+	 * The file is first written next to its final location and then moved, so that concurrent readers
+	 * never see a partial snapshot.
+	 */
+	public static void save(RDBMetadata metadata, Path file) throws IOException {
+		Path directory = file.toAbsolutePath().getParent();
+		Files.createDirectories(directory);
+		Path tmpFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new GZIPOutputStream(Files.newOutputStream(tmpFile))))) {
+				write(metadata, out);
+			}
+			Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally {
+			Files.deleteIfExists(tmpFile);
+		}
+	}
+
+	/**
+	 * Adds the relations of the snapshot to the metadata (that must not contain them yet).
+	 *
+	 * Returns false if there is no snapshot or if it has an incompatible format.
+	 * The metadata is not modified when an IOException is thrown.
+	 */
+	public static boolean load(RDBMetadata metadata, Path file) throws IOException {
+		if (!Files.exists(file))
+			return false;
+
+		// Fully read (and checksummed) before modifying the metadata
+		byte[] content;
+		try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+			content = ByteStreams.toByteArray(in);
+		}
+
+		try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+			if (in.readInt() != MAGIC_NUMBER || in.readInt() != FORMAT_VERSION) {
+				log.warn("Ignoring the DB metadata snapshot " + file + " (incompatible format)");
+				return false;
+			}
+			read(metadata, in);
+			return true;
+		}
+	}
+
+	/**
+	 * Length-prefixed, so that consecutive strings cannot be confused (e.g. "ab" + "c" and "a" + "bc")
+	 */
+	public static void putString(Hasher hasher, @Nullable String s) {
+		hasher.putBoolean(s != null);
+		if (s != null)
+			hasher.putInt(s.length())
+					.putString(s, StandardCharsets.UTF_8);
+	}
+
+	private static void write(RDBMetadata metadata, DataOutputStream out) throws IOException {
+		out.writeInt(MAGIC_NUMBER);
+		out.writeInt(FORMAT_VERSION);
+
+		List<DatabaseRelationDefinition> relations = ImmutableList.copyOf(metadata.getDatabaseRelations());
+		Map<RelationID, Integer> relationIndexes = new HashMap<>();
+
+		out.writeInt(relations.size());
+		for (DatabaseRelationDefinition relation : relations) {
+			relationIndexes.put(relation.getID(), relationIndexes.size());
+			writeNullableString(out, relation.getID().getSchemaName());
+			out.writeUTF(relation.getID().getTableName());
+
+			List<Attribute> attributes = relation.getAttributes();
+			out.writeInt(attributes.size());
+			for (Attribute attribute : attributes) {
+				out.writeUTF(attribute.getID().getName());
+				out.writeInt(attribute.getType());
+				writeNullableString(out, attribute.getSQLTypeName());
+				out.writeBoolean(attribute.canNull());
+			}
+		}
+
+		// Constraints (after all the relations, as foreign keys refer to them)
+		for (DatabaseRelationDefinition relation : relations) {
+			ImmutableList<UniqueConstraint> uniqueConstraints = relation.getUniqueConstraints();
+			out.writeInt(uniqueConstraints.size());
+			for (UniqueConstraint uc : uniqueConstraints) {
+				writeNullableString(out, uc.getName());
+				out.writeBoolean(uc.isPrimaryKey());
+				out.writeInt(uc.getAttributes().size());
+				for (Attribute attribute : uc.getAttributes())
+					out.writeInt(attribute.getIndex());
+			}
+
+			ImmutableList<ForeignKeyConstraint> foreignKeys = relation.getForeignKeys();
+			out.writeInt(foreignKeys.size());
+			for (ForeignKeyConstraint fk : foreignKeys) {
+				writeNullableString(out, fk.getName());
+				out.writeInt(relationIndexes.get(fk.getReferencedRelation().getID()));
+				out.writeInt(fk.getComponents().size());
+				for (ForeignKeyConstraint.Component component : fk.getComponents()) {
+					out.writeInt(component.getAttribute().getIndex());
+					out.writeInt(component.getReference().getIndex());
+				}
+			}
+		}
+	}
+
+	private static void read(RDBMetadata metadata, DataInputStream in) throws IOException {
+		QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+
+		int relationCount = in.readInt();
+		DatabaseRelationDefinition[] relations = new DatabaseRelationDefinition[relationCount];
+		for (int i = 0; i < relationCount; i++) {
+			String schema = readNullableString(in);
+			String table = in.readUTF();
+			DatabaseRelationDefinition relation = metadata.createDatabaseRelation(
+					RelationID.createRelationIdFromDatabaseRecord(idfac, schema, table));
+			relations[i] = relation;
+
+			int attributeCount = in.readInt();
+			for (int j = 0; j < attributeCount; j++) {
+				QuotedID attributeId = QuotedID.createIdFromDatabaseRecord(idfac, in.readUTF());
+				int type = in.readInt();
+				String typeName = readNullableString(in);
+				boolean canNull = in.readBoolean();
+				relation.addAttribute(attributeId, type, typeName, canNull);
+			}
+		}
+
+		for (DatabaseRelationDefinition relation : relations) {
+			int ucCount = in.readInt();
+			for (int i = 0; i < ucCount; i++) {
+				String name = readNullableString(in);
+				boolean isPrimaryKey = in.readBoolean();
+				UniqueConstraint.Builder builder = UniqueConstraint.builder(relation);
+				int attributeCount = in.readInt();
+				for (int j = 0; j < attributeCount; j++)
+					builder.add(relation.getAttribute(in.readInt()));
+				relation.addUniqueConstraint(builder.build(name, isPrimaryKey));
+			}
+
+			int fkCount = in.readInt();
+			for (int i = 0; i < fkCount; i++) {
+				String name = readNullableString(in);
+				DatabaseRelationDefinition ref = relations[in.readInt()];
+				ForeignKeyConstraint.Builder builder = ForeignKeyConstraint.builder(relation, ref);
+				int componentCount = in.readInt();
+				for (int j = 0; j < componentCount; j++)
+					builder.add(relation.getAttribute(in.readInt()), ref.getAttribute(in.readInt()));
+				relation.addForeignKeyConstraint(builder.build(name));
+			}
+		}
+	}
+
+	private static void writeNullableString(DataOutputStream out, @Nullable String s) throws IOException {
+		out.writeBoolean(s != null);
+		if (s != null)
+			out.writeUTF(s);
+	}
+
+	@Nullable
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
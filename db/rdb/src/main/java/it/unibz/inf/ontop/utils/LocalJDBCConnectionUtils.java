@@ -30,4 +30,16 @@ public class LocalJDBCConnectionUtils {
             return DriverManager.getConnection(settings.getJdbcUrl(), settings.getJdbcUser(), settings.getJdbcPassword());
         }
     }
+
+    /**
+     * In-memory databases may not be shared between connections (e.g. an unnamed H2 database is private
+     * to the connection that created it), so the same URL does not always give access to the same data.
+     */
+    public static boolean isInMemoryDatabase(String jdbcUrl) {
+        String url = jdbcUrl.toLowerCase();
+        return url.startsWith("jdbc:h2:mem:")
+                || url.startsWith("jdbc:hsqldb:mem:")
+                || url.startsWith("jdbc:derby:memory:")
+                || url.startsWith("jdbc:sqlite::memory:");
+    }
 }
@@ -0,0 +1,29 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+
+/**
+ * Bridge towards a metrics library, used by the default QueryMonitor.
+ *
+ * Follows the conventions of Micrometer: dot-separated metric names and tags (key-value pairs).
+ * A Micrometer-based implementation maps incrementCounter to Counter, recordDuration to Timer
+ * and recordValue to DistributionSummary.
+ *
+ * Implementation bound by the property whose key is the name of this interface
+ * ("it.unibz.inf.ontop.answering.monitoring.MetricsRegistry"). Defaults to NoOpMetricsRegistry
+ * (see it/unibz/inf/ontop/injection/reformulation-default.properties).
+ * Must be thread-safe.
+ */
+public interface MetricsRegistry {
+
+    /**
+     * When false, no metric is recorded
+     */
+    boolean isEnabled();
+
+    void incrementCounter(String name, ImmutableMap<String, String> tags);
+
+    void recordDuration(String name, ImmutableMap<String, String> tags, long nanos);
+
+    void recordValue(String name, ImmutableMap<String, String> tags, double value);
+}
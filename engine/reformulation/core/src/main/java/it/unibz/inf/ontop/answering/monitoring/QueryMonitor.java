@@ -0,0 +1,18 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+/**
+ * Receives the metrics of the answered queries (one report per query, once its results are exhausted or
+ * closed, or when it fails).
+ *
+ * Implementation selected in the settings (see it.unibz.inf.ontop.answering.monitoring.QueryMonitor).
+ * Must be thread-safe: the queries of all the connections are reported to the same instance.
+ */
+public interface QueryMonitor {
+
+    /**
+     * When false, the statements neither collect nor report the metrics
+     */
+    boolean isEnabled();
+
+    void report(QueryReport report);
+}
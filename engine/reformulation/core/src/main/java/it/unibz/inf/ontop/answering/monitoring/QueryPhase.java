@@ -0,0 +1,36 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+/**
+ * Phases of the answering of a query, in the order in which they are executed
+ */
+public enum QueryPhase {
+    /**
+     * From the input query (SPARQL) to the normalized Datalog program
+     */
+    TRANSLATION,
+    /**
+     * Tree-witness rewriting (when existential reasoning is enabled) and optimization with the ABox dependencies
+     */
+    REWRITING,
+    /**
+     * Conversion into an intermediate query and unfolding with the saturated mapping
+     */
+    UNFOLDING,
+    BINDING_LIFT,
+    /**
+     * Boolean expression push-up, projection shrinking and fixed-point join optimization
+     */
+    JOIN_OPTIMIZATION,
+    /**
+     * Generation of the native query (e.g. SQL)
+     */
+    NATIVE_QUERY_GENERATION,
+    /**
+     * Until the results are available (or, for a boolean query, the answer)
+     */
+    EXECUTION,
+    /**
+     * Time spent iterating over the results: fetching them from the database and converting them into RDF terms
+     */
+    RESULT_CONVERSION
+}
@@ -0,0 +1,106 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Collects the metrics of one query while it is answered, before reporting them to the QueryMonitor.
+ *
+ * Phases are timed as follows:
+ * <pre>
+ *     long time = System.nanoTime();
+ *     ...
+ *     time = record.endPhase(QueryPhase.UNFOLDING, time);
+ * </pre>
+ *
+ * Thread-safe: the execution task may still update the record (e.g. after a cancellation)
+ * while the statement reports it.
+ */
+public class QueryRecord {
+
+    private final String queryType;
+    private final String queryString;
+    private final boolean enabled;
+
+    private final Map<QueryPhase, Long> phaseDurations = new EnumMap<>(QueryPhase.class);
+    private boolean cacheHit = false;
+    private boolean emptyQuery = false;
+    private int unionBranchCount = -1;
+    private int nativeQuerySize = -1;
+    private long resultCount = -1;
+    private Optional<Throwable> failure = Optional.empty();
+
+    /**
+     * @param enabled false if the metrics that are costly to collect (e.g. the number of union branches)
+     *                are not needed
+     */
+    public QueryRecord(String queryType, String queryString, boolean enabled) {
+        this.queryType = queryType;
+        this.queryString = queryString;
+        this.enabled = enabled;
+    }
+
+    /**
+     * For the callers that do not monitor their queries (the phases are not timed)
+     */
+    public static QueryRecord disabled() {
+        return new QueryRecord("", "", false);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Adds the time elapsed since startNanos (from System.nanoTime()) to the duration of the phase.
+     *
+     * Returns the current time (start of the next phase).
+     */
+    public synchronized long endPhase(QueryPhase phase, long startNanos) {
+        long now = System.nanoTime();
+        if (enabled)
+            phaseDurations.merge(phase, now - startNanos, Long::sum);
+        return now;
+    }
+
+    /**
+     * The reformulated query was found in the query cache (no reformulation phase)
+     */
+    public synchronized void setCacheHit() {
+        this.cacheHit = true;
+    }
+
+    /**
+     * The reformulation proved that the query has no answer
+     */
+    public synchronized void setEmptyQuery() {
+        this.emptyQuery = true;
+    }
+
+    public synchronized void setUnionBranchCount(int unionBranchCount) {
+        this.unionBranchCount = unionBranchCount;
+    }
+
+    /**
+     * Length of the native query string (e.g. SQL)
+     */
+    public synchronized void setNativeQuerySize(int nativeQuerySize) {
+        this.nativeQuerySize = nativeQuerySize;
+    }
+
+    public synchronized void setResultCount(long resultCount) {
+        this.resultCount = resultCount;
+    }
+
+    public synchronized void setFailure(Throwable failure) {
+        this.failure = Optional.of(failure);
+    }
+
+    public synchronized QueryReport toReport() {
+        return new QueryReport(queryType, queryString, ImmutableMap.copyOf(phaseDurations), cacheHit, emptyQuery,
+                unionBranchCount, nativeQuerySize, resultCount, failure.map(f -> f.getClass().getSimpleName()));
+    }
+}
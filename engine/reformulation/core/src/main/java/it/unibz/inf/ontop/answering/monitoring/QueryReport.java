@@ -0,0 +1,125 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Metrics of one answered query.
+ *
+ * Immutable
+ */
+public class QueryReport {
+
+    private final String queryType;
+    private final String queryString;
+    private final ImmutableMap<QueryPhase, Long> phaseDurations;
+    private final boolean cacheHit;
+    private final boolean emptyQuery;
+    private final int unionBranchCount;
+    private final int nativeQuerySize;
+    private final long resultCount;
+    private final Optional<String> failure;
+
+    QueryReport(String queryType, String queryString, ImmutableMap<QueryPhase, Long> phaseDurations,
+                boolean cacheHit, boolean emptyQuery, int unionBranchCount, int nativeQuerySize,
+                long resultCount, Optional<String> failure) {
+        this.queryType = queryType;
+        this.queryString = queryString;
+        this.phaseDurations = phaseDurations;
+        this.cacheHit = cacheHit;
+        this.emptyQuery = emptyQuery;
+        this.unionBranchCount = unionBranchCount;
+        this.nativeQuerySize = nativeQuerySize;
+        this.resultCount = resultCount;
+        this.failure = failure;
+    }
+
+    /**
+     * SELECT, ASK, CONSTRUCT or DESCRIBE
+     */
+    public String getQueryType() {
+        return queryType;
+    }
+
+    public String getQueryString() {
+        return queryString;
+    }
+
+    /**
+     * In nanoseconds, for the phases that have been executed
+     */
+    public ImmutableMap<QueryPhase, Long> getPhaseDurations() {
+        return phaseDurations;
+    }
+
+    public long getTotalDuration() {
+        return phaseDurations.values().stream()
+                .mapToLong(Long::longValue)
+                .sum();
+    }
+
+    public boolean isCacheHit() {
+        return cacheHit;
+    }
+
+    public boolean isEmptyQuery() {
+        return emptyQuery;
+    }
+
+    /**
+     * Number of children of the union nodes of the reformulated query (empty if unknown, e.g. when cached)
+     */
+    public Optional<Integer> getUnionBranchCount() {
+        return unionBranchCount < 0 ? Optional.empty() : Optional.of(unionBranchCount);
+    }
+
+    /**
+     * Length of the native query (empty if unknown)
+     */
+    public Optional<Integer> getNativeQuerySize() {
+        return nativeQuerySize < 0 ? Optional.empty() : Optional.of(nativeQuerySize);
+    }
+
+    /**
+     * Number of results consumed before closing the result set (empty if unknown)
+     */
+    public Optional<Long> getResultCount() {
+        return resultCount < 0 ? Optional.empty() : Optional.of(resultCount);
+    }
+
+    /**
+     * Simple name of the class of the exception, if the query failed
+     */
+    public Optional<String> getFailure() {
+        return failure;
+    }
+
+    public boolean isSuccessful() {
+        return !failure.isPresent();
+    }
+
+    /**
+     * Structured (key=value) representation, on one line. The query string is not included.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("type=").append(queryType)
+                .append(" status=").append(failure.map(f -> "failed").orElse("ok"))
+                .append(" cache=").append(cacheHit ? "hit" : "miss")
+                .append(" empty=").append(emptyQuery)
+                .append(" totalMs=").append(toMillis(getTotalDuration()));
+        phaseDurations.forEach((p, d) -> sb.append(" ").append(p.name().toLowerCase()).append("Ms=").append(toMillis(d)));
+        getUnionBranchCount().ifPresent(c -> sb.append(" unionBranches=").append(c));
+        getNativeQuerySize().ifPresent(s -> sb.append(" nativeQuerySize=").append(s));
+        getResultCount().ifPresent(c -> sb.append(" results=").append(c));
+        failure.ifPresent(f -> sb.append(" failure=").append(f));
+        return sb.toString();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format("%.3f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
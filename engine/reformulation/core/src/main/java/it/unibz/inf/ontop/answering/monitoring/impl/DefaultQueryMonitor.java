@@ -0,0 +1,62 @@
+package it.unibz.inf.ontop.answering.monitoring.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.answering.monitoring.MetricsRegistry;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
+import it.unibz.inf.ontop.answering.monitoring.QueryReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Exports the reports to the MetricsRegistry and logs them as structured events
+ * (logger it.unibz.inf.ontop.answering.monitoring.QueryLog, level DEBUG).
+ *
+ * Metrics (all tagged with the query type):
+ *   - ontop.query.count (counter, also tagged with status and cache)
+ *   - ontop.query.phase.duration (timer, also tagged with phase)
+ *   - ontop.query.union.branches, ontop.query.native.size and ontop.query.results (distribution summaries)
+ */
+@Singleton
+public class DefaultQueryMonitor implements QueryMonitor {
+
+    private static final Logger QUERY_LOG = LoggerFactory.getLogger("it.unibz.inf.ontop.answering.monitoring.QueryLog");
+
+    private final MetricsRegistry registry;
+
+    @Inject
+    private DefaultQueryMonitor(MetricsRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return registry.isEnabled() || QUERY_LOG.isDebugEnabled();
+    }
+
+    @Override
+    public void report(QueryReport report) {
+        if (QUERY_LOG.isDebugEnabled())
+            QUERY_LOG.debug("{} query=\"{}\"", report, report.getQueryString().replaceAll("\\s+", " "));
+
+        if (!registry.isEnabled())
+            return;
+
+        ImmutableMap<String, String> typeTags = ImmutableMap.of("type", report.getQueryType());
+
+        registry.incrementCounter("ontop.query.count", ImmutableMap.of(
+                "type", report.getQueryType(),
+                "status", report.isSuccessful() ? "ok" : "failed",
+                "cache", report.isCacheHit() ? "hit" : "miss"));
+
+        report.getPhaseDurations().forEach((phase, duration) ->
+                registry.recordDuration("ontop.query.phase.duration",
+                        ImmutableMap.of("type", report.getQueryType(), "phase", phase.name().toLowerCase()),
+                        duration));
+
+        report.getUnionBranchCount().ifPresent(c -> registry.recordValue("ontop.query.union.branches", typeTags, c));
+        report.getNativeQuerySize().ifPresent(s -> registry.recordValue("ontop.query.native.size", typeTags, s));
+        report.getResultCount().ifPresent(c -> registry.recordValue("ontop.query.results", typeTags, c));
+    }
+}
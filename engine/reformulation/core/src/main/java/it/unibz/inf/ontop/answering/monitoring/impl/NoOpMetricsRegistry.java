@@ -0,0 +1,29 @@
+package it.unibz.inf.ontop.answering.monitoring.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.inject.Singleton;
+import it.unibz.inf.ontop.answering.monitoring.MetricsRegistry;
+
+/**
+ * Default: no metrics library
+ */
+@Singleton
+public class NoOpMetricsRegistry implements MetricsRegistry {
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void incrementCounter(String name, ImmutableMap<String, String> tags) {
+    }
+
+    @Override
+    public void recordDuration(String name, ImmutableMap<String, String> tags, long nanos) {
+    }
+
+    @Override
+    public void recordValue(String name, ImmutableMap<String, String> tags, double value) {
+    }
+}
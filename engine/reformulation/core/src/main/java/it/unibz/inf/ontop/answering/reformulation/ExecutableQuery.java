@@ -11,4 +11,16 @@ public interface ExecutableQuery {
      * TODO: is it needed in general?
      */
     ImmutableList<String> getSignature();
+
+    /**
+     * Length of the native query (e.g. of the SQL string), for monitoring purposes
+     */
+    int getNativeQuerySize();
+
+    /**
+     * Values bound to the parameters of the native query when it is executed (empty by default)
+     */
+    default ImmutableList<Object> getParameters() {
+        return ImmutableList.of();
+    }
 }
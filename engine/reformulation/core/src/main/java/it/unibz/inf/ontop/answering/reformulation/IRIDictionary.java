@@ -12,5 +12,8 @@ public interface IRIDictionary {
      */
     int getId(String uri);
 
-    String getURI(Integer id);
+    /**
+     * @return null if the id is unknown
+     */
+    String getURI(int id);
 }
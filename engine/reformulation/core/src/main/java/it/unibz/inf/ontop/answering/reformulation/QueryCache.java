@@ -14,4 +14,9 @@ public interface QueryCache {
     void put(InputQuery inputQuery, ExecutableQuery executableQuery);
 
     void clear();
+
+    /**
+     * Hit, miss and eviction counters since the creation of the cache.
+     */
+    QueryCacheStatistics getStatistics();
 }
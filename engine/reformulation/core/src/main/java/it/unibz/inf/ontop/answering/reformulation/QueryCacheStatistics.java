@@ -0,0 +1,55 @@
+package it.unibz.inf.ontop.answering.reformulation;
+
+/**
+ * Counters of a QueryCache since its creation.
+ *
+ * Immutable.
+ */
+public class QueryCacheStatistics {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+
+    public QueryCacheStatistics(long hitCount, long missCount, long evictionCount) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+    }
+
+    public static QueryCacheStatistics empty() {
+        return new QueryCacheStatistics(0, 0, 0);
+    }
+
+    /**
+     * Number of lookups that returned a query
+     */
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Number of entries removed by the eviction policy or by clear()
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * 1.0 when there has been no lookup yet
+     */
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "QueryCacheStatistics{hits=" + hitCount + ", misses=" + missCount
+                + ", evictions=" + evictionCount + "}";
+    }
+}
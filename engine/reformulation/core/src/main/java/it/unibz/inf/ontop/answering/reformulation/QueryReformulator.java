@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.answering.reformulation;
 
 
+import it.unibz.inf.ontop.answering.monitoring.QueryRecord;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
@@ -9,6 +10,21 @@ public interface QueryReformulator {
 
     ExecutableQuery reformulateIntoNativeQuery(InputQuery inputQuery) throws OntopReformulationException;
 
+    /**
+     * Also records the durations of the reformulation phases and the size of the reformulated query
+     */
+    ExecutableQuery reformulateIntoNativeQuery(InputQuery inputQuery, QueryRecord record)
+            throws OntopReformulationException;
+
+    /**
+     * Neither looks up nor stores the reformulated query in the query cache.
+     *
+     * For short-lived queries generated internally (e.g. the batches of a DESCRIBE query),
+     * which would otherwise evict the entries of the user queries.
+     */
+    ExecutableQuery reformulateIntoNativeQueryWithoutCaching(InputQuery inputQuery, QueryRecord record)
+            throws OntopReformulationException;
+
     /**
      * For analysis purposes
      */
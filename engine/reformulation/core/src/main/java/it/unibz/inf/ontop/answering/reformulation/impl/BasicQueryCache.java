@@ -4,26 +4,41 @@ import com.google.inject.Inject;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.answering.reformulation.QueryCacheStatistics;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Basic implementation. No memory management, no consideration for similar queries.
  *
+ * See BoundedQueryCache for a cache with an eviction policy.
+ *
  */
 public class BasicQueryCache implements QueryCache {
 
     private final Map<InputQuery, ExecutableQuery> mutableMap;
+    private final AtomicLong hitCount;
+    private final AtomicLong missCount;
+    private final AtomicLong evictionCount;
 
     @Inject
     private BasicQueryCache() {
         mutableMap = new ConcurrentHashMap<>();
+        hitCount = new AtomicLong();
+        missCount = new AtomicLong();
+        evictionCount = new AtomicLong();
     }
 
     @Override
     public ExecutableQuery get(InputQuery inputQuery) {
-        return mutableMap.get(inputQuery);
+        ExecutableQuery executableQuery = mutableMap.get(inputQuery);
+        if (executableQuery == null)
+            missCount.incrementAndGet();
+        else
+            hitCount.incrementAndGet();
+        return executableQuery;
     }
 
     @Override
@@ -33,6 +48,13 @@ public class BasicQueryCache implements QueryCache {
 
     @Override
     public void clear() {
+        // Only clear() removes entries
+        evictionCount.addAndGet(mutableMap.size());
         mutableMap.clear();
     }
+
+    @Override
+    public QueryCacheStatistics getStatistics() {
+        return new QueryCacheStatistics(hitCount.get(), missCount.get(), evictionCount.get());
+    }
 }
@@ -0,0 +1,78 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.inject.Inject;
+import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
+import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.answering.reformulation.QueryCacheStatistics;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thread-safe cache holding at most ontop.queryCacheSize reformulated queries.
+ *
+ * The least recently used entries are evicted first.
+ *
+ * Input queries are compared according to their normalized algebra
+ * (see their equals method): formatting, prefixes and the names of anonymous variables are ignored.
+ *
+ * The values of the literals are part of the key: a literal may be unified with the constants
+ * of the mapping assertions or evaluated during the reformulation, so its value can decide
+ * which mapping assertions contribute to the native query.
+ * Queries that only differ by their literals still share their execution plan
+ * when the literals are bound as parameters of the native query.
+ *
+ */
+public class BoundedQueryCache implements QueryCache {
+
+    private final Cache<InputQuery, ExecutableQuery> cache;
+
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+
+    @Inject
+    private BoundedQueryCache(OntopReformulationSettings settings) {
+        this(settings.getQueryCacheMaxSize());
+    }
+
+    BoundedQueryCache(int maxSize) {
+        cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .<InputQuery, ExecutableQuery>removalListener(n -> {
+                    // Replaced entries are not counted
+                    if (n.wasEvicted() || (n.getCause() == RemovalCause.EXPLICIT))
+                        evictionCount.incrementAndGet();
+                })
+                .build();
+    }
+
+    @Override
+    public ExecutableQuery get(InputQuery inputQuery) {
+        ExecutableQuery executableQuery = cache.getIfPresent(inputQuery);
+        if (executableQuery == null)
+            missCount.incrementAndGet();
+        else
+            hitCount.incrementAndGet();
+        return executableQuery;
+    }
+
+    @Override
+    public void put(InputQuery inputQuery, ExecutableQuery executableQuery) {
+        cache.put(inputQuery, executableQuery);
+    }
+
+    @Override
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public QueryCacheStatistics getStatistics() {
+        return new QueryCacheStatistics(hitCount.get(), missCount.get(), evictionCount.get());
+    }
+}
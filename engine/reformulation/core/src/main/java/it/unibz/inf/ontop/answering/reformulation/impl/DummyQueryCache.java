@@ -3,6 +3,7 @@ package it.unibz.inf.ontop.answering.reformulation.impl;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
+import it.unibz.inf.ontop.answering.reformulation.QueryCacheStatistics;
 
 /**
  * Does not cache anything.
@@ -21,4 +22,9 @@ public class DummyQueryCache implements QueryCache {
     @Override
     public void clear() {
     }
+
+    @Override
+    public QueryCacheStatistics getStatistics() {
+        return QueryCacheStatistics.empty();
+    }
 }
@@ -4,6 +4,8 @@ import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.answering.monitoring.QueryPhase;
+import it.unibz.inf.ontop.answering.monitoring.QueryRecord;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.QueryCache;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
@@ -25,6 +27,7 @@ import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.injection.TranslationFactory;
 import it.unibz.inf.ontop.iq.IntermediateQuery;
 import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
+import it.unibz.inf.ontop.iq.node.UnionNode;
 import it.unibz.inf.ontop.iq.optimizer.BindingLiftOptimizer;
 import it.unibz.inf.ontop.iq.optimizer.JoinLikeOptimizer;
 import it.unibz.inf.ontop.iq.optimizer.ProjectionShrinkingOptimizer;
@@ -156,11 +159,34 @@ public class QuestQueryProcessor implements QueryReformulator {
 	@Override
 	public ExecutableQuery reformulateIntoNativeQuery(InputQuery inputQuery)
 			throws OntopReformulationException {
+		return reformulateIntoNativeQuery(inputQuery, QueryRecord.disabled());
+	}
 
-		ExecutableQuery cachedQuery = queryCache.get(inputQuery);
-		if (cachedQuery != null)
-			return cachedQuery;
+	@Override
+	public ExecutableQuery reformulateIntoNativeQuery(InputQuery inputQuery, QueryRecord record)
+			throws OntopReformulationException {
+		return reformulate(inputQuery, record, true);
+	}
 
+	@Override
+	public ExecutableQuery reformulateIntoNativeQueryWithoutCaching(InputQuery inputQuery, QueryRecord record)
+			throws OntopReformulationException {
+		return reformulate(inputQuery, record, false);
+	}
+
+	private ExecutableQuery reformulate(InputQuery inputQuery, QueryRecord record, boolean useCache)
+			throws OntopReformulationException {
+
+		if (useCache) {
+			ExecutableQuery cachedQuery = queryCache.get(inputQuery);
+			if (cachedQuery != null) {
+				record.setCacheHit();
+				record.setNativeQuerySize(cachedQuery.getNativeQuerySize());
+				return cachedQuery;
+			}
+		}
+
+		long time = System.nanoTime();
 		try {
 			InternalSparqlQuery translation = inputQuery.translate(inputQueryTranslator);
 			DatalogProgram newprogram = preProcess(translation);
@@ -173,16 +199,14 @@ public class QuestQueryProcessor implements QueryReformulator {
 				throw new OntopInvalidInputQueryException("Error, the translation of the query generated 0 rules. " +
 						"This is not possible for any SELECT query (other queries are not supported by the translator).");
 
+			time = record.endPhase(QueryPhase.TRANSLATION, time);
 			log.debug("Start the rewriting process...");
 
-			//final long startTime0 = System.currentTimeMillis();
 			for (CQIE cq : newprogram.getRules())
 				CQCUtilities.optimizeQueryWithSigmaRules(cq.getBody(), sigma);
 			DatalogProgram programAfterRewriting = rewriter.rewrite(newprogram);
 
-			//rewritingTime = System.currentTimeMillis() - startTime0;
-
-			//final long startTime = System.currentTimeMillis();
+			time = record.endPhase(QueryPhase.REWRITING, time);
 
 			try {
 				IntermediateQuery intermediateQuery = datalogConverter.convertDatalogProgram(
@@ -195,6 +219,7 @@ public class QuestQueryProcessor implements QueryReformulator {
 				intermediateQuery = queryUnfolder.optimize(intermediateQuery);
 
 				log.debug("Unfolded query: \n" + intermediateQuery.toString());
+				time = record.endPhase(QueryPhase.UNFOLDING, time);
 
 
 				//lift bindings and union when it is possible
@@ -202,6 +227,7 @@ public class QuestQueryProcessor implements QueryReformulator {
 				log.debug("New query after substitution lift optimization: \n" + intermediateQuery.toString());
 
 				log.debug("New lifted query: \n" + intermediateQuery.toString());
+				time = record.endPhase(QueryPhase.BINDING_LIFT, time);
 
 				intermediateQuery = new PushUpBooleanExpressionOptimizerImpl(false).optimize(intermediateQuery);
 				log.debug("After pushing up boolean expressions: \n" + intermediateQuery.toString());
@@ -213,6 +239,7 @@ public class QuestQueryProcessor implements QueryReformulator {
 
 				intermediateQuery = joinLikeOptimizer.optimize(intermediateQuery);
 				log.debug("New query after fixed point join optimization: \n" + intermediateQuery.toString());
+				time = record.endPhase(QueryPhase.JOIN_OPTIMIZATION, time);
 
 //				BasicLeftJoinOptimizer leftJoinOptimizer = new BasicLeftJoinOptimizer();
 //				intermediateQuery = leftJoinOptimizer.optimize(intermediateQuery);
@@ -222,9 +249,16 @@ public class QuestQueryProcessor implements QueryReformulator {
 //				intermediateQuery = joinOptimizer.optimize(intermediateQuery);
 //				log.debug("New query after join optimization: \n" + intermediateQuery.toString());
 
+				if (record.isEnabled())
+					record.setUnionBranchCount(countUnionBranches(intermediateQuery));
+
 				ExecutableQuery executableQuery = generateExecutableQuery(intermediateQuery,
 						ImmutableList.copyOf(translation.getSignature()));
-				queryCache.put(inputQuery, executableQuery);
+				record.endPhase(QueryPhase.NATIVE_QUERY_GENERATION, time);
+				record.setNativeQuerySize(executableQuery.getNativeQuerySize());
+
+				if (useCache)
+					queryCache.put(inputQuery, executableQuery);
 				return executableQuery;
 
 			}
@@ -236,11 +270,13 @@ public class QuestQueryProcessor implements QueryReformulator {
 						ImmutableList.copyOf(translation.getSignature()));
 
 				log.debug("Empty query --> no solution.");
-				queryCache.put(inputQuery, emptyQuery);
+				// usually detected during the unfolding
+				record.endPhase(QueryPhase.UNFOLDING, time);
+				record.setEmptyQuery();
+				if (useCache)
+					queryCache.put(inputQuery, emptyQuery);
 				return emptyQuery;
 			}
-
-			//unfoldingTime = System.currentTimeMillis() - startTime;
 		}
 		catch (OntopReformulationException e) {
 			throw e;
@@ -256,6 +292,16 @@ public class QuestQueryProcessor implements QueryReformulator {
 		}
 	}
 
+	/**
+	 * Number of children of the union nodes
+	 */
+	private static int countUnionBranches(IntermediateQuery query) {
+		return query.getNodesInTopDownOrder().stream()
+				.filter(n -> n instanceof UnionNode)
+				.mapToInt(n -> query.getChildren(n).size())
+				.sum();
+	}
+
 	private ExecutableQuery generateExecutableQuery(IntermediateQuery intermediateQuery, ImmutableList<String> signature)
 			throws OntopReformulationException {
 		log.debug("Producing the native query string...");
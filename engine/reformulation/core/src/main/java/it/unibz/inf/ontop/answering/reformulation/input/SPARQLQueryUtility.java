@@ -28,6 +28,8 @@ import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
 import org.eclipse.rdf4j.query.parser.sparql.SPARQLParser;
 
+import java.util.Collection;
+
 public class SPARQLQueryUtility {
 	
 	private String query;
@@ -182,6 +184,19 @@ public class SPARQLQueryUtility {
 				+ constant + "> ?p ?o}";
 	}
 	
+	/**
+	 * Single CONSTRUCT query describing several IRIs at once,
+	 * both in subject and in object position.
+	 */
+	public static String getConstructDescribeQuery(Collection<String> constants) {
+		StringBuilder values = new StringBuilder();
+		for (String constant : constants) {
+			values.append(" <").append(constant).append(">");
+		}
+		return "CONSTRUCT { ?s ?p ?o } WHERE { { VALUES ?s {" + values + " } ?s ?p ?o } UNION "
+				+ "{ VALUES ?o {" + values + " } ?s ?p ?o } }";
+	}
+
 	public static String getSelectObjQuery(String constant) {
 		return "SELECT * WHERE { ?s ?p <" + constant + "> }";
 }
@@ -42,13 +42,13 @@ class RDF4JConstructQuery extends RDF4JInputQuery<SimpleGraphResultSet> implemen
         RDF4JConstructQuery that = (RDF4JConstructQuery) o;
 
         if (!template.equals(that.template)) return false;
-        return getParsedQuery().equals(that.getParsedQuery());
+        return hasSameAlgebra(that);
     }
 
     @Override
     public int hashCode() {
         int result = template.hashCode();
-        result = 31 * result + getParsedQuery().hashCode();
+        result = 31 * result + algebraHashCode();
         return result;
     }
 }
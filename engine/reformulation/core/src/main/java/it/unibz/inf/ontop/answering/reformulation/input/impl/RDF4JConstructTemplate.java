@@ -25,6 +25,8 @@ import it.unibz.inf.ontop.answering.reformulation.input.ConstructTemplate;
 import org.eclipse.rdf4j.query.algebra.*;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 
+import java.util.Objects;
+
 class RDF4JConstructTemplate implements ConstructTemplate {
     private TupleExpr projection = null;
 	private TupleExpr extension = null;
@@ -60,4 +62,20 @@ class RDF4JConstructTemplate implements ConstructTemplate {
 	public Extension getExtension() {
 		return (Extension) extension;
 	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+
+		RDF4JConstructTemplate that = (RDF4JConstructTemplate) o;
+
+		return Objects.equals(projection, that.projection)
+				&& Objects.equals(extension, that.extension);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(projection, extension);
+	}
 }
@@ -7,13 +7,28 @@ import it.unibz.inf.ontop.exception.OntopInvalidInputQueryException;
 import it.unibz.inf.ontop.exception.OntopUnsupportedInputQueryException;
 import it.unibz.inf.ontop.answering.resultset.OBDAResultSet;
 import it.unibz.inf.ontop.datalog.InternalSparqlQuery;
+import org.eclipse.rdf4j.query.algebra.ExtensionElem;
+import org.eclipse.rdf4j.query.algebra.ProjectionElem;
+import org.eclipse.rdf4j.query.algebra.TupleExpr;
+import org.eclipse.rdf4j.query.algebra.Var;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
 
 class RDF4JInputQuery<R extends OBDAResultSet> implements InputQuery<R> {
 
     private final ParsedQuery parsedQuery;
     private final String inputQueryString;
+    /**
+     * Used for equality (e.g. as a key of the query cache).
+     * Two queries that only differ by their formatting, their prefixes or
+     * the names of their anonymous variables share the same normalized algebra.
+     */
+    private final TupleExpr normalizedTupleExpr;
 
     /**
      * TODO: support bindings
@@ -21,6 +36,7 @@ class RDF4JInputQuery<R extends OBDAResultSet> implements InputQuery<R> {
     RDF4JInputQuery(ParsedQuery parsedQuery, String inputQueryString) {
         this.parsedQuery = parsedQuery;
         this.inputQueryString = inputQueryString;
+        this.normalizedTupleExpr = normalize(parsedQuery.getTupleExpr());
     }
 
     @Override
@@ -40,4 +56,58 @@ class RDF4JInputQuery<R extends OBDAResultSet> implements InputQuery<R> {
     protected ParsedQuery getParsedQuery() {
         return parsedQuery;
     }
+
+    /**
+     * Structural comparison of the algebra and of the dataset (FROM and FROM NAMED clauses)
+     */
+    protected boolean hasSameAlgebra(RDF4JInputQuery<?> other) {
+        return normalizedTupleExpr.equals(other.normalizedTupleExpr)
+                && Objects.equals(parsedQuery.getDataset(), other.parsedQuery.getDataset());
+    }
+
+    protected int algebraHashCode() {
+        return normalizedTupleExpr.hashCode();
+    }
+
+    /**
+     * Renames the anonymous variables (blank nodes, property path intermediates, etc.)
+     * in their order of appearance.
+     *
+     * By default, the parser gives them fresh random names.
+     */
+    private static TupleExpr normalize(TupleExpr tupleExpr) {
+        TupleExpr copy = tupleExpr.clone();
+        copy.visit(new AnonymousVariableRenamer());
+        return copy;
+    }
+
+    private static class AnonymousVariableRenamer extends AbstractQueryModelVisitor<RuntimeException> {
+
+        private final Map<String, String> renaming = new HashMap<>();
+
+        @Override
+        public void meet(Var var) {
+            if (var.isAnonymous() && !var.hasValue())
+                var.setName(rename(var.getName()));
+        }
+
+        @Override
+        public void meet(ProjectionElem projectionElem) {
+            String newName = renaming.get(projectionElem.getSourceName());
+            if (newName != null)
+                projectionElem.setSourceName(newName);
+        }
+
+        @Override
+        public void meet(ExtensionElem extensionElem) {
+            String newName = renaming.get(extensionElem.getName());
+            if (newName != null)
+                extensionElem.setName(newName);
+            super.meet(extensionElem);
+        }
+
+        private String rename(String name) {
+            return renaming.computeIfAbsent(name, n -> "_anon_" + renaming.size());
+        }
+    }
 }
@@ -26,6 +26,7 @@ import it.unibz.inf.ontop.datalog.CQIE;
 import it.unibz.inf.ontop.datalog.DatalogProgram;
 import it.unibz.inf.ontop.datalog.InternalSparqlQuery;
 import it.unibz.inf.ontop.datalog.MutableQueryModifiers;
+import it.unibz.inf.ontop.datalog.impl.DatalogAlgebraOperatorPredicates;
 import it.unibz.inf.ontop.exception.OntopInvalidInputQueryException;
 import it.unibz.inf.ontop.exception.OntopUnsupportedInputQueryException;
 import it.unibz.inf.ontop.iq.node.OrderCondition;
@@ -46,6 +47,7 @@ import org.eclipse.rdf4j.model.vocabulary.RDF;
 import org.eclipse.rdf4j.query.BindingSet;
 import org.eclipse.rdf4j.query.algebra.*;
 import org.eclipse.rdf4j.query.algebra.ValueConstant;
+import org.eclipse.rdf4j.query.algebra.helpers.AbstractQueryModelVisitor;
 import org.eclipse.rdf4j.query.parser.ParsedGraphQuery;
 import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.ParsedTupleQuery;
@@ -75,11 +77,18 @@ public class SparqlAlgebraToDatalogTranslator {
 
     private static final Logger log = LoggerFactory.getLogger(SparqlAlgebraToDatalogTranslator.class);
 
+    private static final String FRESH_VARIABLE_PREFIX = "_path";
+
 	private final UriTemplateMatcher uriTemplateMatcher;
 	private final IRIDictionary uriRef;
 
     private final DatalogProgram program;
     private int predicateIdx = 0;
+    // Variables introduced by the translation of property paths
+    private int freshVariableIdx = 0;
+
+    // Variables of the aggregates computed by the GROUP nodes (referred to by the EXTEND and FILTER (HAVING) nodes)
+    private final Map<AggregateOperator, Variable> aggregateVariables = new HashMap<>();
 
     /**
 	 * 
@@ -212,6 +221,10 @@ public class SparqlAlgebraToDatalogTranslator {
         return TERM_FACTORY.getFunction(pred, terms);
     }
 
+    private Variable getFreshVariable() {
+        return TERM_FACTORY.getVariable(FRESH_VARIABLE_PREFIX + freshVariableIdx++);
+    }
+
     private TranslationResult createFreshNode(ImmutableSet<Variable> vars) {
         Function head = getFreshHead(new ArrayList<>(vars));
         return new TranslationResult(ImmutableList.of(head), vars, false);
@@ -273,6 +286,12 @@ public class SparqlAlgebraToDatalogTranslator {
         else if (node instanceof StatementPattern) { // triple pattern
             return translateTriplePattern((StatementPattern) node);
         }
+        else if (node instanceof ArbitraryLengthPath) { // property paths elt+ and elt*
+            return translateArbitraryLengthPath((ArbitraryLengthPath) node);
+        }
+        else if (node instanceof ZeroLengthPath) { // property path elt? (together with a UNION)
+            return translateZeroLengthPath((ZeroLengthPath) node);
+        }
         else if (node instanceof SingletonSet) {
             // the empty BGP has no variables and gives a single solution mapping on every non-empty graph
             return new TranslationResult(ImmutableList.of(), ImmutableSet.of(), true);
@@ -375,7 +394,10 @@ public class SparqlAlgebraToDatalogTranslator {
             TranslationResult sub = translate(extension.getArg());
             final Stream<ExtensionElem> nontrivialBindings = extension.getElements().stream()
                     // ignore EXTEND(P, v, v), which is sometimes introduced by Sesame SPARQL parser
-                    .filter(ee -> !(ee.getExpr() instanceof Var && ee.getName().equals(((Var) ee.getExpr()).getName())));
+                    .filter(ee -> !(ee.getExpr() instanceof Var && ee.getName().equals(((Var) ee.getExpr()).getName())))
+                    // ignore EXTEND(GROUP(P, v, AGG), v, AGG): the aggregate is already bound by the GROUP node
+                    .filter(ee -> !(ee.getExpr() instanceof AggregateOperator
+                            && sub.variables.contains(TERM_FACTORY.getVariable(ee.getName()))));
             return sub.extendWithBindings(
                     nontrivialBindings,
                     ee -> TERM_FACTORY.getVariable(ee.getName()),
@@ -402,8 +424,38 @@ public class SparqlAlgebraToDatalogTranslator {
                     appendRule(res.atoms.get(0), p.getAtomsExtendedWithNulls(allVars)));
             return res;
         }
-        else if (node instanceof Group) {
-            throw new OntopUnsupportedInputQueryException("GROUP BY is not supported yet");
+        else if (node instanceof Group) {   // GROUP algebra operation
+            Group group = (Group) node;
+            TranslationResult sub = translate(group.getArg());
+
+            List<Term> groupingVars = new ArrayList<>();
+            for (String name : group.getGroupBindingNames()) {
+                Variable var = TERM_FACTORY.getVariable(name);
+                if (!sub.variables.contains(var))
+                    throw new OntopUnsupportedInputQueryException("Grouping by the unbound variable " + var
+                            + " is not supported yet");
+                groupingVars.add(var);
+            }
+
+            // the two lists are required to synchronise the order of variables
+            List<Term> headTerms = new ArrayList<>(groupingVars);
+            List<Term> atomTerms = new ArrayList<>(groupingVars);
+            for (GroupElem ge : group.getGroupElements()) {
+                Variable var = TERM_FACTORY.getVariable(ge.getName());
+                headTerms.add(getAggregateTerm(ge.getOperator(), sub.variables));
+                atomTerms.add(var);
+                aggregateVariables.put(ge.getOperator(), var);
+            }
+
+            Function head = getFreshHead(headTerms);
+            appendRule(head, ImmutableList.of(wrapNonTriplePattern(sub),
+                    TERM_FACTORY.getFunction(DatalogAlgebraOperatorPredicates.SPARQL_GROUP, groupingVars)));
+
+            Function atom = TERM_FACTORY.getFunction(head.getFunctionSymbol(), atomTerms);
+            ImmutableSet<Variable> vars = atomTerms.stream()
+                    .map(t -> (Variable) t)
+                    .collect(ImmutableCollectors.toSet());
+            return new TranslationResult(ImmutableList.of(atom), vars, false);
         }
         throw new OntopUnsupportedInputQueryException("Not supported: " + node);
     }
@@ -482,6 +534,137 @@ public class SparqlAlgebraToDatalogTranslator {
         return new TranslationResult(ImmutableList.of(atom), variables.build(), true);
 	}
 
+    /**
+     * The path expression (sequences, alternatives and inverses are already expressed by joins, unions
+     * and triple patterns) is translated into a rule defining the edges between the fresh source
+     * and target variables. This rule is closed by a path atom and is never merged into the rule using it.
+     *
+     * The constant ends of the path are arguments of the atom using this rule: they become the source or target
+     * of the transitive closure, from which the SQL closure starts. For p*, a constant end
+     * is also a zero-length solution, even when it is not a node of the edges.
+     */
+    private TranslationResult translateArbitraryLengthPath(ArbitraryLengthPath path)
+            throws OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+
+        long minLength = path.getMinLength();
+        if (minLength > 1)
+            throw new OntopUnsupportedInputQueryException("Property paths of minimal length "
+                    + minLength + " are not supported yet");
+
+        Var subjectVar = path.getSubjectVar();
+        Var objectVar = path.getObjectVar();
+        if (subjectVar.getName().equals(objectVar.getName()))
+            throw new OntopUnsupportedInputQueryException("Property paths with the same variable at both ends " +
+                    "are not supported yet: " + path);
+
+        Variable source = getFreshVariable();
+        Variable target = getFreshVariable();
+
+        TupleExpr edgeExpression = path.getPathExpression().clone();
+        edgeExpression.visit(new AbstractQueryModelVisitor<RuntimeException>() {
+            @Override
+            public void meet(Var var) {
+                if (var.getName().equals(subjectVar.getName()))
+                    renameIntoVariable(var, source);
+                else if (var.getName().equals(objectVar.getName()))
+                    renameIntoVariable(var, target);
+            }
+        });
+
+        TranslationResult edges = translate(edgeExpression);
+        if (!edges.variables.contains(source) || !edges.variables.contains(target))
+            throw new OntopUnsupportedInputQueryException("Unsupported property path: " + path);
+
+        Function head = getFreshHead(ImmutableList.<Term>of(source, target));
+        appendRule(head, ImmutableList.of(wrapNonTriplePattern(edges),
+                TERM_FACTORY.getFunction((minLength == 0)
+                                ? DatalogAlgebraOperatorPredicates.SPARQL_ZERO_OR_MORE_PATH
+                                : DatalogAlgebraOperatorPredicates.SPARQL_ONE_OR_MORE_PATH,
+                        source, target)));
+
+        ImmutableSet.Builder<Variable> variables = ImmutableSet.builder();
+        Term sTerm = subjectVar.hasValue()
+                ? getTermForLiteralOrIri(subjectVar.getValue())
+                : getTermForVariable(subjectVar, variables);
+        Term oTerm = objectVar.hasValue()
+                ? getTermForLiteralOrIri(objectVar.getValue())
+                : getTermForVariable(objectVar, variables);
+
+        Function atom = TERM_FACTORY.getFunction(head.getFunctionSymbol(), sTerm, oTerm);
+        if (minLength > 0 || (!subjectVar.hasValue() && !objectVar.hasValue()))
+            return new TranslationResult(ImmutableList.of(atom), variables.build(), false);
+
+        if (subjectVar.hasValue() && objectVar.hasValue())
+            return sTerm.equals(oTerm)
+                    // the empty BGP
+                    ? new TranslationResult(ImmutableList.of(), ImmutableSet.of(), true)
+                    // the zero-length paths of the closure are not between different nodes
+                    : new TranslationResult(ImmutableList.of(atom), variables.build(), false);
+
+        // union of the constant and of the other nodes reached by the closure (no duplicate)
+        Variable variable = (Variable) (subjectVar.hasValue() ? oTerm : sTerm);
+        Term constant = subjectVar.hasValue() ? sTerm : oTerm;
+        TranslationResult res = createFreshNode(ImmutableSet.of(variable));
+        appendRule(res.atoms.get(0), ImmutableList.of(atom, TERM_FACTORY.getFunctionNEQ(variable, constant)));
+        appendRule(res.atoms.get(0), ImmutableList.of(TERM_FACTORY.getFunctionEQ(variable, constant)));
+        return res;
+    }
+
+    private static void renameIntoVariable(Var var, Variable variable) {
+        var.setName(variable.getName());
+        var.setValue(null);
+    }
+
+    /**
+     * When both ends are variables, they range over the subjects and the objects of the triples.
+     * No solution between two different constants.
+     */
+    private TranslationResult translateZeroLengthPath(ZeroLengthPath path)
+            throws OntopUnsupportedInputQueryException {
+
+        Var subjectVar = path.getSubjectVar();
+        Var objectVar = path.getObjectVar();
+
+        if (subjectVar.hasValue() && objectVar.hasValue()) {
+            if (subjectVar.getValue().equals(objectVar.getValue()))
+                // the empty BGP
+                return new TranslationResult(ImmutableList.of(), ImmutableSet.of(), true);
+
+            // false condition
+            TranslationResult res = createFreshNode(ImmutableSet.of());
+            appendRule(res.atoms.get(0), ImmutableList.of(TERM_FACTORY.getFunctionEQ(
+                    getTermForLiteralOrIri(subjectVar.getValue()), getTermForLiteralOrIri(objectVar.getValue()))));
+            return res;
+        }
+        else if (subjectVar.hasValue() || objectVar.hasValue()) {
+            Var constantVar = subjectVar.hasValue() ? subjectVar : objectVar;
+            Variable variable = TERM_FACTORY.getVariable(subjectVar.hasValue()
+                    ? objectVar.getName()
+                    : subjectVar.getName());
+
+            TranslationResult res = createFreshNode(ImmutableSet.of(variable));
+            appendRule(res.atoms.get(0), ImmutableList.of(
+                    TERM_FACTORY.getFunctionEQ(variable, getTermForLiteralOrIri(constantVar.getValue()))));
+            return res;
+        }
+        else {
+            Variable subject = TERM_FACTORY.getVariable(subjectVar.getName());
+            Variable object = TERM_FACTORY.getVariable(objectVar.getName());
+
+            TranslationResult nodes = createFreshNode(ImmutableSet.of(subject));
+            Variable property = getFreshVariable();
+            Variable other = getFreshVariable();
+            appendRule(nodes.atoms.get(0), ImmutableList.of(ATOM_FACTORY.getTripleAtom(subject, property, other)));
+            appendRule(nodes.atoms.get(0), ImmutableList.of(ATOM_FACTORY.getTripleAtom(other, property, subject)));
+
+            if (subject.equals(object))
+                return nodes;
+
+            return new TranslationResult(nodes.getAtomsExtended(Stream.of(TERM_FACTORY.getFunctionEQ(object, subject))),
+                    ImmutableSet.of(subject, object), false);
+        }
+    }
+
     private static Term getTermForVariable(Var v, ImmutableSet.Builder<Variable> variables) {
         Variable var = TERM_FACTORY.getVariable(v.getName());
         variables.add(var);
@@ -573,6 +756,54 @@ public class SparqlAlgebraToDatalogTranslator {
      * @return term
      */
 
+    /**
+     * Aggregate computed by a GROUP node (over the variables of its argument)
+     */
+    private Term getAggregateTerm(AggregateOperator operator, ImmutableSet<Variable> variables)
+            throws OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+
+        ValueExpr arg = ((UnaryValueOperator) operator).getArg();
+        // COUNT(*) has no argument
+        Term term = (arg == null)
+                ? TERM_FACTORY.getConstantLiteral("1", COL_TYPE.INTEGER)
+                : getExpression(arg, variables);
+
+        if (operator.isDistinct()) {
+            if ((operator instanceof Count) && (arg != null))
+                return TERM_FACTORY.getFunction(ExpressionOperation.COUNT_DISTINCT, term);
+            throw new OntopUnsupportedInputQueryException("DISTINCT is only supported in COUNT(DISTINCT ?x) (found in "
+                    + operator + ")");
+        }
+
+        if (operator instanceof Count) {
+            return TERM_FACTORY.getFunction(ExpressionOperation.COUNT, term);
+        }
+        else if (operator instanceof Sum) {
+            return TERM_FACTORY.getFunction(ExpressionOperation.SUM, term);
+        }
+        else if (operator instanceof Avg) {
+            return TERM_FACTORY.getFunction(ExpressionOperation.AVG, term);
+        }
+        else if (operator instanceof Min) {
+            return TERM_FACTORY.getFunction(ExpressionOperation.MIN, term);
+        }
+        else if (operator instanceof Max) {
+            return TERM_FACTORY.getFunction(ExpressionOperation.MAX, term);
+        }
+        else if (operator instanceof Sample) {
+            return TERM_FACTORY.getFunction(ExpressionOperation.SAMPLE, term);
+        }
+        else if (operator instanceof GroupConcat) {
+            ValueExpr separator = ((GroupConcat) operator).getSeparator();
+            // the default separator is a single space (Sec 18.5.1.7)
+            Term separatorTerm = (separator == null)
+                    ? TERM_FACTORY.getConstantLiteral(" ")
+                    : getExpression(separator, variables);
+            return TERM_FACTORY.getFunction(ExpressionOperation.GROUP_CONCAT, term, separatorTerm);
+        }
+        throw new OntopUnsupportedInputQueryException("The aggregate " + operator + " is not supported yet!");
+    }
+
 	private Term getExpression(ValueExpr expr, ImmutableSet<Variable> variables) throws OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
 
         // PrimaryExpression ::= BrackettedExpression | BuiltInCall | iriOrFunction |
@@ -600,6 +831,14 @@ public class SparqlAlgebraToDatalogTranslator {
             Variable var = TERM_FACTORY.getVariable(v.getName());
             return variables.contains(var) ? TERM_FACTORY.getFunctionIsNotNull(var) : TERM_FACTORY.getBooleanConstant(false);
         }
+        else if (expr instanceof AggregateOperator) {
+            // Aggregate in EXTEND or HAVING: refers to the variable bound by the GROUP node
+            Variable var = aggregateVariables.get(expr);
+            if (var == null)
+                throw new OntopUnsupportedInputQueryException("The aggregate " + expr
+                        + " is not computed by a GROUP node");
+            return var;
+        }
         else if (expr instanceof UnaryValueOperator) {
             Term term = getExpression(((UnaryValueOperator) expr).getArg(), variables);
 
@@ -634,7 +873,6 @@ public class SparqlAlgebraToDatalogTranslator {
             // other subclasses
             // IRIFunction: IRI (Sec 17.4.2.8) for constructing IRIs
             // IsNumeric:  isNumeric (Sec 17.4.2.4) for checking whether the argument is a numeric value
-            // AggregateOperatorBase: Avg, Min, Max, etc.
             // Like:  ??
             // IsResource: ??
             // LocalName: ??
@@ -22,7 +22,6 @@ package it.unibz.inf.ontop.answering.reformulation.rewriting.impl;
 
 import java.util.Collection;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 import it.unibz.inf.ontop.model.term.Function;
@@ -42,6 +41,7 @@ import it.unibz.inf.ontop.spec.ontology.ClassExpression;
  *     each instance also stores those atoms of the query with all terms among the tw roots
  *      
  *     this information is enough to produce the tree witness formula tw_f 
+ *     (tree witnesses are not modified once created, so they can be shared between rewritings)
  *     
  * @author Roman Kontchakov
  *
@@ -56,8 +56,6 @@ public class TreeWitness {
 	                                          // in the canonical model of the TBox
 	
 	private final Intersection<ClassExpression> rootConcepts; // store concept for merging tree witnesses
-	
-	private List<List<Function>> twfs;  // tw-formula: disjunction of conjunctions of atoms
 
 	public TreeWitness(Collection<TreeWitnessGenerator> gens, TermCover terms, Set<Function> rootAtoms, Intersection<ClassExpression> rootConcepts) {
 		this.gens = gens;
@@ -67,14 +65,6 @@ public class TreeWitness {
 		//this.domain = domain; // new HashSet<term>(roots); domain.addAll(nonroots);
 	}
 	
-	void setFormula(List<List<Function>> twfs) {
-		this.twfs = twfs;
-	}
-	
-	public List<List<Function>> getFormula() {
-		return twfs;
-	}
-	
 	public Intersection<ClassExpression> getRootConcepts() {
 		return rootConcepts;
 	}
@@ -20,13 +20,20 @@ package it.unibz.inf.ontop.answering.reformulation.rewriting.impl;
  * #L%
  */
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.ExistentialQueryRewriter;
 import it.unibz.inf.ontop.datalog.CQIE;
 import it.unibz.inf.ontop.datalog.DatalogProgram;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
 import it.unibz.inf.ontop.model.term.Function;
 import it.unibz.inf.ontop.model.term.Term;
 import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
 import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.impl.TermUtils;
 import it.unibz.inf.ontop.spec.ontology.ClassExpression;
 import it.unibz.inf.ontop.spec.ontology.DataPropertyExpression;
 import it.unibz.inf.ontop.spec.ontology.ImmutableOntologyVocabulary;
@@ -41,12 +48,19 @@ import it.unibz.inf.ontop.spec.ontology.TBoxReasoner;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.impl.QueryConnectedComponent.Edge;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.impl.QueryConnectedComponent.Loop;
 import it.unibz.inf.ontop.answering.reformulation.rewriting.impl.TreeWitnessSet.CompatibleTreeWitnessSetIterator;
+import it.unibz.inf.ontop.substitution.Substitution;
+import it.unibz.inf.ontop.substitution.impl.SubstitutionImpl;
+import it.unibz.inf.ontop.substitution.impl.SubstitutionUtilities;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -56,41 +70,188 @@ import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
 
 
 /**
+ * Tree-witness rewriting (see the KR 2012 paper)
  * 
+ * reentrant: one instance is shared by all the queries, the state of a rewriting is kept in a RewritingContext
+ * 
+ * the tree-witness sets are memoized (at most ontop.treeWitnessCacheSize of them): 
+ *     the variables of each CQ are first renamed in the order of their first occurrence, 
+ *     so that the connected components of the same shape (up to that renaming) share their tree witnesses;
+ *     the rules produced from the renamed CQ are renamed back
  */
 
 public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 
 	private static final Logger log = LoggerFactory.getLogger(TreeWitnessRewriter.class);
 
-	private TBoxReasoner reasoner;
-	private ImmutableOntologyVocabulary voc;
-	private CQContainmentCheckUnderLIDs dataDependenciesCQC;
-	private LinearInclusionDependencies sigma;
-	
-	private Collection<TreeWitnessGenerator> generators;
-	
+	private static final String CANONICAL_VARIABLE_PREFIX = "twc";
+	private static final String FRESH_VARIABLE_PREFIX = "twr";
+
+	private final int cacheMaxSize;
+
+	// replaced (not modified) by setTBox
+	private volatile TBoxState tbox;
+
+	@Inject
+	private TreeWitnessRewriter(OntopReformulationSettings settings) {
+		this(settings.getTreeWitnessCacheMaxSize());
+	}
+
+	TreeWitnessRewriter(int cacheMaxSize) {
+		this.cacheMaxSize = cacheMaxSize;
+	}
+
 	@Override
 	public void setTBox(TBoxReasoner reasoner, ImmutableOntologyVocabulary voc, LinearInclusionDependencies sigma) {
-		double startime = System.currentTimeMillis();
+		long startTime = System.nanoTime();
+
+		tbox = new TBoxState(reasoner, voc, sigma, cacheMaxSize);
+
+		log.debug(String.format("setTBox time: %.3f s", (System.nanoTime() - startTime) / 1_000_000_000.0));
+	}
+
+	/**
+	 * statistics of the tree-witness cache of the current TBox (reset by setTBox)
+	 */
 
-		this.reasoner = reasoner;
-		this.voc = voc;
-		this.sigma = sigma;
+	CacheStats getTreeWitnessCacheStats() {
+		TBoxState tbox = this.tbox;
+		if (tbox == null)
+			throw new IllegalStateException("setTBox must be called first");
+		return tbox.treeWitnessCache.stats();
+	}
+	
+	/**
+	 * everything that depends on the TBox, including the memoized tree-witness sets
+	 */
+	
+	private static class TBoxState {
+		private final TBoxReasoner reasoner;
+		private final ImmutableOntologyVocabulary voc;
+		private final LinearInclusionDependencies sigma;
+		private final CQContainmentCheckUnderLIDs dataDependenciesCQC;
+		private final Collection<TreeWitnessGenerator> generators;
 		
-		dataDependenciesCQC = new CQContainmentCheckUnderLIDs(sigma);
+		// connected component shape -> tree-witness set
+		private final Cache<ImmutableList<Object>, TreeWitnessSet> treeWitnessCache;
 		
-		generators = TreeWitnessGenerator.getTreeWitnessGenerators(reasoner);
+		TBoxState(TBoxReasoner reasoner, ImmutableOntologyVocabulary voc, LinearInclusionDependencies sigma, int cacheMaxSize) {
+			this.reasoner = reasoner;
+			this.voc = voc;
+			this.sigma = sigma;
+			this.dataDependenciesCQC = new CQContainmentCheckUnderLIDs(sigma);
+			this.generators = TreeWitnessGenerator.getTreeWitnessGenerators(reasoner);
+			this.treeWitnessCache = CacheBuilder.newBuilder()
+					.maximumSize(cacheMaxSize)
+					.recordStats()
+					.build();
+		}
 		
-//		log.debug("SET SIGMA");
-//		for (Axiom ax : sigma.getAssertions()) {
-//			log.debug("SIGMA: " + ax);
-//		}
+		TreeWitnessSet getTreeWitnesses(QueryConnectedComponent cc) {
+			ImmutableList<Object> shape = getShape(cc);
+			TreeWitnessSet tws = treeWitnessCache.getIfPresent(shape);
+			if (tws != null) {
+				log.debug("TREE WITNESS CACHE HIT {}", cc.getVariables());
+				return tws;
+			}
+			// concurrent rewritings may compute the same set twice, which is harmless
+			tws = TreeWitnessSet.getTreeWitnesses(cc, reasoner, voc, generators);
+			treeWitnessCache.put(shape, tws);
+			return tws;
+		}
+	}
+	
+	/**
+	 * state of one call to rewrite
+	 */
+	
+	private static class RewritingContext {
+		private final TBoxState tbox;
+		private int freshVarIndex = 0;
+		private int edgeIndex = 0;
+		private int ccIndex = 0;
+		
+		RewritingContext(TBoxState tbox) {
+			this.tbox = tbox;
+		}
+		
+		Variable getFreshVariable() {
+			freshVarIndex++;
+			return TERM_FACTORY.getVariable(FRESH_VARIABLE_PREFIX + freshVarIndex);
+		}
 		
-		double endtime = System.currentTimeMillis();
-		double tm = (endtime - startime) / 1000;
-		time += tm;
-		log.debug(String.format("setTBox time: %.3f s (total %.3f s)", tm, time));		
+		int getNextEdgeIndex() {
+			return ++edgeIndex;
+		}
+		
+		int getNextCCIndex() {
+			return ++ccIndex;
+		}
+	}
+	
+	/*
+	 * the shape of a connected component determines its tree witnesses: 
+	 *      the edges and the loops (terms and atoms) and whether the variables are existentially quantified
+	 *      (non-DL atoms do not contribute to tree witnesses)
+	 *      
+	 * the atoms and terms are copied because queries are modified in place by the subsequent steps
+	 */
+	
+	private static ImmutableList<Object> getShape(QueryConnectedComponent cc) {
+		ImmutableList.Builder<Object> shape = ImmutableList.builder();
+		Set<Loop> loops = new LinkedHashSet<>();
+		for (Edge edge : cc.getEdges()) {
+			shape.add(ImmutableList.of(edge.getTerm0().clone(), edge.getTerm1().clone(), copyAtoms(edge.getBAtoms())));
+			loops.add(edge.getLoop0());
+			loops.add(edge.getLoop1());
+		}
+		loops.addAll(cc.getQuantifiedVariables());
+		if (cc.getLoop() != null)
+			loops.add(cc.getLoop());
+		
+		for (Loop loop : loops)
+			shape.add(ImmutableList.of(loop.getTerm().clone(), loop.isExistentialVariable(), copyAtoms(loop.getAtoms())));
+		return shape.build();
+	}
+	
+	private static ImmutableList<Function> copyAtoms(Collection<Function> atoms) {
+		ImmutableList.Builder<Function> copies = ImmutableList.builder();
+		for (Function a : atoms)
+			copies.add((Function) a.clone());
+		return copies.build();
+	}
+	
+	/*
+	 * renames the variables into twc1, twc2, ... in the order of their first occurrence (head first)
+	 */
+	
+	private static Map<Variable, Term> getCanonicalRenaming(CQIE cqie) {
+		Set<Variable> variables = new LinkedHashSet<>();
+		TermUtils.addReferencedVariablesTo(variables, cqie.getHead());
+		for (Function a : cqie.getBody())
+			TermUtils.addReferencedVariablesTo(variables, a);
+		
+		Map<Variable, Term> renaming = new HashMap<>();
+		int index = 0;
+		for (Variable v : variables) {
+			index++;
+			renaming.put(v, TERM_FACTORY.getVariable(CANONICAL_VARIABLE_PREFIX + index));
+		}
+		return renaming;
+	}
+	
+	private static Substitution getInverse(Map<Variable, Term> renaming) {
+		Map<Variable, Term> inverse = new HashMap<>();
+		for (Map.Entry<Variable, Term> e : renaming.entrySet())
+			inverse.put((Variable) e.getValue(), e.getKey());
+		return new SubstitutionImpl(inverse);
+	}
+	
+	private static List<CQIE> applySubstitution(List<CQIE> rules, Substitution substitution) {
+		List<CQIE> renamedRules = new ArrayList<>(rules.size());
+		for (CQIE rule : rules)
+			renamedRules.add(SubstitutionUtilities.applySubstitution(rule, substitution, true));
+		return renamedRules;
 	}
 	
 	
@@ -104,20 +265,13 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 		return TERM_FACTORY.getFunction(predicate, arguments);
 	}
 	
-	private int freshVarIndex = 0;
-	
-	private Variable getFreshVariable() {
-		freshVarIndex++;
-		return TERM_FACTORY.getVariable("twr" + freshVarIndex);
-	}
-	
 	/*
 	 * returns atoms E of a given collection of tree witness generators; 
 	 * the `free' variable of the generators is replaced by the term r0;
 	 */
 
-	private List<Function> getAtomsForGenerators(Collection<TreeWitnessGenerator> gens, Term r0)  {
-		Collection<ClassExpression> concepts = TreeWitnessGenerator.getMaximalBasicConcepts(gens, reasoner);		
+	private static List<Function> getAtomsForGenerators(Collection<TreeWitnessGenerator> gens, Term r0, RewritingContext context)  {
+		Collection<ClassExpression> concepts = TreeWitnessGenerator.getMaximalBasicConcepts(gens, context.tbox.reasoner);		
 		List<Function> genAtoms = new ArrayList<>(concepts.size());
 		
 		for (ClassExpression con : concepts) {
@@ -129,12 +283,12 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 			else if (con instanceof ObjectSomeValuesFrom) {
 				ObjectPropertyExpression some = ((ObjectSomeValuesFrom)con).getProperty();
 				atom = (!some.isInverse()) ?  
-						TERM_FACTORY.getFunction(some.getPredicate(), r0, getFreshVariable()) :
-							TERM_FACTORY.getFunction(some.getPredicate(), getFreshVariable(), r0);
+						TERM_FACTORY.getFunction(some.getPredicate(), r0, context.getFreshVariable()) :
+							TERM_FACTORY.getFunction(some.getPredicate(), context.getFreshVariable(), r0);
 			}
 			else {
 				DataPropertyExpression some = ((DataSomeValuesFrom)con).getProperty();
-				atom = TERM_FACTORY.getFunction(some.getPredicate(), r0, getFreshVariable());
+				atom = TERM_FACTORY.getFunction(some.getPredicate(), r0, context.getFreshVariable());
 			}
 			genAtoms.add(atom);
 		}
@@ -145,23 +299,25 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 	
 	/*
 	 * rewrites a given connected CQ with the rules put into output
+	 * (the definitions of the edge atoms are added to edgeRules)
 	 */
 	
-	private List<CQIE> rewriteCC(QueryConnectedComponent cc, Function headAtom,  DatalogProgram edgeDP) {
+	private static List<CQIE> rewriteCC(QueryConnectedComponent cc, Function headAtom, List<CQIE> edgeRules, RewritingContext context) {
 		
 		List<CQIE> outputRules = new LinkedList<>();	
 		String headURI = headAtom.getFunctionSymbol().getName();
 		
-		TreeWitnessSet tws = TreeWitnessSet.getTreeWitnesses(cc, reasoner, voc, generators);
+		TreeWitnessSet tws = context.tbox.getTreeWitnesses(cc);
 
 		if (cc.hasNoFreeTerms()) {  
 			if (!cc.isDegenerate() || cc.getLoop() != null) 
-				for (Function a : getAtomsForGenerators(tws.getGeneratorsOfDetachedCC(), getFreshVariable())) {
+				for (Function a : getAtomsForGenerators(tws.getGeneratorsOfDetachedCC(), context.getFreshVariable(), context)) {
 					outputRules.add(DATALOG_FACTORY.getCQIE(headAtom, a));
 				}
 		}
 
-		// COMPUTE AND STORE TREE WITNESS FORMULAS
+		// COMPUTE TREE WITNESS FORMULAS (the tree witnesses are shared, so the formulas are not stored in them)
+		Map<TreeWitness, List<List<Function>>> formulas = new HashMap<>();
 		for (TreeWitness tw : tws.getTWs()) {
 			log.debug("TREE WITNESS: {}", tw);		
 			List<Function> twf = new LinkedList<Function>(); 
@@ -178,7 +334,7 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 				twf.add((predicate.getArity() == 1) ? TERM_FACTORY.getFunction(predicate, r0) : TERM_FACTORY.getFunction(predicate, r0, r0));
 			}
 			
-			List<Function> genAtoms = getAtomsForGenerators(tw.getGenerators(), r0);			
+			List<Function> genAtoms = getAtomsForGenerators(tw.getGenerators(), r0, context);			
 			boolean subsumes = false;
 //			for (Function a : genAtoms) 				
 //				if (twf.subsumes(a)) {
@@ -198,7 +354,7 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 //			else
 //				twfs.add(twf.getAllAtoms());
 			
-			tw.setFormula(twfs);
+			formulas.put(tw, twfs);
 		}
 				
 		if (!cc.isDegenerate()) {			
@@ -225,10 +381,10 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 						}
 					}
 					for (TreeWitness tw : compatibleTWs) {
-						Function twAtom = getHeadAtom(headURI, "_TW_" + (edgeDP.getRules().size() + 1), cc.getVariables());
+						Function twAtom = getHeadAtom(headURI, "_TW_" + context.getNextEdgeIndex(), cc.getVariables());
 						mainbody.add(twAtom);				
-						for (List<Function> twfa : tw.getFormula())
-							edgeDP.appendRule(DATALOG_FACTORY.getCQIE(twAtom, twfa));
+						for (List<Function> twfa : formulas.get(tw))
+							edgeRules.add(DATALOG_FACTORY.getCQIE(twAtom, twfa));
 					}	
 					mainbody.addAll(cc.getNonDLAtoms());					
 					outputRules.add(DATALOG_FACTORY.getCQIE(headAtom, mainbody));
@@ -247,16 +403,16 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 							if (edgeAtom == null) {
 								//IRI atomURI = edge.getBAtoms().iterator().next().getPredicate().getName();
 								edgeAtom = getHeadAtom(headURI, 
-										"_EDGE_" + (edgeDP.getRules().size() + 1) /*+ "_" + atomURI.getRawFragment()*/, cc.getVariables());
+										"_EDGE_" + context.getNextEdgeIndex() /*+ "_" + atomURI.getRawFragment()*/, cc.getVariables());
 								mainbody.add(edgeAtom);				
 								
 								LinkedList<Function> edgeAtoms = new LinkedList<Function>(); 
 								edgeAtoms.addAll(edge.getAtoms());
-								edgeDP.appendRule(DATALOG_FACTORY.getCQIE(edgeAtom, edgeAtoms));
+								edgeRules.add(DATALOG_FACTORY.getCQIE(edgeAtom, edgeAtoms));
 							}
 							
-							for (List<Function> twfa : tw.getFormula())
-								edgeDP.appendRule(DATALOG_FACTORY.getCQIE(edgeAtom, twfa));
+							for (List<Function> twfa : formulas.get(tw))
+								edgeRules.add(DATALOG_FACTORY.getCQIE(edgeAtom, twfa));
 						}
 					
 					if (edgeAtom == null) // no tree witnesses -- direct insertion into the main body
@@ -279,18 +435,27 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 		return outputRules;
 	}
 	
-	private double time = 0;
-	
 	@Override
 	public DatalogProgram rewrite(DatalogProgram dp) {
 		
-		double startime = System.currentTimeMillis();
+		long startTime = System.nanoTime();
+		
+		TBoxState tbox = this.tbox;
+		if (tbox == null)
+			throw new IllegalStateException("setTBox must be called before rewriting queries");
+		RewritingContext context = new RewritingContext(tbox);
 		
 		List<CQIE> outputRules = new LinkedList<>();
 		DatalogProgram ccDP = null;
 		DatalogProgram edgeDP = DATALOG_FACTORY.getDatalogProgram();
 
-		for (CQIE cqie : dp.getRules()) {
+		for (CQIE originalCqie : dp.getRules()) {
+			// the rules produced from the renamed CQ are renamed back before leaving the loop
+			Map<Variable, Term> renaming = getCanonicalRenaming(originalCqie);
+			CQIE cqie = SubstitutionUtilities.applySubstitution(originalCqie, new SubstitutionImpl(renaming), true);
+			Substitution inverse = getInverse(renaming);
+			List<CQIE> edgeRules = new LinkedList<>();
+			
 			List<QueryConnectedComponent> ccs = QueryConnectedComponent.getConnectedComponents(cqie);	
 			Function cqieAtom = cqie.getHead();
 		
@@ -299,7 +464,7 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 				log.debug("CONNECTED COMPONENT ({})" + " EXISTS {}", cc.getFreeVariables(), cc.getQuantifiedVariables());
 				log.debug("     WITH EDGES {} AND LOOP {}", cc.getEdges(), cc.getLoop());
 				log.debug("     NON-DL ATOMS {}", cc.getNonDLAtoms());
-				outputRules.addAll(rewriteCC(cc, cqieAtom, edgeDP)); 				
+				outputRules.addAll(applySubstitution(rewriteCC(cc, cqieAtom, edgeRules, context), inverse)); 				
 			}
 			else {
 				if (ccDP == null)
@@ -310,13 +475,14 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 					log.debug("CONNECTED COMPONENT ({})" + " EXISTS {}", cc.getFreeVariables(), cc.getQuantifiedVariables());
 					log.debug("     WITH EDGES {} AND LOOP {}", cc.getEdges(), cc.getLoop());
 					log.debug("     NON-DL ATOMS {}", cc.getNonDLAtoms());
-					Function ccAtom = getHeadAtom(cqieURI, "_CC_" + (ccDP.getRules().size() + 1), cc.getFreeVariables());
-					List<CQIE> list = rewriteCC(cc, ccAtom, edgeDP); 
-					ccDP.appendRule(list);
+					Function ccAtom = getHeadAtom(cqieURI, "_CC_" + context.getNextCCIndex(), cc.getFreeVariables());
+					List<CQIE> list = rewriteCC(cc, ccAtom, edgeRules, context); 
+					ccDP.appendRule(applySubstitution(list, inverse));
 					ccBody.add(ccAtom);
 				}
-				outputRules.add(DATALOG_FACTORY.getCQIE(cqieAtom, ccBody));
+				outputRules.addAll(applySubstitution(ImmutableList.of(DATALOG_FACTORY.getCQIE(cqieAtom, ccBody)), inverse));
 			}
+			edgeDP.appendRule(applySubstitution(edgeRules, inverse));
 		}
 		
 		log.debug("REWRITTEN PROGRAM\n{}CC DEFS\n{}", outputRules, ccDP);
@@ -335,16 +501,14 @@ public class TreeWitnessRewriter implements ExistentialQueryRewriter {
 	
 		// extra CQC 
 		if (outputRules.size() > 1) 
-			CQCUtilities.removeContainedQueries(outputRules, dataDependenciesCQC);
+			CQCUtilities.removeContainedQueries(outputRules, tbox.dataDependenciesCQC);
 		
 		DatalogProgram output = DATALOG_FACTORY.getDatalogProgram(dp.getQueryModifiers(), outputRules);
 		for (CQIE cq : output.getRules())
-			CQCUtilities.optimizeQueryWithSigmaRules(cq.getBody(), sigma);
+			CQCUtilities.optimizeQueryWithSigmaRules(cq.getBody(), tbox.sigma);
 
-		double endtime = System.currentTimeMillis();
-		double tm = (endtime - startime) / 1000;
-		time += tm;
-		log.debug(String.format("Rewriting time: %.3f s (total %.3f s)", tm, time));
+		// the rewriting time is also reported per query by the QueryMonitor (REWRITING phase)
+		log.debug(String.format("Rewriting time: %.3f s", (System.nanoTime() - startTime) / 1_000_000_000.0));
 		log.debug("Final rewriting:\n{}", output);
 		return output;
 	}
@@ -34,6 +34,7 @@ import it.unibz.inf.ontop.answering.reformulation.rewriting.impl.QueryConnectedC
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -47,6 +48,13 @@ import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+/**
+ * Tree witnesses of a connected component
+ * 
+ * the set is not modified once computed: it is safe to share it between threads
+ * (provided it is safely published, e.g. through a concurrent cache)
+ */
+
 public class TreeWitnessSet {
 	private final List<TreeWitness> tws = new LinkedList<TreeWitness>();
 	private final QueryConnectedComponent cc;
@@ -69,7 +77,7 @@ public class TreeWitnessSet {
 	}
 	
 	public Collection<TreeWitness> getTWs() {
-		return tws;
+		return Collections.unmodifiableList(tws);
 	}
 	
 	public boolean hasConflicts() {
@@ -145,6 +153,11 @@ public class TreeWitnessSet {
 			}				
 		}
 		
+		// the working lists are no longer needed (the set may be kept in the cache of the rewriter)
+		mergeable = null;
+		delta = null;
+		twsCache = null;
+		
 		log.debug("TREE WITNESSES FOUND: {}", tws.size());
 	}
 	
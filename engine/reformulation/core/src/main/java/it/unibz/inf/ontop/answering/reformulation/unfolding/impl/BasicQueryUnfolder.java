@@ -34,8 +34,10 @@ public class BasicQueryUnfolder implements QueryUnfolder {
 
             IntensionalDataNode intensionalNode = optionalCurrentIntensionalNode.get();
 
+            // Only the branches compatible with the ground arguments (e.g. IRIs) of the atom
             Optional<IntermediateQuery> optionalMappingAssertion = mapping.getDefinition(
-                    intensionalNode.getProjectionAtom().getPredicate());
+                    intensionalNode.getProjectionAtom().getPredicate(),
+                    intensionalNode.getProjectionAtom().getArguments());
 
             QueryMergingProposal queryMerging = new QueryMergingProposalImpl(intensionalNode, optionalMappingAssertion);
             query.applyProposal(queryMerging);
@@ -80,7 +80,16 @@ public class SPARQLQueryFlattener {
 		while (iterator.hasNext()) {
 			CQIE rule = iterator.next(); 
 
-			List<CQIE> result = computePartialEvaluation(rule.getBody(), rule, new Stack<Integer>());
+			List<CQIE> result;
+			if (isAggregationOrPathRule(rule)) {
+				// Partial evaluation would distribute the union of the definitions over the groups
+				// (or over the steps of the path): the definitions of the body atoms are flattened separately
+				markBodyAsIrreducible(rule.getBody());
+				result = Collections.emptyList();
+			}
+			else
+				result = computePartialEvaluation(rule.getBody(), rule, new Stack<Integer>());
+
             if (!result.isEmpty()) {
 				// one more step in the partial evaluation was computed, we need to
 				// remove the old query and add the result instead. Each of the new
@@ -99,8 +108,11 @@ public class SPARQLQueryFlattener {
             // add the irreducible rules
             for (Predicate p : irreducible) {
                 for (CQIE def: program.getRules(p)) {
-                    iterator.add(def);
-                    iterator.previous();
+                    // the same predicate may be irreducible in several rules
+                    if (!workingSet.contains(def)) {
+                        iterator.add(def);
+                        iterator.previous();
+                    }
                 }
             }
             irreducible.clear();
@@ -143,7 +155,7 @@ public class SPARQLQueryFlattener {
 				if (!result.isEmpty())
 					return result;
 			}			
-			else if (atom.isAlgebraFunction()) {
+			else if (atom.isAlgebraFunction() && !isGroupOrPathAtom(atom)) {
 				// These may contain data atoms that need to be unfolded, we need to recursively unfold each term.
 
                 termidx.push(atomIdx);
@@ -194,7 +206,7 @@ public class SPARQLQueryFlattener {
                 if (!result.isEmpty())
 					return result;
 			}			
-			else if (atom.isAlgebraFunction()) {
+			else if (atom.isAlgebraFunction() && !isGroupOrPathAtom(atom)) {
 				nonBooleanAtomCounter += 1;
 				
 				// These may contain data atoms that need to be unfolded, we need to recursively unfold each term.
@@ -259,6 +271,13 @@ public class SPARQLQueryFlattener {
 		if (definitions == null)
             return Collections.emptyList();
 
+		// An aggregation or a transitive closure cannot be merged into the rule using it
+		if (definitions.stream().anyMatch(SPARQLQueryFlattener::isAggregationOrPathRule)) {
+			if (!irreducible.contains(atom.getFunctionSymbol()))
+				irreducible.add(atom.getFunctionSymbol());
+			return Collections.emptyList();
+		}
+
         List<CQIE> result = new LinkedList<>();
         for (CQIE candidateRule : definitions) {
             CQIE freshRule = DATALOG_FACTORY.getFreshCQIECopy(candidateRule);
@@ -344,6 +363,35 @@ public class SPARQLQueryFlattener {
 	}
 	
 
+	/**
+	 * Marks the predicates of the data atoms (including the nested ones) as irreducible
+	 */
+	private void markBodyAsIrreducible(List<Function> atoms) {
+		for (Function atom : atoms) {
+			if (atom.isDataFunction()) {
+				Predicate predicate = atom.getFunctionSymbol();
+				if ((!program.getRules(predicate).isEmpty()) && (!irreducible.contains(predicate)))
+					irreducible.add(predicate);
+			}
+			else if (atom.isAlgebraFunction() && !isGroupOrPathAtom(atom))
+				markBodyAsIrreducible(getSubAtoms(atom));
+		}
+	}
+
+	private static boolean isAggregationOrPathRule(CQIE rule) {
+		return rule.getBody().stream()
+				.anyMatch(SPARQLQueryFlattener::isGroupOrPathAtom);
+	}
+
+	/**
+	 * Its arguments are variables (not atoms)
+	 */
+	private static boolean isGroupOrPathAtom(Function atom) {
+		Predicate predicate = atom.getFunctionSymbol();
+		return predicate == DatalogAlgebraOperatorPredicates.SPARQL_GROUP
+				|| DatalogAlgebraOperatorPredicates.isPathPredicate(predicate);
+	}
+
     private static List<Function> getSubAtoms(Function f) {
         return (List<Function>)(List)f.getTerms();
     }
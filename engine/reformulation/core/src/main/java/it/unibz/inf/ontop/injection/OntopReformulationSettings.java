@@ -12,6 +12,16 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
 
     boolean isDistinctPostProcessingEnabled();
 
+    /**
+     * Maximum number of reformulated queries kept by the query cache
+     */
+    int getQueryCacheMaxSize();
+
+    /**
+     * Maximum number of tree-witness sets memoized by the existential query rewriter
+     */
+    int getTreeWitnessCacheMaxSize();
+
 
     //--------------------------
     // Keys
@@ -20,4 +30,6 @@ public interface OntopReformulationSettings extends OntopOBDASettings, OntopOpti
     String SQL_GENERATE_REPLACE = "ontop.iriSafeEncoding";
     String EXISTENTIAL_REASONING = "ontop.existentialReasoning";
     String DISTINCT_RESULTSET = "ontop.distinctResultSet";
+    String QUERY_CACHE_MAX_SIZE = "ontop.queryCacheSize";
+    String TREE_WITNESS_CACHE_MAX_SIZE = "ontop.treeWitnessCacheSize";
 }
@@ -3,6 +3,8 @@ package it.unibz.inf.ontop.injection.impl;
 
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Module;
+import it.unibz.inf.ontop.answering.monitoring.MetricsRegistry;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
 import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
@@ -37,6 +39,8 @@ public class OntopReformulationPostModule extends OntopAbstractModule {
         }
 
         bindFromSettings(QueryCache.class);
+        bindFromSettings(MetricsRegistry.class);
+        bindFromSettings(QueryMonitor.class);
 
         Module reformulationFactoryModule = buildFactory(
                 ImmutableList.of(
@@ -41,4 +41,14 @@ public class OntopReformulationSettingsImpl extends OntopOBDASettingsImpl implem
     public boolean isDistinctPostProcessingEnabled() {
         return getRequiredBoolean(DISTINCT_RESULTSET);
     }
+
+    @Override
+    public int getQueryCacheMaxSize() {
+        return getRequiredInteger(QUERY_CACHE_MAX_SIZE);
+    }
+
+    @Override
+    public int getTreeWitnessCacheMaxSize() {
+        return getRequiredInteger(TREE_WITNESS_CACHE_MAX_SIZE);
+    }
 }
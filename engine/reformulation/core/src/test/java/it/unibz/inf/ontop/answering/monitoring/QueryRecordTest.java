@@ -0,0 +1,82 @@
+package it.unibz.inf.ontop.answering.monitoring;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class QueryRecordTest {
+
+    private static final int THREAD_COUNT = 8;
+    private static final int PHASE_COUNT = 1000;
+    private static final long PHASE_DURATION = TimeUnit.SECONDS.toNanos(1);
+
+    @Test
+    public void testReport() {
+        QueryRecord record = new QueryRecord("SELECT", "SELECT * WHERE { ?s ?p ?o }", true);
+        long time = System.nanoTime() - PHASE_DURATION;
+        time = record.endPhase(QueryPhase.UNFOLDING, time);
+        record.endPhase(QueryPhase.EXECUTION, time);
+        record.setUnionBranchCount(3);
+        record.setResultCount(10);
+
+        QueryReport report = record.toReport();
+        assertEquals("SELECT", report.getQueryType());
+        assertTrue(report.getPhaseDurations().get(QueryPhase.UNFOLDING) >= PHASE_DURATION);
+        assertTrue(report.getPhaseDurations().containsKey(QueryPhase.EXECUTION));
+        assertFalse(report.getPhaseDurations().containsKey(QueryPhase.REWRITING));
+        assertEquals(Integer.valueOf(3), report.getUnionBranchCount().get());
+        assertEquals(Long.valueOf(10), report.getResultCount().get());
+        assertFalse(report.getNativeQuerySize().isPresent());
+        assertTrue(report.isSuccessful());
+    }
+
+    @Test
+    public void testDisabled() {
+        QueryRecord record = QueryRecord.disabled();
+        record.endPhase(QueryPhase.EXECUTION, System.nanoTime() - PHASE_DURATION);
+        assertTrue(record.toReport().getPhaseDurations().isEmpty());
+    }
+
+    /**
+     * No duration is lost when the phases are ended by several threads (e.g. the execution task
+     * and the caller), while the record is being reported
+     */
+    @Test
+    public void testConcurrentPhases() throws Exception {
+        QueryRecord record = new QueryRecord("SELECT", "", true);
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT + 1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREAD_COUNT; i++) {
+                QueryPhase phase = (i % 2 == 0) ? QueryPhase.EXECUTION : QueryPhase.RESULT_CONVERSION;
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < PHASE_COUNT; j++)
+                        record.endPhase(phase, System.nanoTime() - PHASE_DURATION);
+                }));
+            }
+            futures.add(executor.submit(() -> {
+                for (int j = 0; j < PHASE_COUNT; j++)
+                    record.toReport();
+            }));
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally {
+            executor.shutdownNow();
+        }
+
+        QueryReport report = record.toReport();
+        long expectedMinimum = (THREAD_COUNT / 2) * PHASE_COUNT * PHASE_DURATION;
+        assertTrue(report.getPhaseDurations().get(QueryPhase.EXECUTION) >= expectedMinimum);
+        assertTrue(report.getPhaseDurations().get(QueryPhase.RESULT_CONVERSION) >= expectedMinimum);
+    }
+}
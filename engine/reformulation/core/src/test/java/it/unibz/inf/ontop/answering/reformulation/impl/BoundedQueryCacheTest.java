@@ -0,0 +1,119 @@
+package it.unibz.inf.ontop.answering.reformulation.impl;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
+import it.unibz.inf.ontop.answering.reformulation.QueryCacheStatistics;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
+import it.unibz.inf.ontop.datalog.InternalSparqlQuery;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class BoundedQueryCacheTest {
+
+    private static final String SQL = "SELECT x FROM person WHERE name = ? AND age > ?";
+
+    @Test
+    public void testHitsAndMisses() {
+        BoundedQueryCache cache = new BoundedQueryCache(10);
+
+        ExecutableQuery executableQuery = new FakeQuery(SQL, "Alice", 30L);
+        cache.put(new FakeInputQuery("Alice", "30"), executableQuery);
+        assertSame(executableQuery, cache.get(new FakeInputQuery("Alice", "30")));
+
+        QueryCacheStatistics statistics = cache.getStatistics();
+        assertEquals(1, statistics.getHitCount());
+        assertEquals(0, statistics.getMissCount());
+    }
+
+    /**
+     * A literal may select other mapping assertions (e.g. a property also mapped to the constant "fixed"):
+     * the query reformulated for other literal values is never reused.
+     */
+    @Test
+    public void testOtherLiteralValues() {
+        BoundedQueryCache cache = new BoundedQueryCache(10);
+
+        cache.put(new FakeInputQuery("Alice", "30"), new FakeQuery(SQL, "Alice", 30L));
+        cache.put(new FakeInputQuery("Bob", "42"), new FakeQuery(SQL, "Bob", 42L));
+
+        assertNull(cache.get(new FakeInputQuery("fixed", "30")));
+        assertNull(cache.get(new FakeInputQuery("Carol", "7")));
+
+        QueryCacheStatistics statistics = cache.getStatistics();
+        assertEquals(0, statistics.getHitCount());
+        assertEquals(2, statistics.getMissCount());
+    }
+
+    @Test
+    public void testEvictions() {
+        BoundedQueryCache cache = new BoundedQueryCache(1);
+
+        cache.put(new FakeInputQuery("Alice", "30"), new FakeQuery("SQL1"));
+        cache.put(new FakeInputQuery("Bob", "42"), new FakeQuery("SQL2"));
+        assertEquals(1, cache.getStatistics().getEvictionCount());
+
+        cache.clear();
+        assertEquals(2, cache.getStatistics().getEvictionCount());
+    }
+
+    private static class FakeInputQuery implements InputQuery {
+
+        private final ImmutableList<String> literalValues;
+
+        FakeInputQuery(String name, String age) {
+            this.literalValues = ImmutableList.of(name, age);
+        }
+
+        @Override
+        public String getInputString() {
+            return "SELECT ?x WHERE { ?x :name " + literalValues.get(0) + " ; :age ?a FILTER (?a > "
+                    + literalValues.get(1) + ") }";
+        }
+
+        @Override
+        public InternalSparqlQuery translate(InputQueryTranslator translator) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return (o instanceof FakeInputQuery)
+                    && literalValues.equals(((FakeInputQuery) o).literalValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return literalValues.hashCode();
+        }
+    }
+
+    private static class FakeQuery implements ExecutableQuery {
+
+        private final String nativeQuery;
+        private final ImmutableList<Object> parameters;
+
+        FakeQuery(String nativeQuery, Object... parameters) {
+            this.nativeQuery = nativeQuery;
+            this.parameters = ImmutableList.copyOf(parameters);
+        }
+
+        @Override
+        public ImmutableList<String> getSignature() {
+            return ImmutableList.of("x");
+        }
+
+        @Override
+        public int getNativeQuerySize() {
+            return nativeQuery.length();
+        }
+
+        @Override
+        public ImmutableList<Object> getParameters() {
+            return parameters;
+        }
+    }
+}
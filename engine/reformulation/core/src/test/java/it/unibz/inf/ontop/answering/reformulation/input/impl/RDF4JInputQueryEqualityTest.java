@@ -0,0 +1,65 @@
+package it.unibz.inf.ontop.answering.reformulation.input.impl;
+
+import org.eclipse.rdf4j.query.QueryLanguage;
+import org.eclipse.rdf4j.query.parser.ParsedQuery;
+import org.eclipse.rdf4j.query.parser.QueryParserUtil;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Equality of input queries is used by the query cache
+ */
+public class RDF4JInputQueryEqualityTest {
+
+    @Test
+    public void testFormattingAndPrefixes() {
+        RDF4JSelectQuery q1 = createSelectQuery("PREFIX ex: <http://example.org/>\n" +
+                "SELECT ?x WHERE { ?x a ex:Person ; ex:name ?n }");
+        RDF4JSelectQuery q2 = createSelectQuery("SELECT ?x\nWHERE {\n" +
+                "  ?x a <http://example.org/Person> .\n" +
+                "  ?x <http://example.org/name> ?n .\n}");
+
+        assertEquals(q1, q2);
+        assertEquals(q1.hashCode(), q2.hashCode());
+    }
+
+    @Test
+    public void testBlankNodes() {
+        String query = "PREFIX ex: <http://example.org/>\n" +
+                "SELECT ?x WHERE { ?x ex:knows [ ex:name ?n ] }";
+
+        RDF4JSelectQuery q1 = createSelectQuery(query);
+        RDF4JSelectQuery q2 = createSelectQuery(query);
+
+        assertEquals(q1, q2);
+        assertEquals(q1.hashCode(), q2.hashCode());
+    }
+
+    @Test
+    public void testDifferentConstants() {
+        RDF4JSelectQuery q1 = createSelectQuery("SELECT ?n WHERE { <http://example.org/p1> <http://example.org/name> ?n }");
+        RDF4JSelectQuery q2 = createSelectQuery("SELECT ?n WHERE { <http://example.org/p2> <http://example.org/name> ?n }");
+
+        assertNotEquals(q1, q2);
+    }
+
+    /**
+     * The values of the literals can change the reformulation (e.g. when unified with the constants of a mapping)
+     */
+    @Test
+    public void testDifferentLiterals() {
+        RDF4JSelectQuery q1 = createSelectQuery("PREFIX ex: <http://example.org/>\n" +
+                "SELECT ?x WHERE { ?x ex:name \"Alice\" ; ex:age ?a FILTER (?a > 30) }");
+        RDF4JSelectQuery q2 = createSelectQuery("PREFIX ex: <http://example.org/>\n" +
+                "SELECT ?x WHERE { ?x ex:name \"fixed\" ; ex:age ?a FILTER (?a > 30) }");
+
+        assertNotEquals(q1, q2);
+    }
+
+    private static RDF4JSelectQuery createSelectQuery(String queryString) {
+        ParsedQuery parsedQuery = QueryParserUtil.parseQuery(QueryLanguage.SPARQL, queryString, null);
+        return new RDF4JSelectQuery(parsedQuery, queryString);
+    }
+}
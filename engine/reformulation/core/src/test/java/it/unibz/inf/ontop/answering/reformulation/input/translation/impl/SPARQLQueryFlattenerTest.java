@@ -1,9 +1,14 @@
 package it.unibz.inf.ontop.answering.reformulation.input.translation.impl;
 
+import it.unibz.inf.ontop.datalog.CQIE;
+import it.unibz.inf.ontop.datalog.DatalogProgram;
 import it.unibz.inf.ontop.datalog.InternalSparqlQuery;
+import it.unibz.inf.ontop.datalog.SPARQLQueryFlattener;
+import it.unibz.inf.ontop.datalog.impl.DatalogAlgebraOperatorPredicates;
 import it.unibz.inf.ontop.answering.reformulation.input.translation.impl.SparqlAlgebraToDatalogTranslator;
 import it.unibz.inf.ontop.exception.OntopInvalidInputQueryException;
 import it.unibz.inf.ontop.exception.OntopUnsupportedInputQueryException;
+import it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation;
 import it.unibz.inf.ontop.utils.UriTemplateMatcher;
 import org.junit.Test;
 import org.eclipse.rdf4j.query.MalformedQueryException;
@@ -12,8 +17,12 @@ import org.eclipse.rdf4j.query.parser.ParsedQuery;
 import org.eclipse.rdf4j.query.parser.QueryParser;
 import org.eclipse.rdf4j.query.parser.QueryParserUtil;
 
+import java.util.List;
 import java.util.stream.Stream;
 
+import static it.unibz.inf.ontop.model.atom.PredicateConstants.ONTOP_QUERY;
+import static org.junit.Assert.assertEquals;
+
 
 /**
  * Created by Roman Kontchakov on 12/03/2016.
@@ -106,4 +115,132 @@ public class SPARQLQueryFlattenerTest {
         System.out.println(program);
     }
 
+    @Test
+    public void testGroupBy() throws MalformedQueryException, OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+
+        String query = "PREFIX : <http://www.example.org/test#> "
+                + "SELECT ?x (COUNT(?y) AS ?c) "
+                + "WHERE {"
+                + " { ?x :p ?y } UNION { ?x :q ?y } } "
+                + "GROUP BY ?x "
+                + "HAVING (COUNT(?y) > 1)";
+
+        QueryParser parser = QueryParserUtil.createParser(QueryLanguage.SPARQL);
+        ParsedQuery pq = parser.parseQuery(query, null);
+
+        SparqlAlgebraToDatalogTranslator translator = new SparqlAlgebraToDatalogTranslator(
+                UriTemplateMatcher.create(Stream.of()), null);
+        InternalSparqlQuery program = translator.translate(pq);
+        System.out.println(program);
+
+        DatalogProgram datalogProgram = program.getProgram();
+        assertEquals(1, countAggregationRules(datalogProgram.getRules()));
+
+        CQIE topRule = datalogProgram.getRules().stream()
+                .filter(r -> r.getHead().getFunctionSymbol().getName().equals(ONTOP_QUERY))
+                .findFirst()
+                .get();
+
+        // The union below the GROUP must not be distributed over it
+        List<CQIE> flattenedRules = new SPARQLQueryFlattener(datalogProgram).flatten(topRule);
+        System.out.println(flattenedRules);
+        assertEquals(1, countAggregationRules(flattenedRules));
+    }
+
+    @Test
+    public void testArbitraryLengthPath() throws MalformedQueryException, OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+
+        String query = "PREFIX : <http://www.example.org/test#> "
+                + "SELECT ?x ?y "
+                + "WHERE {"
+                + " ?x (:p|:q)+ ?y }";
+
+        QueryParser parser = QueryParserUtil.createParser(QueryLanguage.SPARQL);
+        ParsedQuery pq = parser.parseQuery(query, null);
+
+        SparqlAlgebraToDatalogTranslator translator = new SparqlAlgebraToDatalogTranslator(
+                UriTemplateMatcher.create(Stream.of()), null);
+        InternalSparqlQuery program = translator.translate(pq);
+
+        DatalogProgram datalogProgram = program.getProgram();
+        assertEquals(1, countPathRules(datalogProgram.getRules()));
+
+        CQIE topRule = datalogProgram.getRules().stream()
+                .filter(r -> r.getHead().getFunctionSymbol().getName().equals(ONTOP_QUERY))
+                .findFirst()
+                .get();
+
+        // The union of the edges must not be distributed over the closure
+        List<CQIE> flattenedRules = new SPARQLQueryFlattener(datalogProgram).flatten(topRule);
+        assertEquals(1, countPathRules(flattenedRules));
+    }
+
+    /**
+     * The constant is a zero-length solution: a union of the closure and of the constant
+     */
+    @Test
+    public void testZeroOrMorePathFromConstant() throws MalformedQueryException, OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+
+        String query = "PREFIX : <http://www.example.org/test#> "
+                + "SELECT ?y "
+                + "WHERE {"
+                + " :a :p* ?y }";
+
+        DatalogProgram datalogProgram = translate(query).getProgram();
+        assertEquals(1, countPathRules(datalogProgram.getRules()));
+        // The closure without the constant
+        assertEquals(1, datalogProgram.getRules().stream()
+                .filter(r -> r.getBody().stream()
+                        .anyMatch(a -> a.getFunctionSymbol().equals(ExpressionOperation.NEQ)))
+                .count());
+        assertEquals(1, countConditionRules(datalogProgram.getRules()));
+    }
+
+    /**
+     * No solution (not an unsupported query)
+     */
+    @Test
+    public void testZeroLengthPathBetweenDifferentConstants() throws MalformedQueryException, OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+
+        String query = "PREFIX : <http://www.example.org/test#> "
+                + "SELECT * "
+                + "WHERE {"
+                + " :a :p? :b }";
+
+        DatalogProgram datalogProgram = translate(query).getProgram();
+        assertEquals(1, countConditionRules(datalogProgram.getRules()));
+    }
+
+    private static InternalSparqlQuery translate(String query) throws MalformedQueryException, OntopUnsupportedInputQueryException, OntopInvalidInputQueryException {
+        QueryParser parser = QueryParserUtil.createParser(QueryLanguage.SPARQL);
+        ParsedQuery pq = parser.parseQuery(query, null);
+
+        SparqlAlgebraToDatalogTranslator translator = new SparqlAlgebraToDatalogTranslator(
+                UriTemplateMatcher.create(Stream.of()), null);
+        return translator.translate(pq);
+    }
+
+    private static long countPathRules(List<CQIE> rules) {
+        return rules.stream()
+                .filter(r -> r.getBody().stream()
+                        .anyMatch(a -> DatalogAlgebraOperatorPredicates.isPathPredicate(a.getFunctionSymbol())))
+                .count();
+    }
+
+    /**
+     * Rules whose body is a single equality
+     */
+    private static long countConditionRules(List<CQIE> rules) {
+        return rules.stream()
+                .filter(r -> r.getBody().size() == 1
+                        && r.getBody().get(0).getFunctionSymbol().equals(ExpressionOperation.EQ))
+                .count();
+    }
+
+    private static long countAggregationRules(List<CQIE> rules) {
+        return rules.stream()
+                .filter(r -> r.getBody().stream()
+                        .anyMatch(a -> a.getFunctionSymbol().equals(DatalogAlgebraOperatorPredicates.SPARQL_GROUP)))
+                .count();
+    }
 }
@@ -0,0 +1,160 @@
+package it.unibz.inf.ontop.answering.reformulation.rewriting.impl;
+
+import com.google.common.cache.CacheStats;
+import it.unibz.inf.ontop.answering.reformulation.rewriting.LinearInclusionDependencyTools;
+import it.unibz.inf.ontop.datalog.CQIE;
+import it.unibz.inf.ontop.datalog.DatalogProgram;
+import it.unibz.inf.ontop.model.term.Function;
+import it.unibz.inf.ontop.model.term.Term;
+import it.unibz.inf.ontop.spec.ontology.OClass;
+import it.unibz.inf.ontop.spec.ontology.ObjectPropertyExpression;
+import it.unibz.inf.ontop.spec.ontology.Ontology;
+import it.unibz.inf.ontop.spec.ontology.OntologyFactory;
+import it.unibz.inf.ontop.spec.ontology.OntologyVocabulary;
+import it.unibz.inf.ontop.spec.ontology.TBoxReasoner;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyFactoryImpl;
+import it.unibz.inf.ontop.spec.ontology.impl.TBoxReasonerImpl;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static it.unibz.inf.ontop.model.OntopModelSingletons.DATALOG_FACTORY;
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Memoized tree-witness sets and concurrent rewritings,
+ * with the TBox A ISA exists R, exists R- ISA B (A generates a tree witness for R(x,y), B(y))
+ */
+public class TreeWitnessRewriterTest {
+
+	private static final int CACHE_SIZE = 100;
+
+	@Test
+	public void testCacheHitSameAsColdRun() {
+		TreeWitnessRewriter rewriter = createRewriter(true);
+
+		DatalogProgram first = rewriter.rewrite(getTreeWitnessQuery("x", "y"));
+		assertEquals(0, rewriter.getTreeWitnessCacheStats().hitCount());
+		assertEquals(1, rewriter.getTreeWitnessCacheStats().missCount());
+
+		// same shape, other variables
+		DatalogProgram second = rewriter.rewrite(getTreeWitnessQuery("u", "v"));
+		assertEquals(1, rewriter.getTreeWitnessCacheStats().hitCount());
+		assertEquals(1, rewriter.getTreeWitnessCacheStats().missCount());
+
+		assertEquals(createRewriter(true).rewrite(getTreeWitnessQuery("x", "y")).getRules(), first.getRules());
+		assertEquals(createRewriter(true).rewrite(getTreeWitnessQuery("u", "v")).getRules(), second.getRules());
+	}
+
+	/**
+	 * Rewritings of two queries (of different shapes) on one instance from several threads
+	 */
+	@Test
+	public void testConcurrentRewritings() throws Exception {
+		TreeWitnessRewriter rewriter = createRewriter(true);
+		List<CQIE> expectedTW = rewriter.rewrite(getTreeWitnessQuery("x", "y")).getRules();
+		List<CQIE> expectedChain = rewriter.rewrite(getChainQuery()).getRules();
+
+		TreeWitnessRewriter sharedRewriter = createRewriter(true);
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<List<CQIE>>> twResults = new ArrayList<>();
+			List<Future<List<CQIE>>> chainResults = new ArrayList<>();
+			for (int i = 0; i < 100; i++) {
+				twResults.add(executor.submit(() -> sharedRewriter.rewrite(getTreeWitnessQuery("x", "y")).getRules()));
+				chainResults.add(executor.submit(() -> sharedRewriter.rewrite(getChainQuery()).getRules()));
+			}
+			for (Future<List<CQIE>> result : twResults)
+				assertEquals(expectedTW, result.get());
+			for (Future<List<CQIE>> result : chainResults)
+				assertEquals(expectedChain, result.get());
+		}
+		finally {
+			executor.shutdown();
+		}
+	}
+
+	/**
+	 * The tree witnesses of the previous TBox are not reused
+	 */
+	@Test
+	public void testSetTBoxInvalidatesCache() {
+		TreeWitnessRewriter rewriter = createRewriter(true);
+		DatalogProgram before = rewriter.rewrite(getTreeWitnessQuery("x", "y"));
+
+		setTBox(rewriter, false);
+		assertEquals(0, rewriter.getTreeWitnessCacheStats().requestCount());
+
+		DatalogProgram after = rewriter.rewrite(getTreeWitnessQuery("x", "y"));
+		CacheStats stats = rewriter.getTreeWitnessCacheStats();
+		assertEquals(0, stats.hitCount());
+		assertEquals(1, stats.missCount());
+
+		// no tree witness without the existential axioms
+		assertEquals(createRewriter(false).rewrite(getTreeWitnessQuery("x", "y")).getRules(), after.getRules());
+		assertNotEquals(before.getRules(), after.getRules());
+	}
+
+	private static TreeWitnessRewriter createRewriter(boolean existential) {
+		TreeWitnessRewriter rewriter = new TreeWitnessRewriter(CACHE_SIZE);
+		setTBox(rewriter, existential);
+		return rewriter;
+	}
+
+	private static void setTBox(TreeWitnessRewriter rewriter, boolean existential) {
+		OntologyFactory factory = OntologyFactoryImpl.getInstance();
+		OntologyVocabulary vb = factory.createVocabulary();
+		OClass a = vb.createClass("A");
+		OClass b = vb.createClass("B");
+		vb.createClass("C");
+		ObjectPropertyExpression r = vb.createObjectProperty("R");
+		vb.createObjectProperty("S");
+
+		Ontology ontology = factory.createOntology(vb);
+		if (existential) {
+			ontology.addSubClassOfAxiom(a, r.getDomain());
+			ontology.addSubClassOfAxiom(r.getInverse().getDomain(), b);
+		}
+		TBoxReasoner reasoner = TBoxReasonerImpl.create(ontology);
+		rewriter.setTBox(reasoner, ontology.getVocabulary(),
+				LinearInclusionDependencyTools.getABoxDependencies(reasoner, true));
+	}
+
+	/**
+	 * q(x) :- R(x,y), B(y)
+	 */
+	private static DatalogProgram getTreeWitnessQuery(String x, String y) {
+		Term vx = TERM_FACTORY.getVariable(x);
+		Term vy = TERM_FACTORY.getVariable(y);
+		Function head = TERM_FACTORY.getFunction(TERM_FACTORY.getPredicate("q", 1), vx);
+		CQIE cq = DATALOG_FACTORY.getCQIE(head,
+				TERM_FACTORY.getFunction(TERM_FACTORY.getObjectPropertyPredicate("R"), vx, vy),
+				TERM_FACTORY.getFunction(TERM_FACTORY.getClassPredicate("B"), vy));
+		DatalogProgram program = DATALOG_FACTORY.getDatalogProgram();
+		program.appendRule(cq);
+		return program;
+	}
+
+	/**
+	 * q(x, z) :- R(x,y), S(y,z), C(z)
+	 */
+	private static DatalogProgram getChainQuery() {
+		Term x = TERM_FACTORY.getVariable("x");
+		Term y = TERM_FACTORY.getVariable("y");
+		Term z = TERM_FACTORY.getVariable("z");
+		Function head = TERM_FACTORY.getFunction(TERM_FACTORY.getPredicate("q", 2), x, z);
+		CQIE cq = DATALOG_FACTORY.getCQIE(head,
+				TERM_FACTORY.getFunction(TERM_FACTORY.getObjectPropertyPredicate("R"), x, y),
+				TERM_FACTORY.getFunction(TERM_FACTORY.getObjectPropertyPredicate("S"), y, z),
+				TERM_FACTORY.getFunction(TERM_FACTORY.getClassPredicate("C"), z));
+		DatalogProgram program = DATALOG_FACTORY.getDatalogProgram();
+		program.appendRule(cq);
+		return program;
+	}
+}
@@ -23,6 +23,7 @@ package it.unibz.inf.ontop.answering.reformulation.generation.dialect;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 import it.unibz.inf.ontop.iq.node.OrderCondition;
@@ -139,6 +140,34 @@ public interface SQLDialectAdapter {
 	public String rand();
 
 	public String sqlGroupBy(List<Variable> groupby, String viewname);
+
+	/**
+	 * Aggregates the strings of a group (SPARQL GROUP_CONCAT)
+	 */
+	public String sqlGroupConcat(String str, String separator);
+
+	/**
+	 * Definition of a common table expression (to be placed in a WITH clause) computing the transitive closure
+	 * of the binary relation baseRelation (a table name or a sub-query between parentheses), whose columns
+	 * are the source columns followed by the target columns. The closure may contain duplicates and
+	 * additional columns.
+	 *
+	 * Two tuples are chained when the target chaining columns of the first one are equal
+	 * to the source chaining columns of the second one.
+	 *
+	 * The optional start condition (over the unqualified columns of baseRelation) restricts the first tuple
+	 * of the paths, e.g. to the edges leaving a constant node.
+	 *
+	 * Empty if the dialect does not support recursive queries.
+	 */
+	public Optional<String> sqlTransitiveClosure(String name, String baseRelation, List<String> sourceColumns,
+												 List<String> targetColumns, List<String> sourceChainingColumns,
+												 List<String> targetChainingColumns, Optional<String> startCondition);
+
+	/**
+	 * Prefixes the query by a WITH clause defining the common table expressions (in the given order)
+	 */
+	public String sqlWithCommonTableExpressions(List<String> definitions, String query);
     
 	/**
 	 * Returns an UNQUOTED view name.
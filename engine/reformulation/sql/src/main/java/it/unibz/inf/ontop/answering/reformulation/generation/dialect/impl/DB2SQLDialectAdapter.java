@@ -22,7 +22,9 @@ package it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl;
 
 import java.sql.Types;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public class DB2SQLDialectAdapter extends SQL99DialectAdapter {
 	private static Map<Integer, String> SqlDatatypes;
@@ -200,5 +202,28 @@ public class DB2SQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
-	
+	/**
+	 * UNION is not allowed in recursive common table expressions: the cycles are detected on the paths
+	 */
+	@Override
+	public Optional<String> sqlTransitiveClosure(String name, String baseRelation, List<String> sourceColumns,
+												 List<String> targetColumns, List<String> sourceChainingColumns,
+												 List<String> targetChainingColumns, Optional<String> startCondition) {
+		return Optional.of(sqlCycleFreeTransitiveClosure(name, baseRelation, sourceColumns, targetColumns,
+				sourceChainingColumns, targetChainingColumns, startCondition, "VARCHAR(32000)", "||",
+				"LOCATE(%2$s, %1$s) > 0"));
+	}
+
+	@Override
+	public String sqlWithCommonTableExpressions(List<String> definitions, String query) {
+		return "WITH " + String.join(",\n", definitions) + "\n" + query;
+	}
+
+	/**
+	 * LISTAGG (DB2 9.7)
+	 */
+	@Override
+	public String sqlGroupConcat(String str, String separator) {
+		return String.format("LISTAGG(%s, %s) WITHIN GROUP (ORDER BY %s)", str, separator, str);
+	}
 }
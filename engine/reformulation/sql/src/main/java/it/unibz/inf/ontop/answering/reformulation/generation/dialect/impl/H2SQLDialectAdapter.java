@@ -21,6 +21,8 @@ package it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl;
  * #L%
  */
 
+import java.util.List;
+import java.util.Optional;
 import java.util.regex.Pattern;
 
 public class H2SQLDialectAdapter extends SQL99DialectAdapter {
@@ -40,6 +42,17 @@ public class H2SQLDialectAdapter extends SQL99DialectAdapter {
 		return String.format("HASH('SHA256', STRINGTOUTF8(%s),1)", str);
 	}
 
+	/**
+	 * Recursive queries require UNION ALL: the cycles are detected on the paths
+	 */
+	@Override
+	public Optional<String> sqlTransitiveClosure(String name, String baseRelation, List<String> sourceColumns,
+												 List<String> targetColumns, List<String> sourceChainingColumns,
+												 List<String> targetChainingColumns, Optional<String> startCondition) {
+		return Optional.of(sqlCycleFreeTransitiveClosure(name, baseRelation, sourceColumns, targetColumns,
+				sourceChainingColumns, targetChainingColumns, startCondition, "VARCHAR", "||", "LOCATE(%2$s, %1$s) > 0"));
+	}
+
 	@Override
 	public String sqlSlice(long limit, long offset) {
 		if(limit == 0){
@@ -149,4 +162,9 @@ public class H2SQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 	
+
+	@Override
+	public String sqlGroupConcat(String str, String separator) {
+		return String.format("GROUP_CONCAT(%s SEPARATOR %s)", str, separator);
+	}
 }
@@ -234,5 +234,9 @@ public class HSQLDBDialectAdapter extends SQL99DialectAdapter {
 		
 		return bf.toString();
 	}
-	
+
+	@Override
+	public String sqlGroupConcat(String str, String separator) {
+		return String.format("GROUP_CONCAT(%s SEPARATOR %s)", str, separator);
+	}
 }
@@ -4,6 +4,7 @@ import it.unibz.inf.ontop.iq.node.OrderCondition;
 
 import java.sql.Types;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -248,4 +249,13 @@ public class MonetDBSQLDialectAdapter extends SQL99DialectAdapter {
         return sqlQuote(signatureVariableName + proposedSuffix);
     }
 
+    /**
+     * Recursive queries (property paths) are not supported
+     */
+    @Override
+    public Optional<String> sqlTransitiveClosure(String name, String baseRelation, List<String> sourceColumns,
+                                                 List<String> targetColumns, List<String> sourceChainingColumns,
+                                                 List<String> targetChainingColumns, Optional<String> startCondition) {
+        return Optional.empty();
+    }
 }
@@ -27,6 +27,7 @@ import java.sql.Types;
 import java.util.*;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 public class OracleSQLDialectAdapter extends SQL99DialectAdapter {
 
@@ -412,4 +413,37 @@ public class OracleSQLDialectAdapter extends SQL99DialectAdapter {
 		throw new RuntimeException("Impossible to create a new variable/view " + prefix + shortenIntermediateNamePrefix
 				+ "???" + suffix + " : already " + Math.pow(10, NAME_NUMBER_LENGTH) + " of them.");
 	}
+
+	/**
+	 * Hierarchical query: every tuple of the base relation satisfying the start condition is a root
+	 * and NOCYCLE stops the cyclic paths
+	 */
+	@Override
+	public Optional<String> sqlTransitiveClosure(String name, String baseRelation, List<String> sourceColumns,
+												 List<String> targetColumns, List<String> sourceChainingColumns,
+												 List<String> targetChainingColumns, Optional<String> startCondition) {
+		String roots = sourceColumns.stream()
+				.map(c -> "CONNECT_BY_ROOT " + c + " AS " + c)
+				.collect(Collectors.joining(", "));
+		String chaining = IntStream.range(0, sourceChainingColumns.size())
+				.mapToObj(i -> "PRIOR " + targetChainingColumns.get(i) + " = " + sourceChainingColumns.get(i))
+				.collect(Collectors.joining(" AND "));
+
+		return Optional.of(String.format("%s AS (\nSELECT DISTINCT %s, %s FROM %s b\n%sCONNECT BY NOCYCLE %s\n)",
+				name, roots, String.join(", ", targetColumns), baseRelation,
+				startCondition.map(c -> "START WITH " + c + "\n").orElse(""), chaining));
+	}
+
+	@Override
+	public String sqlWithCommonTableExpressions(List<String> definitions, String query) {
+		return "WITH " + String.join(",\n", definitions) + "\n" + query;
+	}
+
+	/**
+	 * The WITHIN GROUP clause is mandatory
+	 */
+	@Override
+	public String sqlGroupConcat(String str, String separator) {
+		return String.format("LISTAGG(%s, %s) WITHIN GROUP (ORDER BY %s)", str, separator, str);
+	}
 }
@@ -215,4 +215,8 @@ public class PostgreSQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
+	@Override
+	public String sqlGroupConcat(String str, String separator) {
+		return String.format("STRING_AGG(%s, %s)", str, separator);
+	}
 }
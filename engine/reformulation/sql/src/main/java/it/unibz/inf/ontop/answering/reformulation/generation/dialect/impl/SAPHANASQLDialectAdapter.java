@@ -1,5 +1,8 @@
 package it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl;
 
+import java.util.List;
+import java.util.Optional;
+
 public class SAPHANASQLDialectAdapter extends SQL99DialectAdapter {
 
     @Override
@@ -21,4 +24,14 @@ public class SAPHANASQLDialectAdapter extends SQL99DialectAdapter {
             }
         }
     }
+
+    /**
+     * Recursive queries (property paths) are not supported
+     */
+    @Override
+    public Optional<String> sqlTransitiveClosure(String name, String baseRelation, List<String> sourceColumns,
+                                                 List<String> targetColumns, List<String> sourceChainingColumns,
+                                                 List<String> targetChainingColumns, Optional<String> startCondition) {
+        return Optional.empty();
+    }
 }
@@ -27,8 +27,12 @@ import java.sql.Types;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import it.unibz.inf.ontop.iq.node.OrderCondition;
 import it.unibz.inf.ontop.model.term.Variable;
@@ -36,6 +40,11 @@ import it.unibz.inf.ontop.dbschema.RelationID;
 
 public class SQL99DialectAdapter implements SQLDialectAdapter {
 
+	/**
+	 * Nodes of the paths of the cycle-free transitive closures
+	 */
+	private static final String PATH_COLUMN = "ontopPath";
+
     private Pattern quotes = Pattern.compile("[\"`\\['].*[\"`\\]']");  
     
     protected static final String ENCODE_FOR_URI_START, ENCODE_FOR_URI_END;
@@ -317,6 +326,102 @@ public class SQL99DialectAdapter implements SQLDialectAdapter {
 		return sql;
 	}
 
+	/**
+	 * LISTAGG (SQL:2016)
+	 */
+	@Override
+	public String sqlGroupConcat(String str, String separator) {
+		return String.format("LISTAGG(%s, %s)", str, separator);
+	}
+
+	/**
+	 * Recursive common table expression (SQL:1999). UNION stops the recursion on cyclic relations.
+	 */
+	@Override
+	public Optional<String> sqlTransitiveClosure(String name, String baseRelation, List<String> sourceColumns,
+												 List<String> targetColumns, List<String> sourceChainingColumns,
+												 List<String> targetChainingColumns, Optional<String> startCondition) {
+		String columns = Stream.concat(sourceColumns.stream(), targetColumns.stream())
+				.collect(Collectors.joining(", "));
+
+		return Optional.of(String.format("%s (%s) AS (\nSELECT %s FROM %s b%s\nUNION\nSELECT %s FROM %s c, %s b WHERE %s\n)",
+				name, columns, columns, baseRelation, getStartCondition(startCondition),
+				getRecursiveColumns(sourceColumns, targetColumns),
+				name, baseRelation, getChainingCondition(sourceChainingColumns, targetChainingColumns)));
+	}
+
+	/**
+	 * Recursive common table expression for the DBMSs that only accept UNION ALL in it.
+	 *
+	 * Each path keeps its nodes in an additional column ('|' before and after each node), so that
+	 * the cycles are not followed and the recursion terminates. A node is identified by its chaining
+	 * columns, cast into strings in which the separators are percent-encoded.
+	 * The closure contains duplicates.
+	 *
+	 * @param pathType string type of the additional column (the same in both parts of the query)
+	 * @param concatOperator string concatenation operator
+	 * @param containsFormat condition that holds when the first string contains the second one
+	 */
+	protected final String sqlCycleFreeTransitiveClosure(String name, String baseRelation, List<String> sourceColumns,
+														 List<String> targetColumns, List<String> sourceChainingColumns,
+														 List<String> targetChainingColumns, Optional<String> startCondition,
+														 String pathType, String concatOperator, String containsFormat) {
+		String columns = Stream.concat(sourceColumns.stream(), targetColumns.stream())
+				.collect(Collectors.joining(", "));
+		String separator = " " + concatOperator + " '|' " + concatOperator + " ";
+		String sourceNode = getPathNode(sourceChainingColumns, pathType, concatOperator);
+		String targetNode = getPathNode(targetChainingColumns, pathType, concatOperator);
+
+		String initialPath = String.format("CAST('|' %s %s%s%s %s '|' AS %s)",
+				concatOperator, sourceNode, separator, targetNode, concatOperator, pathType);
+		String extendedPath = String.format("CAST(c.%s %s %s %s '|' AS %s)",
+				PATH_COLUMN, concatOperator, targetNode, concatOperator, pathType);
+		String cycleCondition = String.format(containsFormat, "c." + PATH_COLUMN,
+				"'|' " + concatOperator + " " + targetNode + " " + concatOperator + " '|'");
+
+		return String.format("%s (%s, %s) AS (\nSELECT %s, %s FROM %s b%s\nUNION ALL\n" +
+						"SELECT %s, %s FROM %s c, %s b WHERE %s AND NOT (%s)\n)",
+				name, columns, PATH_COLUMN,
+				columns, initialPath, baseRelation, getStartCondition(startCondition),
+				getRecursiveColumns(sourceColumns, targetColumns), extendedPath, name, baseRelation,
+				getChainingCondition(sourceChainingColumns, targetChainingColumns), cycleCondition);
+	}
+
+	/**
+	 * WHERE clause of the anchor member (empty if all the tuples of the base relation start a path)
+	 */
+	private static String getStartCondition(Optional<String> startCondition) {
+		return startCondition.map(c -> " WHERE " + c).orElse("");
+	}
+
+	private static String getRecursiveColumns(List<String> sourceColumns, List<String> targetColumns) {
+		return Stream.concat(
+				sourceColumns.stream().map(c -> "c." + c),
+				targetColumns.stream().map(c -> "b." + c))
+				.collect(Collectors.joining(", "));
+	}
+
+	private static String getChainingCondition(List<String> sourceChainingColumns, List<String> targetChainingColumns) {
+		return IntStream.range(0, sourceChainingColumns.size())
+				.mapToObj(i -> "c." + targetChainingColumns.get(i) + " = b." + sourceChainingColumns.get(i))
+				.collect(Collectors.joining(" AND "));
+	}
+
+	/**
+	 * Columns of the base relation separated by ',' (neither '|' nor ',' appear in the encoded values)
+	 */
+	private static String getPathNode(List<String> chainingColumns, String pathType, String concatOperator) {
+		return chainingColumns.stream()
+				.map(c -> String.format("REPLACE(REPLACE(REPLACE(CAST(b.%s AS %s), '%%', '%%25'), '|', '%%7C'), ',', '%%2C')",
+						c, pathType))
+				.collect(Collectors.joining(" " + concatOperator + " ',' " + concatOperator + " "));
+	}
+
+	@Override
+	public String sqlWithCommonTableExpressions(List<String> definitions, String query) {
+		return "WITH RECURSIVE " + String.join(",\n", definitions) + "\n" + query;
+	}
+
 	@Override
 	public String sqlOrderByAndSlice(List<OrderCondition> conditions, String viewname, long limit, long offset) {
 		String sql=sqlOrderBy(conditions,viewname);
@@ -26,6 +26,7 @@ import java.sql.Types;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public class SQLServerSQLDialectAdapter extends SQL99DialectAdapter {
 	
@@ -311,5 +312,31 @@ public class SQLServerSQLDialectAdapter extends SQL99DialectAdapter {
 		return bf.toString();
 	}
 
+	/**
+	 * UNION is not allowed in recursive common table expressions: the cycles are detected on the paths
+	 */
+	@Override
+	public Optional<String> sqlTransitiveClosure(String name, String baseRelation, List<String> sourceColumns,
+												 List<String> targetColumns, List<String> sourceChainingColumns,
+												 List<String> targetChainingColumns, Optional<String> startCondition) {
+		return Optional.of(sqlCycleFreeTransitiveClosure(name, baseRelation, sourceColumns, targetColumns,
+				sourceChainingColumns, targetChainingColumns, startCondition, "VARCHAR(MAX)", "+",
+				"CHARINDEX(%2$s, %1$s) > 0"));
+	}
+
+	/**
+	 * No limit on the depth of the recursion (100 by default): the recursion terminates as the paths have no cycle
+	 */
+	@Override
+	public String sqlWithCommonTableExpressions(List<String> definitions, String query) {
+		return "WITH " + String.join(",\n", definitions) + "\n" + query + "\nOPTION (MAXRECURSION 0)";
+	}
 
+	/**
+	 * STRING_AGG (SQL Server 2017)
+	 */
+	@Override
+	public String sqlGroupConcat(String str, String separator) {
+		return String.format("STRING_AGG(%s, %s)", str, separator);
+	}
 }
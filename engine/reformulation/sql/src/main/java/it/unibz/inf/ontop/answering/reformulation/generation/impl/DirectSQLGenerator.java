@@ -0,0 +1,468 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.impl;
+
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.assistedinject.Assisted;
+import com.google.inject.assistedinject.AssistedInject;
+import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
+import it.unibz.inf.ontop.answering.reformulation.IRIDictionary;
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.SQLDialectAdapter;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.DB2SQLDialectAdapter;
+import it.unibz.inf.ontop.answering.reformulation.impl.SQLExecutableQuery;
+import it.unibz.inf.ontop.datalog.IntermediateQuery2DatalogTranslator;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.injection.OntopReformulationSQLSettings;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.node.*;
+import it.unibz.inf.ontop.model.atom.DataAtom;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.DatatypePredicate;
+import it.unibz.inf.ontop.model.term.functionsymbol.ExpressionOperation;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.model.term.functionsymbol.URITemplatePredicate;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.sql.Types;
+import java.util.*;
+
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TYPE_FACTORY;
+
+/**
+ * Translates the IQ directly into SQL, without the Datalog round trip of the legacy engine
+ * (no Datalog program, no dependency graph, no type extraction).
+ *
+ * Covers the conjunctive fragment: a root construction node projecting URI templates, typed literals
+ * and constants (with DISTINCT, ORDER BY, LIMIT and OFFSET) over inner joins and filters of extensional
+ * data nodes, with comparisons, boolean connectives and null tests as conditions.
+ * The other queries (unions, left joins, aggregation, nested construction nodes, IRI dictionary, etc.)
+ * are delegated to the legacy engine.
+ *
+ * As in the legacy engine, the constants compared to a column are passed as parameters when enabled
+ * (see OntopReformulationSQLSettings.SQL_PARAMETERIZE_CONSTANTS).
+ *
+ * Stateless: what is specific to a query lives in a FromClause created for this query.
+ */
+public class DirectSQLGenerator implements NativeQueryGenerator {
+
+    private static final Logger log = LoggerFactory.getLogger(DirectSQLGenerator.class);
+
+    private static final String VIEW_PREFIX = "QVIEW";
+    private static final String OUTER_VIEW_NAME = "SUB_QVIEW";
+    private static final String TYPE_SUFFIX = "QuestType";
+    private static final String LANG_SUFFIX = "Lang";
+    private static final String MAIN_COLUMN_SUFFIX = "";
+
+    private static final ImmutableMap<ExpressionOperation, String> OPERATIONS =
+            ImmutableMap.<ExpressionOperation, String>builder()
+                    .put(ExpressionOperation.EQ, "%s = %s")
+                    .put(ExpressionOperation.NEQ, "%s <> %s")
+                    .put(ExpressionOperation.GT, "%s > %s")
+                    .put(ExpressionOperation.GTE, "%s >= %s")
+                    .put(ExpressionOperation.LT, "%s < %s")
+                    .put(ExpressionOperation.LTE, "%s <= %s")
+                    .put(ExpressionOperation.AND, "(%s AND %s)")
+                    .put(ExpressionOperation.OR, "(%s OR %s)")
+                    .put(ExpressionOperation.NOT, "NOT (%s)")
+                    .put(ExpressionOperation.IS_NULL, "%s IS NULL")
+                    .put(ExpressionOperation.IS_NOT_NULL, "%s IS NOT NULL")
+                    .build();
+
+    private static final ImmutableSet<ExpressionOperation> PARAMETERIZABLE_COMPARISONS = ImmutableSet.of(
+            ExpressionOperation.EQ, ExpressionOperation.NEQ, ExpressionOperation.GT, ExpressionOperation.GTE,
+            ExpressionOperation.LT, ExpressionOperation.LTE);
+
+    private final OneShotSQLGeneratorEngine engine;
+    private final RDBMetadata metadata;
+    private final SQLDialectAdapter sqladapter;
+    private final JdbcTypeMapper jdbcTypeMapper;
+    private final boolean distinctResultSet;
+    private final boolean hasIRIDictionary;
+    private final boolean parameterizeConstants;
+
+    @AssistedInject
+    private DirectSQLGenerator(@Assisted DBMetadata metadata,
+                               @Nullable IRIDictionary iriDictionary,
+                               OntopReformulationSQLSettings settings,
+                               IntermediateQuery2DatalogTranslator iq2DatalogTranslator,
+                               JdbcTypeMapper jdbcTypeMapper) {
+        this.engine = new OneShotSQLGeneratorEngine(metadata, iriDictionary, settings, jdbcTypeMapper,
+                iq2DatalogTranslator);
+        // Checked by the engine
+        this.metadata = (RDBMetadata) metadata;
+        this.sqladapter = engine.getSQLAdapter();
+        this.jdbcTypeMapper = jdbcTypeMapper;
+        this.distinctResultSet = settings.isDistinctPostProcessingEnabled();
+        this.hasIRIDictionary = iriDictionary != null;
+        this.parameterizeConstants = settings.isSQLConstantParameterizationEnabled();
+    }
+
+    @Override
+    public ExecutableQuery generateSourceQuery(IntermediateQuery query, ImmutableList<String> signature)
+            throws OntopReformulationException {
+        if (!hasIRIDictionary) {
+            try {
+                return generateDirectly(query, signature);
+            } catch (NotDirectlyTranslatableException e) {
+                log.debug("Delegated to the legacy SQL generator: {}", e.getMessage());
+            }
+        }
+        return engine.generateSourceQuery(query, signature);
+    }
+
+    @Override
+    public ExecutableQuery generateEmptyQuery(ImmutableList<String> signatureContainer) {
+        // Empty string query
+        return new SQLExecutableQuery(signatureContainer);
+    }
+
+    private SQLExecutableQuery generateDirectly(IntermediateQuery query, ImmutableList<String> signature)
+            throws NotDirectlyTranslatableException {
+        QueryNode root = query.getRootNode();
+        if (!(root instanceof ConstructionNode))
+            throw new NotDirectlyTranslatableException("root " + root);
+        ConstructionNode constructionNode = (ConstructionNode) root;
+
+        ImmutableList<Variable> projectedVariables = query.getProjectionAtom().getArguments();
+        // ASK queries
+        if (projectedVariables.isEmpty() || projectedVariables.size() != signature.size())
+            throw new NotDirectlyTranslatableException("projection " + projectedVariables);
+
+        ImmutableList<QueryNode> children = query.getChildren(constructionNode);
+        if (children.size() != 1)
+            throw new NotDirectlyTranslatableException("construction node with " + children.size() + " children");
+
+        FromClause fromClause = new FromClause();
+        fromClause.add(query, children.get(0));
+
+        Optional<ImmutableQueryModifiers> modifiers = constructionNode.getOptionalModifiers();
+        boolean isDistinct = modifiers.isPresent() && modifiers.get().isDistinct();
+        boolean isOrderBy = modifiers.isPresent() && modifiers.get().hasOrder();
+
+        StringBuilder sb = new StringBuilder("SELECT ");
+        if (isDistinct && !distinctResultSet)
+            sb.append("DISTINCT ");
+
+        Set<String> sqlVariableNames = new HashSet<>();
+        for (int i = 0; i < projectedVariables.size(); i++) {
+            Variable variable = projectedVariables.get(i);
+            if (!constructionNode.getSubstitution().isDefining(variable))
+                throw new NotDirectlyTranslatableException("non-constructed variable " + variable);
+            ProjectedTerm term = getProjectedTerm(constructionNode.getSubstitution().get(variable), fromClause,
+                    isDistinct || isOrderBy);
+
+            String name = signature.get(i);
+            String typeName = sqladapter.nameTopVariable(name, TYPE_SUFFIX, sqlVariableNames);
+            sqlVariableNames.add(typeName);
+            String mainName = sqladapter.nameTopVariable(name, MAIN_COLUMN_SUFFIX, sqlVariableNames);
+            sqlVariableNames.add(mainName);
+            String langName = sqladapter.nameTopVariable(name, LANG_SUFFIX, sqlVariableNames);
+            sqlVariableNames.add(langName);
+
+            sb.append(i == 0 ? "\n   " : ", \n   ")
+                    .append(term.type.getQuestCode()).append(" AS ").append(typeName).append(", ")
+                    .append("NULL AS ").append(langName).append(", ")
+                    .append(term.mainColumn).append(" AS ").append(mainName);
+        }
+        sb.append("\n FROM \n").append(String.join(",\n", fromClause.tableDefinitions));
+        if (!fromClause.conditions.isEmpty())
+            sb.append("\n WHERE \n").append(String.join(" AND\n", fromClause.conditions));
+
+        String sql = sb.toString();
+        if (modifiers.isPresent() && (modifiers.get().hasOrder() || modifiers.get().hasLimit()
+                || modifiers.get().hasOffset())) {
+            ImmutableQueryModifiers m = modifiers.get();
+            long limit = m.hasLimit() ? m.getLimit() : -1;
+            long offset = m.hasOffset() ? m.getOffset() : -1;
+            String modifier = m.hasOrder()
+                    ? sqladapter.sqlOrderByAndSlice(m.getSortConditions(), OUTER_VIEW_NAME, limit, offset)
+                    : sqladapter.sqlSlice(limit, offset);
+            sql = "SELECT *\nFROM (\n" + sql + "\n) " + OUTER_VIEW_NAME + "\n" + modifier + "\n";
+        }
+        return new SQLExecutableQuery(sql, signature, ImmutableList.copyOf(fromClause.parameters));
+    }
+
+    /**
+     * Main column and RDF type of a term built by the root construction node
+     */
+    private ProjectedTerm getProjectedTerm(ImmutableTerm term, FromClause fromClause, boolean castConcatenation)
+            throws NotDirectlyTranslatableException {
+        if (term instanceof URIConstant)
+            return new ProjectedTerm(sqladapter.getSQLLexicalFormString(((URIConstant) term).getURI()),
+                    COL_TYPE.OBJECT);
+
+        if (term instanceof ValueConstant) {
+            ValueConstant constant = (ValueConstant) term;
+            if (constant.getType() == COL_TYPE.LANG_STRING || constant.getType() == COL_TYPE.NULL)
+                throw new NotDirectlyTranslatableException("constant " + constant);
+            return new ProjectedTerm(castMainColumn(engine.getSQLLexicalForm(constant), constant.getType()),
+                    constant.getType());
+        }
+
+        if (!(term instanceof ImmutableFunctionalTerm))
+            throw new NotDirectlyTranslatableException("projected term " + term);
+
+        ImmutableFunctionalTerm functionalTerm = (ImmutableFunctionalTerm) term;
+        Predicate functionSymbol = functionalTerm.getFunctionSymbol();
+
+        if (functionSymbol instanceof URITemplatePredicate)
+            return new ProjectedTerm(castMainColumn(getURITemplate(functionalTerm, fromClause, castConcatenation),
+                    COL_TYPE.OBJECT), COL_TYPE.OBJECT);
+
+        if (functionSymbol instanceof DatatypePredicate && functionalTerm.getArity() == 1
+                && functionalTerm.getTerm(0) instanceof Variable) {
+            COL_TYPE type = TYPE_FACTORY.getInternalType((DatatypePredicate) functionSymbol)
+                    // Literals (possibly with a language tag) are left to the legacy engine
+                    .filter(t -> t != COL_TYPE.LITERAL && t != COL_TYPE.LANG_STRING)
+                    .orElseThrow(() -> new NotDirectlyTranslatableException("datatype " + functionSymbol));
+            return new ProjectedTerm(castMainColumn(fromClause.getColumn((Variable) functionalTerm.getTerm(0))
+                    .getSQLRendering(), type), type);
+        }
+        throw new NotDirectlyTranslatableException("projected term " + term);
+    }
+
+    /**
+     * Same cast as the legacy engine (no cast for string literals and bracketed expressions)
+     */
+    private String castMainColumn(String mainColumn, COL_TYPE type) {
+        if (mainColumn.charAt(0) == '\'' || mainColumn.charAt(0) == '(')
+            return mainColumn;
+        switch (type) {
+            case OBJECT:
+            case BNODE:
+            case NULL:
+                return sqladapter.sqlCast(mainColumn, jdbcTypeMapper.getSQLType(COL_TYPE.LITERAL));
+            default:
+                return sqladapter.sqlCast(mainColumn, jdbcTypeMapper.getSQLType(type));
+        }
+    }
+
+    private String getURITemplate(ImmutableFunctionalTerm uriTemplate, FromClause fromClause,
+                                  boolean castConcatenation) throws NotDirectlyTranslatableException {
+        ImmutableTerm templateTerm = uriTemplate.getTerm(0);
+        if (!(templateTerm instanceof ValueConstant))
+            throw new NotDirectlyTranslatableException("URI template " + uriTemplate);
+
+        String[] split = ((ValueConstant) templateTerm).getValue().split("[{][}]");
+        List<String> parts = new ArrayList<>();
+        if (split.length > 0 && !split[0].isEmpty())
+            parts.add(sqladapter.getSQLLexicalFormString(split[0]));
+
+        for (int i = 1; i < uriTemplate.getArity(); i++) {
+            ImmutableTerm argument = uriTemplate.getTerm(i);
+            if (!(argument instanceof Variable))
+                throw new NotDirectlyTranslatableException("URI template argument " + argument);
+            Attribute attribute = fromClause.getAttribute((Variable) argument);
+            String column = fromClause.getColumn((Variable) argument).getSQLRendering();
+            String value = isStringType(attribute)
+                    ? column
+                    : sqladapter.sqlCast(column, Types.VARCHAR);
+            // Empty placeholders: the IRI is in the column
+            parts.add(split.length == 0 ? value : engine.encodeIRISafe(value));
+            if (i < split.length)
+                parts.add(sqladapter.getSQLLexicalFormString(split[i]));
+        }
+
+        if (parts.size() == 1)
+            return parts.get(0);
+        String concatenation = sqladapter.strConcat(parts.toArray(new String[parts.size()]));
+        // DB2 (> 9.1) issue SQL0134N (see the legacy engine)
+        return (castConcatenation && sqladapter instanceof DB2SQLDialectAdapter)
+                ? sqladapter.sqlCast(concatenation, Types.VARCHAR)
+                : concatenation;
+    }
+
+    private static boolean isStringType(Attribute attribute) {
+        switch (attribute.getType()) {
+            case Types.VARCHAR:
+            case Types.CHAR:
+            case Types.LONGNVARCHAR:
+            case Types.LONGVARCHAR:
+            case Types.NVARCHAR:
+            case Types.NCHAR:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static final class ProjectedTerm {
+        private final String mainColumn;
+        private final COL_TYPE type;
+
+        private ProjectedTerm(String mainColumn, COL_TYPE type) {
+            this.mainColumn = mainColumn;
+            this.type = type;
+        }
+    }
+
+    /**
+     * Relations, join conditions and filters of the query, collected from the sub-tree of the root
+     */
+    private final class FromClause {
+        private final List<String> tableDefinitions = new ArrayList<>();
+        private final List<String> conditions = new ArrayList<>();
+        // First occurrence of each variable
+        private final Map<Variable, QualifiedAttributeID> columns = new HashMap<>();
+        private final Map<Variable, Attribute> attributes = new HashMap<>();
+        // The filters are translated once all the variables are known
+        private final List<ImmutableExpression> expressions = new ArrayList<>();
+        /*
+         * Values of the parameter markers, in their order in the SQL string.
+         * Unlike in the legacy engine, no part of the string is duplicated: the markers are inserted directly,
+         * in the order in which the conditions are built.
+         */
+        private final List<Object> parameters = new ArrayList<>();
+
+        private void add(IntermediateQuery query, QueryNode node) throws NotDirectlyTranslatableException {
+            collect(query, node);
+            for (ImmutableExpression expression : expressions)
+                conditions.add(getCondition(expression));
+        }
+
+        private void collect(IntermediateQuery query, QueryNode node) throws NotDirectlyTranslatableException {
+            if (node instanceof ExtensionalDataNode) {
+                addDataAtom(((ExtensionalDataNode) node).getProjectionAtom());
+            }
+            else if (node instanceof InnerJoinNode || node instanceof FilterNode) {
+                ((JoinOrFilterNode) node).getOptionalFilterCondition().ifPresent(expressions::add);
+                for (QueryNode child : query.getChildren(node))
+                    collect(query, child);
+            }
+            else
+                throw new NotDirectlyTranslatableException("node " + node);
+        }
+
+        private void addDataAtom(DataAtom atom) throws NotDirectlyTranslatableException {
+            RelationID relationId = Relation2Predicate.createRelationFromPredicateName(metadata.getQuotedIDFactory(),
+                    atom.getPredicate());
+            RelationDefinition definition = metadata.getRelation(relationId);
+            if (definition == null || definition.getAttributes().size() != atom.getArguments().size())
+                throw new NotDirectlyTranslatableException("relation " + relationId);
+
+            RelationID alias = metadata.getQuotedIDFactory().createRelationID(null,
+                    VIEW_PREFIX + tableDefinitions.size());
+            if (definition instanceof DatabaseRelationDefinition)
+                tableDefinitions.add(sqladapter.sqlTableName(definition.getID().getSQLRendering(),
+                        alias.getSQLRendering()));
+            else if (definition instanceof ParserViewDefinition)
+                tableDefinitions.add(String.format("(%s) %s", ((ParserViewDefinition) definition).getStatement(),
+                        alias.getSQLRendering()));
+            else
+                throw new NotDirectlyTranslatableException("relation " + definition);
+
+            for (int i = 0; i < atom.getArguments().size(); i++) {
+                // Indexes from 1
+                Attribute attribute = definition.getAttribute(i + 1);
+                QualifiedAttributeID column = new QualifiedAttributeID(alias, attribute.getID());
+                VariableOrGroundTerm argument = atom.getTerm(i);
+                if (argument instanceof Variable) {
+                    Variable variable = (Variable) argument;
+                    QualifiedAttributeID previousColumn = columns.get(variable);
+                    if (previousColumn == null) {
+                        columns.put(variable, column);
+                        attributes.put(variable, attribute);
+                    }
+                    else
+                        conditions.add(previousColumn.getSQLRendering() + " = " + column.getSQLRendering());
+                }
+                else
+                    conditions.add(column.getSQLRendering() + " = " + getComparedConstant(argument, attribute));
+            }
+        }
+
+        private String getCondition(ImmutableTerm term) throws NotDirectlyTranslatableException {
+            if (term instanceof Variable)
+                return getColumn((Variable) term).getSQLRendering();
+            if (!(term instanceof ImmutableExpression))
+                return getConstant(term);
+
+            ImmutableExpression expression = (ImmutableExpression) term;
+            String template = OPERATIONS.get(expression.getFunctionSymbol());
+            if (template == null)
+                throw new NotDirectlyTranslatableException("operation " + expression.getFunctionSymbol());
+
+            ImmutableList<? extends ImmutableTerm> expressionArguments = expression.getArguments();
+            boolean isComparison = PARAMETERIZABLE_COMPARISONS.contains(expression.getFunctionSymbol())
+                    && expressionArguments.size() == 2;
+            List<String> arguments = new ArrayList<>();
+            for (int i = 0; i < expressionArguments.size(); i++) {
+                ImmutableTerm argument = expressionArguments.get(i);
+                ImmutableTerm otherArgument = isComparison ? expressionArguments.get(1 - i) : null;
+                arguments.add((argument instanceof ValueConstant) && (otherArgument instanceof Variable)
+                        ? getComparedConstant(argument, getAttribute((Variable) otherArgument))
+                        : getCondition(argument));
+            }
+            return String.format(template, arguments.toArray());
+        }
+
+        /**
+         * A constant compared to a column is passed as a parameter typed after the column
+         * (when enabled and possible, see OneShotSQLGeneratorEngine.getParameterValue())
+         */
+        private String getComparedConstant(ImmutableTerm term, Attribute attribute)
+                throws NotDirectlyTranslatableException {
+            String lexicalForm = getConstant(term);
+            if (parameterizeConstants) {
+                Optional<Object> parameterValue = OneShotSQLGeneratorEngine.getParameterValue(
+                        (ValueConstant) term, attribute.getType());
+                if (parameterValue.isPresent()) {
+                    parameters.add(parameterValue.get());
+                    return "?";
+                }
+            }
+            return lexicalForm;
+        }
+
+        private String getConstant(ImmutableTerm term) throws NotDirectlyTranslatableException {
+            if (term instanceof ValueConstant) {
+                switch (((ValueConstant) term).getType()) {
+                    case STRING:
+                    case BOOLEAN:
+                    case DECIMAL:
+                    case DOUBLE:
+                    case FLOAT:
+                    case INTEGER:
+                    case LONG:
+                    case INT:
+                    case UNSIGNED_INT:
+                    case NON_POSITIVE_INTEGER:
+                    case NEGATIVE_INTEGER:
+                    case POSITIVE_INTEGER:
+                    case NON_NEGATIVE_INTEGER:
+                        return engine.getSQLLexicalForm((ValueConstant) term);
+                    default:
+                        break;
+                }
+            }
+            throw new NotDirectlyTranslatableException("constant " + term);
+        }
+
+        private QualifiedAttributeID getColumn(Variable variable) throws NotDirectlyTranslatableException {
+            QualifiedAttributeID column = columns.get(variable);
+            if (column == null)
+                throw new NotDirectlyTranslatableException("unbound variable " + variable);
+            return column;
+        }
+
+        private Attribute getAttribute(Variable variable) throws NotDirectlyTranslatableException {
+            getColumn(variable);
+            return attributes.get(variable);
+        }
+    }
+
+    /**
+     * The query is outside the fragment covered by this generator
+     */
+    private static final class NotDirectlyTranslatableException extends Exception {
+        private NotDirectlyTranslatableException(String message) {
+            super(message);
+        }
+    }
+}
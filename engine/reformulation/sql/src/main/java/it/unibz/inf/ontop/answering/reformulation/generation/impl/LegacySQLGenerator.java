@@ -18,15 +18,13 @@ import it.unibz.inf.ontop.dbschema.JdbcTypeMapper;
 import javax.annotation.Nullable;
 
 /**
- * Wrapper over a non thread-safe implementation
- *  --> the engine has to be cloned for every query
+ * Wrapper over the Datalog-based SQL generation engine.
+ *
+ * The engine is stateless, so it is shared by all the queries (no cloning).
  */
 public class LegacySQLGenerator implements NativeQueryGenerator {
 
-    /**
-     * To be cloned for every non-empty query!
-     */
-    private final OneShotSQLGeneratorEngine originalEngine;
+    private final OneShotSQLGeneratorEngine engine;
 
     @AssistedInject
     private LegacySQLGenerator(@Assisted DBMetadata metadata,
@@ -34,14 +32,13 @@ public class LegacySQLGenerator implements NativeQueryGenerator {
                                OntopReformulationSQLSettings settings,
                                IntermediateQuery2DatalogTranslator iq2DatalogTranslator,
                                JdbcTypeMapper jdbcTypeMapper) {
-        originalEngine = new OneShotSQLGeneratorEngine(metadata, iriDictionary, settings, jdbcTypeMapper, iq2DatalogTranslator);
+        engine = new OneShotSQLGeneratorEngine(metadata, iriDictionary, settings, jdbcTypeMapper, iq2DatalogTranslator);
     }
 
     @Override
     public ExecutableQuery generateSourceQuery(IntermediateQuery query, ImmutableList<String> signature)
             throws OntopReformulationException {
-        return originalEngine.clone()
-                .generateSourceQuery(query, signature);
+        return engine.generateSourceQuery(query, signature);
     }
 
     @Override
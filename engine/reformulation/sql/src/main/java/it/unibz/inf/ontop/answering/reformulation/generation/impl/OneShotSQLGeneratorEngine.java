@@ -35,6 +35,7 @@ import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.exception.IncompatibleTermException;
 import it.unibz.inf.ontop.exception.OntopReformulationException;
 import it.unibz.inf.ontop.exception.OntopTypingException;
+import it.unibz.inf.ontop.exception.OntopUnsupportedInputQueryException;
 import it.unibz.inf.ontop.injection.OntopReformulationSQLSettings;
 import it.unibz.inf.ontop.iq.IntermediateQuery;
 import it.unibz.inf.ontop.iq.node.OrderCondition;
@@ -54,6 +55,7 @@ import org.eclipse.rdf4j.model.vocabulary.XMLSchema;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import java.math.BigDecimal;
 import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Types;
@@ -70,8 +72,8 @@ import static it.unibz.inf.ontop.model.term.functionsymbol.Predicate.COL_TYPE.*;
  * This class generates an SQLExecutableQuery from the datalog program coming from the
  * unfolder.
  *
- * This class is NOT thread-safe (attributes values are query-dependent).
- * Thus, an instance of this class should NOT BE SHARED between QuestStatements but be DUPLICATED.
+ * Stateless and thread-safe: the query-dependent values are kept in a QueryContext
+ * created for each query. Can therefore be shared between QuestStatements.
  *
  *
  * @author mrezk, mariano, guohui
@@ -89,6 +91,7 @@ public class OneShotSQLGeneratorEngine {
     private static final String VIEW_PREFIX = "Q";
     private static final String VIEW_SUFFIX = "VIEW";
     private static final String VIEW_ANS_SUFFIX = "View";
+    private static final String CLOSURE_SUFFIX = "Closure";
 
     private static final String TYPE_STR = "%s AS %s" ;
     private static final String TYPE_SUFFIX = "QuestType";
@@ -99,27 +102,31 @@ public class OneShotSQLGeneratorEngine {
 
 	private static final String INDENT = "    ";
 
+	/**
+	 * Delimits the index of a parameter in the SQL string being generated.
+	 * Replaced by "?" once the full SQL string is known (see createExecutableQuery()).
+	 */
+	private static final char PARAMETER_DELIMITER = '\u0000';
+
+	/**
+	 * Comparisons whose constant operand can be passed as a parameter
+	 */
+	private static final ImmutableSet<ExpressionOperation> PARAMETERIZABLE_COMPARISONS = ImmutableSet.of(
+			ExpressionOperation.EQ, ExpressionOperation.NEQ, ExpressionOperation.GT, ExpressionOperation.GTE,
+			ExpressionOperation.LT, ExpressionOperation.LTE);
+
 	private final RDBMetadata metadata;
 	private final SQLDialectAdapter sqladapter;
 	private final IntermediateQuery2DatalogTranslator iq2DatalogTranslator;
 
 
-	private boolean generatingREPLACE = true;
+	private final boolean generatingREPLACE;
 	private final boolean distinctResultSet;
+	private final boolean parameterizeConstants;
 	private final String replace1, replace2;
 
-	/**
-	 * Mutable (query-dependent)
-	 */
-	private boolean isDistinct = false;
-	private boolean isOrderBy = false;
-
 	@Nullable
-	private IRIDictionary uriRefIds;
-
-	private Multimap<Predicate, CQIE> ruleIndex;
-
-	private Map<Predicate, String> sqlAnsViewMap;
+	private final IRIDictionary uriRefIds;
 
 	private final ImmutableMap<ExpressionOperation, String> operations;
 
@@ -151,6 +158,7 @@ public class OneShotSQLGeneratorEngine {
 		this.sqladapter = SQLAdapterFactory.getSQLDialectAdapter(driverURI,this.metadata.getDbmsVersion(), settings);
 		this.operations = buildOperations(sqladapter);
 		this.distinctResultSet = settings.isDistinctPostProcessingEnabled();
+		this.parameterizeConstants = settings.isSQLConstantParameterizationEnabled();
 		this.iq2DatalogTranslator = iq2DatalogTranslator;
 
 
@@ -174,26 +182,6 @@ public class OneShotSQLGeneratorEngine {
 		this.jdbcTypeMapper = jdbcTypeMapper;
  	}
 
-	/**
-	 * For clone purposes only
-	 */
-	private OneShotSQLGeneratorEngine(RDBMetadata metadata, SQLDialectAdapter sqlAdapter, boolean generatingReplace,
-                                      String replace1, String replace2, boolean distinctResultSet,
-                                      IRIDictionary uriRefIds, JdbcTypeMapper jdbcTypeMapper,
-                                      ImmutableMap<ExpressionOperation, String> operations,
-									  IntermediateQuery2DatalogTranslator iq2DatalogTranslator) {
-		this.metadata = metadata;
-		this.sqladapter = sqlAdapter;
-		this.operations = operations;
-		this.generatingREPLACE = generatingReplace;
-		this.replace1 = replace1;
-		this.replace2 = replace2;
-		this.distinctResultSet = distinctResultSet;
-		this.uriRefIds = uriRefIds;
-		this.jdbcTypeMapper = jdbcTypeMapper;
-		this.iq2DatalogTranslator = iq2DatalogTranslator;
-	}
-
 	private static ImmutableMap<ExpressionOperation, String> buildOperations(SQLDialectAdapter sqladapter) {
 		ImmutableMap.Builder<ExpressionOperation, String> builder = new ImmutableMap.Builder<ExpressionOperation, String>()
 				.put(ExpressionOperation.ADD, "%s + %s")
@@ -239,18 +227,6 @@ public class OneShotSQLGeneratorEngine {
 		);
 	}
 
-	/**
-	 * SQLGenerator must not be shared between threads
-	 * but CLONED.
-	 *
-	 * @return A cloned object without any query-dependent value
-	 */
-	@Override
-	public OneShotSQLGeneratorEngine clone() {
-		return new OneShotSQLGeneratorEngine(metadata, sqladapter, generatingREPLACE,
-				replace1, replace2, distinctResultSet, uriRefIds, jdbcTypeMapper, operations, iq2DatalogTranslator);
-	}
-
 	/**
 	 * Generates and SQL query ready to be executed by Quest. Each query is a
 	 * SELECT FROM WHERE query. To know more about each of these see the inner
@@ -270,9 +246,7 @@ public class OneShotSQLGeneratorEngine {
 		DatalogDependencyGraphGenerator depGraph = new DatalogDependencyGraphGenerator(
 				queryProgram);
 
-		sqlAnsViewMap = new HashMap<>();
-
-		ruleIndex = depGraph.getRuleIndex();
+		Multimap<Predicate, CQIE> ruleIndex = depGraph.getRuleIndex();
 
 		List<Predicate> predicatesInBottomUp = depGraph
 				.getPredicatesInBottomUp();
@@ -280,11 +254,11 @@ public class OneShotSQLGeneratorEngine {
 		List<Predicate> extensionalPredicates = depGraph
 				.getExtensionalPredicates();
 
-		isDistinct = hasSelectDistinctStatement(queryProgram);
-		isOrderBy = hasOrderByClause(queryProgram);
+		QueryContext context = new QueryContext(ruleIndex, hasSelectDistinctStatement(queryProgram),
+				hasOrderByClause(queryProgram));
 		if (queryProgram.getQueryModifiers().hasModifiers()) {
 			final String outerViewName = "SUB_QVIEW";
-			String subquery = generateQuery(signature, ruleIndex, predicatesInBottomUp, extensionalPredicates);
+			String subquery = generateQuery(signature, context, predicatesInBottomUp, extensionalPredicates);
 
 			String modifier;
 
@@ -317,13 +291,53 @@ public class OneShotSQLGeneratorEngine {
 			sql += subquery + "\n";
 			sql += ") " + outerViewName + "\n";
 			sql += modifier;
-			return new SQLExecutableQuery(sql, signature);
+			return createExecutableQuery(addCommonTableExpressions(sql, context), signature, context);
 		} else {
-			String sqlQuery = generateQuery(signature, ruleIndex, predicatesInBottomUp, extensionalPredicates);
-			return new SQLExecutableQuery(sqlQuery, signature);
+			String sqlQuery = generateQuery(signature, context, predicatesInBottomUp, extensionalPredicates);
+			return createExecutableQuery(addCommonTableExpressions(sqlQuery, context), signature, context);
 		}
 	}
 
+	SQLDialectAdapter getSQLAdapter() {
+		return sqladapter;
+	}
+
+	/**
+	 * Wraps the SQL expression into the REPLACE calls making it safe for IRIs (when enabled)
+	 */
+	String encodeIRISafe(String sqlExpression) {
+		return replace1 + sqlExpression + replace2;
+	}
+
+	private String addCommonTableExpressions(String sql, QueryContext context) {
+		return context.commonTableExpressions.isEmpty()
+				? sql
+				: sqladapter.sqlWithCommonTableExpressions(context.commonTableExpressions, sql);
+	}
+
+	/**
+	 * Replaces the parameter references by "?", in the order in which they appear in the SQL string
+	 * (a view may be inlined several times)
+	 */
+	private static SQLExecutableQuery createExecutableQuery(String sql, ImmutableList<String> signature,
+															QueryContext context) {
+		if (context.parameters.isEmpty())
+			return new SQLExecutableQuery(sql, signature);
+
+		StringBuilder sb = new StringBuilder(sql.length());
+		ImmutableList.Builder<Object> parameters = ImmutableList.builder();
+		int start = 0;
+		int index;
+		while ((index = sql.indexOf(PARAMETER_DELIMITER, start)) >= 0) {
+			int end = sql.indexOf(PARAMETER_DELIMITER, index + 1);
+			sb.append(sql, start, index).append('?');
+			parameters.add(context.parameters.get(Integer.parseInt(sql.substring(index + 1, end))));
+			start = end + 1;
+		}
+		sb.append(sql, start, sql.length());
+		return new SQLExecutableQuery(sb.toString(), signature, parameters.build());
+	}
+
 	private IntermediateQuery normalizeIQ(IntermediateQuery intermediateQuery) {
 
 		IntermediateQuery groundTermFreeQuery = new GroundTermRemovalFromDataNodeReshaper()
@@ -363,8 +377,8 @@ public class OneShotSQLGeneratorEngine {
 	 *
 	 * @param signature
 	 *            The Select variables in the SPARQL query
-	 * @param ruleIndex
-	 *            The index that maps intentional predicates to its rules
+	 * @param context
+	 *            Query-dependent values, including the index that maps intentional predicates to its rules
 	 * @param predicatesInBottomUp
 	 *            The topologically ordered predicates in
 	 *            <code> query </code>.
@@ -374,10 +388,12 @@ public class OneShotSQLGeneratorEngine {
 	 * @return
 	 */
 	private String generateQuery(List<String> signature,
-								 Multimap<Predicate, CQIE> ruleIndex,
+								 QueryContext context,
 								 List<Predicate> predicatesInBottomUp,
 								 List<Predicate> extensionalPredicates) throws OntopReformulationException {
 
+		Multimap<Predicate, CQIE> ruleIndex = context.ruleIndex;
+
 		int numPreds = predicatesInBottomUp.size();
 		int i = 0;
 
@@ -408,7 +424,7 @@ public class OneShotSQLGeneratorEngine {
 				 * extensional predicates are defined by DBs
 				 */
 			} else {
-				ParserViewDefinition view = createViewFrom(pred, metadata, ruleIndex, subQueryDefinitions,
+				ParserViewDefinition view = createViewFrom(pred, metadata, context, subQueryDefinitions,
 						termTypeMap, castTypeMap.get(pred));
 
 				subQueryDefinitions.put(pred, view);
@@ -438,12 +454,12 @@ public class OneShotSQLGeneratorEngine {
 			 */
 			boolean isAns1 = true;
 			String querystr = generateQueryFromSingleRule(cq, signature, isAns1, castTypeMap.get(predAns1),
-					subQueryDefinitions, termTypeMap.get(cq));
+					subQueryDefinitions, termTypeMap.get(cq), context);
 
 			queryStrings.add(querystr);
 		}
 
-		StringBuilder result = createUnionFromSQLList(queryStrings);
+		StringBuilder result = createUnionFromSQLList(queryStrings, context);
 
 		return result.toString();
 	}
@@ -458,7 +474,7 @@ public class OneShotSQLGeneratorEngine {
 	 *                       of SQL strings
 	 * @return Union of sql queries
 	 */
-	private StringBuilder createUnionFromSQLList(List<String> queriesStrings) {
+	private StringBuilder createUnionFromSQLList(List<String> queriesStrings, QueryContext context) {
 		Iterator<String> queryStringIterator = queriesStrings.iterator();
 		StringBuilder result = new StringBuilder();
 		if (queryStringIterator.hasNext()) {
@@ -466,7 +482,7 @@ public class OneShotSQLGeneratorEngine {
 		}
 
 		String UNION;
-		if (isDistinct && !distinctResultSet) {
+		if (context.isDistinct && !distinctResultSet) {
 			UNION = "UNION";
 		} else {
 			UNION = "UNION ALL";
@@ -490,17 +506,18 @@ public class OneShotSQLGeneratorEngine {
 	 * @param castDatatypes
 	 * @param subQueryDefinitions
 	 * @param termTypes
+	 * @param context
 	 */
-	public String generateQueryFromSingleRule(CQIE cq, List<String> signature,
-											  boolean isAns1, List<COL_TYPE> castDatatypes,
-											  Map<Predicate, ParserViewDefinition> subQueryDefinitions,
-											  ImmutableList<Optional<TermType>> termTypes) {
-		QueryAliasIndex index = new QueryAliasIndex(cq, subQueryDefinitions);
+	private String generateQueryFromSingleRule(CQIE cq, List<String> signature,
+											   boolean isAns1, List<COL_TYPE> castDatatypes,
+											   Map<Predicate, ParserViewDefinition> subQueryDefinitions,
+											   ImmutableList<Optional<TermType>> termTypes, QueryContext context) {
+		QueryAliasIndex index = new QueryAliasIndex(cq, subQueryDefinitions, context);
 
 		boolean innerdistincts = false;
 
 		// && numberOfQueries == 1
-		if (isDistinct && !distinctResultSet) {
+		if (context.isDistinct && !distinctResultSet) {
 			innerdistincts = true;
 		}
 
@@ -572,6 +589,15 @@ public class OneShotSQLGeneratorEngine {
 			index.columnReferences.get(var).stream()
 					.map(QualifiedAttributeID::getSQLRendering)
 					.forEach(groupReferences::add);
+			/*
+			 * When the variable comes from a view, its type and language tag columns are also projected
+			 */
+			getNonMainColumnId(var, index, -2)
+					.map(QualifiedAttributeID::getSQLRendering)
+					.ifPresent(groupReferences::add);
+			getNonMainColumnId(var, index, -1)
+					.map(QualifiedAttributeID::getSQLRendering)
+					.ifPresent(groupReferences::add);
 		}
 
 		if(!groupReferences.isEmpty()) {
@@ -618,7 +644,7 @@ public class OneShotSQLGeneratorEngine {
 	 * The idea is to use the view definition in the case of Union in the
 	 * Optionals/LeftJoins
 	 *
-	 * @param ruleIndex
+	 * @param context
 	 * @param subQueryDefinitions
 	 * @param termTypeMap
 	 *@param castTypes @throws OBDAException
@@ -627,14 +653,15 @@ public class OneShotSQLGeneratorEngine {
 	 */
 
 	private ParserViewDefinition createViewFrom(Predicate pred, RDBMetadata metadata,
-												Multimap<Predicate, CQIE> ruleIndex,
+												QueryContext context,
 												Map<Predicate, ParserViewDefinition> subQueryDefinitions,
 												ImmutableMap<CQIE, ImmutableList<Optional<TermType>>> termTypeMap,
-												ImmutableList<COL_TYPE> castTypes) {
+												ImmutableList<COL_TYPE> castTypes)
+			throws OntopUnsupportedInputQueryException {
 
 		/* Creates BODY of the view query */
 
-		Collection<CQIE> ruleList = ruleIndex.get(pred);
+		Collection<CQIE> ruleList = context.ruleIndex.get(pred);
 
 		String unionView;
 
@@ -653,7 +680,7 @@ public class OneShotSQLGeneratorEngine {
 
 			/* Creates the SQL for the View */
 			String sqlQuery = generateQueryFromSingleRule(rule, varContainer,
-					false, castTypes, subQueryDefinitions, termTypeMap.get(rule));
+					false, castTypes, subQueryDefinitions, termTypeMap.get(rule), context);
 
 			sqls.add(sqlQuery);
 		}
@@ -673,6 +700,22 @@ public class OneShotSQLGeneratorEngine {
 		String safePredicateName = escapeName(pred.getName());
 		String viewname = sqladapter.nameView(VIEW_PREFIX, safePredicateName, VIEW_ANS_SUFFIX,
 				alreadyAllocatedViewNames);
+
+		/*
+		 * Transitive closure: the rule (unique) defines its edges
+		 */
+		Optional<Function> optionalPathAtom = ruleList.stream()
+				.flatMap(r -> r.getBody().stream())
+				.filter(a -> DatalogAlgebraOperatorPredicates.isPathPredicate(a.getFunctionSymbol()))
+				.findFirst();
+		if (optionalPathAtom.isPresent()) {
+			Function pathAtom = optionalPathAtom.get();
+			QueryAliasIndex index = new QueryAliasIndex(ruleList.iterator().next(), subQueryDefinitions, context);
+			unionView = createTransitiveClosure(unionView, safePredicateName,
+					pathAtom.getFunctionSymbol() == DatalogAlgebraOperatorPredicates.SPARQL_ZERO_OR_MORE_PATH,
+					getConstantPathEnd(pathAtom, 2, index), getConstantPathEnd(pathAtom, 3, index),
+					alreadyAllocatedViewNames, context);
+		}
 		RelationID viewId = idFactory.createRelationID(null, viewname);
 
 		List<QualifiedAttributeID> columnIds = Lists.newArrayListWithExpectedSize(3 * headArity);
@@ -691,11 +734,83 @@ public class OneShotSQLGeneratorEngine {
 		ParserViewDefinition view = new ParserViewDefinition(viewId, unionView);
 		columnIds.stream().forEach(view::addAttribute);
 
-		sqlAnsViewMap.put(pred, unionView);
+		context.sqlAnsViewMap.put(pred, unionView);
 
 		return view;
 	}
 
+	/**
+	 * SQL string of the constant source (i = 2) or target (i = 3) of the paths, if any.
+	 * Only IRIs are considered.
+	 */
+	private Optional<String> getConstantPathEnd(Function pathAtom, int i, QueryAliasIndex index) {
+		if (pathAtom.getArity() <= i)
+			return Optional.empty();
+		Term term = pathAtom.getTerm(i);
+		return (term instanceof URIConstant
+				|| (term instanceof Function && ((Function) term).getFunctionSymbol() instanceof URITemplatePredicate))
+				? Optional.of(getSQLString(term, index, false))
+				: Optional.empty();
+	}
+
+	/**
+	 * Registers the transitive closure of the edges (inlined as a sub-query) as a common table expression.
+	 *
+	 * The paths start from the constant source, if any. Otherwise, the paths to the constant target, if any,
+	 * are built backwards (the edges are reversed: the source columns become the chained ones).
+	 * The constant ends are still compared to the result by the rule using the closure.
+	 *
+	 * Returns the query over the closure, extended for p* by the zero-length paths
+	 * between the nodes of the edges (restricted to the constant end).
+	 */
+	private String createTransitiveClosure(String edgeQuery, String safePredicateName, boolean includesZeroLengthPaths,
+										   Optional<String> constantSource, Optional<String> constantTarget,
+										   Set<RelationID> alreadyAllocatedViewNames, QueryContext context)
+			throws OntopUnsupportedInputQueryException {
+		String closureName = sqladapter.nameView(VIEW_PREFIX, safePredicateName, CLOSURE_SUFFIX,
+				alreadyAllocatedViewNames);
+		String edges = "(\n" + edgeQuery + "\n)";
+
+		ImmutableList<String> sourceColumns = getViewColumns(0);
+		ImmutableList<String> targetColumns = getViewColumns(1);
+
+		boolean isBackward = constantTarget.isPresent() && !constantSource.isPresent();
+		ImmutableList<String> startColumns = isBackward ? targetColumns : sourceColumns;
+		ImmutableList<String> endColumns = isBackward ? sourceColumns : targetColumns;
+		Optional<String> startNode = isBackward ? constantTarget : constantSource;
+
+		// The language tag columns are not compared (NULL for IRIs)
+		String closureDefinition = sqladapter.sqlTransitiveClosure(closureName, edges, startColumns, endColumns,
+				ImmutableList.of(startColumns.get(0), startColumns.get(2)),
+				ImmutableList.of(endColumns.get(0), endColumns.get(2)),
+				startNode.map(n -> startColumns.get(2) + " = " + n))
+				.orElseThrow(() -> new OntopUnsupportedInputQueryException(
+						"Recursive queries (property paths) are not supported by this database"));
+		context.commonTableExpressions.add(closureDefinition);
+
+		// The closure may have additional columns (named after the view columns, in both directions)
+		String sources = String.join(", ", sourceColumns);
+		String targets = String.join(", ", targetColumns);
+		if (!includesZeroLengthPaths)
+			return "SELECT DISTINCT " + sources + ", " + targets + " FROM " + closureName;
+
+		return "SELECT " + sources + ", " + targets + " FROM " + closureName
+				+ "\nUNION\nSELECT " + sources + ", " + sources + " FROM " + edges + " e"
+				+ startNode.map(n -> " WHERE " + sourceColumns.get(2) + " = " + n).orElse("")
+				+ "\nUNION\nSELECT " + targets + ", " + targets + " FROM " + edges + " e"
+				+ startNode.map(n -> " WHERE " + targetColumns.get(2) + " = " + n).orElse("");
+	}
+
+	/**
+	 * Type, language tag and main columns of the i-th variable of a view
+	 */
+	private ImmutableList<String> getViewColumns(int i) {
+		return ImmutableList.of(
+				sqladapter.sqlQuote("v" + i + TYPE_SUFFIX),
+				sqladapter.sqlQuote("v" + i + LANG_SUFFIX),
+				sqladapter.sqlQuote("v" + i));
+	}
+
 	/**
 	 * Escapes view names.
 	 */
@@ -785,8 +900,15 @@ public class OneShotSQLGeneratorEngine {
 			String expressionFormat = operations.get(functionSymbol);
 			Term left = atom.getTerm(0);
 			Term right = atom.getTerm(1);
-			String leftOp = getSQLString(left, index, true);
-			String rightOp = getSQLString(right, index, true);
+			String leftOp, rightOp;
+			if (PARAMETERIZABLE_COMPARISONS.contains(functionSymbol)) {
+				leftOp = getSQLStringForComparisonOperand(left, right, index);
+				rightOp = getSQLStringForComparisonOperand(right, left, index);
+			}
+			else {
+				leftOp = getSQLString(left, index, true);
+				rightOp = getSQLString(right, index, true);
+			}
 
 			return String.format("(" + expressionFormat + ")", leftOp,
 					rightOp);
@@ -982,7 +1104,7 @@ public class OneShotSQLGeneratorEngine {
 			return "";
 		} else if (atom.isAlgebraFunction()) {
 
-			if (predicate == SPARQL_GROUP) {
+			if (predicate == SPARQL_GROUP || DatalogAlgebraOperatorPredicates.isPathPredicate(predicate)) {
 				return "";
 			}
 			List<Function> innerTerms = new ArrayList<>(atom.getTerms().size());
@@ -1103,6 +1225,10 @@ public class OneShotSQLGeneratorEngine {
 		if (atom.isDataTypeFunction()) {
 			return Collections.emptySet();
 		}
+		if (atom.getFunctionSymbol() == SPARQL_GROUP
+				|| DatalogAlgebraOperatorPredicates.isPathPredicate(atom.getFunctionSymbol())) {
+			return Collections.emptySet();
+		}
 		/*
 		 * we have an algebra operator (join or left join) if its a join, we need
 		 * to collect all the variables of each nested atom., if its a left
@@ -1275,6 +1401,12 @@ public class OneShotSQLGeneratorEngine {
 		 */
 		Set<String> sqlVariableNames = new HashSet<>();
 
+		/*
+		 * Without grouping variable, the aggregates are also computed over an empty input
+		 */
+		boolean isUngroupedAggregation = query.getBody().stream()
+				.anyMatch(a -> (a.getFunctionSymbol() == SPARQL_GROUP) && a.getTerms().isEmpty());
+
 		while (hit.hasNext()) {
 			Term ht = hit.next();
 
@@ -1302,8 +1434,10 @@ public class OneShotSQLGeneratorEngine {
 				varName = "v" + hpos;
 			}
 
-			String typeColumn = getTypeColumnForSELECT(ht, varName, index, sqlVariableNames, optionalTermType);
-			String mainColumn = getMainColumnForSELECT(ht, varName, index, castType, sqlVariableNames);
+			String typeColumn = getTypeColumnForSELECT(ht, varName, index, sqlVariableNames, optionalTermType,
+					castType);
+			String mainColumn = getMainColumnForSELECT(ht, varName, index, castType, sqlVariableNames,
+					isUngroupedAggregation);
 			String langColumn = getLangColumnForSELECT(ht, varName, index, sqlVariableNames, optionalTermType);
 
 			sb.append("\n   ");
@@ -1322,7 +1456,7 @@ public class OneShotSQLGeneratorEngine {
 
 	private String getMainColumnForSELECT(Term ht, String signatureVarName,
 										  QueryAliasIndex index, COL_TYPE castDataType,
-										  Set<String> sqlVariableNames) {
+										  Set<String> sqlVariableNames, boolean isUngroupedAggregation) {
 
 		final String varName = sqladapter.nameTopVariable(signatureVarName, MAIN_COLUMN_SUFFIX, sqlVariableNames);
 		sqlVariableNames.add(varName);
@@ -1386,6 +1520,8 @@ public class OneShotSQLGeneratorEngine {
 			}
 			else if (ov.isOperation()) {
 				mainColumn = getSQLString(ov, index, false);
+				if (isUngroupedAggregation)
+					mainColumn = getEmptyInputSafeAggregate(ov, mainColumn);
 			}
 			else {
 				throw new IllegalArgumentException(
@@ -1436,6 +1572,10 @@ public class OneShotSQLGeneratorEngine {
 		if (ht instanceof Variable) {
 			lang = getLangFromVariable((Variable) ht, index);
 		}
+		else if ((!optionalTermType.isPresent()) && isAggregationPreservingTheArgumentType(ht)) {
+			lang = getNonMainColumnOfAggregationArgument((Function) ht, index, -1)
+					.orElse("NULL");
+		}
 		else {
 			lang = optionalTermType
 					.filter(t -> t.getColType() == LANG_STRING)
@@ -1461,10 +1601,12 @@ public class OneShotSQLGeneratorEngine {
 	 * @param index Used when the term correspond to a column name
 	 * @param sqlVariableNames Used for creating non conflicting variable names (when they have to be shorten)  @return A string like "5 AS ageQuestType"
 	 * @param optionalTermType
+	 * @param castType Used for the aggregates whose type could not be inferred
 	 */
 	private String getTypeColumnForSELECT(Term projectedTerm, String signatureVarName,
 										  QueryAliasIndex index,
-										  Set<String> sqlVariableNames, Optional<TermType> optionalTermType) {
+										  Set<String> sqlVariableNames, Optional<TermType> optionalTermType,
+										  COL_TYPE castType) {
 
 		final String varName = sqladapter.nameTopVariable(signatureVarName, TYPE_SUFFIX, sqlVariableNames);
 		sqlVariableNames.add(varName);
@@ -1473,6 +1615,12 @@ public class OneShotSQLGeneratorEngine {
 		if (projectedTerm instanceof Variable) {
 			typeString = getTypeFromVariable((Variable) projectedTerm, index);
 		}
+		else if ((!optionalTermType.isPresent()) && isAggregation(projectedTerm) && (castType != null)) {
+			typeString = Optional.of(projectedTerm)
+					.filter(OneShotSQLGeneratorEngine::isAggregationPreservingTheArgumentType)
+					.flatMap(t -> getNonMainColumnOfAggregationArgument((Function) t, index, -2))
+					.orElseGet(() -> String.format("%d", castType.getQuestCode()));
+		}
 		else {
 			COL_TYPE colType = optionalTermType
 					.map(TermType::getColType)
@@ -1487,6 +1635,61 @@ public class OneShotSQLGeneratorEngine {
 		return String.format(TYPE_STR, typeString, varName);
 	}
 
+	/**
+	 * Over an empty input, SUM, AVG and GROUP_CONCAT return NULL in SQL, but 0 and "" in SPARQL
+	 * (like in AggregationNode). COUNT already returns 0.
+	 */
+	private static String getEmptyInputSafeAggregate(Function aggregate, String aggregateString) {
+		if (!isAggregation(aggregate))
+			return aggregateString;
+		switch ((ExpressionOperation) aggregate.getFunctionSymbol()) {
+			case SUM:
+			case AVG:
+				return "COALESCE(" + aggregateString + ", 0)";
+			case GROUP_CONCAT:
+				return "COALESCE(" + aggregateString + ", '')";
+			default:
+				return aggregateString;
+		}
+	}
+
+	private static boolean isAggregation(Term term) {
+		return (term instanceof Function)
+				&& (((Function) term).getFunctionSymbol() instanceof ExpressionOperation)
+				&& ((ExpressionOperation) ((Function) term).getFunctionSymbol()).isAggregation();
+	}
+
+	/**
+	 * MIN, MAX and SAMPLE return one value of their argument
+	 */
+	private static boolean isAggregationPreservingTheArgumentType(Term term) {
+		if (!isAggregation(term))
+			return false;
+		switch ((ExpressionOperation) ((Function) term).getFunctionSymbol()) {
+			case MIN:
+			case MAX:
+			case SAMPLE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
+	/**
+	 * When the argument of the aggregate is a variable provided by a view, aggregates its type (or lang) column.
+	 *
+	 * The values of the group are assumed to share the same type (the MAX is only used for syntactic reasons).
+	 */
+	private static Optional<String> getNonMainColumnOfAggregationArgument(Function aggregate, QueryAliasIndex index,
+																		  int relativeIndexWrtMainColumn) {
+		Term argument = aggregate.getTerm(0);
+		if (!(argument instanceof Variable))
+			return Optional.empty();
+
+		return getNonMainColumnId((Variable) argument, index, relativeIndexWrtMainColumn)
+				.map(id -> "MAX(" + id.getSQLRendering() + ")");
+	}
+
 	/**
 	 * Gets the type of a variable.
 	 *
@@ -1640,7 +1843,7 @@ public class OneShotSQLGeneratorEngine {
 				params[i] = param;
 				i += 1;
 			}
-			return getStringConcatenation(params);
+			return getStringConcatenation(params, index);
 
 		} else if (t instanceof Variable) {
 			/*
@@ -1669,7 +1872,7 @@ public class OneShotSQLGeneratorEngine {
 	}
 
 	// TODO: move to SQLAdapter
-	private String getStringConcatenation(String[] params) {
+	private String getStringConcatenation(String[] params, QueryAliasIndex index) {
 		String toReturn = sqladapter.strConcat(params);
 		if (sqladapter instanceof DB2SQLDialectAdapter) {
 			/*
@@ -1679,7 +1882,7 @@ public class OneShotSQLGeneratorEngine {
 			 * ://publib.boulder.ibm.com/infocenter/db2luw/v9r5/index.jsp?topic
 			 * =%2Fcom.ibm.db2.luw.messages.sql.doc%2Fdoc%2Fmsql00134n.html
 			 */
-			if (isDistinct || isOrderBy) {
+			if (index.context.isDistinct || index.context.isOrderBy) {
 				return sqladapter.sqlCast(toReturn, Types.VARCHAR);
 			}
 		}
@@ -2065,20 +2268,38 @@ public class OneShotSQLGeneratorEngine {
 				return result;
 			}
 			else if (functionSymbol == ExpressionOperation.COUNT) {
-				if (function.getTerm(0).toString().equals("*")) {
+				Term argument = function.getTerm(0);
+				// COUNT(*) is translated as the count of a constant
+				if (argument.toString().equals("*") || (argument instanceof Constant)) {
 					return "COUNT(*)";
 				}
-				String columnName = getSQLString(function.getTerm(0), index, false);
+				String columnName = getSQLString(argument, index, false);
 				//havingCond = true;
 				return "COUNT(" + columnName + ")";
+			} else if (functionSymbol == ExpressionOperation.COUNT_DISTINCT) {
+				String columnName = getSQLString(function.getTerm(0), index, false);
+				return "COUNT(DISTINCT " + columnName + ")";
 			} else if (functionSymbol == ExpressionOperation.AVG) {
 				String columnName = getSQLString(function.getTerm(0), index, false);
 				//havingCond = true;
-				return "AVG(" + columnName + ")";
+				// Typed as xsd:decimal: the average of an integer column is not truncated
+				return "AVG(" + sqladapter.sqlCast(columnName, Types.DECIMAL) + ")";
 			} else if (functionSymbol == ExpressionOperation.SUM) {
 				String columnName = getSQLString(function.getTerm(0), index, false);
 				//havingCond = true;
 				return "SUM(" + columnName + ")";
+			} else if (functionSymbol == ExpressionOperation.MIN
+					// Any value of the group is acceptable for SAMPLE
+					|| functionSymbol == ExpressionOperation.SAMPLE) {
+				String columnName = getSQLString(function.getTerm(0), index, false);
+				return "MIN(" + columnName + ")";
+			} else if (functionSymbol == ExpressionOperation.MAX) {
+				String columnName = getSQLString(function.getTerm(0), index, false);
+				return "MAX(" + columnName + ")";
+			} else if (functionSymbol == ExpressionOperation.GROUP_CONCAT) {
+				String columnName = getSQLString(function.getTerm(0), index, false);
+				String separator = getSQLString(function.getTerm(1), index, false);
+				return sqladapter.sqlGroupConcat(columnName, separator);
 			}
 		}
 
@@ -2106,7 +2327,7 @@ public class OneShotSQLGeneratorEngine {
 	 * @param constant
 	 * @return
 	 */
-	private String getSQLLexicalForm(ValueConstant constant) {
+	String getSQLLexicalForm(ValueConstant constant) {
 		switch (constant.getType()) {
 			case BNODE:
 			case OBJECT:
@@ -2138,6 +2359,111 @@ public class OneShotSQLGeneratorEngine {
 		}
 	}
 
+	/**
+	 * A constant compared to a column is passed as a parameter (when enabled and possible).
+	 */
+	private String getSQLStringForComparisonOperand(Term operand, Term otherOperand, QueryAliasIndex index) {
+		if (parameterizeConstants && (operand instanceof ValueConstant) && (otherOperand instanceof Variable)
+				// Identifiers of the IRI dictionary are inlined
+				&& !(hasIRIDictionary() && (((ValueConstant) operand).getType() == OBJECT
+						|| ((ValueConstant) operand).getType() == STRING))) {
+			Optional<Object> parameterValue = index.getColumnAttribute((Variable) otherOperand)
+					.flatMap(a -> getParameterValue((ValueConstant) operand, a.getType()));
+			if (parameterValue.isPresent())
+				return index.context.addParameter(parameterValue.get());
+		}
+		return getSQLString(operand, index, true);
+	}
+
+	/**
+	 * Java value to be bound to a prepared statement parameter compared to a column of the given JDBC type.
+	 *
+	 * The value is typed after the column, not after the constant: e.g. the string "5" extracted from an IRI
+	 * is bound as a number when compared to an integer column (some DBs, like PostgreSQL, do not compare
+	 * a VARCHAR parameter with an integer column).
+	 * Only strings and numbers are passed as parameters (booleans and temporal values have dialect-specific
+	 * lexical forms).
+	 *
+	 * Empty when the constant has to be inlined: the column type is unknown or not supported,
+	 * or the constant does not match it.
+	 */
+	static Optional<Object> getParameterValue(ValueConstant constant, int columnType) {
+		String value = constant.getValue();
+		switch (constant.getType()) {
+			case OBJECT:
+			case STRING:
+			case LITERAL:
+			case LANG_STRING:
+			case BNODE:
+			case INTEGER:
+			case LONG:
+			case INT:
+			case UNSIGNED_INT:
+			case NON_POSITIVE_INTEGER:
+			case NEGATIVE_INTEGER:
+			case POSITIVE_INTEGER:
+			case NON_NEGATIVE_INTEGER:
+			case DECIMAL:
+			case DOUBLE:
+			case FLOAT:
+				break;
+			default:
+				return Optional.empty();
+		}
+
+		switch (columnType) {
+			case Types.VARCHAR:
+			case Types.CHAR:
+			case Types.LONGVARCHAR:
+			case Types.NVARCHAR:
+			case Types.NCHAR:
+			case Types.LONGNVARCHAR:
+				// Numbers are inlined (compared as numbers by some DBs)
+				return isStringConstant(constant)
+						? Optional.of(value)
+						: Optional.empty();
+			case Types.TINYINT:
+			case Types.SMALLINT:
+			case Types.INTEGER:
+			case Types.BIGINT:
+				try {
+					return Optional.of(Long.valueOf(value.trim()));
+				} catch (NumberFormatException e) {
+					return Optional.empty();
+				}
+			case Types.DECIMAL:
+			case Types.NUMERIC:
+				try {
+					return Optional.of(new BigDecimal(value.trim()));
+				} catch (NumberFormatException e) {
+					return Optional.empty();
+				}
+			case Types.REAL:
+			case Types.FLOAT:
+			case Types.DOUBLE:
+				try {
+					return Optional.of(Double.valueOf(value.trim()));
+				} catch (NumberFormatException e) {
+					return Optional.empty();
+				}
+			default:
+				return Optional.empty();
+		}
+	}
+
+	private static boolean isStringConstant(ValueConstant constant) {
+		switch (constant.getType()) {
+			case OBJECT:
+			case STRING:
+			case LITERAL:
+			case LANG_STRING:
+			case BNODE:
+				return true;
+			default:
+				return false;
+		}
+	}
+
 	/***
 	 * We look for the ID in the list of IDs, if its not there, we return -2,
 	 * which we know will never appear on the DB. This is correct because if a
@@ -2157,6 +2483,44 @@ public class OneShotSQLGeneratorEngine {
 
 	}
 
+	/**
+	 * Query-dependent values, shared by all the rules of the Datalog program of the query.
+	 */
+	private static class QueryContext {
+		private final Multimap<Predicate, CQIE> ruleIndex;
+		private final boolean isDistinct;
+		private final boolean isOrderBy;
+		/**
+		 * Filled while the views of the ans predicates are created (bottom-up)
+		 */
+		private final Map<Predicate, String> sqlAnsViewMap;
+		/**
+		 * Values of the parameters, referred to by their index in the SQL string being generated
+		 */
+		private final List<Object> parameters;
+		/**
+		 * Definitions of the WITH clause (e.g. for the transitive closures), in their order of creation
+		 */
+		private final List<String> commonTableExpressions;
+
+		private QueryContext(Multimap<Predicate, CQIE> ruleIndex, boolean isDistinct, boolean isOrderBy) {
+			this.ruleIndex = ruleIndex;
+			this.isDistinct = isDistinct;
+			this.isOrderBy = isOrderBy;
+			this.sqlAnsViewMap = new HashMap<>();
+			this.parameters = new ArrayList<>();
+			this.commonTableExpressions = new ArrayList<>();
+		}
+
+		/**
+		 * Returns the reference to the parameter to insert into the SQL string
+		 */
+		private String addParameter(Object value) {
+			parameters.add(value);
+			return PARAMETER_DELIMITER + String.valueOf(parameters.size() - 1) + PARAMETER_DELIMITER;
+		}
+	}
+
 	/**
 	 * Utility class to resolve "database" atoms to view definitions ready to be
 	 * used in a FROM clause, and variables, to column references defined over
@@ -2169,10 +2533,14 @@ public class OneShotSQLGeneratorEngine {
 		final Map<RelationID, RelationDefinition> dataDefinitionsById = new HashMap<>();
 		final Map<Variable, Set<QualifiedAttributeID>> columnReferences = new HashMap<>();
 
+		final QueryContext context;
+
 		int dataTableCount = 0;
 		boolean isEmpty = false;
 
-		public QueryAliasIndex(CQIE query, Map<Predicate, ParserViewDefinition> subQueryDefinitions) {
+		private QueryAliasIndex(CQIE query, Map<Predicate, ParserViewDefinition> subQueryDefinitions,
+								QueryContext context) {
+			this.context = context;
 			List<Function> body = query.getBody();
 			generateViews(body, subQueryDefinitions);
 		}
@@ -2272,7 +2640,7 @@ public class OneShotSQLGeneratorEngine {
 					 */
 					Attribute column;
 
-					if (ruleIndex.containsKey(atom.getFunctionSymbol())) {
+					if (context.ruleIndex.containsKey(atom.getFunctionSymbol())) {
 						// If I am here it means that it is not a database table
 						// but a view from an Ans predicate
 						int attPos = 3 * (index + 1);
@@ -2336,7 +2704,7 @@ public class OneShotSQLGeneratorEngine {
 			else {
 				// Should be an ans atom.
 				Predicate pred = atom.getFunctionSymbol();
-				String view = sqlAnsViewMap.get(pred);
+				String view = context.sqlAnsViewMap.get(pred);
 				if (view != null) {
 					// TODO: check if it is correct not to consider other view names.
 					final String viewName = sqladapter.sqlQuote(sqladapter.nameView(VIEW_PREFIX, pred.getName(),
@@ -2350,6 +2718,27 @@ public class OneShotSQLGeneratorEngine {
 			}
 		}
 
+		/**
+		 * Attribute of the database relation providing the variable.
+		 *
+		 * Empty if the variable is provided by a view (sub-query), whose column types are unknown.
+		 */
+		Optional<Attribute> getColumnAttribute(Variable var) {
+			Set<QualifiedAttributeID> references = columnReferences.get(var);
+			if (references == null || references.isEmpty())
+				return Optional.empty();
+			QualifiedAttributeID column = references.iterator().next();
+
+			return viewNames.entrySet().stream()
+					.filter(e -> e.getValue().equals(column.getRelation()))
+					.map(e -> dataDefinitions.get(e.getKey()))
+					.filter(d -> d instanceof DatabaseRelationDefinition)
+					.findFirst()
+					.flatMap(d -> d.getAttributes().stream()
+							.filter(a -> a.getID().equals(column.getAttribute()))
+							.findFirst());
+		}
+
 		public Optional<RelationDefinition> getDefinition(RelationID relationId) {
 			return Optional.ofNullable(dataDefinitionsById.get(relationId));
 		}
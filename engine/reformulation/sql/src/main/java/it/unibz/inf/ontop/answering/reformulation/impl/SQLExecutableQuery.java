@@ -6,22 +6,34 @@ import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 /**
  * SQL-query string, signature and optional construct template
  * (for SPARQL CONSTRUCT queries).
+ *
+ * The SQL string may contain parameter markers ("?"), to be bound (in order) to the parameters
+ * when executed as a prepared statement.
  */
 public class SQLExecutableQuery implements ExecutableQuery {
 
     private final String sqlQuery;
     private final ImmutableList<String> signature;
+    private final ImmutableList<Object> parameters;
 
     public SQLExecutableQuery(String sqlQuery, ImmutableList<String> signature) {
+        this(sqlQuery, signature, ImmutableList.of());
+    }
+
+    /**
+     * Parameters: Strings, Longs, BigDecimals or Doubles
+     */
+    public SQLExecutableQuery(String sqlQuery, ImmutableList<String> signature, ImmutableList<Object> parameters) {
         this.sqlQuery = sqlQuery;
         this.signature = signature;
+        this.parameters = parameters;
     }
+
     /**
      * Empty SQL
      */
     public SQLExecutableQuery(ImmutableList<String> signature) {
-        this.sqlQuery = "";
-        this.signature = signature;
+        this("", signature);
     }
 
     @Override
@@ -33,8 +45,44 @@ public class SQLExecutableQuery implements ExecutableQuery {
         return sqlQuery;
     }
 
+    @Override
+    public ImmutableList<Object> getParameters() {
+        return parameters;
+    }
+
+    public boolean hasParameters() {
+        return !parameters.isEmpty();
+    }
+
+    @Override
+    public int getNativeQuerySize() {
+        return sqlQuery.length();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        SQLExecutableQuery that = (SQLExecutableQuery) o;
+
+        return sqlQuery.equals(that.sqlQuery)
+                && signature.equals(that.signature)
+                && parameters.equals(that.parameters);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = sqlQuery.hashCode();
+        result = 31 * result + signature.hashCode();
+        result = 31 * result + parameters.hashCode();
+        return result;
+    }
+
     @Override
     public String toString() {
-        return sqlQuery;
+        return parameters.isEmpty()
+                ? sqlQuery
+                : sqlQuery + "\n-- Parameters: " + parameters;
     }
 }
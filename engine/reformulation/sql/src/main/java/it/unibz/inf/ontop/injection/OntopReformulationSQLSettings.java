@@ -3,4 +3,15 @@ package it.unibz.inf.ontop.injection;
 
 public interface OntopReformulationSQLSettings extends OntopReformulationSettings, OntopSQLCoreSettings {
 
+    /**
+     * Constants compared to columns are passed as parameters of a prepared statement
+     * instead of being inlined into the SQL query
+     */
+    boolean isSQLConstantParameterizationEnabled();
+
+    //--------------------------
+    // Keys
+    //--------------------------
+
+    String SQL_PARAMETERIZE_CONSTANTS = "ontop.sql.parameterizeConstants";
 }
@@ -28,6 +28,11 @@ public class OntopReformulationSQLSettingsImpl extends OntopReformulationSetting
         return loadDefaultPropertiesFromFile(OntopReformulationSQLSettings.class, DEFAULT_FILE);
     }
 
+    @Override
+    public boolean isSQLConstantParameterizationEnabled() {
+        return getRequiredBoolean(SQL_PARAMETERIZE_CONSTANTS);
+    }
+
     @Override
     public String getJdbcUrl() {
         return sqlSettings.getJdbcUrl();
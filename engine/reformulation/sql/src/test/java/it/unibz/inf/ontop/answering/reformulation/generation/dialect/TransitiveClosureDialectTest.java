@@ -0,0 +1,138 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.dialect;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.DB2SQLDialectAdapter;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.MonetDBSQLDialectAdapter;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.OracleSQLDialectAdapter;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.SAPHANASQLDialectAdapter;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.SQL99DialectAdapter;
+import it.unibz.inf.ontop.answering.reformulation.generation.dialect.impl.SQLServerSQLDialectAdapter;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * SQL of the transitive closures (property paths) in the different dialects
+ */
+public class TransitiveClosureDialectTest {
+
+    private static final ImmutableList<String> SOURCE_COLUMNS = ImmutableList.of("sT", "s");
+    private static final ImmutableList<String> TARGET_COLUMNS = ImmutableList.of("tT", "t");
+
+    @Test
+    public void testSQL99() {
+        assertEquals(Optional.of("closure (sT, s, tT, t) AS (\n" +
+                        "SELECT sT, s, tT, t FROM edge b\n" +
+                        "UNION\n" +
+                        "SELECT c.sT, c.s, b.tT, b.t FROM closure c, edge b WHERE c.tT = b.sT AND c.t = b.s\n" +
+                        ")"),
+                getClosure(new SQL99DialectAdapter()));
+    }
+
+    /**
+     * Only the anchor member is restricted (the recursive member follows all the edges)
+     */
+    @Test
+    public void testSQL99StartCondition() {
+        assertEquals(Optional.of("closure (sT, s, tT, t) AS (\n" +
+                        "SELECT sT, s, tT, t FROM edge b WHERE s = 'a'\n" +
+                        "UNION\n" +
+                        "SELECT c.sT, c.s, b.tT, b.t FROM closure c, edge b WHERE c.tT = b.sT AND c.t = b.s\n" +
+                        ")"),
+                new SQL99DialectAdapter().sqlTransitiveClosure("closure", "edge", SOURCE_COLUMNS, TARGET_COLUMNS,
+                        SOURCE_COLUMNS, TARGET_COLUMNS, Optional.of("s = 'a'")));
+    }
+
+    @Test
+    public void testSQL99CommonTableExpressions() {
+        assertEquals("WITH RECURSIVE a AS (x),\nb AS (y)\nSELECT * FROM b",
+                new SQL99DialectAdapter().sqlWithCommonTableExpressions(ImmutableList.of("a AS (x)", "b AS (y)"),
+                        "SELECT * FROM b"));
+    }
+
+    /**
+     * CONNECT BY: every tuple of the base relation is a root
+     */
+    @Test
+    public void testOracle() {
+        assertEquals(Optional.of("closure AS (\n" +
+                        "SELECT DISTINCT CONNECT_BY_ROOT sT AS sT, CONNECT_BY_ROOT s AS s, tT, t FROM edge b\n" +
+                        "CONNECT BY NOCYCLE PRIOR tT = sT AND PRIOR t = s\n" +
+                        ")"),
+                getClosure(new OracleSQLDialectAdapter()));
+        assertEquals("WITH closure AS (x)\nSELECT * FROM closure",
+                new OracleSQLDialectAdapter().sqlWithCommonTableExpressions(ImmutableList.of("closure AS (x)"),
+                        "SELECT * FROM closure"));
+    }
+
+    @Test
+    public void testOracleStartCondition() {
+        assertEquals(Optional.of("closure AS (\n" +
+                        "SELECT DISTINCT CONNECT_BY_ROOT sT AS sT, CONNECT_BY_ROOT s AS s, tT, t FROM edge b\n" +
+                        "START WITH s = 'a'\n" +
+                        "CONNECT BY NOCYCLE PRIOR tT = sT AND PRIOR t = s\n" +
+                        ")"),
+                new OracleSQLDialectAdapter().sqlTransitiveClosure("closure", "edge", SOURCE_COLUMNS, TARGET_COLUMNS,
+                        SOURCE_COLUMNS, TARGET_COLUMNS, Optional.of("s = 'a'")));
+    }
+
+    /**
+     * UNION ALL: the nodes of the path are kept for stopping at the cycles
+     */
+    @Test
+    public void testDB2() {
+        String source = encode("s", "VARCHAR(32000)");
+        String target = encode("t", "VARCHAR(32000)");
+        assertEquals(Optional.of("closure (s, t, ontopPath) AS (\n" +
+                        "SELECT s, t, CAST('|' || " + source + " || '|' || " + target + " || '|' AS VARCHAR(32000)) FROM edge b\n" +
+                        "UNION ALL\n" +
+                        "SELECT c.s, b.t, CAST(c.ontopPath || " + target + " || '|' AS VARCHAR(32000)) " +
+                        "FROM closure c, edge b WHERE c.t = b.s " +
+                        "AND NOT (LOCATE('|' || " + target + " || '|', c.ontopPath) > 0)\n" +
+                        ")"),
+                new DB2SQLDialectAdapter().sqlTransitiveClosure("closure", "edge", ImmutableList.of("s"),
+                        ImmutableList.of("t"), ImmutableList.of("s"), ImmutableList.of("t"), Optional.empty()));
+        assertEquals("WITH closure AS (x)\nSELECT * FROM closure",
+                new DB2SQLDialectAdapter().sqlWithCommonTableExpressions(ImmutableList.of("closure AS (x)"),
+                        "SELECT * FROM closure"));
+    }
+
+    /**
+     * Several chaining columns are separated by ','
+     */
+    @Test
+    public void testSQLServer() {
+        String closure = getClosure(new SQLServerSQLDialectAdapter()).get();
+        String targetNode = encode("tT", "VARCHAR(MAX)") + " + ',' + " + encode("t", "VARCHAR(MAX)");
+
+        assertTrue(closure, closure.startsWith("closure (sT, s, tT, t, ontopPath) AS (\nSELECT sT, s, tT, t, "));
+        assertTrue(closure, closure.contains("\nUNION ALL\nSELECT c.sT, c.s, b.tT, b.t, CAST(c.ontopPath + "
+                + targetNode + " + '|' AS VARCHAR(MAX)) FROM closure c, edge b WHERE c.tT = b.sT AND c.t = b.s "
+                + "AND NOT (CHARINDEX('|' + " + targetNode + " + '|', c.ontopPath) > 0)\n)"));
+        assertFalse(closure, closure.contains("\nUNION\n"));
+
+        // No limit on the depth of the recursion
+        assertEquals("WITH closure AS (x)\nSELECT * FROM closure\nOPTION (MAXRECURSION 0)",
+                new SQLServerSQLDialectAdapter().sqlWithCommonTableExpressions(ImmutableList.of("closure AS (x)"),
+                        "SELECT * FROM closure"));
+    }
+
+    @Test
+    public void testUnsupported() {
+        assertFalse(getClosure(new MonetDBSQLDialectAdapter()).isPresent());
+        assertFalse(getClosure(new SAPHANASQLDialectAdapter()).isPresent());
+    }
+
+    private static Optional<String> getClosure(SQLDialectAdapter adapter) {
+        return adapter.sqlTransitiveClosure("closure", "edge", SOURCE_COLUMNS, TARGET_COLUMNS,
+                SOURCE_COLUMNS, TARGET_COLUMNS, Optional.empty());
+    }
+
+    private static String encode(String column, String type) {
+        return "REPLACE(REPLACE(REPLACE(CAST(b." + column + " AS " + type + "), '%', '%25'), '|', '%7C'), ',', '%2C')";
+    }
+}
@@ -0,0 +1,61 @@
+package it.unibz.inf.ontop.answering.reformulation.generation.impl;
+
+import it.unibz.inf.ontop.model.term.ValueConstant;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate.COL_TYPE;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Types;
+import java.util.Optional;
+
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Parameters are typed after the column they are compared to, not after the constant
+ */
+public class SQLParameterValueTest {
+
+    @Test
+    public void testStringConstantAgainstIntegerColumn() {
+        // E.g. an argument of an IRI template
+        assertEquals(Optional.of(5L), getParameterValue("5", COL_TYPE.STRING, Types.INTEGER));
+        assertEquals(Optional.of(5L), getParameterValue("5", COL_TYPE.LITERAL, Types.BIGINT));
+        assertEquals(Optional.of(5L), getParameterValue(" 5 ", COL_TYPE.OBJECT, Types.SMALLINT));
+    }
+
+    @Test
+    public void testNonNumericConstantAgainstIntegerColumn() {
+        assertEquals(Optional.empty(), getParameterValue("abc", COL_TYPE.STRING, Types.INTEGER));
+        assertEquals(Optional.empty(), getParameterValue("5.5", COL_TYPE.DECIMAL, Types.INTEGER));
+    }
+
+    @Test
+    public void testStringColumn() {
+        assertEquals(Optional.of("abc"), getParameterValue("abc", COL_TYPE.STRING, Types.VARCHAR));
+        assertEquals(Optional.of("5"), getParameterValue("5", COL_TYPE.LITERAL, Types.CHAR));
+        // Numbers are inlined
+        assertEquals(Optional.empty(), getParameterValue("5", COL_TYPE.INTEGER, Types.VARCHAR));
+    }
+
+    @Test
+    public void testNumericColumns() {
+        assertEquals(Optional.of(5L), getParameterValue("5", COL_TYPE.INTEGER, Types.INTEGER));
+        assertEquals(Optional.of(new BigDecimal("5.50")), getParameterValue("5.50", COL_TYPE.DECIMAL, Types.DECIMAL));
+        assertEquals(Optional.of(new BigDecimal("5")), getParameterValue("5", COL_TYPE.INTEGER, Types.NUMERIC));
+        assertEquals(Optional.of(5.5), getParameterValue("5.5", COL_TYPE.DOUBLE, Types.DOUBLE));
+    }
+
+    @Test
+    public void testInlinedConstants() {
+        assertEquals(Optional.empty(), getParameterValue("true", COL_TYPE.BOOLEAN, Types.BOOLEAN));
+        assertEquals(Optional.empty(), getParameterValue("2017-01-01", COL_TYPE.DATE, Types.DATE));
+        // Unsupported column type
+        assertEquals(Optional.empty(), getParameterValue("abc", COL_TYPE.STRING, Types.OTHER));
+    }
+
+    private static Optional<Object> getParameterValue(String value, COL_TYPE constantType, int columnType) {
+        ValueConstant constant = TERM_FACTORY.getConstantLiteral(value, constantType);
+        return OneShotSQLGeneratorEngine.getParameterValue(constant, columnType);
+    }
+}
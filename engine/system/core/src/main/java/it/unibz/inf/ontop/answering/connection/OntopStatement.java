@@ -13,7 +13,7 @@ import it.unibz.inf.ontop.exception.*;
  */
 public interface OntopStatement extends OBDAStatement {
 
-    int getTupleCount(InputQuery inputQuery) throws OntopReformulationException, OntopQueryEvaluationException, OntopConnectionException;
+    long getTupleCount(InputQuery inputQuery) throws OntopReformulationException, OntopQueryEvaluationException, OntopConnectionException;
 
     String getRewritingRendering(InputQuery inputQuery) throws OntopReformulationException;
 
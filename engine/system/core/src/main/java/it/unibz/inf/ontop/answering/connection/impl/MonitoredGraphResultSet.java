@@ -0,0 +1,77 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.answering.monitoring.QueryPhase;
+import it.unibz.inf.ontop.answering.monitoring.QueryRecord;
+import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopResultConversionException;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
+
+/**
+ * Times the conversion of the results, counts them and reports the query once they are exhausted
+ * or when closed (whichever comes first).
+ */
+class MonitoredGraphResultSet implements SimpleGraphResultSet {
+
+    private final SimpleGraphResultSet resultSet;
+    private final QueryReporter reporter;
+    private final QueryRecord record;
+
+    MonitoredGraphResultSet(SimpleGraphResultSet resultSet, QueryReporter reporter) {
+        this.resultSet = resultSet;
+        this.reporter = reporter;
+        this.record = reporter.getRecord();
+    }
+
+    @Override
+    public int getFetchSize() throws OntopConnectionException {
+        return resultSet.getFetchSize();
+    }
+
+    @Override
+    @Deprecated
+    public void addNewResult(Assertion assertion) {
+        resultSet.addNewResult(assertion);
+    }
+
+    @Override
+    public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+        long time = System.nanoTime();
+        boolean hasNext;
+        try {
+            hasNext = resultSet.hasNext();
+        } catch (OntopConnectionException | OntopResultConversionException | RuntimeException e) {
+            record.setFailure(e);
+            throw e;
+        } finally {
+            record.endPhase(QueryPhase.RESULT_CONVERSION, time);
+        }
+        if (!hasNext)
+            reporter.report();
+        return hasNext;
+    }
+
+    @Override
+    public Assertion next() throws OntopResultConversionException {
+        long time = System.nanoTime();
+        try {
+            Assertion assertion = resultSet.next();
+            reporter.countResult();
+            return assertion;
+        } catch (OntopResultConversionException | RuntimeException e) {
+            record.setFailure(e);
+            throw e;
+        } finally {
+            record.endPhase(QueryPhase.RESULT_CONVERSION, time);
+        }
+    }
+
+    @Override
+    public void close() throws OntopConnectionException {
+        try {
+            resultSet.close();
+        } finally {
+            reporter.report();
+        }
+    }
+}
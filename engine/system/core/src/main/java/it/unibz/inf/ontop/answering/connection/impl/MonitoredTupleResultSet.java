@@ -0,0 +1,83 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.answering.monitoring.QueryPhase;
+import it.unibz.inf.ontop.answering.monitoring.QueryRecord;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopResultConversionException;
+
+import java.util.List;
+
+/**
+ * Times the conversion of the results, counts them and reports the query once they are exhausted
+ * or when closed (whichever comes first).
+ */
+class MonitoredTupleResultSet implements TupleResultSet {
+
+    private final TupleResultSet resultSet;
+    private final QueryReporter reporter;
+    private final QueryRecord record;
+
+    MonitoredTupleResultSet(TupleResultSet resultSet, QueryReporter reporter) {
+        this.resultSet = resultSet;
+        this.reporter = reporter;
+        this.record = reporter.getRecord();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return resultSet.getColumnCount();
+    }
+
+    @Override
+    public List<String> getSignature() throws OntopConnectionException {
+        return resultSet.getSignature();
+    }
+
+    @Override
+    public int getFetchSize() throws OntopConnectionException {
+        return resultSet.getFetchSize();
+    }
+
+    @Override
+    public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+        long time = System.nanoTime();
+        boolean hasNext;
+        try {
+            hasNext = resultSet.hasNext();
+        } catch (OntopConnectionException | OntopResultConversionException | RuntimeException e) {
+            record.setFailure(e);
+            throw e;
+        } finally {
+            record.endPhase(QueryPhase.RESULT_CONVERSION, time);
+        }
+        if (!hasNext)
+            reporter.report();
+        return hasNext;
+    }
+
+    @Override
+    public OntopBindingSet next() throws OntopConnectionException {
+        long time = System.nanoTime();
+        try {
+            OntopBindingSet bindingSet = resultSet.next();
+            reporter.countResult();
+            return bindingSet;
+        } catch (OntopConnectionException | RuntimeException e) {
+            record.setFailure(e);
+            throw e;
+        } finally {
+            record.endPhase(QueryPhase.RESULT_CONVERSION, time);
+        }
+    }
+
+    @Override
+    public void close() throws OntopConnectionException {
+        try {
+            resultSet.close();
+        } finally {
+            reporter.report();
+        }
+    }
+}
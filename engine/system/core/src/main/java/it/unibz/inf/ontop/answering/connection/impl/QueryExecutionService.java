@@ -0,0 +1,166 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import it.unibz.inf.ontop.answering.monitoring.MetricsRegistry;
+import it.unibz.inf.ontop.injection.OntopSystemSettings;
+import it.unibz.inf.ontop.injection.OntopSystemSettings.QueryExecutionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Evaluates the native queries of the statements of a DBConnector, according to the QueryExecutionMode:
+ *   - CALLER_THREAD: directly on the thread of the caller (no hand-off)
+ *   - POOL: on a bounded pool of daemon threads shared by all the statements.
+ *     At most ontop.queryExecution.queueCapacity queries can wait for a thread;
+ *     beyond that, the submission is rejected (RejectedExecutionException).
+ *
+ * Cancellation is cooperative: the statement cancels the native query (see QuestStatement.cancel()),
+ * threads are never stopped.
+ *
+ * Metrics exported to the MetricsRegistry (tagged with the mode):
+ *   - ontop.query.execution.submitted and ontop.query.execution.rejected (counters)
+ *   - ontop.query.execution.wait (timer, POOL mode only)
+ *   - ontop.query.execution.queue.depth (distribution summary, sampled at submission, POOL mode only)
+ *
+ * Thread-safe. One instance per DBConnector (not a singleton: closing it stops its pool).
+ */
+public class QueryExecutionService implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryExecutionService.class);
+
+    private final Optional<ThreadPoolExecutor> pool;
+    private final MetricsRegistry metricsRegistry;
+    private final ImmutableMap<String, String> metricTags;
+
+    private final AtomicLong submittedCount = new AtomicLong();
+    private final AtomicLong rejectedCount = new AtomicLong();
+    private final AtomicLong totalWaitTimeNanos = new AtomicLong();
+    private final AtomicLong maxWaitTimeNanos = new AtomicLong();
+
+    @Inject
+    private QueryExecutionService(OntopSystemSettings settings, MetricsRegistry metricsRegistry) {
+        this(settings.getQueryExecutionMode(), settings.getQueryExecutionPoolSize(),
+                settings.getQueryExecutionQueueCapacity(), metricsRegistry);
+    }
+
+    public QueryExecutionService(QueryExecutionMode mode, int poolSize, int queueCapacity,
+                                 MetricsRegistry metricsRegistry) {
+        this.metricsRegistry = metricsRegistry;
+        this.metricTags = ImmutableMap.of("mode", mode.name().toLowerCase());
+
+        if (mode == QueryExecutionMode.POOL) {
+            if (poolSize < 1)
+                throw new IllegalArgumentException("The size of the query execution pool must be positive");
+            if (queueCapacity < 1)
+                throw new IllegalArgumentException("The capacity of the query execution queue must be positive");
+
+            ThreadFactory threadFactory = new ThreadFactoryBuilder()
+                    .setNameFormat("ontop-query-%d")
+                    .setDaemon(true)
+                    .build();
+            pool = Optional.of(new ThreadPoolExecutor(poolSize, poolSize, 60L, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity), threadFactory));
+            pool.get().allowCoreThreadTimeOut(true);
+        }
+        else
+            pool = Optional.empty();
+    }
+
+    /**
+     * In the CALLER_THREAD mode, the task is run before returning.
+     *
+     * @throws RejectedExecutionException if the queue is full (POOL mode) or if the service is closed
+     */
+    public <R> Future<R> submit(Callable<R> task) {
+        if (!pool.isPresent()) {
+            submittedCount.incrementAndGet();
+            incrementCounter("ontop.query.execution.submitted");
+            FutureTask<R> future = new FutureTask<>(task);
+            future.run();
+            return future;
+        }
+
+        long submissionTime = System.nanoTime();
+        try {
+            Future<R> future = pool.get().submit(() -> {
+                recordWaitTime(System.nanoTime() - submissionTime);
+                return task.call();
+            });
+            submittedCount.incrementAndGet();
+            incrementCounter("ontop.query.execution.submitted");
+            if (metricsRegistry.isEnabled())
+                metricsRegistry.recordValue("ontop.query.execution.queue.depth", metricTags, getQueueDepth());
+            return future;
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            incrementCounter("ontop.query.execution.rejected");
+            throw e;
+        }
+    }
+
+    private void recordWaitTime(long waitTimeNanos) {
+        totalWaitTimeNanos.addAndGet(waitTimeNanos);
+        maxWaitTimeNanos.accumulateAndGet(waitTimeNanos, Math::max);
+        if (metricsRegistry.isEnabled())
+            metricsRegistry.recordDuration("ontop.query.execution.wait", metricTags, waitTimeNanos);
+        if (log.isDebugEnabled())
+            log.debug("Query waited {} ms in the execution queue",
+                    TimeUnit.NANOSECONDS.toMillis(waitTimeNanos));
+    }
+
+    private void incrementCounter(String name) {
+        if (metricsRegistry.isEnabled())
+            metricsRegistry.incrementCounter(name, metricTags);
+    }
+
+    /**
+     * Number of queries waiting for a thread (always 0 in the CALLER_THREAD mode)
+     */
+    public int getQueueDepth() {
+        return pool
+                .map(p -> p.getQueue().size())
+                .orElse(0);
+    }
+
+    /**
+     * Number of queries being evaluated by the pool (always 0 in the CALLER_THREAD mode)
+     */
+    public int getActiveCount() {
+        return pool
+                .map(ThreadPoolExecutor::getActiveCount)
+                .orElse(0);
+    }
+
+    public long getSubmittedCount() {
+        return submittedCount.get();
+    }
+
+    /**
+     * Number of submissions rejected because the queue was full
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    /**
+     * Sum of the times spent by the queries in the queue before being evaluated
+     */
+    public long getTotalWaitTime(TimeUnit unit) {
+        return unit.convert(totalWaitTimeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getMaxWaitTime(TimeUnit unit) {
+        return unit.convert(maxWaitTimeNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void close() {
+        pool.ifPresent(ThreadPoolExecutor::shutdownNow);
+    }
+}
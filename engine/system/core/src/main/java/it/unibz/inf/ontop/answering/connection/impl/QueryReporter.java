@@ -0,0 +1,45 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
+import it.unibz.inf.ontop.answering.monitoring.QueryRecord;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the results of a monitored query and reports it to the QueryMonitor, only once.
+ *
+ * The query is reported by the first of these events: the results are exhausted, the result set is closed,
+ * the statement executes another query or is closed.
+ */
+class QueryReporter {
+
+    private final QueryRecord record;
+    private final QueryMonitor monitor;
+    private final AtomicLong resultCount = new AtomicLong();
+    private final AtomicBoolean reported = new AtomicBoolean(false);
+
+    QueryReporter(QueryRecord record, QueryMonitor monitor) {
+        this.record = record;
+        this.monitor = monitor;
+    }
+
+    QueryRecord getRecord() {
+        return record;
+    }
+
+    void countResult() {
+        resultCount.incrementAndGet();
+    }
+
+    boolean isReported() {
+        return reported.get();
+    }
+
+    void report() {
+        if (reported.compareAndSet(false, true)) {
+            record.setResultCount(resultCount.get());
+            monitor.report(record.toReport());
+        }
+    }
+}
@@ -20,8 +20,14 @@ package it.unibz.inf.ontop.answering.connection.impl;
  * #L%
  */
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.Uninterruptibles;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
+import it.unibz.inf.ontop.answering.monitoring.QueryPhase;
+import it.unibz.inf.ontop.answering.monitoring.QueryRecord;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
 import it.unibz.inf.ontop.answering.resultset.*;
@@ -30,11 +36,22 @@ import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 import it.unibz.inf.ontop.model.term.Constant;
 import it.unibz.inf.ontop.model.term.URIConstant;
 import it.unibz.inf.ontop.answering.reformulation.input.SPARQLQueryUtility;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
 import org.eclipse.rdf4j.query.MalformedQueryException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.CountDownLatch;
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 
 /**
@@ -46,16 +63,36 @@ public abstract class QuestStatement implements OntopStatement {
 	private final QueryReformulator engine;
 	private final InputQueryFactory inputQueryFactory;
 
-	private QueryExecutionThread executionThread;
-	private boolean canceled = false;
+	private final QueryExecutionService executionService;
+	private final QueryMonitor queryMonitor;
+
+	/**
+	 * Evaluation in progress (if any)
+	 */
+	private volatile Evaluation currentEvaluation;
+	private volatile boolean canceled = false;
+
+	/**
+	 * Reporter of the last monitored result set (if any)
+	 */
+	@Nullable
+	private volatile QueryReporter currentReporter;
 
 
 	private static final Logger log = LoggerFactory.getLogger(QuestStatement.class);
 
+	/**
+	 * Maximum number of IRIs described by one native query
+	 */
+	private static final int DESCRIBE_BATCH_SIZE = 100;
 
-	public QuestStatement(QueryReformulator queryProcessor, InputQueryFactory inputQueryFactory) {
+
+	public QuestStatement(QueryReformulator queryProcessor, InputQueryFactory inputQueryFactory,
+						  QueryExecutionService executionService, QueryMonitor queryMonitor) {
 		this.engine = queryProcessor;
 		this.inputQueryFactory = inputQueryFactory;
+		this.executionService = executionService;
+		this.queryMonitor = queryMonitor;
 	}
 
 	/**
@@ -68,79 +105,6 @@ public abstract class QuestStatement implements OntopStatement {
 				throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException;
 	}
 
-	/**
-	 * Execution thread
-	 */
-	private class QueryExecutionThread<R extends OBDAResultSet, Q extends InputQuery<R>> extends Thread {
-
-		private final Q inputQuery;
-		private final QuestStatement.Evaluator<R, Q> evaluator;
-		private final CountDownLatch monitor;
-		private final ExecutableQuery executableQuery;
-
-		private R resultSet;	  // only for SELECT and ASK queries
-		private Exception exception;
-		private boolean executingTargetQuery;
-
-		QueryExecutionThread(Q inputQuery, ExecutableQuery executableQuery, Evaluator<R,Q> evaluator,
-							 CountDownLatch monitor) {
-			this.executableQuery = executableQuery;
-			this.inputQuery = inputQuery;
-			this.evaluator = evaluator;
-			this.monitor = monitor;
-			this.exception = null;
-			this.executingTargetQuery = false;
-		}
-
-		public boolean errorStatus() {
-			return exception != null;
-		}
-
-		public Exception getException() {
-			return exception;
-		}
-
-		public R getResultSet() {
-			return resultSet;
-		}
-
-		public void cancel() throws OntopQueryEvaluationException {
-			canceled = true;
-			if (!executingTargetQuery) {
-				this.stop();
-			} else {
-				cancelExecution();
-			}
-		}
-
-		@Override
-		public void run() {
-			//                        FOR debugging H2 in-memory database
-//			try {
-//				org.h2.tools.Server.startWebServer(((QuestConnection)conn).getSQLConnection());
-//			} catch (SQLException e) {
-//				e.printStackTrace();
-//			}
-			try {
-				/**
-				 * Executes the target query.
-				 */
-				log.debug("Executing the query and get the result...");
-				executingTargetQuery = true;
-				resultSet = evaluator.evaluate(inputQuery, executableQuery);
-				log.debug("Execution finished.\n");
-				/*
-				 * TODO: re-handle the timeout exception.
-				 */
-			} catch (Exception e) {
-				exception = e;
-				log.error(e.getMessage(), e);
-			} finally {
-				monitor.countDown();
-			}
-		}
-	}
-
 	protected abstract TupleResultSet executeSelectQuery(ExecutableQuery executableQuery)
 			throws OntopQueryEvaluationException;
 
@@ -157,14 +121,6 @@ public abstract class QuestStatement implements OntopStatement {
 		return executeBooleanQuery(executableQuery);
 	}
 
-	/**
-	 * TODO: describe
-	 */
-	private SimpleGraphResultSet executeDescribeConstructQuery(ConstructQuery constructQuery, ExecutableQuery executableQuery)
-			throws OntopQueryEvaluationException, OntopResultConversionException, OntopConnectionException {
-		return executeGraphQuery(constructQuery, executableQuery, true);
-	}
-
 	/**
 	 * TODO: describe
 	 */
@@ -193,13 +149,13 @@ public abstract class QuestStatement implements OntopStatement {
 	public <R extends OBDAResultSet> R execute(InputQuery<R> inputQuery) throws OntopConnectionException,
             OntopReformulationException, OntopQueryEvaluationException, OntopResultConversionException {
 		if (inputQuery instanceof SelectQuery) {
-			return (R) executeInThread((SelectQuery) inputQuery, this::executeSelectQuery);
+			return (R) reformulateAndEvaluate((SelectQuery) inputQuery, this::executeSelectQuery);
 		}
 		else if (inputQuery instanceof AskQuery) {
-			return (R) executeInThread((AskQuery) inputQuery, this::executeBooleanQuery);
+			return (R) reformulateAndEvaluate((AskQuery) inputQuery, this::executeBooleanQuery);
 		}
 		else if (inputQuery instanceof ConstructQuery) {
-			return (R) executeInThread((ConstructQuery) inputQuery, this::executeConstructQuery);
+			return (R) reformulateAndEvaluate((ConstructQuery) inputQuery, this::executeConstructQuery);
 		}
 		else if (inputQuery instanceof DescribeQuery) {
 			return (R) executeDescribeQuery((DescribeQuery) inputQuery);
@@ -210,8 +166,16 @@ public abstract class QuestStatement implements OntopStatement {
 	}
 
 	/**
-	 * TODO: completely refactor this old-way of processing DESCRIBE.
-	 *  ---> should be converted into 1 CONSTRUCT query
+	 * The described IRIs are first collected (one SELECT DISTINCT query for DESCRIBE ?x).
+	 * Then they are described by batches of DESCRIBE_BATCH_SIZE IRIs: each batch is one CONSTRUCT query
+	 * (VALUES block, IRIs in subject and in object position).
+	 *
+	 * All the batches are reformulated before returning, so that the reformulation errors are reported
+	 * by execute(). They are evaluated lazily, one after the other, while the result set is consumed.
+	 *
+	 * The batches are not merged into one CONSTRUCT query joining with the sub-select of the DESCRIBE query:
+	 * the translator does not keep a DISTINCT local to a sub-query, and the sub-select would be
+	 * evaluated twice (once per position of the described IRIs).
 	 */
 	private SimpleGraphResultSet executeDescribeQuery(DescribeQuery inputQuery)
 			throws OntopReformulationException, OntopResultConversionException, OntopConnectionException,
@@ -219,44 +183,95 @@ public abstract class QuestStatement implements OntopStatement {
 
 		ImmutableSet<String> constants = extractDescribeQueryConstants(inputQuery);
 
-		SimpleGraphResultSet describeResultSet = null;
-
-		try {
-			// execute describe <uriconst> in subject position
-			for (String constant : constants) {
-				// for each constant we execute a construct with
-				// the uri as subject, and collect the results
-				String str = SPARQLQueryUtility.getConstructSubjQuery(constant);
+		ImmutableList.Builder<ReformulatedQuery<SimpleGraphResultSet, ConstructQuery>> batchBuilder =
+				ImmutableList.builder();
+		for (List<String> batchConstants : Iterables.partition(constants, DESCRIBE_BATCH_SIZE)) {
+			String str = SPARQLQueryUtility.getConstructDescribeQuery(batchConstants);
+			try {
 				ConstructQuery constructQuery = inputQueryFactory.createConstructQuery(str);
-
-				SimpleGraphResultSet set = executeInThread(constructQuery, this::executeDescribeConstructQuery);
-				if (describeResultSet == null) { // just for the first time
-					describeResultSet = set;
-				} else if (set != null) {
-					// 2nd and manyth times execute, but collect result into one object
-					while (set.hasNext())
-						describeResultSet.addNewResult(set.next());
-				}
+				// Not cached: the batches are rarely repeated and would evict the user queries
+				batchBuilder.add(reformulate(constructQuery, false));
+				// Exception is re-cast because not due to the initial input query
+			} catch (OntopInvalidInputQueryException e) {
+				throw new OntopReformulationException(e);
 			}
-			// execute describe <uriconst> in object position
-			for (String constant : constants) {
-				String str = SPARQLQueryUtility.getConstructObjQuery(constant);
+		}
+		Iterator<ReformulatedQuery<SimpleGraphResultSet, ConstructQuery>> batchIterator = batchBuilder.build().iterator();
 
-				ConstructQuery constructQuery = inputQueryFactory.createConstructQuery(str);
-				SimpleGraphResultSet set = executeInThread(constructQuery, this::executeDescribeConstructQuery);
+		// The first batch is evaluated eagerly so that its evaluation errors are reported by execute()
+		SimpleGraphResultSet firstResultSet = batchIterator.hasNext()
+				? evaluate(batchIterator.next(), this::executeConstructQuery)
+				: null;
+		return new BatchedDescribeGraphResultSet(firstResultSet, batchIterator);
+	}
+
+	/**
+	 * Concatenates the results of the batches of a DESCRIBE query.
+	 * A batch is only evaluated once the previous one has been consumed
+	 * (they share the same native statement).
+	 *
+	 * The assertions added by addNewResult() are returned first.
+	 */
+	private class BatchedDescribeGraphResultSet implements SimpleGraphResultSet {
+
+		private final Iterator<ReformulatedQuery<SimpleGraphResultSet, ConstructQuery>> remainingBatches;
+		private final Deque<Assertion> additionalAssertions = new ArrayDeque<>();
+		@Nullable
+		private SimpleGraphResultSet currentResultSet;
 
-				if (describeResultSet == null) { // just for the first time
-					describeResultSet = set;
-				} else if (set != null) {
-					while (set.hasNext())
-						describeResultSet.addNewResult(set.next());
+		BatchedDescribeGraphResultSet(@Nullable SimpleGraphResultSet firstResultSet,
+									  Iterator<ReformulatedQuery<SimpleGraphResultSet, ConstructQuery>> remainingBatches) {
+			this.currentResultSet = firstResultSet;
+			this.remainingBatches = remainingBatches;
+		}
+
+		@Override
+		public boolean hasNext() throws OntopConnectionException, OntopResultConversionException {
+			if (!additionalAssertions.isEmpty())
+				return true;
+
+			while ((currentResultSet == null) || (!currentResultSet.hasNext())) {
+				if (currentResultSet != null)
+					currentResultSet.close();
+				currentResultSet = null;
+
+				if (!remainingBatches.hasNext())
+					return false;
+				try {
+					currentResultSet = evaluate(remainingBatches.next(), QuestStatement.this::executeConstructQuery);
+				} catch (OntopQueryEvaluationException e) {
+					throw new OntopConnectionException(e);
 				}
 			}
-			// Exception is re-cast because not due to the initial input query
-		} catch (OntopInvalidInputQueryException e) {
-			throw new OntopReformulationException(e);
+			return true;
+		}
+
+		@Override
+		public Assertion next() throws OntopResultConversionException {
+			if (!additionalAssertions.isEmpty())
+				return additionalAssertions.poll();
+			if (currentResultSet == null)
+				throw new NoSuchElementException("Please call hasNext() before calling next()");
+			return currentResultSet.next();
+		}
+
+		@Override
+		public int getFetchSize() throws OntopConnectionException {
+			return currentResultSet == null ? 0 : currentResultSet.getFetchSize();
+		}
+
+		@Override
+		public void addNewResult(Assertion assertion) {
+			additionalAssertions.add(assertion);
+		}
+
+		@Override
+		public void close() throws OntopConnectionException {
+			additionalAssertions.clear();
+			if (currentResultSet != null)
+				currentResultSet.close();
+			currentResultSet = null;
 		}
-		return describeResultSet;
 	}
 
 	private ImmutableSet<String> extractDescribeQueryConstants(DescribeQuery inputQuery)
@@ -273,13 +288,17 @@ public abstract class QuestStatement implements OntopStatement {
 				TupleResultSet resultSet = execute(selectQuery);
 
 				ImmutableSet.Builder<String> constantSetBuilder = ImmutableSet.builder();
-				while (resultSet.hasNext()) {
-                    final OntopBindingSet bindingSet = resultSet.next();
-                    Constant constant = bindingSet.getConstant(1);
-					if (constant instanceof URIConstant) {
-						// collect constants in list
-						constantSetBuilder.add(((URIConstant) constant).getURI());
+				try {
+					while (resultSet.hasNext()) {
+						final OntopBindingSet bindingSet = resultSet.next();
+						Constant constant = bindingSet.getConstant(1);
+						if (constant instanceof URIConstant) {
+							// collect constants in list
+							constantSetBuilder.add(((URIConstant) constant).getURI());
+						}
 					}
+				} finally {
+					resultSet.close();
 				}
 				return constantSetBuilder.build();
 				// Exception is re-cast because not due to the initial input query
@@ -302,53 +321,292 @@ public abstract class QuestStatement implements OntopStatement {
 
 
 	/**
-	 * Internal method to start a new query execution thread type defines the
-	 * query type SELECT, ASK, CONSTRUCT, or DESCRIBE
+	 * Reformulates the input query and evaluates the resulting native query
+	 * through the QueryExecutionService (on the caller thread or on the shared pool).
+	 *
+	 * When the QueryMonitor is enabled, the phases are timed and the query is reported
+	 * once its result set is exhausted or closed (or when it fails).
 	 */
-	private <R extends OBDAResultSet, Q extends InputQuery<R>> R executeInThread(Q inputQuery, Evaluator<R, Q> evaluator)
+	private <R extends OBDAResultSet, Q extends InputQuery<R>> R reformulateAndEvaluate(Q inputQuery, Evaluator<R, Q> evaluator)
 			throws OntopReformulationException, OntopQueryEvaluationException {
+		return evaluate(reformulate(inputQuery, true), evaluator);
+	}
 
-		log.debug("Executing SPARQL query: \n{}", inputQuery);
-
-		CountDownLatch monitor = new CountDownLatch(1);
-		ExecutableQuery executableQuery = engine.reformulateIntoNativeQuery(inputQuery);
+	/**
+	 * @param useQueryCache false for the queries generated internally
+	 */
+	private <R extends OBDAResultSet, Q extends InputQuery<R>> ReformulatedQuery<R, Q> reformulate(Q inputQuery,
+																								   boolean useQueryCache)
+			throws OntopReformulationException {
+		log.debug("Reformulating SPARQL query: \n{}", inputQuery);
+
+		QueryRecord record = queryMonitor.isEnabled()
+				? new QueryRecord(getQueryType(inputQuery), inputQuery.getInputString(), true)
+				: QueryRecord.disabled();
+		try {
+			ExecutableQuery executableQuery = useQueryCache
+					? engine.reformulateIntoNativeQuery(inputQuery, record)
+					: engine.reformulateIntoNativeQueryWithoutCaching(inputQuery, record);
+			return new ReformulatedQuery<>(inputQuery, executableQuery, record);
+		} catch (OntopReformulationException | RuntimeException e) {
+			reportFailure(record, e);
+			throw e;
+		}
+	}
 
-		QueryExecutionThread<R, Q> executionthread = new QueryExecutionThread<>(inputQuery, executableQuery, evaluator,
-				monitor);
+	private <R extends OBDAResultSet, Q extends InputQuery<R>> R evaluate(ReformulatedQuery<R, Q> query,
+																		  Evaluator<R, Q> evaluator)
+			throws OntopQueryEvaluationException {
+		log.debug("Executing SPARQL query: \n{}", query.inputQuery);
 
-		this.executionThread = executionthread;
-		executionthread.start();
+		QueryRecord record = query.record;
 		try {
-			monitor.await();
-		} catch (InterruptedException e) {
-			e.printStackTrace();
+			R resultSet = evaluate(query.inputQuery, query.executableQuery, evaluator, record);
+			return record.isEnabled()
+					? monitor(resultSet, record)
+					: resultSet;
+		} catch (OntopQueryEvaluationException | RuntimeException e) {
+			reportFailure(record, e);
+			throw e;
+		}
+	}
+
+	private void reportFailure(QueryRecord record, Exception e) {
+		if (record.isEnabled()) {
+			record.setFailure(e);
+			queryMonitor.report(record.toReport());
+		}
+	}
+
+	/**
+	 * Input query, its reformulation and its monitoring record
+	 */
+	private static class ReformulatedQuery<R extends OBDAResultSet, Q extends InputQuery<R>> {
+		private final Q inputQuery;
+		private final ExecutableQuery executableQuery;
+		private final QueryRecord record;
+
+		private ReformulatedQuery(Q inputQuery, ExecutableQuery executableQuery, QueryRecord record) {
+			this.inputQuery = inputQuery;
+			this.executableQuery = executableQuery;
+			this.record = record;
+		}
+	}
+
+	private static String getQueryType(InputQuery<?> inputQuery) {
+		if (inputQuery instanceof SelectQuery)
+			return "SELECT";
+		else if (inputQuery instanceof AskQuery)
+			return "ASK";
+		else if (inputQuery instanceof ConstructQuery)
+			return "CONSTRUCT";
+		else if (inputQuery instanceof DescribeQuery)
+			return "DESCRIBE";
+		else
+			return inputQuery.getClass().getSimpleName();
+	}
+
+	/**
+	 * Boolean results are reported immediately. The other result sets are wrapped so as to report
+	 * the query when they are exhausted or closed.
+	 *
+	 * The results of the previous query are not reported later than the execution of the next one
+	 * (a result set that is never exhausted nor closed would never be reported otherwise).
+	 */
+	private <R extends OBDAResultSet> R monitor(R resultSet, QueryRecord record) {
+		reportUnclosedResults();
+		if (resultSet instanceof TupleResultSet) {
+			QueryReporter reporter = new QueryReporter(record, queryMonitor);
+			currentReporter = reporter;
+			return (R) new MonitoredTupleResultSet((TupleResultSet) resultSet, reporter);
+		}
+		else if (resultSet instanceof SimpleGraphResultSet) {
+			QueryReporter reporter = new QueryReporter(record, queryMonitor);
+			currentReporter = reporter;
+			return (R) new MonitoredGraphResultSet((SimpleGraphResultSet) resultSet, reporter);
+		}
+		else {
+			queryMonitor.report(record.toReport());
+			return resultSet;
 		}
-		if (executionthread.errorStatus()) {
-			Exception ex = executionthread.getException();
-			if (ex instanceof OntopReformulationException) {
-				throw (OntopReformulationException) ex;
+	}
+
+	/**
+	 * Reports the query whose result set has neither been exhausted nor closed (if any).
+	 *
+	 * To be called when the statement is closed.
+	 */
+	protected void reportUnclosedResults() {
+		QueryReporter reporter = currentReporter;
+		currentReporter = null;
+		if (reporter != null)
+			reporter.report();
+	}
+
+	private <R extends OBDAResultSet, Q extends InputQuery<R>> R evaluate(Q inputQuery, ExecutableQuery executableQuery,
+																		  Evaluator<R, Q> evaluator, QueryRecord record)
+			throws OntopQueryEvaluationException {
+
+		// A cancellation only applies to the evaluation in progress
+		canceled = false;
+		Evaluation evaluation = new Evaluation();
+		currentEvaluation = evaluation;
+
+		try {
+			Future<R> future;
+			try {
+				future = executionService.submit(() -> {
+					if (!evaluation.start())
+						throw new CancellationException();
+					log.debug("Executing the query and get the result...");
+					long time = System.nanoTime();
+					R resultSet = evaluator.evaluate(inputQuery, executableQuery);
+					record.endPhase(QueryPhase.EXECUTION, time);
+					log.debug("Execution finished.\n");
+					// The caller has been interrupted: nobody will receive the result set
+					if (!evaluation.complete()) {
+						closeQuietly(resultSet);
+						throw new CancellationException();
+					}
+					return resultSet;
+				});
+			} catch (RejectedExecutionException e) {
+				throw new OntopQueryEvaluationException("Too many queries waiting for being evaluated");
 			}
-			else if (ex instanceof OntopQueryEvaluationException) {
-				throw (OntopQueryEvaluationException) ex;
+			evaluation.setFuture(future);
+
+			R resultSet;
+			try {
+				resultSet = future.get();
+			} catch (CancellationException e) {
+				// Canceled before starting: no result set has been created
+				throw new OntopQueryEvaluationException("Query execution was cancelled");
+			} catch (InterruptedException e) {
+				if (!evaluation.cancelBeforeStart()) {
+					cancelQuietly();
+					if (!evaluation.abandon())
+						closeProducedResultSet(future);
+				}
+				Thread.currentThread().interrupt();
+				throw new OntopQueryEvaluationException("Query execution was interrupted");
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (canceled || (cause instanceof CancellationException))
+					throw new OntopQueryEvaluationException("Query execution was cancelled");
+
+				log.error(cause.getMessage(), cause);
+				if (cause instanceof OntopQueryEvaluationException) {
+					throw (OntopQueryEvaluationException) cause;
+				}
+				else {
+					throw new OntopQueryEvaluationException(cause);
+				}
 			}
-			else {
-				throw new OntopQueryEvaluationException(ex);
+
+			// Canceled while the result set was being produced
+			if (canceled) {
+				closeQuietly(resultSet);
+				throw new OntopQueryEvaluationException("Query execution was cancelled");
 			}
+			return resultSet;
+		} finally {
+			currentEvaluation = null;
+		}
+	}
+
+	/**
+	 * Evaluation submitted to the QueryExecutionService.
+	 *
+	 * Once started, the future is never canceled, so that the result set it produces
+	 * is always either received by the caller or closed (when the caller has stopped waiting for it).
+	 */
+	private static class Evaluation {
+		private static final int SUBMITTED = 0, STARTED = 1, COMPLETED = 2, CANCELED = 3, ABANDONED = 4;
+
+		private final AtomicInteger state = new AtomicInteger(SUBMITTED);
+		private volatile Future<?> future;
+
+		/**
+		 * Called by the task. False if canceled before.
+		 */
+		boolean start() {
+			return state.compareAndSet(SUBMITTED, STARTED);
+		}
+
+		/**
+		 * Called by the task once the result set is produced. False if abandoned by the caller.
+		 */
+		boolean complete() {
+			return state.compareAndSet(STARTED, COMPLETED);
 		}
 
-		if (canceled) {
-			canceled = false;
-			throw new OntopQueryEvaluationException("Query execution was cancelled");
+		/**
+		 * False if already started
+		 */
+		boolean cancelBeforeStart() {
+			if (!state.compareAndSet(SUBMITTED, CANCELED))
+				return false;
+			Future<?> f = future;
+			if (f != null)
+				f.cancel(false);
+			return true;
+		}
+
+		/**
+		 * Called by the caller when it stops waiting. False if the result set has already been produced.
+		 */
+		boolean abandon() {
+			return state.compareAndSet(STARTED, ABANDONED);
+		}
+
+		void setFuture(Future<?> future) {
+			this.future = future;
+			// Canceled before the future was known
+			if (state.get() == CANCELED)
+				future.cancel(false);
+		}
+	}
+
+	private static void closeProducedResultSet(Future<? extends OBDAResultSet> future) {
+		try {
+			closeQuietly(Uninterruptibles.getUninterruptibly(future));
+		} catch (ExecutionException | CancellationException e) {
+			// No result set
+		}
+	}
+
+	private void cancelQuietly() {
+		try {
+			cancelExecution();
+		} catch (OntopQueryEvaluationException e) {
+			log.warn("Could not cancel the query execution: " + e.getMessage());
 		}
-		return executionthread.getResultSet();
 	}
 
-	
+	private static void closeQuietly(OBDAResultSet resultSet) {
+		try {
+			resultSet.close();
+		} catch (OntopConnectionException e) {
+			log.warn("Could not close the result set of a cancelled query: " + e.getMessage());
+		}
+	}
+
+	/**
+	 * Cooperative: prevents the evaluation from starting if it is still waiting
+	 * and cancels the native query otherwise.
+	 *
+	 * Does nothing if no query is being evaluated.
+	 */
 	@Override
 	public void cancel() throws OntopConnectionException {
+		Evaluation evaluation = currentEvaluation;
+		if (evaluation == null)
+			return;
 		canceled = true;
+		if (evaluation.cancelBeforeStart())
+			return;
 		try {
-			QuestStatement.this.executionThread.cancel();
+			cancelExecution();
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
 		}
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.answering.resultset;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
 import it.unibz.inf.ontop.answering.resultset.GraphResultSet;
@@ -22,6 +23,13 @@ public interface MaterializedGraphResultSet extends GraphResultSet<OntopQueryAns
      */
     long getTripleCountSoFar();
 
+    /**
+     * Number of RDF triples that have been materialized, per RDF property/class.
+     *
+     * Increases until the materialization completes.
+     */
+    ImmutableMap<URI, Long> getTripleCountPerPredicateSoFar();
+
     /**
      * Returns true if a problem has occurred so far.
      *
@@ -9,11 +9,54 @@ public interface OntopSystemSettings extends OntopReformulationSettings {
      */
     boolean isPermanentDBConnectionEnabled();
 
+    /**
+     * Where the native queries are evaluated
+     */
+    QueryExecutionMode getQueryExecutionMode();
+
+    /**
+     * Number of threads of the shared pool (only used in the POOL mode)
+     */
+    int getQueryExecutionPoolSize();
+
+    /**
+     * Maximal number of queries waiting for a thread of the pool (only used in the POOL mode).
+     * Beyond that, new queries are rejected.
+     */
+    int getQueryExecutionQueueCapacity();
+
+    /**
+     * Maximal number of probes (e.g. "is this class empty?") combined into one query
+     * by the consistency and empty-entity checks
+     */
+    int getValidationBatchSize();
+
+    /**
+     * Number of validation queries evaluated concurrently (each on its own connection)
+     */
+    int getValidationParallelism();
+
+    enum QueryExecutionMode {
+        /**
+         * Evaluates the native query on the thread calling the statement
+         */
+        CALLER_THREAD,
+        /**
+         * Evaluates the native query on a bounded pool of threads shared by all the connections
+         */
+        POOL
+    }
+
     //--------------------------
     // Keys
     //--------------------------
 
     String PERMANENT_DB_CONNECTION = "ontop.permanentConnection";
+    String QUERY_EXECUTION_MODE = "ontop.queryExecution.mode";
+    String QUERY_EXECUTION_POOL_SIZE = "ontop.queryExecution.poolSize";
+    String QUERY_EXECUTION_QUEUE_CAPACITY = "ontop.queryExecution.queueCapacity";
+    String VALIDATION_BATCH_SIZE = "ontop.validation.batchSize";
+    String VALIDATION_PARALLELISM = "ontop.validation.parallelism";
 
 
 }
@@ -1,5 +1,6 @@
 package it.unibz.inf.ontop.injection.impl;
 
+import it.unibz.inf.ontop.exception.InvalidOntopConfigurationException;
 import it.unibz.inf.ontop.injection.OntopOBDASettings;
 import it.unibz.inf.ontop.injection.OntopSystemSettings;
 
@@ -8,9 +9,21 @@ import java.util.Properties;
 public class OntopSystemSettingsImpl extends OntopReformulationSettingsImpl implements OntopSystemSettings {
 
     private static final String DEFAULT_FILE = "system-default.properties";
+    private final QueryExecutionMode queryExecutionMode;
 
     OntopSystemSettingsImpl(Properties userProperties) {
         super(loadProperties(userProperties));
+        queryExecutionMode = extractQueryExecutionMode();
+    }
+
+    private QueryExecutionMode extractQueryExecutionMode() {
+        String value = getRequiredProperty(QUERY_EXECUTION_MODE);
+        try {
+            return QueryExecutionMode.valueOf(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidOntopConfigurationException("Invalid value for " + QUERY_EXECUTION_MODE
+                    + ": is " + value);
+        }
     }
 
     private static Properties loadProperties(Properties userProperties) {
@@ -27,4 +40,29 @@ public class OntopSystemSettingsImpl extends OntopReformulationSettingsImpl impl
     public boolean isPermanentDBConnectionEnabled() {
         return getRequiredBoolean(PERMANENT_DB_CONNECTION);
     }
+
+    @Override
+    public QueryExecutionMode getQueryExecutionMode() {
+        return queryExecutionMode;
+    }
+
+    @Override
+    public int getQueryExecutionPoolSize() {
+        return getRequiredInteger(QUERY_EXECUTION_POOL_SIZE);
+    }
+
+    @Override
+    public int getQueryExecutionQueueCapacity() {
+        return getRequiredInteger(QUERY_EXECUTION_QUEUE_CAPACITY);
+    }
+
+    @Override
+    public int getValidationBatchSize() {
+        return getRequiredInteger(VALIDATION_BATCH_SIZE);
+    }
+
+    @Override
+    public int getValidationParallelism() {
+        return getRequiredInteger(VALIDATION_PARALLELISM);
+    }
 }
@@ -23,6 +23,21 @@ public interface MaterializationParams {
      */
     boolean canMaterializationBeIncomplete();
 
+    /**
+     * Number of RDF properties/classes materialized concurrently,
+     * each one on its own connection.
+     *
+     * 1 by default (sequential materialization).
+     */
+    int getParallelism();
+
+    /**
+     * Number of rows fetched at once from the DB when the streaming is enabled.
+     *
+     * 50000 by default.
+     */
+    int getFetchSize();
+
 
     static Builder defaultBuilder() {
         return new MaterializationParamsImpl.DefaultBuilder<>();
@@ -35,6 +50,10 @@ public interface MaterializationParams {
 
         B enableIncompleteMaterialization(boolean enable);
 
+        B parallelism(int parallelism);
+
+        B fetchSize(int fetchSize);
+
         MaterializationParams build();
 
     }
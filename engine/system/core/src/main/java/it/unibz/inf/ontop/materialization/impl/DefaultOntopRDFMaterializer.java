@@ -60,7 +60,8 @@ import javax.annotation.Nullable;
  */
 public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 
-	private static int FETCH_SIZE = 50000;
+	private static final String PROPERTY_QUERY = "CONSTRUCT {?s <%s> ?o} WHERE {?s <%s> ?o}";
+	private static final String CLASS_QUERY = "CONSTRUCT {?s a <%s>} WHERE {?s a <%s>}";
 
 	public DefaultOntopRDFMaterializer() {
 	}
@@ -102,7 +103,9 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 		OntopQueryEngine queryEngine = engineFactory.create(obdaSpecification, configuration.getExecutorRegistry());
 		InputQueryFactory inputQueryFactory = injector.getInstance(InputQueryFactory.class);
 
-		return new DefaultMaterializedGraphResultSet(selectedVocabulary, params, queryEngine, inputQueryFactory);
+		return params.getParallelism() > 1
+				? new ParallelMaterializedGraphResultSet(selectedVocabulary, params, queryEngine, inputQueryFactory)
+				: new DefaultMaterializedGraphResultSet(selectedVocabulary, params, queryEngine, inputQueryFactory);
 	}
 
 	private static ImmutableSet<Predicate> extractVocabulary(@Nonnull ImmutableOntologyVocabulary vocabulary) {
@@ -146,7 +149,7 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
         return ImmutableSet.copyOf(predicates);
     }
 
-	private static URI convertIntoURI(Predicate vocabularyPredicate) {
+	static URI convertIntoURI(Predicate vocabularyPredicate) {
 		try {
 			return new URI(vocabularyPredicate.getName());
 		} catch (URISyntaxException e) {
@@ -156,19 +159,42 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 
 
 
-	private static class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
+	static ConstructQuery createConstructQuery(Predicate p, InputQueryFactory inputQueryFactory) {
+		try {
+			if (p.getArity() == 1)
+				return inputQueryFactory.createConstructQuery(String.format(CLASS_QUERY, p.toString(), p.toString()));
+			else if (p.getArity() == 2)
+				return inputQueryFactory.createConstructQuery(String.format(PROPERTY_QUERY, p.toString(), p.toString()));
+			else
+				throw new NonRDFPredicateException(p);
+		} catch (OntopInvalidInputQueryException e) {
+			throw new InvalidMaterializationConstructQueryException(e);
+		}
+	}
+
+	static void logPredicateProgress(Logger logger, Predicate predicate, long tripleCount, long startTime) {
+		long duration = Math.max(System.currentTimeMillis() - startTime, 1);
+		logger.info("{} triples materialized for {} in {} ms ({} triples/s)", tripleCount, predicate, duration,
+				tripleCount * 1000 / duration);
+	}
 
-		private static final String PROPERTY_QUERY = "CONSTRUCT {?s <%s> ?o} WHERE {?s <%s> ?o}";
-		private static final String CLASS_QUERY = "CONSTRUCT {?s a <%s>} WHERE {?s a <%s>}";
+
+	private static class DefaultMaterializedGraphResultSet implements MaterializedGraphResultSet {
 
 		private final ImmutableSet<URI> vocabulary;
 		private final InputQueryFactory inputQueryFactory;
 		private final boolean doStreamResults, canBeIncomplete;
+		private final int fetchSize;
 
 		private final OntopQueryEngine queryEngine;
 		private final UnmodifiableIterator<Predicate> vocabularyIterator;
 
 		private int counter;
+		private final Map<URI, Long> countPerPredicate;
+		@Nullable
+		private Predicate currentPredicate;
+		private long currentPredicateCount;
+		private long currentPredicateStartTime;
 		@Nullable
 		private OntopConnection ontopConnection;
 		@Nullable
@@ -193,7 +219,9 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 			this.queryEngine = queryEngine;
 			this.doStreamResults = params.isDBResultStreamingEnabled();
 			this.canBeIncomplete = params.canMaterializationBeIncomplete();
+			this.fetchSize = params.getFetchSize();
 			this.inputQueryFactory = inputQueryFactory;
+			this.countPerPredicate = new LinkedHashMap<>();
 			this.possiblyIncompleteClassesAndProperties = new ArrayList<>();
 
 			if (doStreamResults) {
@@ -202,6 +230,7 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 			}
 
 			counter = 0;
+			currentPredicate = null;
 			// Lately initiated
 			ontopConnection = null;
 			tmpStatement = null;
@@ -252,16 +281,21 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 					}
 				}
 
+				completeCurrentPredicate();
+
 				/*
 				 * New query for the next RDF property/class
 				 */
 				Predicate predicate = vocabularyIterator.next();
-				ConstructQuery query = getConstructQuery(predicate);
+				ConstructQuery query = createConstructQuery(predicate, inputQueryFactory);
+				currentPredicate = predicate;
+				currentPredicateCount = 0;
+				currentPredicateStartTime = System.currentTimeMillis();
 
 				try {
 					tmpStatement = ontopConnection.createStatement();
 					if (doStreamResults) {
-						tmpStatement.setFetchSize(FETCH_SIZE);
+						tmpStatement.setFetchSize(fetchSize);
 					}
 					tmpGraphResultSet = tmpStatement.execute(query);
 
@@ -276,48 +310,36 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 						possiblyIncompleteClassesAndProperties.add(convertIntoURI(predicate));
 					}
 					else {
-						LOGGER.error("Problem materialiing the class/property " + predicate);
+						LOGGER.error("Problem materializing the class/property " + predicate);
 						throw e;
 					}
 				}
 			}
+			completeCurrentPredicate();
 
 			return false;
 		}
 
+		private void completeCurrentPredicate() {
+			if (currentPredicate == null)
+				return;
+			countPerPredicate.put(convertIntoURI(currentPredicate), currentPredicateCount);
+			logPredicateProgress(LOGGER, currentPredicate, currentPredicateCount, currentPredicateStartTime);
+			currentPredicate = null;
+		}
+
 		@Override
 		public Assertion next() {
 			if (nextAssertion != null) {
 				Assertion assertion = nextAssertion;
 				counter++;
+				currentPredicateCount++;
 				nextAssertion = null;
 				return assertion;
 			}
 			throw new NoSuchElementException("Please call hasNext() before calling next()");
 		}
 
-		private ConstructQuery getConstructQuery(Predicate p)
-		{
-			try {
-				if (p.getArity() == 1)
-					return inputQueryFactory.createConstructQuery(getClassQuery(p));
-				else if (p.getArity() == 2)
-					return inputQueryFactory.createConstructQuery(getPredicateQuery(p));
-				else
-					throw new NonRDFPredicateException(p);
-			} catch (OntopInvalidInputQueryException e) {
-				throw new InvalidMaterializationConstructQueryException(e);
-			}
-
-		}
-
-		private String getPredicateQuery(Predicate p) {
-			return String.format(PROPERTY_QUERY, p.toString(), p.toString()); }
-
-		private String getClassQuery(Predicate p) {
-			return String.format(CLASS_QUERY, p.toString(), p.toString()); }
-			
-
 		/**
 		 * Releases all the connection resources
 		 */
@@ -334,6 +356,15 @@ public class DefaultOntopRDFMaterializer implements OntopRDFMaterializer {
 			return counter;
 		}
 
+		@Override
+		public ImmutableMap<URI, Long> getTripleCountPerPredicateSoFar() {
+			ImmutableMap.Builder<URI, Long> builder = ImmutableMap.builder();
+			builder.putAll(countPerPredicate);
+			if (currentPredicate != null)
+				builder.put(convertIntoURI(currentPredicate), currentPredicateCount);
+			return builder.build();
+		}
+
 		public ImmutableList<URI> getPossiblyIncompleteRDFPropertiesAndClassesSoFar() {
 			return ImmutableList.copyOf(possiblyIncompleteClassesAndProperties);
 		}
@@ -6,10 +6,15 @@ public class MaterializationParamsImpl implements MaterializationParams {
 
     private final boolean enableDBResultStreaming;
     private final boolean enableIncompleteMaterialization;
+    private final int parallelism;
+    private final int fetchSize;
 
-    private MaterializationParamsImpl(boolean enableDBResultStreaming, boolean enableIncompleteMaterialization) {
+    private MaterializationParamsImpl(boolean enableDBResultStreaming, boolean enableIncompleteMaterialization,
+                                      int parallelism, int fetchSize) {
         this.enableDBResultStreaming = enableDBResultStreaming;
         this.enableIncompleteMaterialization = enableIncompleteMaterialization;
+        this.parallelism = parallelism;
+        this.fetchSize = fetchSize;
     }
 
 
@@ -23,16 +28,32 @@ public class MaterializationParamsImpl implements MaterializationParams {
         return enableIncompleteMaterialization;
     }
 
+    @Override
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    @Override
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
 
     public static class DefaultBuilder<B extends Builder<B>> implements Builder<B> {
 
+        private static final int DEFAULT_FETCH_SIZE = 50000;
+
         private final B builder;
         private boolean isDBResultStreamingEnabled;
         private boolean canMaterializationBeIncomplete;
+        private int parallelism;
+        private int fetchSize;
 
         public DefaultBuilder() {
             this.isDBResultStreamingEnabled = false;
             this.canMaterializationBeIncomplete = false;
+            this.parallelism = 1;
+            this.fetchSize = DEFAULT_FETCH_SIZE;
             this.builder = (B) this;
         }
 
@@ -49,9 +70,26 @@ public class MaterializationParamsImpl implements MaterializationParams {
             return builder;
         }
 
+        @Override
+        public B parallelism(int parallelism) {
+            if (parallelism < 1)
+                throw new IllegalArgumentException("The parallelism must be positive");
+            this.parallelism = parallelism;
+            return builder;
+        }
+
+        @Override
+        public B fetchSize(int fetchSize) {
+            if (fetchSize < 1)
+                throw new IllegalArgumentException("The fetch size must be positive");
+            this.fetchSize = fetchSize;
+            return builder;
+        }
+
         @Override
         public MaterializationParams build() {
-            return new MaterializationParamsImpl(isDBResultStreamingEnabled, canMaterializationBeIncomplete);
+            return new MaterializationParamsImpl(isDBResultStreamingEnabled, canMaterializationBeIncomplete,
+                    parallelism, fetchSize);
         }
     }
 
@@ -0,0 +1,279 @@
+package it.unibz.inf.ontop.materialization.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.input.ConstructQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.resultset.MaterializedGraphResultSet;
+import it.unibz.inf.ontop.answering.resultset.SimpleGraphResultSet;
+import it.unibz.inf.ontop.exception.OntopConnectionException;
+import it.unibz.inf.ontop.exception.OntopQueryAnsweringException;
+import it.unibz.inf.ontop.exception.OntopQueryEngineException;
+import it.unibz.inf.ontop.materialization.MaterializationParams;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Materializes several RDF properties/classes at the same time.
+ *
+ * Each worker thread has its own connection and evaluates the CONSTRUCT queries of the properties/classes
+ * it takes from a shared queue. The assertions are handed over by batches to the consuming thread
+ * through a bounded queue, so slow consumers (e.g. writing to disk) apply back-pressure on the workers.
+ *
+ * Like DefaultMaterializedGraphResultSet, does not allocate resources before hasNext() is called.
+ *
+ * Not thread-safe: the result set itself must be consumed by only one thread.
+ */
+class ParallelMaterializedGraphResultSet implements MaterializedGraphResultSet {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelMaterializedGraphResultSet.class);
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int BATCHES_PER_WORKER = 4;
+    private static final long POLLING_INTERVAL_MS = 100;
+    /**
+     * Signals that a worker has no more predicate to process
+     */
+    private static final List<Assertion> END_OF_WORKER = Collections.emptyList();
+
+    private final ImmutableSet<URI> vocabulary;
+    private final InputQueryFactory inputQueryFactory;
+    private final OntopQueryEngine queryEngine;
+    private final boolean doStreamResults, canBeIncomplete;
+    private final int fetchSize, parallelism;
+
+    private final Queue<Predicate> remainingPredicates;
+    private final BlockingQueue<List<Assertion>> batchQueue;
+    private final Map<URI, AtomicLong> countPerPredicate;
+    private final List<URI> possiblyIncompleteClassesAndProperties;
+    private final AtomicReference<OntopQueryEngineException> fatalException;
+
+    private volatile boolean aborted;
+
+    private long counter;
+    private int completedWorkers;
+    @Nullable
+    private ExecutorService executor;
+    @Nullable
+    private Iterator<Assertion> currentBatch;
+
+    ParallelMaterializedGraphResultSet(ImmutableSet<Predicate> vocabulary, MaterializationParams params,
+                                       OntopQueryEngine queryEngine, InputQueryFactory inputQueryFactory) {
+        this.vocabulary = vocabulary.stream()
+                .map(DefaultOntopRDFMaterializer::convertIntoURI)
+                .collect(ImmutableCollectors.toSet());
+        this.queryEngine = queryEngine;
+        this.inputQueryFactory = inputQueryFactory;
+        this.doStreamResults = params.isDBResultStreamingEnabled();
+        this.canBeIncomplete = params.canMaterializationBeIncomplete();
+        this.fetchSize = params.getFetchSize();
+        this.parallelism = Math.min(params.getParallelism(), Math.max(vocabulary.size(), 1));
+
+        this.remainingPredicates = new ConcurrentLinkedQueue<>(vocabulary);
+        this.batchQueue = new ArrayBlockingQueue<>(parallelism * BATCHES_PER_WORKER);
+        this.countPerPredicate = new ConcurrentHashMap<>();
+        this.possiblyIncompleteClassesAndProperties = Collections.synchronizedList(new ArrayList<>());
+        this.fatalException = new AtomicReference<>();
+
+        this.aborted = false;
+        this.counter = 0;
+        this.completedWorkers = 0;
+        // Lately initiated
+        this.executor = null;
+        this.currentBatch = null;
+    }
+
+    @Override
+    public ImmutableSet<URI> getSelectedVocabulary() {
+        return vocabulary;
+    }
+
+    @Override
+    public boolean hasNext() throws OntopQueryAnsweringException, OntopConnectionException {
+        // Initialization
+        if (executor == null)
+            startWorkers();
+
+        while (currentBatch == null || !currentBatch.hasNext()) {
+            rethrowFatalException();
+            if (completedWorkers == parallelism)
+                return false;
+
+            List<Assertion> batch;
+            try {
+                batch = batchQueue.poll(POLLING_INTERVAL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new OntopQueryAnsweringException("Interrupted while waiting for materialized triples", e);
+            }
+            if (batch == null)
+                continue;
+            if (batch == END_OF_WORKER)
+                completedWorkers++;
+            else
+                currentBatch = batch.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public Assertion next() {
+        if (currentBatch != null && currentBatch.hasNext()) {
+            counter++;
+            return currentBatch.next();
+        }
+        throw new NoSuchElementException("Please call hasNext() before calling next()");
+    }
+
+    private void startWorkers() {
+        executor = Executors.newFixedThreadPool(parallelism, new ThreadFactoryBuilder()
+                .setNameFormat("ontop-materializer-%d")
+                .setDaemon(true)
+                .build());
+        for (int i = 0; i < parallelism; i++)
+            executor.execute(this::runWorker);
+        // No new task
+        executor.shutdown();
+    }
+
+    private void runWorker() {
+        try (OntopConnection connection = queryEngine.getConnection()) {
+            Predicate predicate;
+            while ((!aborted) && (predicate = remainingPredicates.poll()) != null) {
+                materializePredicate(connection, predicate);
+            }
+        } catch (OntopQueryEngineException e) {
+            fatalException.compareAndSet(null, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            fatalException.compareAndSet(null, new OntopQueryAnsweringException(e));
+        } finally {
+            try {
+                push(END_OF_WORKER);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void materializePredicate(OntopConnection connection, Predicate predicate)
+            throws OntopQueryEngineException, InterruptedException {
+        URI predicateURI = DefaultOntopRDFMaterializer.convertIntoURI(predicate);
+        AtomicLong predicateCount = new AtomicLong();
+        countPerPredicate.put(predicateURI, predicateCount);
+        long startTime = System.currentTimeMillis();
+
+        ConstructQuery query = DefaultOntopRDFMaterializer.createConstructQuery(predicate, inputQueryFactory);
+
+        try (OntopStatement statement = connection.createStatement()) {
+            if (doStreamResults) {
+                statement.setFetchSize(fetchSize);
+            }
+            SimpleGraphResultSet resultSet = statement.execute(query);
+            try {
+                List<Assertion> batch = new ArrayList<>(BATCH_SIZE);
+                while ((!aborted) && resultSet.hasNext()) {
+                    batch.add(resultSet.next());
+                    if (batch.size() == BATCH_SIZE) {
+                        push(batch);
+                        predicateCount.addAndGet(batch.size());
+                        batch = new ArrayList<>(BATCH_SIZE);
+                    }
+                }
+                if (!batch.isEmpty()) {
+                    push(batch);
+                    predicateCount.addAndGet(batch.size());
+                }
+            } finally {
+                resultSet.close();
+            }
+        } catch (OntopQueryAnsweringException | OntopConnectionException e) {
+            if (canBeIncomplete) {
+                LOGGER.warn("Possibly incomplete class/property " + predicate + " (materialization problem).\n"
+                        + "Details: " + e);
+                possiblyIncompleteClassesAndProperties.add(predicateURI);
+            }
+            else {
+                LOGGER.error("Problem materializing the class/property " + predicate);
+                throw e;
+            }
+        }
+        DefaultOntopRDFMaterializer.logPredicateProgress(LOGGER, predicate, predicateCount.get(), startTime);
+    }
+
+    /**
+     * Blocks while the queue is full, unless the materialization is aborted.
+     */
+    private void push(List<Assertion> batch) throws InterruptedException {
+        while (!aborted) {
+            if (batchQueue.offer(batch, POLLING_INTERVAL_MS, TimeUnit.MILLISECONDS))
+                return;
+        }
+    }
+
+    private void rethrowFatalException() throws OntopQueryAnsweringException, OntopConnectionException {
+        OntopQueryEngineException e = fatalException.get();
+        if (e == null)
+            return;
+        close();
+        if (e instanceof OntopConnectionException)
+            throw (OntopConnectionException) e;
+        else if (e instanceof OntopQueryAnsweringException)
+            throw (OntopQueryAnsweringException) e;
+        else
+            throw new OntopQueryAnsweringException(e);
+    }
+
+    /**
+     * Stops the workers, which release their connection resources
+     */
+    @Override
+    public void close() throws OntopConnectionException {
+        aborted = true;
+        if (executor != null)
+            executor.shutdownNow();
+        batchQueue.clear();
+        currentBatch = null;
+        // Nothing left to consume
+        completedWorkers = parallelism;
+    }
+
+    @Override
+    public long getTripleCountSoFar() {
+        return counter;
+    }
+
+    /**
+     * Counts the triples produced by the workers, some of them may not have been consumed yet.
+     */
+    @Override
+    public ImmutableMap<URI, Long> getTripleCountPerPredicateSoFar() {
+        return countPerPredicate.entrySet().stream()
+                .collect(ImmutableCollectors.toMap(
+                        Map.Entry::getKey,
+                        e -> e.getValue().get()));
+    }
+
+    @Override
+    public ImmutableList<URI> getPossiblyIncompleteRDFPropertiesAndClassesSoFar() {
+        synchronized (possiblyIncompleteClassesAndProperties) {
+            return ImmutableList.copyOf(possiblyIncompleteClassesAndProperties);
+        }
+    }
+}
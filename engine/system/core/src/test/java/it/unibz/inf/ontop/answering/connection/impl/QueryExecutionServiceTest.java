@@ -0,0 +1,95 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import com.google.common.collect.ImmutableMap;
+import it.unibz.inf.ontop.answering.monitoring.MetricsRegistry;
+import it.unibz.inf.ontop.injection.OntopSystemSettings.QueryExecutionMode;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.Assert.*;
+
+public class QueryExecutionServiceTest {
+
+    @Test
+    public void testCallerThread() throws Exception {
+        RecordingMetricsRegistry registry = new RecordingMetricsRegistry();
+        try (QueryExecutionService service = new QueryExecutionService(QueryExecutionMode.CALLER_THREAD, 1, 1,
+                registry)) {
+            Thread caller = Thread.currentThread();
+            Future<Boolean> future = service.submit(() -> Thread.currentThread() == caller);
+
+            assertTrue(future.isDone());
+            assertTrue(future.get());
+            assertEquals(1, service.getSubmittedCount());
+            assertEquals(1, registry.getCount("ontop.query.execution.submitted"));
+        }
+    }
+
+    @Test
+    public void testBoundedQueue() throws Exception {
+        RecordingMetricsRegistry registry = new RecordingMetricsRegistry();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (QueryExecutionService service = new QueryExecutionService(QueryExecutionMode.POOL, 1, 1, registry)) {
+            // Occupies the only thread
+            Future<Integer> running = service.submit(() -> {
+                started.countDown();
+                release.await();
+                return 1;
+            });
+            started.await();
+            // Fills the queue
+            Future<Integer> waiting = service.submit(() -> 2);
+            assertEquals(1, service.getQueueDepth());
+
+            try {
+                service.submit(() -> 3);
+                fail("The queue should be full");
+            } catch (RejectedExecutionException e) {
+                // expected
+            }
+
+            release.countDown();
+            assertEquals(1, (int) running.get());
+            assertEquals(2, (int) waiting.get());
+
+            assertEquals(2, service.getSubmittedCount());
+            assertEquals(1, service.getRejectedCount());
+            assertEquals(2, registry.getCount("ontop.query.execution.submitted"));
+            assertEquals(1, registry.getCount("ontop.query.execution.rejected"));
+            assertEquals(2, registry.getCount("ontop.query.execution.wait"));
+        }
+    }
+
+    private static class RecordingMetricsRegistry implements MetricsRegistry {
+
+        private final Map<String, Integer> counts = new ConcurrentHashMap<>();
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void incrementCounter(String name, ImmutableMap<String, String> tags) {
+            counts.merge(name, 1, Integer::sum);
+        }
+
+        @Override
+        public void recordDuration(String name, ImmutableMap<String, String> tags, long nanos) {
+            counts.merge(name, 1, Integer::sum);
+        }
+
+        @Override
+        public void recordValue(String name, ImmutableMap<String, String> tags, double value) {
+            counts.merge(name, 1, Integer::sum);
+        }
+
+        int getCount(String name) {
+            return counts.getOrDefault(name, 0);
+        }
+    }
+}
@@ -4,6 +4,7 @@ import com.google.inject.assistedinject.Assisted;
 import com.google.inject.assistedinject.AssistedInject;
 import it.unibz.inf.ontop.answering.connection.DBConnector;
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
@@ -38,6 +39,8 @@ public class JDBCConnector implements DBConnector {
 
     private final DBMetadata dbMetadata;
     private final InputQueryFactory inputQueryFactory;
+    private final QueryExecutionService executionService;
+    private final QueryMonitor queryMonitor;
 
     @AssistedInject
     private JDBCConnector(@Assisted QueryReformulator queryReformulator,
@@ -45,6 +48,8 @@ public class JDBCConnector implements DBConnector {
                           @Nullable IRIDictionary iriDictionary,
                           JDBCConnectionPool connectionPool,
                           InputQueryFactory inputQueryFactory,
+                          QueryMonitor queryMonitor,
+                          QueryExecutionService executionService,
                           OntopSystemSQLSettings settings) {
         this.queryReformulator = queryReformulator;
         this.dbMetadata = dbMetadata;
@@ -52,6 +57,8 @@ public class JDBCConnector implements DBConnector {
         this.settings = settings;
         this.iriDictionary = Optional.ofNullable(iriDictionary);
         this.connectionPool = connectionPool;
+        this.executionService = executionService;
+        this.queryMonitor = queryMonitor;
     }
 
     /**
@@ -85,6 +92,7 @@ public class JDBCConnector implements DBConnector {
             log.error(e.getMessage());
         }
         connectionPool.close();
+        executionService.close();
     }
 
     public synchronized Connection getSQLPoolConnection() throws OntopConnectionException {
@@ -113,7 +121,14 @@ public class JDBCConnector implements DBConnector {
     public OntopConnection getConnection() throws OntopConnectionException {
 
         return new SQLConnection(this, queryReformulator, getSQLPoolConnection(), iriDictionary,
-                dbMetadata, inputQueryFactory, settings);
+                dbMetadata, inputQueryFactory, settings, executionService, queryMonitor);
+    }
+
+    /**
+     * Shared by all the connections. Gives access to the execution metrics (queue depth, wait time).
+     */
+    public QueryExecutionService getQueryExecutionService() {
+        return executionService;
     }
 
 
@@ -0,0 +1,109 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+
+/**
+ * Keeps the idle prepared statements of a JDBC connection, indexed by their SQL string,
+ * so that queries of the same shape (only differing by their parameters) reuse them,
+ * as well as the DB-side plans.
+ *
+ * A prepared statement is used by one Ontop statement at a time: it is taken from the cache (acquire)
+ * and given back once its results are not needed anymore (release).
+ * At most maxSize idle prepared statements are kept, the least recently released ones are closed first.
+ *
+ * Thread-safe.
+ */
+public class PreparedStatementCache implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(PreparedStatementCache.class);
+
+    private final Connection connection;
+    private final int maxSize;
+
+    // Access-ordered: the eldest entries are evicted first
+    private final LinkedHashMap<String, Deque<PreparedStatement>> idleStatements;
+    private int idleCount;
+    private boolean isClosed;
+
+    /**
+     * maxSize: if 0, prepared statements are closed as soon as they are released
+     */
+    public PreparedStatementCache(Connection connection, int maxSize) {
+        this.connection = connection;
+        this.maxSize = maxSize;
+        this.idleStatements = new LinkedHashMap<>(16, 0.75f, true);
+        this.idleCount = 0;
+        this.isClosed = false;
+    }
+
+    public PreparedStatement acquire(String sql) throws SQLException {
+        synchronized (this) {
+            Deque<PreparedStatement> statements = idleStatements.get(sql);
+            while (statements != null && !statements.isEmpty()) {
+                PreparedStatement statement = statements.pollFirst();
+                idleCount--;
+                if (statements.isEmpty())
+                    idleStatements.remove(sql);
+                // E.g. closed by the driver
+                if (!statement.isClosed())
+                    return statement;
+            }
+        }
+        return connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+    }
+
+    /**
+     * The prepared statement must not be used anymore by the caller
+     */
+    public void release(String sql, PreparedStatement statement) {
+        List<PreparedStatement> evictedStatements = new ArrayList<>();
+        synchronized (this) {
+            if (isClosed || maxSize == 0)
+                evictedStatements.add(statement);
+            else {
+                idleStatements.computeIfAbsent(sql, s -> new ArrayDeque<>()).addFirst(statement);
+                idleCount++;
+
+                Iterator<Deque<PreparedStatement>> it = idleStatements.values().iterator();
+                while (idleCount > maxSize) {
+                    Deque<PreparedStatement> eldest = it.next();
+                    evictedStatements.add(eldest.pollLast());
+                    idleCount--;
+                    if (eldest.isEmpty())
+                        it.remove();
+                }
+            }
+        }
+        evictedStatements.forEach(PreparedStatementCache::closeQuietly);
+    }
+
+    /**
+     * Closes the idle prepared statements. The ones released afterwards are closed immediately.
+     */
+    @Override
+    public void close() {
+        List<PreparedStatement> statements = new ArrayList<>();
+        synchronized (this) {
+            isClosed = true;
+            idleStatements.values().forEach(statements::addAll);
+            idleStatements.clear();
+            idleCount = 0;
+        }
+        statements.forEach(PreparedStatementCache::closeQuietly);
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException e) {
+            log.warn("Could not close a prepared statement: " + e.getMessage());
+        }
+    }
+}
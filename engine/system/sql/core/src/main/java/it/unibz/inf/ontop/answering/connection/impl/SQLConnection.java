@@ -25,6 +25,7 @@ import java.util.Optional;
 
 import it.unibz.inf.ontop.answering.connection.OntopConnection;
 import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
 import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
 import it.unibz.inf.ontop.exception.OntopConnectionException;
@@ -52,14 +53,18 @@ public class SQLConnection implements OntopConnection {
 	private final DBMetadata dbMetadata;
 	private final InputQueryFactory inputQueryFactory;
 	private final OntopSystemSQLSettings settings;
+	private final QueryExecutionService executionService;
+	private final QueryMonitor queryMonitor;
 
 	private final JDBCConnector jdbcConnector;
+	private PreparedStatementCache preparedStatementCache;
 	private boolean isClosed;
 
 
 	public SQLConnection(JDBCConnector jdbcConnector, QueryReformulator queryProcessor, Connection connection,
                          Optional<IRIDictionary> iriDictionary, DBMetadata dbMetadata,
-                         InputQueryFactory inputQueryFactory, OntopSystemSQLSettings settings) {
+                         InputQueryFactory inputQueryFactory, OntopSystemSQLSettings settings,
+                         QueryExecutionService executionService, QueryMonitor queryMonitor) {
 		this.jdbcConnector = jdbcConnector;
 		this.queryProcessor = queryProcessor;
 		this.conn = connection;
@@ -67,12 +72,16 @@ public class SQLConnection implements OntopConnection {
 		this.dbMetadata = dbMetadata;
 		this.inputQueryFactory = inputQueryFactory;
 		this.settings = settings;
+		this.executionService = executionService;
+		this.queryMonitor = queryMonitor;
+		this.preparedStatementCache = new PreparedStatementCache(connection, settings.getPreparedStatementCacheSize());
 		this.isClosed = false;
 	}
 	
 	@Override
 	public void close() throws OntopConnectionException {
 		try {
+			preparedStatementCache.close();
 			conn.close();
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
@@ -85,11 +94,14 @@ public class SQLConnection implements OntopConnection {
 			if (conn.isClosed()) {
 				// Sometimes it gets dropped, reconnect
 				conn = jdbcConnector.getSQLPoolConnection();
+				preparedStatementCache.close();
+				preparedStatementCache = new PreparedStatementCache(conn, settings.getPreparedStatementCacheSize());
 			}
 			return new SQLQuestStatement(
 					this.queryProcessor,
 					conn.createStatement(java.sql.ResultSet.TYPE_FORWARD_ONLY, java.sql.ResultSet.CONCUR_READ_ONLY),
-					iriDictionary, dbMetadata, inputQueryFactory, settings);
+					preparedStatementCache, iriDictionary, dbMetadata, inputQueryFactory, settings, executionService,
+					queryMonitor);
 		} catch (Exception e) {
 			throw new OntopConnectionException(e);
 		}
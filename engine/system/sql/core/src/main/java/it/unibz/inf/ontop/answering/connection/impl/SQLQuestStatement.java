@@ -2,6 +2,8 @@ package it.unibz.inf.ontop.answering.connection.impl;
 
 import java.util.Optional;
 
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
 import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.impl.SQLExecutableQuery;
 import it.unibz.inf.ontop.answering.reformulation.input.*;
@@ -17,26 +19,45 @@ import it.unibz.inf.ontop.answering.resultset.impl.PredefinedBooleanResultSet;
 import it.unibz.inf.ontop.answering.reformulation.IRIDictionary;
 import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
 
+import javax.annotation.Nullable;
 import java.sql.*;
 import java.sql.ResultSet;
 
 /**
  * SQL-specific implementation of OBDAStatement.
  * Derived from QuestStatement.
+ *
+ * Queries with parameters are executed as prepared statements, taken from the cache of the connection.
+ * Like for a JDBC statement, executing a new query (or closing the statement) closes the results
+ * of the previous one: the prepared statement is then given back to the cache.
  */
 public class SQLQuestStatement extends QuestStatement {
 
     private final Statement sqlStatement;
+    private final PreparedStatementCache preparedStatementCache;
     private final DBMetadata dbMetadata;
     private final Optional<IRIDictionary> iriDictionary;
     private final OntopSystemSQLSettings settings;
 
+    /**
+     * Prepared statement of the last query (if it had parameters), not yet released
+     */
+    @Nullable
+    private volatile PreparedStatement currentPreparedStatement;
+    @Nullable
+    private String currentPreparedSQL;
+    @Nullable
+    private ResultSet currentPreparedResultSet;
+
     public SQLQuestStatement(QueryReformulator queryProcessor, Statement sqlStatement,
+                             PreparedStatementCache preparedStatementCache,
                              Optional<IRIDictionary> iriDictionary, DBMetadata dbMetadata,
                              InputQueryFactory inputQueryFactory,
-                             OntopSystemSQLSettings settings) {
-        super(queryProcessor, inputQueryFactory);
+                             OntopSystemSQLSettings settings, QueryExecutionService executionService,
+                             QueryMonitor queryMonitor) {
+        super(queryProcessor, inputQueryFactory, executionService, queryMonitor);
         this.sqlStatement = sqlStatement;
+        this.preparedStatementCache = preparedStatementCache;
         this.dbMetadata = dbMetadata;
         this.iriDictionary = iriDictionary;
         this.settings = settings;
@@ -123,16 +144,19 @@ public class SQLQuestStatement extends QuestStatement {
      * Returns the number of tuples returned by the query
      */
     @Override
-    public int getTupleCount(InputQuery inputQuery) throws OntopReformulationException, OntopQueryEvaluationException {
+    public long getTupleCount(InputQuery inputQuery) throws OntopReformulationException, OntopQueryEvaluationException {
         SQLExecutableQuery targetQuery = checkAndConvertTargetQuery(getExecutableQuery(inputQuery));
         String sql = targetQuery.getSQL();
+        // Empty query
+        if (sql.equals(""))
+            return 0;
         String newsql = "SELECT count(*) FROM (" + sql + ") t1";
         if (!isCanceled()) {
             try {
 
-                java.sql.ResultSet set = sqlStatement.executeQuery(newsql);
+                java.sql.ResultSet set = executeSQLQuery(newsql, targetQuery.getParameters());
                 if (set.next()) {
-                    return set.getInt(1);
+                    return set.getLong(1);
                 } else {
                     //throw new OBDAException("Tuple count failed due to empty result set.");
                     return 0;
@@ -148,7 +172,9 @@ public class SQLQuestStatement extends QuestStatement {
 
     @Override
     public void close() throws OntopConnectionException {
+        reportUnclosedResults();
         try {
+            releasePreparedStatement();
             if (sqlStatement != null)
                 sqlStatement.close();
         } catch (SQLException e) {
@@ -158,6 +184,9 @@ public class SQLQuestStatement extends QuestStatement {
 
     protected void cancelExecution() throws OntopQueryEvaluationException {
         try {
+            PreparedStatement preparedStatement = currentPreparedStatement;
+            if (preparedStatement != null)
+                preparedStatement.cancel();
             sqlStatement.cancel();
         } catch (SQLException e) {
             throw new OntopQueryEvaluationException(e);
@@ -174,7 +203,7 @@ public class SQLQuestStatement extends QuestStatement {
         }
 
         try {
-            java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
+            java.sql.ResultSet set = executeSQLQuery(sqlQuery, sqlTargetQuery.getParameters());
             return new SQLBooleanResultSet(set);
         } catch (SQLException e) {
             throw new OntopQueryEvaluationException(e.getMessage());
@@ -191,7 +220,7 @@ public class SQLQuestStatement extends QuestStatement {
             return new EmptyTupleResultSet(executableQuery.getSignature());
         }
         try {
-            java.sql.ResultSet set = sqlStatement.executeQuery(sqlQuery);
+            java.sql.ResultSet set = executeSQLQuery(sqlQuery, sqlTargetQuery.getParameters());
             return settings.isDistinctPostProcessingEnabled()
                     ? new SQLDistinctTupleResultSet(set, executableQuery.getSignature(), dbMetadata, iriDictionary)
                     : new SQLTupleResultSet(set, executableQuery.getSignature(), dbMetadata, iriDictionary);
@@ -215,7 +244,7 @@ public class SQLQuestStatement extends QuestStatement {
         }
         else {
             try {
-                ResultSet set = sqlStatement.executeQuery(sqlQuery);
+                ResultSet set = executeSQLQuery(sqlQuery, sqlTargetQuery.getParameters());
                 tuples = new SQLTupleResultSet(set, executableQuery.getSignature(), dbMetadata,
                         iriDictionary);
             } catch (SQLException e) {
@@ -225,6 +254,61 @@ public class SQLQuestStatement extends QuestStatement {
         return new DefaultSimpleGraphResultSet(tuples, inputQuery.getConstructTemplate(), collectResults);
     }
 
+    /**
+     * Closes the results of the previous query
+     */
+    private ResultSet executeSQLQuery(String sqlQuery, ImmutableList<Object> parameters) throws SQLException {
+        releasePreparedStatement();
+        if (parameters.isEmpty())
+            return sqlStatement.executeQuery(sqlQuery);
+
+        PreparedStatement preparedStatement = preparedStatementCache.acquire(sqlQuery);
+        currentPreparedSQL = sqlQuery;
+        currentPreparedStatement = preparedStatement;
+        try {
+            // Same configuration as the plain statement
+            preparedStatement.setFetchSize(sqlStatement.getFetchSize());
+            preparedStatement.setMaxRows(sqlStatement.getMaxRows());
+            preparedStatement.setQueryTimeout(sqlStatement.getQueryTimeout());
+            for (int i = 0; i < parameters.size(); i++)
+                preparedStatement.setObject(i + 1, parameters.get(i));
+
+            currentPreparedResultSet = preparedStatement.executeQuery();
+            return currentPreparedResultSet;
+        } catch (SQLException e) {
+            // Not given back to the cache: may be in an inconsistent state
+            currentPreparedStatement = null;
+            currentPreparedSQL = null;
+            try {
+                preparedStatement.close();
+            } catch (SQLException e1) {
+                e.addSuppressed(e1);
+            }
+            throw e;
+        }
+    }
+
+    private void releasePreparedStatement() throws SQLException {
+        PreparedStatement preparedStatement = currentPreparedStatement;
+        if (preparedStatement == null)
+            return;
+        String sql = currentPreparedSQL;
+        ResultSet resultSet = currentPreparedResultSet;
+        currentPreparedStatement = null;
+        currentPreparedSQL = null;
+        currentPreparedResultSet = null;
+
+        try {
+            if (resultSet != null)
+                resultSet.close();
+            preparedStatement.clearParameters();
+        } catch (SQLException e) {
+            preparedStatement.close();
+            throw e;
+        }
+        preparedStatementCache.release(sql, preparedStatement);
+    }
+
     private SQLExecutableQuery checkAndConvertTargetQuery(ExecutableQuery executableQuery) {
         if (! (executableQuery instanceof SQLExecutableQuery)) {
             throw new IllegalArgumentException("A SQLQuestStatement only accepts SQLTargetQuery instances");
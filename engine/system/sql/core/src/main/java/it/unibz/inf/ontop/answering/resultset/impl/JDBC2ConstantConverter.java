@@ -9,15 +9,16 @@ import it.unibz.inf.ontop.model.term.Constant;
 import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
 import org.apache.commons.lang3.time.DateUtils;
 
+import javax.annotation.Nullable;
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.net.URISyntaxException;
-import java.text.DecimalFormat;
+import java.text.ParsePosition;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
 import java.time.temporal.TemporalAccessor;
+import java.time.temporal.TemporalQuery;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -33,11 +34,17 @@ public class JDBC2ConstantConverter {
     private static ImmutableMap<System, ImmutableList<DateTimeFormatter>> system2DateTimeFormatter;
     private static ImmutableMap<System, ImmutableList<DateTimeFormatter>> system2TimeFormatter;
 
+    private static final TemporalQuery<?>[] DATE_TIME_QUERIES = {OffsetDateTime::from, LocalDateTime::from, LocalDate::from};
+    private static final TemporalQuery<?>[] TIME_QUERIES = {OffsetTime::from, LocalTime::from};
+
     private AtomicInteger bnodeCounter;
     private IRIDictionary iriDictionary;
 
     private final Map<String, String> bnodeMap;
 
+    // Lazily created, one per type
+    private final Map<Predicate.COL_TYPE, CellConverter> converterMap;
+
     private final System systemDB;
 
     static {
@@ -94,6 +101,7 @@ public class JDBC2ConstantConverter {
         systemDB = identifySystem(vendor);
         this.bnodeCounter = new AtomicInteger();
         bnodeMap = new HashMap<>(1000);
+        converterMap = new EnumMap<>(Predicate.COL_TYPE.class);
     }
 
     private System identifySystem(String vendor) {
@@ -104,119 +112,46 @@ public class JDBC2ConstantConverter {
         return DEFAULT;
     }
 
-    public Constant getConstantFromJDBC(MainTypeLangValues cell) throws OntopResultConversionException {
-
-        Object value = "";
-        String stringValue;
+    /**
+     * Converts a non-null cell into a constant.
+     *
+     * Specialized for one type (see Predicate.COL_TYPE) so that the type code is looked up
+     * once per column and type, not once per cell.
+     */
+    @FunctionalInterface
+    interface CellConverter {
+        @Nullable
+        Constant convert(Object value, @Nullable String lang) throws Exception;
+    }
 
-        try {
-            value = cell.getMainValue();
+    /**
+     * Returns the converter for the type code found in the type column of the SQL query
+     */
+    CellConverter getCellConverter(int typeCode) throws OntopResultConversionException {
+        Predicate.COL_TYPE type = Predicate.COL_TYPE.getQuestType(typeCode);
+        if (type == null)
+            throw new OntopResultConversionException("typeCode unknown: " + typeCode);
+
+        CellConverter converter = converterMap.get(type);
+        if (converter == null) {
+            converter = createCellConverter(type);
+            converterMap.put(type, converter);
+        }
+        return converter;
+    }
 
-            if (value == null) {
-                return null;
-            }
-            stringValue = String.valueOf(value);
-
-            int t = cell.getTypeValue();
-            Predicate.COL_TYPE type = Predicate.COL_TYPE.getQuestType(t);
-            if (type == null)
-                throw new OntopResultConversionException("typeCode unknown: " + t);
-
-            switch (type) {
-                case NULL:
-                    return null;
-
-                case OBJECT:
-                    if (iriDictionary != null) {
-                        try {
-                            Integer id = Integer.parseInt(stringValue);
-                            stringValue = iriDictionary.getURI(id);
-                        } catch (NumberFormatException e) {
-                            // If its not a number, then it has to be a URI, so
-                            // we leave realValue as it is.
-                        }
-                    }
-                    return TERM_FACTORY.getConstantURI(stringValue.trim());
-
-                case BNODE:
-                    String scopedLabel = this.bnodeMap.get(stringValue);
-                    if (scopedLabel == null) {
-                        scopedLabel = "b" + bnodeCounter.getAndIncrement();
-                        bnodeMap.put(stringValue, scopedLabel);
-                    }
-                    return TERM_FACTORY.getConstantBNode(scopedLabel);
-
-                case LANG_STRING:
-                    // The constant is a literal, we need to find if its
-                    // rdfs:Literal or a normal literal and construct it
-                    // properly.
-                    String language = cell.getLangValue();
-                    if (language == null || language.trim().equals(""))
-                        return TERM_FACTORY.getConstantLiteral(stringValue);
-                    else
-                        return TERM_FACTORY.getConstantLiteral(stringValue, language);
-
-                case BOOLEAN:
-
-                    boolean bvalue = Boolean.parseBoolean(stringValue);
-                    return TERM_FACTORY.getBooleanConstant(bvalue);
-
-                case FLOAT:
-                case DOUBLE:
-
-//                    It allows to consider the canonical representation. nan and infinite are catched.
-                    BigDecimal bigDecimal;
-                    try {
-                        bigDecimal = new BigDecimal (stringValue);
-
-                    }
-                    catch (NumberFormatException e){
-                        return TERM_FACTORY.getConstantLiteral(stringValue,type);
-                    }
-                    DecimalFormat formatter = new DecimalFormat("0.0E0");
-                    formatter.setRoundingMode(RoundingMode.UNNECESSARY);
-                    formatter.setMaximumFractionDigits((bigDecimal.scale() > 0) ? bigDecimal.precision() -1 : bigDecimal.precision() -1 + bigDecimal.scale() *-1);
-                    return  TERM_FACTORY.getConstantLiteral(formatter.format(bigDecimal),type);
-
-                case DECIMAL:
-                case INT:
-                case LONG:
-                case UNSIGNED_INT:
-                    return TERM_FACTORY.getConstantLiteral(stringValue, type);
-
-                case INTEGER:
-                case NEGATIVE_INTEGER:
-                case NON_NEGATIVE_INTEGER:
-                case POSITIVE_INTEGER:
-                case NON_POSITIVE_INTEGER:
-
-                    /**
-                     * Sometimes the integer may have been converted as DECIMAL, FLOAT or DOUBLE
-                     */
-                    String integerString = String.valueOf(Double.valueOf(stringValue).intValue());
-
-                    return TERM_FACTORY.getConstantLiteral(integerString, type);
-
-                case DATETIME:
-
-                    return TERM_FACTORY.getConstantLiteral( DateTimeFormatter.ISO_DATE_TIME.format(convertToJavaDate(value)),Predicate.COL_TYPE.DATETIME
-                    );
-
-                case DATETIME_STAMP:
-                    return TERM_FACTORY.getConstantLiteral( DateTimeFormatter.ISO_DATE_TIME.format(convertToJavaDate(value)),Predicate.COL_TYPE.DATETIME_STAMP
-                );
-
-                case DATE:
-                    return TERM_FACTORY.getConstantLiteral( DateTimeFormatter.ISO_DATE.format(convertToJavaDate(value)),Predicate.COL_TYPE.DATE);
-
-                case TIME:
-
-                    return TERM_FACTORY.getConstantLiteral(DateTimeFormatter.ISO_TIME.format(convertToTime(value)), Predicate.COL_TYPE.TIME);
-
-                default:
-                    return TERM_FACTORY.getConstantLiteral(stringValue, type);
+    @Nullable
+    public Constant getConstantFromJDBC(@Nullable Object value, int typeCode, @Nullable String lang)
+            throws OntopResultConversionException {
+        if (value == null)
+            return null;
+        return convert(getCellConverter(typeCode), value, lang);
+    }
 
-            }
+    @Nullable
+    Constant convert(CellConverter converter, Object value, @Nullable String lang) throws OntopResultConversionException {
+        try {
+            return converter.convert(value, lang);
         } catch (IllegalArgumentException e) {
             Throwable cause = e.getCause();
             if (cause instanceof URISyntaxException) {
@@ -236,68 +171,220 @@ public class JDBC2ConstantConverter {
                 ex.setStackTrace(e.getStackTrace());
                 throw ex;
             }
+        } catch (OntopResultConversionException e) {
+            throw e;
         } catch (Exception e) {
             throw new OntopResultConversionException(e);
         }
     }
 
-    private TemporalAccessor convertToJavaDate(Object value) throws OntopResultConversionException {
-        TemporalAccessor dateValue = null;
+    private CellConverter createCellConverter(Predicate.COL_TYPE type) {
+        switch (type) {
+            case NULL:
+                return (value, lang) -> null;
+
+            case OBJECT:
+                return (value, lang) -> (iriDictionary != null && value instanceof Integer)
+                        // dictionary id: no need to go through a string
+                        ? TERM_FACTORY.getConstantURI(iriDictionary.getURI((Integer) value).trim())
+                        : convertIRI(String.valueOf(value));
+
+            case BNODE:
+                return (value, lang) -> convertBNode(String.valueOf(value));
+
+            case LANG_STRING:
+                // The constant is a literal, we need to find if its
+                // rdfs:Literal or a normal literal and construct it
+                // properly.
+                return (value, lang) -> (lang == null || lang.trim().equals(""))
+                        ? TERM_FACTORY.getConstantLiteral(String.valueOf(value))
+                        : TERM_FACTORY.getConstantLiteral(String.valueOf(value), lang);
+
+            case BOOLEAN:
+                return (value, lang) -> TERM_FACTORY.getBooleanConstant(Boolean.parseBoolean(String.valueOf(value)));
+
+            case FLOAT:
+            case DOUBLE:
+                return (value, lang) -> convertFloatingPoint(String.valueOf(value), type);
+
+            case INTEGER:
+            case NEGATIVE_INTEGER:
+            case NON_NEGATIVE_INTEGER:
+            case POSITIVE_INTEGER:
+            case NON_POSITIVE_INTEGER:
+                return (value, lang) -> TERM_FACTORY.getConstantLiteral(convertInteger(value), type);
+
+            case DATETIME:
+            case DATETIME_STAMP:
+                return new TemporalConverter(system2DateTimeFormatter.get(systemDB), DATE_TIME_QUERIES,
+                        DateTimeFormatter.ISO_DATE_TIME, type);
+
+            case DATE:
+                return new TemporalConverter(system2DateTimeFormatter.get(systemDB), DATE_TIME_QUERIES,
+                        DateTimeFormatter.ISO_DATE, type);
+
+            case TIME:
+                return new TemporalConverter(system2TimeFormatter.get(DEFAULT), TIME_QUERIES,
+                        DateTimeFormatter.ISO_TIME, type);
+
+            // DECIMAL, INT, LONG, UNSIGNED_INT, etc.
+            default:
+                return (value, lang) -> TERM_FACTORY.getConstantLiteral(String.valueOf(value), type);
+        }
+    }
 
-        if (value instanceof Date ) {
-            // If JDBC gives us proper Java object, we simply return the formatted version of the datatype
-            Calendar calendar = DateUtils.toCalendar(((Date) value));
-            TimeZone timeZone = calendar.getTimeZone();
-            dateValue = OffsetDateTime.from(calendar.toInstant().atZone(timeZone.toZoneId()));
-        } else {
-            // Otherwise, we need to deal with possible String representation of datetime
-            String stringValue = String.valueOf(value);
-            for (DateTimeFormatter format : system2DateTimeFormatter.get(systemDB)) {
-                try {
-                    dateValue = format.parseBest(stringValue, OffsetDateTime::from, LocalDateTime::from, LocalDate::from);
-
-                    break;
-                } catch (DateTimeParseException e) {
-                    // continue with the next try
-                }
+    private Constant convertIRI(String stringValue) {
+        if (iriDictionary != null && isInteger(stringValue)) {
+            try {
+                stringValue = iriDictionary.getURI(Integer.parseInt(stringValue));
+            } catch (NumberFormatException e) {
+                // Too large for an id: it has to be a URI, so
+                // we leave realValue as it is.
             }
+        }
+        return TERM_FACTORY.getConstantURI(stringValue.trim());
+    }
 
-            if (dateValue == null) {
-                throw new OntopResultConversionException("unparseable datetime: " + stringValue);
-            }
+    private static boolean isInteger(String s) {
+        int length = s.length();
+        int start = (length > 0 && s.charAt(0) == '-') ? 1 : 0;
+        if (length == start)
+            return false;
+        for (int i = start; i < length; i++) {
+            char c = s.charAt(i);
+            if (c < '0' || c > '9')
+                return false;
+        }
+        return true;
+    }
+
+    private Constant convertBNode(String stringValue) {
+        String scopedLabel = this.bnodeMap.get(stringValue);
+        if (scopedLabel == null) {
+            scopedLabel = "b" + bnodeCounter.getAndIncrement();
+            bnodeMap.put(stringValue, scopedLabel);
         }
-        return dateValue;
+        return TERM_FACTORY.getConstantBNode(scopedLabel);
+    }
 
+    /**
+     * Canonical representation (e.g. 1.25E2). NaN and infinite values are kept as they are.
+     */
+    private static Constant convertFloatingPoint(String stringValue, Predicate.COL_TYPE type) {
+        BigDecimal bigDecimal;
+        try {
+            bigDecimal = new BigDecimal(stringValue);
+        }
+        catch (NumberFormatException e){
+            return TERM_FACTORY.getConstantLiteral(stringValue,type);
+        }
+        return TERM_FACTORY.getConstantLiteral(toCanonicalScientificNotation(bigDecimal), type);
     }
 
-    private TemporalAccessor convertToTime(Object value) throws OntopResultConversionException {
-        TemporalAccessor timeValue = null;
+    /**
+     * Same output as the DecimalFormat "0.0E0" (rounding mode UNNECESSARY) previously used,
+     * without allocating a formatter and independently of the default locale.
+     *
+     * All the significant digits are kept. Like the DecimalFormat, the fractional part is omitted
+     * for single-digit values without trailing zero (e.g. 1 gives 1E0 while 1.0 gives 1.0E0).
+     */
+    static String toCanonicalScientificNotation(BigDecimal bigDecimal) {
+        boolean hasFractionDigits = bigDecimal.precision() > 1 || bigDecimal.scale() < 0;
+
+        if (bigDecimal.signum() == 0)
+            return hasFractionDigits ? "0.0E0" : "0E0";
+
+        BigDecimal stripped = bigDecimal.stripTrailingZeros();
+        String digits = stripped.unscaledValue().abs().toString();
+        int exponent = digits.length() - 1 - stripped.scale();
+
+        StringBuilder sb = new StringBuilder(digits.length() + 8);
+        if (stripped.signum() < 0)
+            sb.append('-');
+        sb.append(digits.charAt(0));
+        if (digits.length() > 1)
+            sb.append('.').append(digits, 1, digits.length());
+        else if (hasFractionDigits)
+            sb.append(".0");
+        return sb.append('E').append(exponent).toString();
+    }
+
+    /**
+     * Sometimes the integer may have been converted as DECIMAL, FLOAT or DOUBLE
+     */
+    private static String convertInteger(Object value) {
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte)
+            return value.toString();
+        return String.valueOf(Double.valueOf(String.valueOf(value)).intValue());
+    }
+
+    /**
+     * Converts dates, date-times and times.
+     *
+     * String values are parsed with the first matching formatter. Formatters that do not match
+     * are discarded by a cheap syntactic check, without throwing an exception.
+     */
+    private static class TemporalConverter implements CellConverter {
+
+        private final ImmutableList<DateTimeFormatter> parsers;
+        private final TemporalQuery<?>[] queries;
+        private final DateTimeFormatter outputFormatter;
+        private final Predicate.COL_TYPE type;
+        private final boolean isTime;
+
+        private TemporalConverter(ImmutableList<DateTimeFormatter> parsers, TemporalQuery<?>[] queries,
+                                  DateTimeFormatter outputFormatter, Predicate.COL_TYPE type) {
+            this.parsers = parsers;
+            this.queries = queries;
+            this.outputFormatter = outputFormatter;
+            this.type = type;
+            this.isTime = (type == Predicate.COL_TYPE.TIME);
+        }
+
+        @Override
+        public Constant convert(Object value, @Nullable String lang) throws OntopResultConversionException {
+            return TERM_FACTORY.getConstantLiteral(outputFormatter.format(toTemporal(value)), type);
+        }
+
+        private TemporalAccessor toTemporal(Object value) throws OntopResultConversionException {
+            if (value instanceof Date) {
+                // If JDBC gives us proper Java object, we simply return the formatted version of the datatype
+                Calendar calendar = DateUtils.toCalendar(((Date) value));
+                ZonedDateTime dateTime = calendar.toInstant().atZone(calendar.getTimeZone().toZoneId());
+                return isTime
+                        ? OffsetTime.from(dateTime)
+                        : OffsetDateTime.from(dateTime);
+            }
 
-        if (value instanceof Date ) {
-            // If JDBC gives us proper Java object, we simply return the formatted version of the datatype
-            Calendar calendar = DateUtils.toCalendar(((Date) value));
-            TimeZone timeZone = calendar.getTimeZone();
-            timeValue = OffsetTime.from(calendar.toInstant().atZone(timeZone.toZoneId()));
-        } else {
             // Otherwise, we need to deal with possible String representation of datetime
             String stringValue = String.valueOf(value);
-            for (DateTimeFormatter format : system2TimeFormatter.get(DEFAULT)) {
-                try {
-                    timeValue = format.parseBest(stringValue, OffsetTime::from, LocalTime::from);
-
-                    break;
-                } catch (DateTimeParseException e) {
-                    // continue with the next try
-                }
+            for (DateTimeFormatter parser : parsers) {
+                TemporalAccessor temporal = parse(parser, stringValue);
+                if (temporal != null)
+                    return temporal;
             }
+            throw new OntopResultConversionException((isTime ? "unparseable time: " : "unparseable datetime: ")
+                    + stringValue);
+        }
+
+        /**
+         * Returns null if the parser does not match
+         */
+        @Nullable
+        private TemporalAccessor parse(DateTimeFormatter parser, String stringValue) {
+            // Cheap check (no exception)
+            ParsePosition position = new ParsePosition(0);
+            if (parser.parseUnresolved(stringValue, position) == null
+                    || position.getErrorIndex() >= 0
+                    || position.getIndex() < stringValue.length())
+                return null;
 
-            if (timeValue == null) {
-                throw new OntopResultConversionException("unparseable time: " + stringValue);
+            try {
+                return parser.parseBest(stringValue, queries);
+            } catch (DateTimeParseException e) {
+                // Matches syntactically but cannot be resolved
+                return null;
             }
         }
-        return timeValue;
-
     }
-
-
 }
@@ -7,13 +7,14 @@ import it.unibz.inf.ontop.model.term.Constant;
 public class SQLOntopBinding implements OntopBinding {
 
     private final String name;
-    private final JDBC2ConstantConverter constantRetriever;
-    private final MainTypeLangValues cell;
+    // 1-based
+    private final int column;
+    private final SQLOntopBindingSet bindingSet;
 
-    public SQLOntopBinding(String name, MainTypeLangValues cell, JDBC2ConstantConverter constantRetriever){
+    SQLOntopBinding(String name, int column, SQLOntopBindingSet bindingSet){
         this.name = name;
-        this.cell = cell;
-        this.constantRetriever = constantRetriever;
+        this.column = column;
+        this.bindingSet = bindingSet;
     }
     
     @Override
@@ -23,7 +24,7 @@ public class SQLOntopBinding implements OntopBinding {
 
     @Override
     public Constant getValue() throws OntopResultConversionException {
-        return constantRetriever.getConstantFromJDBC(cell);
+        return bindingSet.getConstant(column);
     }
 
     @Override
@@ -15,19 +15,29 @@ import java.util.stream.Collectors;
 
 import static java.util.stream.Collectors.joining;
 
+/**
+ * Converts the raw values of the row into constants lazily: only the requested columns are converted,
+ * and each of them at most once.
+ */
 public class SQLOntopBindingSet implements OntopBindingSet {
 
-    private final List<MainTypeLangValues> row;
+    private final SQLRow row;
     private final List<String> signature;
     private final Map<String, Integer> columnMap;
-    private final JDBC2ConstantConverter constantRetriever;
+    private final SQLRowReader rowReader;
 
-    public SQLOntopBindingSet(List<MainTypeLangValues> row, List<String> signature, Map<String, Integer> columnMap,
-                              JDBC2ConstantConverter constantRetriever) {
+    // Memoized constants (0-based)
+    private final Constant[] constants;
+    private final boolean[] isConverted;
+
+    SQLOntopBindingSet(SQLRow row, List<String> signature, Map<String, Integer> columnMap,
+                       SQLRowReader rowReader) {
         this.row = row;
         this.signature = signature;
         this.columnMap = columnMap;
-        this.constantRetriever = constantRetriever;
+        this.rowReader = rowReader;
+        this.constants = new Constant[row.size()];
+        this.isConverted = new boolean[row.size()];
     }
 
     @Override
@@ -58,11 +68,10 @@ public class SQLOntopBindingSet implements OntopBindingSet {
     @Override
     @Nullable
     public OntopBinding getBinding(int column) {
-        final MainTypeLangValues cell = row.get(column - 1);
-        if (cell.getMainValue() == null) {
+        if (row.getMainValue(column - 1) == null) {
             return null;
         } else {
-            return new SQLOntopBinding(signature.get(column - 1), cell, constantRetriever);
+            return new SQLOntopBinding(signature.get(column - 1), column, this);
         }
 
     }
@@ -76,7 +85,7 @@ public class SQLOntopBindingSet implements OntopBindingSet {
     @Override
     public boolean hasBinding(String bindingName) {
         return signature.contains(bindingName) &&
-                row.get(columnMap.get(bindingName) - 1).getMainValue() != null;
+                row.getMainValue(columnMap.get(bindingName) - 1) != null;
     }
 
     /***
@@ -85,12 +94,22 @@ public class SQLOntopBindingSet implements OntopBindingSet {
     @Override
     @Nullable
     public Constant getConstant(int column) throws OntopResultConversionException {
-        final MainTypeLangValues cell = row.get(column - 1);
-        if (cell.getMainValue() == null) {
-            return null;
+        int index = column - 1;
+        if (isConverted[index])
+            return constants[index];
+
+        Object mainValue = row.getMainValue(index);
+        Constant constant;
+        if (mainValue == null) {
+            constant = null;
         } else {
-            return constantRetriever.getConstantFromJDBC(cell);
+            int typeCode = row.getTypeCode(index);
+            constant = rowReader.getConverter().convert(rowReader.getCellConverter(index, typeCode),
+                    mainValue, row.getLangValue(index));
         }
+        constants[index] = constant;
+        isConverted[index] = true;
+        return constant;
     }
 
     @Override
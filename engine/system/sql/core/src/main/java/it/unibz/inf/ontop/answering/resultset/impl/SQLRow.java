@@ -0,0 +1,43 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import javax.annotation.Nullable;
+
+/**
+ * Raw values of one row of the SQL result set: for each binding (0-based index), its main value,
+ * type code and language tag.
+ *
+ * The values are converted into constants lazily, see SQLOntopBindingSet.
+ */
+class SQLRow {
+
+    private final Object[] mainValues;
+    private final int[] typeCodes;
+    private final String[] langValues;
+
+    SQLRow(Object[] mainValues, int[] typeCodes, String[] langValues) {
+        this.mainValues = mainValues;
+        this.typeCodes = typeCodes;
+        this.langValues = langValues;
+    }
+
+    int size() {
+        return mainValues.length;
+    }
+
+    @Nullable
+    Object getMainValue(int index) {
+        return mainValues[index];
+    }
+
+    int getTypeCode(int index) {
+        return typeCodes[index];
+    }
+
+    /**
+     * Only read for language-tagged strings
+     */
+    @Nullable
+    String getLangValue(int index) {
+        return langValues[index];
+    }
+}
@@ -1,29 +1,78 @@
 package it.unibz.inf.ontop.answering.resultset.impl;
 
-import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.resultset.impl.JDBC2ConstantConverter.CellConverter;
+import it.unibz.inf.ontop.exception.OntopResultConversionException;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.util.List;
 
+/**
+ * Reads the rows of a SQL result set, in which each binding is given by three consecutive columns:
+ * type, language tag and main value.
+ *
+ * One reader per result set: it remembers, for each binding, the converter of the last type code seen
+ * (the type of a column rarely changes from one row to the other).
+ */
 public class SQLRowReader {
 
-    public List<MainTypeLangValues> read(ResultSet rs, int bindingNamesCount) throws SQLException {
+    private static final int LANG_STRING_CODE = Predicate.COL_TYPE.LANG_STRING.getQuestCode();
 
-        final ImmutableList.Builder<MainTypeLangValues> builder = ImmutableList.builder();
+    private final int bindingCount;
+    private final JDBC2ConstantConverter converter;
+    // Immutable entries, so concurrent (racy) updates are harmless
+    private final TypedConverter[] converterCache;
 
-        for (int i = 1; i <= bindingNamesCount; i++) {
-            final int mainColumnIndex = 3 * i;
-            final int typeColumnIndex = 3 * i - 2;
-            final int langColumnIndex = 3 * i - 1;
+    public SQLRowReader(int bindingCount, JDBC2ConstantConverter converter) {
+        this.bindingCount = bindingCount;
+        this.converter = converter;
+        this.converterCache = new TypedConverter[bindingCount];
+    }
+
+    /**
+     * Reads the current row. The columns are accessed in increasing order,
+     * and the language tag only when the cell is a language-tagged string.
+     */
+    SQLRow read(ResultSet rs) throws SQLException {
+        Object[] mainValues = new Object[bindingCount];
+        int[] typeCodes = new int[bindingCount];
+        String[] langValues = new String[bindingCount];
 
-            builder.add(new MainTypeLangValues(
-                    rs.getObject(mainColumnIndex),
-                    rs.getInt(typeColumnIndex),
-                    rs.getString(langColumnIndex)
-            ));
+        for (int i = 0; i < bindingCount; i++) {
+            int typeColumnIndex = 3 * i + 1;
+            int typeCode = rs.getInt(typeColumnIndex);
+            typeCodes[i] = typeCode;
+            if (typeCode == LANG_STRING_CODE)
+                langValues[i] = rs.getString(typeColumnIndex + 1);
+            mainValues[i] = rs.getObject(typeColumnIndex + 2);
         }
+        return new SQLRow(mainValues, typeCodes, langValues);
+    }
+
+    /**
+     * index: 0-based
+     */
+    CellConverter getCellConverter(int index, int typeCode) throws OntopResultConversionException {
+        TypedConverter cached = converterCache[index];
+        if (cached != null && cached.typeCode == typeCode)
+            return cached.converter;
+
+        CellConverter cellConverter = converter.getCellConverter(typeCode);
+        converterCache[index] = new TypedConverter(typeCode, cellConverter);
+        return cellConverter;
+    }
+
+    JDBC2ConstantConverter getConverter() {
+        return converter;
+    }
 
-        return builder.build();
+    private static class TypedConverter {
+        private final int typeCode;
+        private final CellConverter converter;
+
+        private TypedConverter(int typeCode, CellConverter converter) {
+            this.typeCode = typeCode;
+            this.converter = converter;
+        }
     }
 }
@@ -42,7 +42,7 @@ public class SQLTupleResultSet implements TupleResultSet {
 
     private final Map<String, Integer> columnMap;
 
-    private final JDBC2ConstantConverter ontopConstantRetriever;
+    private final SQLRowReader rowReader;
 
 
     /***
@@ -67,7 +67,7 @@ public class SQLTupleResultSet implements TupleResultSet {
             columnMap.put(signature.get(j - 1), j);
         }
 
-        this.ontopConstantRetriever = new JDBC2ConstantConverter(dbMetadata, iriDictionary);
+        this.rowReader = new SQLRowReader(signature.size(), new JDBC2ConstantConverter(dbMetadata, iriDictionary));
     }
 
     @Override
@@ -86,11 +86,8 @@ public class SQLTupleResultSet implements TupleResultSet {
 
     @Override
     public OntopBindingSet next() throws OntopConnectionException {
-        SQLRowReader rowReader = new SQLRowReader();
-
         try {
-            final List<MainTypeLangValues> cells = rowReader.read(rs, getColumnCount());
-            return new SQLOntopBindingSet(cells, signature, columnMap, ontopConstantRetriever);
+            return new SQLOntopBindingSet(rowReader.read(rs), signature, columnMap, rowReader);
         } catch (SQLException e) {
             throw new OntopConnectionException(e);
         }
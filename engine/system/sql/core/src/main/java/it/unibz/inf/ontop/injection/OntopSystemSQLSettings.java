@@ -14,6 +14,12 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
     int getConnectionPoolInitialSize();
     int getConnectionPoolMaxSize();
 
+    /**
+     * Maximum number of idle prepared statements kept by each connection.
+     * 0 disables the cache.
+     */
+    int getPreparedStatementCacheSize();
+
     //--------------------------
     // Keys
     //--------------------------
@@ -24,4 +30,5 @@ public interface OntopSystemSQLSettings extends OntopSystemSettings, OntopReform
     // Connection timeout (in ms)
     String CONNECTION_TIMEOUT = "jdbc.pool.connectionTimeout";
     String KEEP_ALIVE = "jdbc.pool.keepAlive";
+    String PREPARED_STATEMENT_CACHE_SIZE = "jdbc.preparedStatementCacheSize";
 }
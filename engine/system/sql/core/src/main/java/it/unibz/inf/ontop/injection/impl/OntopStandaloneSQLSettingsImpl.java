@@ -36,6 +36,21 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return systemSettings.isIRISafeEncodingEnabled();
     }
 
+    @Override
+    public int getQueryCacheMaxSize() {
+        return systemSettings.getQueryCacheMaxSize();
+    }
+
+    @Override
+    public int getTreeWitnessCacheMaxSize() {
+        return systemSettings.getTreeWitnessCacheMaxSize();
+    }
+
+    @Override
+    public boolean isSQLConstantParameterizationEnabled() {
+        return systemSettings.isSQLConstantParameterizationEnabled();
+    }
+
     @Override
     public boolean isKeepAliveEnabled() {
         return systemSettings.isKeepAliveEnabled();
@@ -61,8 +76,38 @@ public class OntopStandaloneSQLSettingsImpl extends OntopMappingSQLAllSettingsIm
         return systemSettings.getConnectionPoolMaxSize();
     }
 
+    @Override
+    public int getPreparedStatementCacheSize() {
+        return systemSettings.getPreparedStatementCacheSize();
+    }
+
     @Override
     public boolean isPermanentDBConnectionEnabled() {
         return systemSettings.isPermanentDBConnectionEnabled();
     }
+
+    @Override
+    public QueryExecutionMode getQueryExecutionMode() {
+        return systemSettings.getQueryExecutionMode();
+    }
+
+    @Override
+    public int getQueryExecutionPoolSize() {
+        return systemSettings.getQueryExecutionPoolSize();
+    }
+
+    @Override
+    public int getQueryExecutionQueueCapacity() {
+        return systemSettings.getQueryExecutionQueueCapacity();
+    }
+
+    @Override
+    public int getValidationBatchSize() {
+        return systemSettings.getValidationBatchSize();
+    }
+
+    @Override
+    public int getValidationParallelism() {
+        return systemSettings.getValidationParallelism();
+    }
 }
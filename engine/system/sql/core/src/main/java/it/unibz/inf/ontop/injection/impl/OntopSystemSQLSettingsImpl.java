@@ -61,11 +61,41 @@ public class OntopSystemSQLSettingsImpl extends OntopReformulationSQLSettingsImp
         return getRequiredInteger(MAX_POOL_SIZE);
     }
 
+    @Override
+    public int getPreparedStatementCacheSize() {
+        return getRequiredInteger(PREPARED_STATEMENT_CACHE_SIZE);
+    }
+
     @Override
     public boolean isPermanentDBConnectionEnabled() {
         return systemSettings.isPermanentDBConnectionEnabled();
     }
 
+    @Override
+    public QueryExecutionMode getQueryExecutionMode() {
+        return systemSettings.getQueryExecutionMode();
+    }
+
+    @Override
+    public int getQueryExecutionPoolSize() {
+        return systemSettings.getQueryExecutionPoolSize();
+    }
+
+    @Override
+    public int getQueryExecutionQueueCapacity() {
+        return systemSettings.getQueryExecutionQueueCapacity();
+    }
+
+    @Override
+    public int getValidationBatchSize() {
+        return systemSettings.getValidationBatchSize();
+    }
+
+    @Override
+    public int getValidationParallelism() {
+        return systemSettings.getValidationParallelism();
+    }
+
     @Override
     public String getJdbcUser() {
         return sqlCredentialSettings.getJdbcUser();
@@ -0,0 +1,126 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import static org.junit.Assert.*;
+
+public class PreparedStatementCacheTest {
+
+    private static final String SQL_1 = "SELECT NAME FROM PERSON WHERE ID = ?";
+    private static final String SQL_2 = "SELECT ID FROM PERSON WHERE NAME = ?";
+
+    private Connection connection;
+
+    @Before
+    public void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:preparedstatementcache", "sa", "");
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("CREATE TABLE PERSON (ID INT PRIMARY KEY, NAME VARCHAR(20));" +
+                    "INSERT INTO PERSON VALUES (1, 'Mary'), (2, 'John')");
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        try (Statement st = connection.createStatement()) {
+            st.executeUpdate("DROP TABLE PERSON");
+        }
+        connection.close();
+    }
+
+    @Test
+    public void testReuse() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(connection, 10);
+
+        PreparedStatement statement = cache.acquire(SQL_1);
+        assertEquals("Mary", getName(statement, 1));
+        cache.release(SQL_1, statement);
+
+        PreparedStatement reusedStatement = cache.acquire(SQL_1);
+        assertSame(statement, reusedStatement);
+        assertEquals("John", getName(reusedStatement, 2));
+
+        // Not idle: a second statement is prepared
+        PreparedStatement otherStatement = cache.acquire(SQL_1);
+        assertNotSame(statement, otherStatement);
+
+        cache.release(SQL_1, reusedStatement);
+        cache.release(SQL_1, otherStatement);
+        cache.close();
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(connection, 1);
+
+        PreparedStatement statement1 = cache.acquire(SQL_1);
+        PreparedStatement statement2 = cache.acquire(SQL_2);
+        cache.release(SQL_1, statement1);
+        cache.release(SQL_2, statement2);
+
+        // The least recently released one
+        assertTrue(statement1.isClosed());
+        assertFalse(statement2.isClosed());
+        assertSame(statement2, cache.acquire(SQL_2));
+        assertNotSame(statement1, cache.acquire(SQL_1));
+        cache.close();
+    }
+
+    @Test
+    public void testNoCaching() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(connection, 0);
+
+        PreparedStatement statement = cache.acquire(SQL_1);
+        cache.release(SQL_1, statement);
+        assertTrue(statement.isClosed());
+        cache.close();
+    }
+
+    @Test
+    public void testClosedStatementIsSkipped() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(connection, 10);
+
+        PreparedStatement statement = cache.acquire(SQL_1);
+        cache.release(SQL_1, statement);
+        statement.close();
+
+        PreparedStatement newStatement = cache.acquire(SQL_1);
+        assertNotSame(statement, newStatement);
+        assertEquals("Mary", getName(newStatement, 1));
+        cache.release(SQL_1, newStatement);
+        cache.close();
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        PreparedStatementCache cache = new PreparedStatementCache(connection, 10);
+
+        PreparedStatement idleStatement = cache.acquire(SQL_1);
+        PreparedStatement usedStatement = cache.acquire(SQL_2);
+        cache.release(SQL_1, idleStatement);
+
+        cache.close();
+        assertTrue(idleStatement.isClosed());
+        assertFalse(usedStatement.isClosed());
+
+        // Released after the cache has been closed
+        cache.release(SQL_2, usedStatement);
+        assertTrue(usedStatement.isClosed());
+    }
+
+    private static String getName(PreparedStatement statement, int id) throws Exception {
+        statement.setObject(1, id);
+        try (ResultSet resultSet = statement.executeQuery()) {
+            assertTrue(resultSet.next());
+            return resultSet.getString(1);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.monitoring.QueryMonitor;
+import it.unibz.inf.ontop.answering.monitoring.QueryPhase;
+import it.unibz.inf.ontop.answering.monitoring.QueryReport;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Reporting of the queries to the QueryMonitor, whether or not their results are closed
+ */
+public class QueryMonitoringTest {
+
+    private static final String OBDA_FILE = "src/test/resources/marriage/marriage.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/marriage/create-db.sql";
+    private static final String JDBC_URL = "jdbc:h2:mem:querymonitoring";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final String FIRST_NAME_QUERY = "PREFIX : <http://example.org/marriage/voc#>\n" +
+            "SELECT ?v WHERE { ?p :firstName ?v }";
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+
+        Statement st = CONN.createStatement();
+
+        FileReader reader = new FileReader(CREATE_DB_FILE);
+        BufferedReader in = new BufferedReader(reader);
+        StringBuilder bf = new StringBuilder();
+        String line = in.readLine();
+        while (line != null) {
+            bf.append(line);
+            line = in.readLine();
+        }
+        in.close();
+
+        st.executeUpdate(bf.toString());
+        CONN.commit();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        CONN.close();
+    }
+
+    @Before
+    public void clearReports() {
+        RecordingQueryMonitor.REPORTS.clear();
+    }
+
+    @Test
+    public void testReportOnClose() throws Exception {
+        try (OntopQueryEngine queryEngine = createQueryEngine()) {
+            queryEngine.connect();
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                TupleResultSet resultSet = execute(connection, statement);
+                resultSet.hasNext();
+                resultSet.next();
+                assertTrue(RecordingQueryMonitor.REPORTS.isEmpty());
+
+                resultSet.close();
+                resultSet.close();
+                checkSingleReport(1);
+            }
+            checkSingleReport(1);
+        }
+    }
+
+    /**
+     * The result set is never closed
+     */
+    @Test
+    public void testReportOnExhaustion() throws Exception {
+        try (OntopQueryEngine queryEngine = createQueryEngine()) {
+            queryEngine.connect();
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                TupleResultSet resultSet = execute(connection, statement);
+                while (resultSet.hasNext())
+                    resultSet.next();
+                checkSingleReport(3);
+
+                assertEquals(false, resultSet.hasNext());
+            }
+            checkSingleReport(3);
+        }
+    }
+
+    /**
+     * The result set is neither exhausted nor closed
+     */
+    @Test
+    public void testReportOnStatementClose() throws Exception {
+        try (OntopQueryEngine queryEngine = createQueryEngine()) {
+            queryEngine.connect();
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                TupleResultSet resultSet = execute(connection, statement);
+                resultSet.hasNext();
+                resultSet.next();
+                resultSet.next();
+                assertTrue(RecordingQueryMonitor.REPORTS.isEmpty());
+            }
+            checkSingleReport(2);
+        }
+    }
+
+    /**
+     * The result set of the previous query is neither exhausted nor closed
+     */
+    @Test
+    public void testReportOnNextQuery() throws Exception {
+        try (OntopQueryEngine queryEngine = createQueryEngine()) {
+            queryEngine.connect();
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                execute(connection, statement);
+                assertTrue(RecordingQueryMonitor.REPORTS.isEmpty());
+
+                TupleResultSet resultSet = execute(connection, statement);
+                checkSingleReport(0);
+                resultSet.close();
+            }
+            assertEquals(2, RecordingQueryMonitor.REPORTS.size());
+        }
+    }
+
+    private static void checkSingleReport(long resultCount) {
+        assertEquals(1, RecordingQueryMonitor.REPORTS.size());
+        QueryReport report = RecordingQueryMonitor.REPORTS.get(0);
+        assertEquals("SELECT", report.getQueryType());
+        assertTrue(report.isSuccessful());
+        assertEquals(Long.valueOf(resultCount), report.getResultCount().get());
+        assertTrue(report.getPhaseDurations().containsKey(QueryPhase.EXECUTION));
+        assertTrue(report.getNativeQuerySize().isPresent());
+    }
+
+    private static TupleResultSet execute(OntopConnection connection, OntopStatement statement) throws Exception {
+        return statement.execute(connection.getInputQueryFactory().createSelectQuery(FIRST_NAME_QUERY));
+    }
+
+    private static OntopQueryEngine createQueryEngine() throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(QueryMonitor.class.getCanonicalName(), RecordingQueryMonitor.class.getName());
+
+        return OntopSystemSQLConfiguration.defaultBuilder()
+                .obdaSpecification(OntopMappingSQLAllConfiguration.defaultBuilder()
+                        .nativeOntopMappingFile(OBDA_FILE)
+                        .jdbcUser(JDBC_USER)
+                        .jdbcPassword(JDBC_PASSWORD)
+                        .jdbcUrl(JDBC_URL)
+                        .enableTestMode()
+                        .build()
+                        .loadSpecification())
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .properties(properties)
+                .enableTestMode()
+                .build()
+                .loadQueryEngine();
+    }
+
+    /**
+     * Keeps the reports in memory
+     */
+    public static class RecordingQueryMonitor implements QueryMonitor {
+
+        private static final List<QueryReport> REPORTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public boolean isEnabled() {
+            return true;
+        }
+
+        @Override
+        public void report(QueryReport report) {
+            REPORTS.add(report);
+        }
+    }
+}
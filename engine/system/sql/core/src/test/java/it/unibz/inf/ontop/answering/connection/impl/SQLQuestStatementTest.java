@@ -0,0 +1,183 @@
+package it.unibz.inf.ontop.answering.connection.impl;
+
+
+import com.google.common.collect.ImmutableMultiset;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.impl.SQLExecutableQuery;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopReformulationSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopReformulationSQLSettings;
+import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Execution of SQL queries whose constants are passed as parameters of prepared statements
+ */
+public class SQLQuestStatementTest {
+
+    private static final String OBDA_FILE = "src/test/resources/marriage/marriage.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/marriage/create-db.sql";
+    private static final String JDBC_URL = "jdbc:h2:mem:sqlqueststatement";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final String PREFIX = "PREFIX : <http://example.org/marriage/voc#>\n" +
+            "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n";
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+
+        Statement st = CONN.createStatement();
+
+        FileReader reader = new FileReader(CREATE_DB_FILE);
+        BufferedReader in = new BufferedReader(reader);
+        StringBuilder bf = new StringBuilder();
+        String line = in.readLine();
+        while (line != null) {
+            bf.append(line);
+            line = in.readLine();
+        }
+        in.close();
+
+        st.executeUpdate(bf.toString());
+        CONN.commit();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        CONN.close();
+    }
+
+    /**
+     * The id extracted from the IRI is compared to an INT column: it must be bound as a number
+     */
+    @Test
+    public void testTypedColumnParameter() throws Exception {
+        SQLExecutableQuery executableQuery = reformulate(getFirstNameQuery(2));
+        assertTrue(executableQuery.getSQL(), executableQuery.getSQL().contains("?"));
+        assertTrue(executableQuery.getParameters().toString(), executableQuery.getParameters().contains(2L));
+    }
+
+    @Test
+    public void testStringColumnParameter() throws Exception {
+        SQLExecutableQuery executableQuery = reformulate(getLastNameQuery("Doe"));
+        assertTrue(executableQuery.getParameters().toString(), executableQuery.getParameters().contains("Doe"));
+    }
+
+    @Test
+    public void testExecution() throws Exception {
+        testExecution(true);
+    }
+
+    @Test
+    public void testExecutionWithoutParameters() throws Exception {
+        testExecution(false);
+    }
+
+    /**
+     * Queries of the same shape are executed several times on the same statement
+     * (the prepared statements are reused)
+     */
+    private void testExecution(boolean parameterize) throws Exception {
+        try (OntopQueryEngine queryEngine = createQueryEngine(parameterize)) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                for (int i = 0; i < 2; i++) {
+                    assertEquals(ImmutableMultiset.of("Mary"), answer(connection, statement, getFirstNameQuery(1)));
+                    assertEquals(ImmutableMultiset.of("John"), answer(connection, statement, getFirstNameQuery(2)));
+                    assertEquals(ImmutableMultiset.of(), answer(connection, statement, getFirstNameQuery(4)));
+                    assertEquals(ImmutableMultiset.of("http://example.com/person/2"),
+                            answer(connection, statement, getLastNameQuery("Doe")));
+                    assertEquals(ImmutableMultiset.of("http://example.com/person/3"),
+                            answer(connection, statement, getLastNameQuery("Forester")));
+                }
+            }
+        }
+    }
+
+    private static String getFirstNameQuery(int id) {
+        return PREFIX + "SELECT ?v WHERE { <http://example.com/person/" + id + "> :firstName ?v }";
+    }
+
+    private static String getLastNameQuery(String lastName) {
+        return PREFIX + "SELECT ?v WHERE { ?v :lastName \"" + lastName + "\"^^xsd:string }";
+    }
+
+    private static ImmutableMultiset<String> answer(OntopConnection connection, OntopStatement statement,
+                                                    String queryString) throws Exception {
+        TupleResultSet resultSet = statement.execute(connection.getInputQueryFactory().createSelectQuery(queryString));
+        ImmutableMultiset.Builder<String> answerBuilder = ImmutableMultiset.builder();
+        while (resultSet.hasNext())
+            answerBuilder.add(resultSet.next().getBinding("v").getValue().getValue());
+        resultSet.close();
+        return answerBuilder.build();
+    }
+
+    private static SQLExecutableQuery reformulate(String queryString) throws Exception {
+        QueryReformulator reformulator = OntopReformulationSQLConfiguration.defaultBuilder()
+                .obdaSpecification(loadOBDASpecification())
+                .jdbcUrl(JDBC_URL)
+                .properties(getProperties(true))
+                .enableTestMode()
+                .build()
+                .loadQueryReformulator();
+        return (SQLExecutableQuery) reformulator.reformulateIntoNativeQuery(
+                reformulator.getInputQueryFactory().createSelectQuery(queryString));
+    }
+
+    private static OntopQueryEngine createQueryEngine(boolean parameterize) throws Exception {
+        return OntopSystemSQLConfiguration.defaultBuilder()
+                .obdaSpecification(loadOBDASpecification())
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .properties(getProperties(parameterize))
+                .enableTestMode()
+                .build()
+                .loadQueryEngine();
+    }
+
+    /**
+     * Default SQL generator
+     */
+    private static Properties getProperties(boolean parameterize) {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSQLSettings.SQL_PARAMETERIZE_CONSTANTS, String.valueOf(parameterize));
+        return properties;
+    }
+
+    private static OBDASpecification loadOBDASpecification() throws Exception {
+        return OntopMappingSQLAllConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .enableTestMode()
+                .build()
+                .loadSpecification();
+    }
+}
@@ -0,0 +1,204 @@
+package it.unibz.inf.ontop.answering.reformulation;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Aggregates evaluated by H2, over non-empty and empty inputs.
+ *
+ * The empty inputs are either detected during the reformulation (unknown property)
+ * or only by the DB (no matching row).
+ */
+public class AggregationTest {
+
+    private static final String OBDA_FILE = "src/test/resources/marriage/marriage-aggregation.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/marriage/create-db.sql";
+    private static final String JDBC_URL = "jdbc:h2:mem:aggregation";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final String PREFIX = "PREFIX : <http://example.org/marriage/voc#>\n" +
+            "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n";
+
+    private static final String AGGREGATES = "(COUNT(?id) AS ?c) (SUM(?id) AS ?s) (AVG(?id) AS ?a) " +
+            "(GROUP_CONCAT(?fn; separator=\",\") AS ?g)";
+    private static final String ALL_QUERY = PREFIX +
+            "SELECT " + AGGREGATES + " WHERE { ?p :id ?id ; :firstName ?fn }";
+    private static final String NO_ROW_QUERY = PREFIX +
+            "SELECT " + AGGREGATES + " WHERE { ?p :id ?id ; :firstName ?fn ; :lastName \"Nobody\"^^xsd:string }";
+    private static final String UNKNOWN_PROPERTY_QUERY = PREFIX +
+            "SELECT " + AGGREGATES + " WHERE { ?p :id ?id ; :firstName ?fn ; :unknownProperty ?o }";
+    // Ids 1 and 2
+    private static final String SPOUSE_AVERAGE_QUERY = PREFIX +
+            "SELECT (AVG(?id) AS ?a) WHERE { ?p :id ?id ; :hasSpouse ?s }";
+    private static final String GROUP_QUERY = PREFIX +
+            "SELECT ?ln (COUNT(?id) AS ?c) (SUM(?id) AS ?s) WHERE { ?p :id ?id ; :lastName ?ln } GROUP BY ?ln";
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+    private static OntopQueryEngine QUERY_ENGINE;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+
+        Statement st = CONN.createStatement();
+
+        FileReader reader = new FileReader(CREATE_DB_FILE);
+        BufferedReader in = new BufferedReader(reader);
+        StringBuilder bf = new StringBuilder();
+        String line = in.readLine();
+        while (line != null) {
+            bf.append(line);
+            line = in.readLine();
+        }
+        in.close();
+
+        st.executeUpdate(bf.toString());
+        CONN.commit();
+
+        QUERY_ENGINE = OntopSystemSQLConfiguration.defaultBuilder()
+                .obdaSpecification(OntopMappingSQLAllConfiguration.defaultBuilder()
+                        .nativeOntopMappingFile(OBDA_FILE)
+                        .jdbcUser(JDBC_USER)
+                        .jdbcPassword(JDBC_PASSWORD)
+                        .jdbcUrl(JDBC_URL)
+                        .enableTestMode()
+                        .build()
+                        .loadSpecification())
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .enableTestMode()
+                .build()
+                .loadQueryEngine();
+        QUERY_ENGINE.connect();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        QUERY_ENGINE.close();
+        CONN.close();
+    }
+
+    @Test
+    public void testAggregates() throws Exception {
+        ImmutableList<ImmutableMap<String, String>> results = answer(ALL_QUERY);
+        assertEquals(1, results.size());
+        ImmutableMap<String, String> values = results.get(0);
+
+        assertEquals(3, getNumber(values, "c"), 0);
+        assertEquals(6, getNumber(values, "s"), 0);
+        assertEquals(2, getNumber(values, "a"), 0);
+        assertEquals(ImmutableMultiset.of("Mary", "John", "Bob"),
+                ImmutableMultiset.copyOf(Arrays.asList(getString(values, "g").split(","))));
+    }
+
+    /**
+     * The average of integers is not truncated
+     */
+    @Test
+    public void testNonIntegerAverage() throws Exception {
+        ImmutableList<ImmutableMap<String, String>> results = answer(SPOUSE_AVERAGE_QUERY);
+        assertEquals(1, results.size());
+        assertEquals(1.5, getNumber(results.get(0), "a"), 0);
+    }
+
+    @Test
+    public void testEmptyInputInDB() throws Exception {
+        testEmptyInput(NO_ROW_QUERY);
+    }
+
+    @Test
+    public void testEmptyInputAfterReformulation() throws Exception {
+        testEmptyInput(UNKNOWN_PROPERTY_QUERY);
+    }
+
+    /**
+     * Without grouping variable, one tuple is returned: COUNT, SUM and AVG are 0, GROUP_CONCAT is ""
+     */
+    private void testEmptyInput(String query) throws Exception {
+        ImmutableList<ImmutableMap<String, String>> results = answer(query);
+        assertEquals(1, results.size());
+        ImmutableMap<String, String> values = results.get(0);
+
+        assertEquals(0, getNumber(values, "c"), 0);
+        assertEquals(0, getNumber(values, "s"), 0);
+        assertEquals(0, getNumber(values, "a"), 0);
+        assertEquals("", getString(values, "g"));
+    }
+
+    @Test
+    public void testGroupBy() throws Exception {
+        ImmutableList<ImmutableMap<String, String>> results = answer(GROUP_QUERY);
+        assertEquals(3, results.size());
+        ImmutableMultiset.Builder<String> lastNames = ImmutableMultiset.builder();
+        for (ImmutableMap<String, String> values : results) {
+            lastNames.add(getString(values, "ln"));
+            assertEquals(1, getNumber(values, "c"), 0);
+        }
+        assertEquals(ImmutableMultiset.of("Smith", "Doe", "Forester"), lastNames.build());
+    }
+
+    /**
+     * With grouping variables, no group is formed from an empty input
+     */
+    @Test
+    public void testGroupByEmptyInput() throws Exception {
+        assertTrue(answer(GROUP_QUERY.replace("?p :id ?id", "?p :id ?id ; :unknownProperty ?o")).isEmpty());
+    }
+
+    private static ImmutableList<ImmutableMap<String, String>> answer(String queryString) throws Exception {
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            TupleResultSet resultSet = statement.execute(
+                    connection.getInputQueryFactory().createSelectQuery(queryString));
+            ImmutableList.Builder<ImmutableMap<String, String>> builder = ImmutableList.builder();
+            while (resultSet.hasNext()) {
+                OntopBindingSet bindingSet = resultSet.next();
+                // Unbound variables are skipped
+                ImmutableMap.Builder<String, String> valueBuilder = ImmutableMap.builder();
+                for (String variable : resultSet.getSignature()) {
+                    OntopBinding binding = bindingSet.getBinding(variable);
+                    if (binding != null && binding.getValue() != null)
+                        valueBuilder.put(variable, binding.getValue().getValue());
+                }
+                builder.add(valueBuilder.build());
+            }
+            resultSet.close();
+            return builder.build();
+        }
+    }
+
+    private static String getString(ImmutableMap<String, String> values, String variable) {
+        assertTrue(variable + " is unbound", values.containsKey(variable));
+        return values.get(variable);
+    }
+
+    private static double getNumber(ImmutableMap<String, String> values, String variable) {
+        return Double.parseDouble(getString(values, variable));
+    }
+}
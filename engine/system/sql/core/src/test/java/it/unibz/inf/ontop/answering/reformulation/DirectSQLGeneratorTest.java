@@ -0,0 +1,239 @@
+package it.unibz.inf.ontop.answering.reformulation;
+
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.monitoring.QueryRecord;
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.answering.reformulation.generation.impl.LegacySQLGenerator;
+import it.unibz.inf.ontop.answering.reformulation.impl.SQLExecutableQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQueryFactory;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.answering.resultset.OntopBinding;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopReformulationSQLConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the answers of the direct IQ-to-SQL generator with the ones of the legacy (Datalog-based) generator
+ */
+public class DirectSQLGeneratorTest {
+
+    private static final String OBDA_FILE = "src/test/resources/marriage/marriage.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/marriage/create-db.sql";
+    private static final String JDBC_URL = "jdbc:h2:mem:directsqlgenerator";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final String PREFIX = "PREFIX : <http://example.org/marriage/voc#>\n" +
+            "PREFIX xsd: <http://www.w3.org/2001/XMLSchema#>\n";
+
+    private static final String FIRST_NAME_QUERY = PREFIX +
+            "SELECT ?x ?fn WHERE { ?x :firstName ?fn }";
+    private static final String SPOUSE_QUERY = PREFIX +
+            "SELECT ?x ?y ?ln WHERE { ?x :hasSpouse ?y . ?y :lastName ?ln }";
+    private static final String CONSTANT_QUERY = PREFIX +
+            "SELECT ?x WHERE { ?x :lastName \"Doe\"^^xsd:string }";
+    private static final String FILTER_QUERY = PREFIX +
+            "SELECT ?x ?fn WHERE { ?x :firstName ?fn ; :hasSpouse ?y . FILTER (?fn != \"Mary\"^^xsd:string) }";
+    private static final String MODIFIER_QUERY = PREFIX +
+            "SELECT DISTINCT ?ln WHERE { ?x :lastName ?ln } ORDER BY DESC(?ln) LIMIT 2";
+    private static final String UNION_QUERY = PREFIX +
+            "SELECT ?x ?n WHERE { { ?x :firstName ?n } UNION { ?x :lastName ?n } }";
+
+    private static final ImmutableList<String> QUERIES = ImmutableList.of(FIRST_NAME_QUERY, SPOUSE_QUERY,
+            CONSTANT_QUERY, FILTER_QUERY, MODIFIER_QUERY, UNION_QUERY);
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+
+        Statement st = CONN.createStatement();
+
+        FileReader reader = new FileReader(CREATE_DB_FILE);
+        BufferedReader in = new BufferedReader(reader);
+        StringBuilder bf = new StringBuilder();
+        String line = in.readLine();
+        while (line != null) {
+            bf.append(line);
+            line = in.readLine();
+        }
+        in.close();
+
+        st.executeUpdate(bf.toString());
+        CONN.commit();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        CONN.close();
+    }
+
+    @Test
+    public void testSameAnswersAsLegacyGenerator() throws Exception {
+        for (String query : QUERIES)
+            assertEquals(query, answer(query, false), answer(query, true));
+    }
+
+    @Test
+    public void testAnswers() throws Exception {
+        assertEquals(ImmutableMultiset.of("http://example.com/person/2"), answer(CONSTANT_QUERY, false));
+        assertEquals(ImmutableMultiset.of("Smith", "Forester"), answer(MODIFIER_QUERY, false));
+        assertEquals(ImmutableMultiset.of("http://example.com/person/2 John"), answer(FILTER_QUERY, false));
+    }
+
+    @Test
+    public void testDirectTranslation() throws Exception {
+        QueryReformulator reformulator = createReformulator(false);
+        InputQueryFactory inputQueryFactory = reformulator.getInputQueryFactory();
+
+        // Conjunctive query: no Datalog view
+        String spouseSQL = ((SQLExecutableQuery) reformulator.reformulateIntoNativeQuery(
+                inputQueryFactory.createSelectQuery(SPOUSE_QUERY))).getSQL();
+        assertTrue(spouseSQL, spouseSQL.contains("QVIEW1"));
+
+        // Union: delegated to the legacy engine
+        String unionSQL = ((SQLExecutableQuery) reformulator.reformulateIntoNativeQuery(
+                inputQueryFactory.createSelectQuery(UNION_QUERY))).getSQL();
+        assertFalse(unionSQL, unionSQL.isEmpty());
+    }
+
+    @Test
+    public void testConcurrentGeneration() throws Exception {
+        testConcurrentGeneration(false);
+    }
+
+    @Test
+    public void testConcurrentLegacyGeneration() throws Exception {
+        testConcurrentGeneration(true);
+    }
+
+    /**
+     * One generator shared by several threads produces the same SQL as a sequential run
+     */
+    private void testConcurrentGeneration(boolean legacy) throws Exception {
+        QueryReformulator reformulator = createReformulator(legacy);
+        InputQueryFactory inputQueryFactory = reformulator.getInputQueryFactory();
+
+        List<String> expectedSQL = new ArrayList<>();
+        for (String query : QUERIES)
+            expectedSQL.add(generateSQL(reformulator, inputQueryFactory, query));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                String query = QUERIES.get(i % QUERIES.size());
+                futures.add(executor.submit(() -> generateSQL(reformulator, inputQueryFactory, query)));
+            }
+            for (int i = 0; i < futures.size(); i++)
+                assertEquals(expectedSQL.get(i % QUERIES.size()), futures.get(i).get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String generateSQL(QueryReformulator reformulator, InputQueryFactory inputQueryFactory,
+                                      String query) throws Exception {
+        // Bypasses the query cache
+        return ((SQLExecutableQuery) reformulator.reformulateIntoNativeQueryWithoutCaching(
+                inputQueryFactory.createSelectQuery(query), QueryRecord.disabled())).getSQL();
+    }
+
+    /**
+     * Each answer is rendered as the lexical values of its bindings (in the order of the projection)
+     */
+    private static ImmutableMultiset<String> answer(String queryString, boolean legacy) throws Exception {
+        try (OntopQueryEngine queryEngine = createQueryEngine(legacy)) {
+            queryEngine.connect();
+
+            try (OntopConnection connection = queryEngine.getConnection();
+                 OntopStatement statement = connection.createStatement()) {
+                SelectQuery query = connection.getInputQueryFactory().createSelectQuery(queryString);
+                TupleResultSet resultSet = statement.execute(query);
+
+                ImmutableMultiset.Builder<String> answerBuilder = ImmutableMultiset.builder();
+                while (resultSet.hasNext()) {
+                    OntopBindingSet bindingSet = resultSet.next();
+                    List<String> values = new ArrayList<>();
+                    for (String name : resultSet.getSignature()) {
+                        OntopBinding binding = bindingSet.getBinding(name);
+                        values.add(binding == null ? "null" : binding.getValue().getValue());
+                    }
+                    answerBuilder.add(String.join(" ", values));
+                }
+                return answerBuilder.build();
+            }
+        }
+    }
+
+    private static QueryReformulator createReformulator(boolean legacy) throws Exception {
+        return OntopReformulationSQLConfiguration.defaultBuilder()
+                .obdaSpecification(loadOBDASpecification())
+                .jdbcUrl(JDBC_URL)
+                .properties(getProperties(legacy))
+                .enableTestMode()
+                .build()
+                .loadQueryReformulator();
+    }
+
+    private static OntopQueryEngine createQueryEngine(boolean legacy) throws Exception {
+        return OntopSystemSQLConfiguration.defaultBuilder()
+                .obdaSpecification(loadOBDASpecification())
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .properties(getProperties(legacy))
+                .enableTestMode()
+                .build()
+                .loadQueryEngine();
+    }
+
+    private static Properties getProperties(boolean legacy) {
+        Properties properties = new Properties();
+        if (legacy)
+            properties.setProperty(NativeQueryGenerator.class.getCanonicalName(),
+                    LegacySQLGenerator.class.getCanonicalName());
+        return properties;
+    }
+
+    private static OBDASpecification loadOBDASpecification() throws Exception {
+        return OntopMappingSQLAllConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .enableTestMode()
+                .build()
+                .loadSpecification();
+    }
+}
@@ -0,0 +1,218 @@
+package it.unibz.inf.ontop.answering.reformulation;
+
+import com.google.common.collect.ImmutableMultiset;
+import it.unibz.inf.ontop.answering.OntopQueryEngine;
+import it.unibz.inf.ontop.answering.connection.OntopConnection;
+import it.unibz.inf.ontop.answering.connection.OntopStatement;
+import it.unibz.inf.ontop.answering.reformulation.impl.SQLExecutableQuery;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopSystemSQLConfiguration;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Arbitrary-length property paths evaluated by H2 (recursive common table expressions),
+ * over an acyclic relation (:next, 1 -> 2 -> 3 -> 4) and a cyclic one (:link, 1 -> 2 -> 3 -> 1 and 3 -> 4)
+ */
+public class PropertyPathTest {
+
+    private static final String OBDA_FILE = "src/test/resources/paths/paths.obda";
+    private static final String CREATE_DB_FILE = "src/test/resources/paths/create-db.sql";
+    private static final String JDBC_URL = "jdbc:h2:mem:propertypaths";
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final String PREFIX = "PREFIX : <http://example.org/paths/voc#>\n";
+    private static final String NODE_PREFIX = "http://example.com/node/";
+
+    /*
+     * DB connection (keeps it alive)
+     */
+    private static Connection CONN;
+    private static OntopQueryEngine QUERY_ENGINE;
+
+    @BeforeClass
+    public static void setUp() throws Exception {
+        CONN = DriverManager.getConnection(JDBC_URL, JDBC_USER, JDBC_PASSWORD);
+
+        Statement st = CONN.createStatement();
+
+        FileReader reader = new FileReader(CREATE_DB_FILE);
+        BufferedReader in = new BufferedReader(reader);
+        StringBuilder bf = new StringBuilder();
+        String line = in.readLine();
+        while (line != null) {
+            bf.append(line);
+            line = in.readLine();
+        }
+        in.close();
+
+        st.executeUpdate(bf.toString());
+        CONN.commit();
+
+        QUERY_ENGINE = OntopSystemSQLConfiguration.defaultBuilder()
+                .obdaSpecification(OntopMappingSQLAllConfiguration.defaultBuilder()
+                        .nativeOntopMappingFile(OBDA_FILE)
+                        .jdbcUser(JDBC_USER)
+                        .jdbcPassword(JDBC_PASSWORD)
+                        .jdbcUrl(JDBC_URL)
+                        .enableTestMode()
+                        .build()
+                        .loadSpecification())
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .jdbcUrl(JDBC_URL)
+                .enableTestMode()
+                .build()
+                .loadQueryEngine();
+        QUERY_ENGINE.connect();
+    }
+
+    @AfterClass
+    public static void tearDown() throws Exception {
+        QUERY_ENGINE.close();
+        CONN.close();
+    }
+
+    @Test
+    public void testOneOrMoreAcyclic() throws Exception {
+        assertEquals(ImmutableMultiset.of("1 2", "1 3", "1 4", "2 3", "2 4", "3 4"),
+                answer("SELECT ?x ?y WHERE { ?x :next+ ?y }"));
+    }
+
+    @Test
+    public void testZeroOrMoreAcyclic() throws Exception {
+        assertEquals(ImmutableMultiset.of("1 1", "2 2", "3 3", "4 4", "1 2", "1 3", "1 4", "2 3", "2 4", "3 4"),
+                answer("SELECT ?x ?y WHERE { ?x :next* ?y }"));
+    }
+
+    /**
+     * Terminates, without duplicates
+     */
+    @Test
+    public void testOneOrMoreCyclic() throws Exception {
+        assertEquals(ImmutableMultiset.of("1 1", "1 2", "1 3", "1 4", "2 1", "2 2", "2 3", "2 4",
+                "3 1", "3 2", "3 3", "3 4"),
+                answer("SELECT ?x ?y WHERE { ?x :link+ ?y }"));
+    }
+
+    @Test
+    public void testZeroOrMoreCyclic() throws Exception {
+        assertEquals(ImmutableMultiset.of("1 1", "1 2", "1 3", "1 4", "2 1", "2 2", "2 3", "2 4",
+                "3 1", "3 2", "3 3", "3 4", "4 4"),
+                answer("SELECT ?x ?y WHERE { ?x :link* ?y }"));
+    }
+
+    @Test
+    public void testOneOrMoreFromConstant() throws Exception {
+        assertEquals(ImmutableMultiset.of("1", "2", "3", "4"),
+                answer("SELECT ?y WHERE { <" + NODE_PREFIX + "1> :link+ ?y }"));
+        assertEquals(ImmutableMultiset.of(),
+                answer("SELECT ?y WHERE { <" + NODE_PREFIX + "4> :next+ ?y }"));
+    }
+
+    @Test
+    public void testZeroOrMoreFromConstant() throws Exception {
+        assertEquals(ImmutableMultiset.of("2", "3", "4"),
+                answer("SELECT ?y WHERE { <" + NODE_PREFIX + "2> :next* ?y }"));
+        assertEquals(ImmutableMultiset.of("1", "2", "3", "4"),
+                answer("SELECT ?y WHERE { <" + NODE_PREFIX + "1> :link* ?y }"));
+    }
+
+    /**
+     * The paths are built backwards from the constant target
+     */
+    @Test
+    public void testOneOrMoreToConstant() throws Exception {
+        assertEquals(ImmutableMultiset.of("1", "2", "3"),
+                answer("SELECT ?x WHERE { ?x :link+ <" + NODE_PREFIX + "4> }"));
+        assertEquals(ImmutableMultiset.of("1", "2", "3"),
+                answer("SELECT ?x WHERE { ?x :link+ <" + NODE_PREFIX + "1> }"));
+        assertEquals(ImmutableMultiset.of(),
+                answer("SELECT ?x WHERE { ?x :next+ <" + NODE_PREFIX + "1> }"));
+    }
+
+    @Test
+    public void testZeroOrMoreToConstant() throws Exception {
+        assertEquals(ImmutableMultiset.of("1", "2", "3"),
+                answer("SELECT ?x WHERE { ?x :next* <" + NODE_PREFIX + "3> }"));
+    }
+
+    /**
+     * The constant end restricts the anchor member of the recursive query
+     * (the source column for a constant subject, the target column for a constant object)
+     */
+    @Test
+    public void testConstantEndStartsTheClosure() throws Exception {
+        String fromSubject = getSQL("SELECT ?y WHERE { <" + NODE_PREFIX + "1> :link+ ?y }");
+        assertTrue(fromSubject, fromSubject.contains("\n) b WHERE \"v0\" = "));
+
+        String toObject = getSQL("SELECT ?x WHERE { ?x :link+ <" + NODE_PREFIX + "4> }");
+        assertTrue(toObject, toObject.contains("\n) b WHERE \"v1\" = "));
+
+        String variables = getSQL("SELECT ?x ?y WHERE { ?x :link+ ?y }");
+        assertFalse(variables, variables.contains(") b WHERE "));
+    }
+
+    /**
+     * Zero-length solution for a node that is not in the relation
+     */
+    @Test
+    public void testZeroOrMoreFromUnknownConstant() throws Exception {
+        assertEquals(ImmutableMultiset.of("5"),
+                answer("SELECT ?y WHERE { <" + NODE_PREFIX + "5> :next* ?y }"));
+        assertEquals(ImmutableMultiset.of("5"),
+                answer("SELECT ?x WHERE { ?x :next* <" + NODE_PREFIX + "5> }"));
+    }
+
+    @Test
+    public void testZeroLengthPathBetweenDifferentConstants() throws Exception {
+        assertEquals(ImmutableMultiset.of(),
+                answer("SELECT ?y WHERE { <" + NODE_PREFIX + "1> :next? <" + NODE_PREFIX + "5> . ?y :next ?z }"));
+    }
+
+    private static String getSQL(String query) throws Exception {
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            return ((SQLExecutableQuery) statement.getExecutableQuery(
+                    connection.getInputQueryFactory().createSelectQuery(PREFIX + query))).getSQL();
+        }
+    }
+
+    /**
+     * The values of the projected variables, as local names separated by spaces
+     */
+    private static ImmutableMultiset<String> answer(String query) throws Exception {
+        try (OntopConnection connection = QUERY_ENGINE.getConnection();
+             OntopStatement statement = connection.createStatement()) {
+            TupleResultSet resultSet = statement.execute(
+                    connection.getInputQueryFactory().createSelectQuery(PREFIX + query));
+            List<String> signature = resultSet.getSignature();
+            ImmutableMultiset.Builder<String> builder = ImmutableMultiset.builder();
+            while (resultSet.hasNext()) {
+                OntopBindingSet bindingSet = resultSet.next();
+                List<String> localNames = new ArrayList<>();
+                for (String variable : signature)
+                    localNames.add(bindingSet.getBinding(variable).getValue().getValue()
+                            .substring(NODE_PREFIX.length()));
+                builder.add(String.join(" ", localNames));
+            }
+            resultSet.close();
+            return builder.build();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package it.unibz.inf.ontop.answering.resultset.impl;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+public class JDBC2ConstantConverterTest {
+
+    private static final String[] VALUES = {"0", "0.0", "-0.0", "1", "-1", "10", "10.0", "1.50", "1250", "0.00125",
+            "-3.14159", "123456789.987654321", "1E3", "1E-10", "6.02214076E23", "-0.5", "0.10", "2.000", "0E+3", "5E+2"};
+
+    /**
+     * Same result as the DecimalFormat previously used for xsd:float and xsd:double
+     */
+    @Test
+    public void testCanonicalScientificNotation() {
+        for (String value : VALUES) {
+            BigDecimal bigDecimal = new BigDecimal(value);
+            assertEquals(value, formatWithDecimalFormat(bigDecimal),
+                    JDBC2ConstantConverter.toCanonicalScientificNotation(bigDecimal));
+        }
+    }
+
+    private static String formatWithDecimalFormat(BigDecimal bigDecimal) {
+        DecimalFormat formatter = new DecimalFormat("0.0E0", DecimalFormatSymbols.getInstance(Locale.ROOT));
+        formatter.setRoundingMode(RoundingMode.UNNECESSARY);
+        formatter.setMaximumFractionDigits((bigDecimal.scale() > 0)
+                ? bigDecimal.precision() - 1
+                : bigDecimal.precision() - 1 - bigDecimal.scale());
+        return formatter.format(bigDecimal);
+    }
+}
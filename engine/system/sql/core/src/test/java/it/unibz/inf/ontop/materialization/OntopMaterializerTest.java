@@ -22,6 +22,7 @@ package it.unibz.inf.ontop.materialization;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Injector;
 import it.unibz.inf.ontop.answering.resultset.MaterializedGraphResultSet;
@@ -59,6 +60,8 @@ import java.util.stream.Stream;
 
 import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 public class OntopMaterializerTest {
 
@@ -107,21 +110,7 @@ public class OntopMaterializerTest {
 		// source.setParameter(RDBMSourceParameterConstants.IS_IN_MEMORY, "true");
 		// source.setParameter(RDBMSourceParameterConstants.USE_DATASOURCE_FOR_ABOXDUMP, "true");
 
-		Connection conn = DriverManager.getConnection(url, username, password);
-		Statement st = conn.createStatement();
-
-		FileReader reader = new FileReader("src/test/resources/mapping-test-db.sql");
-		BufferedReader in = new BufferedReader(reader);
-		StringBuilder bf = new StringBuilder();
-		String line = in.readLine();
-		while (line != null) {
-			bf.append(line);
-			line = in.readLine();
-		}
-		in.close();
-
-		st.executeUpdate(bf.toString());
-		conn.commit();
+		Connection conn = loadDatabase();
 
 		ImmutableSet<URI> vocabulary = Stream.of(fn, ln, age, hasschool, school)
 				.map(p -> URI.create(p.getName()))
@@ -157,6 +146,84 @@ public class OntopMaterializerTest {
 
 
 
+	@Test
+	public void testParallelMaterialization() throws Exception {
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(createMapping())
+				.build();
+
+		try (Connection conn = loadDatabase()) {
+			ImmutableSet<URI> vocabulary = Stream.of(fn, ln, age, hasschool, school)
+					.map(p -> URI.create(p.getName()))
+					.collect(ImmutableCollectors.toSet());
+			OntopRDFMaterializer materializer = OntopRDFMaterializer.defaultMaterializer();
+
+			ImmutableMultiset.Builder<String> sequentialBuilder = ImmutableMultiset.builder();
+			ImmutableMap<URI, Long> sequentialCounts;
+			try (MaterializedGraphResultSet resultSet = materializer.materialize(configuration, vocabulary,
+					MaterializationParams.defaultBuilder().build())) {
+				while (resultSet.hasNext())
+					sequentialBuilder.add(resultSet.next().toString());
+				sequentialCounts = resultSet.getTripleCountPerPredicateSoFar();
+			}
+
+			ImmutableMultiset.Builder<String> parallelBuilder = ImmutableMultiset.builder();
+			try (MaterializedGraphResultSet resultSet = materializer.materialize(configuration, vocabulary,
+					MaterializationParams.defaultBuilder().parallelism(3).build())) {
+				while (resultSet.hasNext())
+					parallelBuilder.add(resultSet.next().toString());
+
+				assertEquals(sequentialBuilder.build(), parallelBuilder.build());
+				assertEquals(sequentialCounts, resultSet.getTripleCountPerPredicateSoFar());
+				assertEquals(15, resultSet.getTripleCountSoFar());
+				assertFalse(resultSet.hasEncounteredProblemsSoFar());
+			}
+		}
+	}
+
+	@Test
+	public void testParallelMaterializationClosedEarly() throws Exception {
+		OntopStandaloneSQLConfiguration configuration = createAndInitConfiguration()
+				.ppMapping(createMapping())
+				.build();
+
+		try (Connection conn = loadDatabase()) {
+			ImmutableSet<URI> vocabulary = Stream.of(fn, ln, age, hasschool, school)
+					.map(p -> URI.create(p.getName()))
+					.collect(ImmutableCollectors.toSet());
+
+			MaterializedGraphResultSet resultSet = OntopRDFMaterializer.defaultMaterializer().materialize(
+					configuration, vocabulary, MaterializationParams.defaultBuilder().parallelism(2).build());
+			assertTrue(resultSet.hasNext());
+			resultSet.next();
+			// Stops the workers
+			resultSet.close();
+			assertFalse(resultSet.hasNext());
+		}
+	}
+
+	/**
+	 * The in-memory DB lives as long as the returned connection is open
+	 */
+	private static Connection loadDatabase() throws Exception {
+		Connection conn = DriverManager.getConnection(url, username, password);
+		Statement st = conn.createStatement();
+
+		FileReader reader = new FileReader("src/test/resources/mapping-test-db.sql");
+		BufferedReader in = new BufferedReader(reader);
+		StringBuilder bf = new StringBuilder();
+		String line = in.readLine();
+		while (line != null) {
+			bf.append(line);
+			line = in.readLine();
+		}
+		in.close();
+
+		st.executeUpdate(bf.toString());
+		conn.commit();
+		return conn;
+	}
+
 	private static SQLPPMapping createMapping() throws DuplicateMappingException {
 
     	// TODO: we should not have to create an high-level configuration just for constructing these objects...
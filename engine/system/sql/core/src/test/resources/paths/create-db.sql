@@ -0,0 +1,22 @@
+CREATE TABLE "next" (
+"src" INT NOT NULL,
+"dst" INT NOT NULL
+);
+
+INSERT INTO "next"
+("src","dst") VALUES
+(1, 2),
+(2, 3),
+(3, 4);
+
+CREATE TABLE "link" (
+"src" INT NOT NULL,
+"dst" INT NOT NULL
+);
+
+INSERT INTO "link"
+("src","dst") VALUES
+(1, 2),
+(2, 3),
+(3, 1),
+(3, 4);
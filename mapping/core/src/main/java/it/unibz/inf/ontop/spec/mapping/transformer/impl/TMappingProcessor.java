@@ -20,8 +20,12 @@ package it.unibz.inf.ontop.spec.mapping.transformer.impl;
  * #L%
  */
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import it.unibz.inf.ontop.datalog.CQIE;
 import it.unibz.inf.ontop.datalog.impl.CQContainmentCheckUnderLIDs;
+import it.unibz.inf.ontop.model.term.Constant;
 import it.unibz.inf.ontop.model.term.functionsymbol.BuiltinPredicate;
 import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
 import it.unibz.inf.ontop.model.term.Function;
@@ -38,31 +42,123 @@ import it.unibz.inf.ontop.spec.ontology.EquivalencesDAG;
 import it.unibz.inf.ontop.spec.ontology.TBoxReasoner;
 import it.unibz.inf.ontop.substitution.Substitution;
 import it.unibz.inf.ontop.substitution.impl.SubstitutionUtilities;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.LinkedList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
+import java.util.Objects;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
 
+/**
+ * T-mappings of a mapping w.r.t. a TBox.
+ *
+ * The T-mappings of each equivalence class of the DAGs only depend on the original mappings
+ * of its sub-classes (sub-properties), so they are computed independently of each other, in parallel
+ * (in the common fork-join pool).
+ *
+ * Immutable: update(...) returns new T-mappings in which only the predicates depending
+ * on the modified mapping assertions have been recomputed.
+ */
 public class TMappingProcessor {
 
-	private static final boolean noCQC = false;		
+	private static final boolean noCQC = false;
+
+	private final TBoxReasoner reasoner;
+	private final boolean full;
+	private final CQContainmentCheckUnderLIDs cqc;
+	private final TMappingExclusionConfig excludeFromTMappings;
+
+	/**
+	 * Original mapping assertions (only read, never merged into the T-mappings directly)
+	 */
+	private final ImmutableMap<Predicate, ImmutableList<TMappingRule>> originalMappingIndex;
+	/**
+	 * Not modified after the saturation
+	 */
+	private final ImmutableMap<Predicate, TMappingIndexEntry> mappingIndex;
+
+	private TMappingProcessor(TBoxReasoner reasoner, boolean full, CQContainmentCheckUnderLIDs cqc,
+							  TMappingExclusionConfig excludeFromTMappings,
+							  ImmutableMap<Predicate, ImmutableList<TMappingRule>> originalMappingIndex,
+							  ImmutableMap<Predicate, TMappingIndexEntry> previousMappingIndex,
+							  ImmutableSet<Predicate> modifiedPredicates) {
+		this.reasoner = reasoner;
+		this.full = full;
+		this.cqc = cqc;
+		this.excludeFromTMappings = excludeFromTMappings;
+		this.originalMappingIndex = originalMappingIndex;
+		this.mappingIndex = saturate(previousMappingIndex, modifiedPredicates);
+	}
 
 	private static class TMappingIndexEntry implements Iterable<TMappingRule> {
-		private final List<TMappingRule> rules = new LinkedList<>();
-	
+		/**
+		 * Rules grouped by the signature of their heads.
+		 *
+		 * No homomorphism exists between rules with incompatible signatures (e.g., different IRI templates),
+		 * so they are never compared.
+		 */
+		private final Map<HeadSignature, List<IndexedRule>> rules = new LinkedHashMap<>();
+		private int insertionCount = 0;
+
 
 		@Override
 		public Iterator<TMappingRule> iterator() {
-			return rules.iterator();
+			return getRules().iterator();
+		}
+
+		/**
+		 * In insertion order
+		 */
+		List<TMappingRule> getRules() {
+			return rules.values().stream()
+					.flatMap(List::stream)
+					.sorted(Comparator.comparingInt(r -> r.rank))
+					.map(r -> r.rule)
+					.collect(Collectors.toList());
+		}
+
+		boolean isEmpty() {
+			return rules.isEmpty();
+		}
+
+		/**
+		 * Rules with a head signature compatible with the given one (in insertion order)
+		 */
+		private List<IndexedRule> getCandidates(HeadSignature signature) {
+			List<List<IndexedRule>> buckets = rules.entrySet().stream()
+					.filter(e -> e.getKey().isCompatibleWith(signature))
+					.map(Map.Entry::getValue)
+					.collect(Collectors.toList());
+
+			if (buckets.size() == 1)
+				return new ArrayList<>(buckets.get(0));
+
+			return buckets.stream()
+					.flatMap(List::stream)
+					.sorted(Comparator.comparingInt(r -> r.rank))
+					.collect(Collectors.toList());
+		}
+
+		private void add(TMappingRule rule, HeadSignature signature) {
+			rules.computeIfAbsent(signature, s -> new ArrayList<>())
+					.add(new IndexedRule(rule, signature, insertionCount++));
+		}
+
+		private void remove(IndexedRule indexedRule) {
+			List<IndexedRule> bucket = rules.get(indexedRule.signature);
+			bucket.remove(indexedRule);
+			if (bucket.isEmpty())
+				rules.remove(indexedRule.signature);
 		}
 
 		/***
@@ -115,74 +211,77 @@ public class TMappingProcessor {
 		 *            The new mapping for A/P
 		 */
 		public void mergeMappingsWithCQC(TMappingRule newRule) {
-			
+
+			HeadSignature signature = new HeadSignature(newRule);
+
 			// Facts are just added
 			if (newRule.isFact()) {
-				rules.add(newRule);
+				add(newRule, signature);
 				return;
 			}
-		
+
+			List<IndexedRule> candidates = getCandidates(signature);
+
 			if (noCQC) {
-				for (TMappingRule r : rules)
-					if (r.equals(newRule))
+				for (IndexedRule r : candidates)
+					if (r.rule.equals(newRule))
 						return;
-				
-				rules.add(newRule);
+
+				add(newRule, signature);
 				return;
 			}
-			
-			Iterator<TMappingRule> mappingIterator = rules.iterator();
-			while (mappingIterator.hasNext()) {
 
-				TMappingRule currentRule = mappingIterator.next(); 
+			for (IndexedRule candidate : candidates) {
+
+				TMappingRule currentRule = candidate.rule;
 				// ROMAN (14 Oct 2015): quick fix, but one has to be more careful with variables in filters
 				if (currentRule.equals(newRule))
 					return;
-						
+
 				boolean couldIgnore = false;
-				
+
 				Substitution toNewRule = newRule.computeHomomorphsim(currentRule);
 				if ((toNewRule != null) && checkConditions(newRule, currentRule, toNewRule)) {
 					if (newRule.databaseAtomsSize() < currentRule.databaseAtomsSize()) {
 						couldIgnore = true;
 					}
 					else {
-						// if the new mapping is redundant and there are no conditions then do not add anything		
+						// if the new mapping is redundant and there are no conditions then do not add anything
 						return;
 					}
 				}
-				
-				Substitution fromNewRule = currentRule.computeHomomorphsim(newRule);		
-				if ((fromNewRule != null) && checkConditions(currentRule, newRule, fromNewRule)) {		
+
+				Substitution fromNewRule = currentRule.computeHomomorphsim(newRule);
+				if ((fromNewRule != null) && checkConditions(currentRule, newRule, fromNewRule)) {
 					// The existing query is more specific than the new query, so we
-					// need to add the new query and remove the old	 
-					mappingIterator.remove();
+					// need to add the new query and remove the old
+					remove(candidate);
 					continue;
-				} 
-				
+				}
+
 				if (couldIgnore) {
-					// if the new mapping is redundant and there are no conditions then do not add anything		
-					return;					
+					// if the new mapping is redundant and there are no conditions then do not add anything
+					return;
 				}
-				
+
 				if ((toNewRule != null) && (fromNewRule != null)) {
 					// We found an equivalence, we will try to merge the conditions of
 					// newRule into the currentRule
 					//System.err.println("\n" + newRule + "\n v \n" + currentRule + "\n");
-					
+
 				 	// Here we can merge conditions of the new query with the one we have
 					// just found
 					// new map always has just one set of filters  !!
 					List<Function> newconditions = TMappingRule.cloneList(newRule.getConditions().get(0));
-					for (Function f : newconditions) 
+					for (Function f : newconditions)
 						SubstitutionUtilities.applySubstitution(f, fromNewRule);
 
 					List<List<Function>> existingconditions = currentRule.getConditions();
 					List<List<Function>> filterAtoms = new ArrayList<>(existingconditions.size() + 1);
-					
+
 					for (List<Function> econd : existingconditions) {
 						boolean found2 = true;
-						for (Function ec : econd) 
+						for (Function ec : econd)
 							if (!newconditions.contains(ec)) {
 								found2 = false;
 								break;
@@ -190,43 +289,44 @@ public class TMappingProcessor {
 						// if each of the existing conditions is found then the new condition is redundant
 						if (found2)
 							return;
-						
+
 						boolean found = true;
 						for (Function nc : newconditions)
-							if (!econd.contains(nc)) { 
+							if (!econd.contains(nc)) {
 								found = false;
 								break;
-							}	
+							}
 						// if each of the new conditions is found among econd then the old condition is redundant
 						if (found) {
 							//System.err.println(econd + " contains " + newconditions);
 						}
 						else
-							filterAtoms.add(TMappingRule.cloneList(econd));		
+							filterAtoms.add(TMappingRule.cloneList(econd));
 					}
 
-					filterAtoms.add(newconditions);	
-					
-	                mappingIterator.remove();
-	                
+					filterAtoms.add(newconditions);
+
+	                remove(candidate);
+
 					newRule = new TMappingRule(currentRule, filterAtoms);
+					signature = candidate.signature;
 
 					break;
-				}				
+				}
 			}
-			rules.add(newRule);
+			add(newRule, signature);
 		}
-		
+
 		private boolean checkConditions(TMappingRule rule1, TMappingRule rule2, Substitution toRule1) {
 			if (rule2.getConditions().size() == 0)
 				return true;
 			if (rule2.getConditions().size() > 1 || rule1.getConditions().size() != 1)
 				return false;
-			
+
 			List<Function> conjucntion1 = rule1.getConditions().get(0);
 			List<Function> conjunction2 = TMappingRule.cloneList(rule2.getConditions().get(0));
 			for (Function f : conjunction2)  {
-				SubstitutionUtilities.applySubstitution(f, toRule1);			
+				SubstitutionUtilities.applySubstitution(f, toRule1);
 				if (!conjucntion1.contains(f))
 					return false;
 			}
@@ -234,38 +334,199 @@ public class TMappingProcessor {
 		}
 	}
 
-	// end of the inner class
+	private static final class IndexedRule {
+		private final TMappingRule rule;
+		private final HeadSignature signature;
+		// insertion order
+		private final int rank;
 
+		private IndexedRule(TMappingRule rule, HeadSignature signature, int rank) {
+			this.rule = rule;
+			this.signature = signature;
+			this.rank = rank;
+		}
+	}
 
 	/**
-	 * constructs the TMappings for object properties using DAG
-	 * @param mappingIndex
-	 * @param originalMappings
-	 * @param dag
-	 * @param full
+	 * For each term of the head: its function symbol, arity and first argument if it is a constant
+	 * (e.g., the IRI template), or null if it is not a functional term.
+	 *
+	 * If two heads have incompatible signatures, none can be homomorphically mapped to the other.
 	 */
-	private static void getObjectTMappings(Map<Predicate, TMappingIndexEntry> mappingIndex,
-			Map<Predicate, List<TMappingRule>> originalMappings,
-			EquivalencesDAG<ObjectPropertyExpression> dag, 
-			boolean full, TMappingExclusionConfig excludeFromTMappings) {
+	private static final class HeadSignature {
+		private final List<TermSignature> termSignatures;
+
+		private HeadSignature(TMappingRule rule) {
+			List<Term> terms = rule.getHeadTerms();
+			this.termSignatures = new ArrayList<>(terms.size());
+			for (Term term : terms)
+				termSignatures.add((term instanceof Function) ? new TermSignature((Function) term) : null);
+		}
 
-		for (Equivalences<ObjectPropertyExpression> propertySet : dag) {
+		boolean isCompatibleWith(HeadSignature other) {
+			if (termSignatures.size() != other.termSignatures.size())
+				return false;
+			for (int i = 0; i < termSignatures.size(); i++) {
+				TermSignature s1 = termSignatures.get(i), s2 = other.termSignatures.get(i);
+				if (s1 != null && s2 != null && !s1.isCompatibleWith(s2))
+					return false;
+			}
+			return true;
+		}
 
-			ObjectPropertyExpression current = propertySet.getRepresentative();
-			if (current.isInverse())
-				continue;
+		@Override
+		public boolean equals(Object o) {
+			return (o instanceof HeadSignature) && termSignatures.equals(((HeadSignature) o).termSignatures);
+		}
+
+		@Override
+		public int hashCode() {
+			return termSignatures.hashCode();
+		}
+	}
+
+	private static final class TermSignature {
+		private final Predicate functionSymbol;
+		private final int arity;
+		// null if the first argument is not a constant
+		private final Term firstConstant;
+
+		private TermSignature(Function term) {
+			this.functionSymbol = term.getFunctionSymbol();
+			this.arity = term.getArity();
+			this.firstConstant = (arity > 0 && term.getTerm(0) instanceof Constant) ? term.getTerm(0) : null;
+		}
+
+		boolean isCompatibleWith(TermSignature other) {
+			return functionSymbol.equals(other.functionSymbol)
+					&& arity == other.arity
+					&& (firstConstant == null || other.firstConstant == null
+						|| firstConstant.equals(other.firstConstant));
+		}
 
-			// for optimization
-			if(excludeFromTMappings.contains(current)){
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof TermSignature))
+				return false;
+			TermSignature other = (TermSignature) o;
+			return functionSymbol.equals(other.functionSymbol) && arity == other.arity
+					&& Objects.equals(firstConstant, other.firstConstant);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(functionSymbol, arity, firstConstant);
+		}
+	}
+
+	// end of the inner classes
+
+
+	/**
+	 * constructs the TMappings for an object property using DAG
+	 * @param propertySet
+	 * @return the T-mappings of the properties in propertySet
+	 */
+	private Map<Predicate, TMappingIndexEntry> getObjectTMappings(Equivalences<ObjectPropertyExpression> propertySet) {
+
+		Map<Predicate, TMappingIndexEntry> mappingIndex = new HashMap<>();
+		EquivalencesDAG<ObjectPropertyExpression> dag = reasoner.getObjectPropertyDAG();
+
+		ObjectPropertyExpression current = propertySet.getRepresentative();
+		// the mappings of the properties of the set are computed with the inverse set
+		if (current.isInverse())
+			return mappingIndex;
+
+		// for optimization
+		if(excludeFromTMappings.contains(current)){
+			return mappingIndex;
+		}
+
+		/* Getting the current node mappings */
+		Predicate currentPredicate = current.getPredicate();
+		TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);
+
+		for (Equivalences<ObjectPropertyExpression> descendants : dag.getSub(propertySet)) {
+			for(ObjectPropertyExpression childproperty : descendants) {
+
+				/*
+				 * adding the mappings of the children as own mappings, the new
+				 * mappings use the current predicate instead of the child's
+				 * predicate and, if the child is inverse and the current is
+				 * positive, it will also invert the terms in the head
+				 */
+				boolean requiresInverse = childproperty.isInverse();
+
+				List<TMappingRule> childmappings = getOriginalMappings(childproperty.getPredicate());
+				for (TMappingRule childmapping : childmappings) {
+
+					List<Term> terms = childmapping.getHeadTerms();
+
+					Function newMappingHead;
+					if (!requiresInverse) {
+						if (!full)
+							continue;
+						newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms);
+					}
+					else {
+						newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms.get(1), terms.get(0));
+					}
+					TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);
+					currentNodeMappings.mergeMappingsWithCQC(newmapping);
+				}
+			}
+		}
+
+		/* Setting up mappings for the equivalent classes */
+		for (ObjectPropertyExpression equivProperty : propertySet) {
+
+			Predicate p = equivProperty.getPredicate();
+
+			// skip the property and its inverse (if it is symmetric)
+			if (p.equals(current.getPredicate()))
 				continue;
+
+			TMappingIndexEntry equivalentPropertyMappings = getMappings(mappingIndex, p);
+
+			for (TMappingRule currentNodeMapping : currentNodeMappings) {
+				List<Term> terms = currentNodeMapping.getHeadTerms();
+
+				Function newhead;
+				if (!equivProperty.isInverse())
+					newhead = TERM_FACTORY.getFunction(p, terms);
+				else
+					newhead = TERM_FACTORY.getFunction(p, terms.get(1), terms.get(0));
+
+				TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);
+				equivalentPropertyMappings.mergeMappingsWithCQC(newrule);
 			}
+		}
+		return mappingIndex;
+	}
+
+	/**
+	 * constructs the TMappings for a data property using DAG
+	 * @param propertySet
+	 * @return the T-mappings of the properties in propertySet
+	 */
+	private Map<Predicate, TMappingIndexEntry> getDataTMappings(Equivalences<DataPropertyExpression> propertySet) {
+
+		Map<Predicate, TMappingIndexEntry> mappingIndex = new HashMap<>();
+		EquivalencesDAG<DataPropertyExpression> dag = reasoner.getDataPropertyDAG();
 
-			/* Getting the current node mappings */
-			Predicate currentPredicate = current.getPredicate();
-			TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);	
+		DataPropertyExpression current = propertySet.getRepresentative();
 
-			for (Equivalences<ObjectPropertyExpression> descendants : dag.getSub(propertySet)) {
-				for(ObjectPropertyExpression childproperty : descendants) {
+		// for optimization
+		if(excludeFromTMappings.contains(current)){
+			return mappingIndex;
+		}
+		/* Getting the current node mappings */
+		Predicate currentPredicate = current.getPredicate();
+		TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);
+
+		if (full) {
+			for (Equivalences<DataPropertyExpression> descendants : dag.getSub(propertySet)) {
+				for(DataPropertyExpression childproperty : descendants) {
 
 					/*
 					 * adding the mappings of the children as own mappings, the new
@@ -273,132 +534,233 @@ public class TMappingProcessor {
 					 * predicate and, if the child is inverse and the current is
 					 * positive, it will also invert the terms in the head
 					 */
-					boolean requiresInverse = childproperty.isInverse();
-
-					List<TMappingRule> childmappings = originalMappings.get(childproperty.getPredicate());
-					if (childmappings == null)
-						continue;
-					
+					List<TMappingRule> childmappings = getOriginalMappings(childproperty.getPredicate());
 					for (TMappingRule childmapping : childmappings) {
-						
+
 						List<Term> terms = childmapping.getHeadTerms();
 
-						Function newMappingHead;
-						if (!requiresInverse) {
-							if (!full)
-								continue;
-							newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms);
-						} 
-						else {
-							newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms.get(1), terms.get(0));
-						}
-						TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);				
+						Function newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms);
+						TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);
 						currentNodeMappings.mergeMappingsWithCQC(newmapping);
 					}
 				}
 			}
+		}
 
-			/* Setting up mappings for the equivalent classes */
-			for (ObjectPropertyExpression equivProperty : propertySet) {
-					 
-				Predicate p = equivProperty.getPredicate();
+		/* Setting up mappings for the equivalent classes */
+		for (DataPropertyExpression equivProperty : propertySet) {
 
-				// skip the property and its inverse (if it is symmetric)
-				if (p.equals(current.getPredicate()))
-					continue;
-				
-				TMappingIndexEntry equivalentPropertyMappings = getMappings(mappingIndex, p);
-					
-				for (TMappingRule currentNodeMapping : currentNodeMappings) {
-					List<Term> terms = currentNodeMapping.getHeadTerms();
-					
-					Function newhead;
-					if (!equivProperty.isInverse()) 
-						newhead = TERM_FACTORY.getFunction(p, terms);
-					else 
-						newhead = TERM_FACTORY.getFunction(p, terms.get(1), terms.get(0));
-					
-					TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);				
-					equivalentPropertyMappings.mergeMappingsWithCQC(newrule);
-				}
+
+			Predicate p = equivProperty.getPredicate();
+
+			// skip the property and its inverse (if it is symmetric)
+			if (p.equals(current.getPredicate()))
+				continue;
+
+			TMappingIndexEntry equivalentPropertyMappings = getMappings(mappingIndex, p);
+
+			for (TMappingRule currentNodeMapping : currentNodeMappings) {
+				Function newhead = TERM_FACTORY.getFunction(p, currentNodeMapping.getHeadTerms());
+
+				TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);
+				equivalentPropertyMappings.mergeMappingsWithCQC(newrule);
 			}
-		} // Properties loop ended
-		
+		}
+		return mappingIndex;
 	}
 
 	/**
-	 * constructs the TMappings for data properties using DAG
-	 * @param mappingIndex
-	 * @param originalMappings
-	 * @param dag
-	 * @param full
+	 * constructs the TMappings for a class using DAG
+	 * @param classSet
+	 * @return the T-mappings of the classes in classSet
 	 */
-	private static void getDataTMappings(Map<Predicate, TMappingIndexEntry> mappingIndex, 
-			Map<Predicate, List<TMappingRule>> originalMappings,
-			EquivalencesDAG<DataPropertyExpression> dag, 
-			boolean full, TMappingExclusionConfig excludeFromTMappings) {
-		
-		for (Equivalences<DataPropertyExpression> propertySet : dag) {
+	private Map<Predicate, TMappingIndexEntry> getClassTMappings(Equivalences<ClassExpression> classSet) {
 
-			DataPropertyExpression current = propertySet.getRepresentative();
+		Map<Predicate, TMappingIndexEntry> mappingIndex = new HashMap<>();
 
-			// for optimization
-			if(excludeFromTMappings.contains(current)){
-				continue;
-			}
-			/* Getting the current node mappings */
-			Predicate currentPredicate = current.getPredicate();
-			TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);	
-
-			if (full) {
-				for (Equivalences<DataPropertyExpression> descendants : dag.getSub(propertySet)) {
-					for(DataPropertyExpression childproperty : descendants) {
-
-						/*
-						 * adding the mappings of the children as own mappings, the new
-						 * mappings use the current predicate instead of the child's
-						 * predicate and, if the child is inverse and the current is
-						 * positive, it will also invert the terms in the head
-						 */
-						List<TMappingRule> childmappings = originalMappings.get(childproperty.getPredicate());
-						if (childmappings == null)
-							continue;
-						
-						for (TMappingRule childmapping : childmappings) {
-							
-							List<Term> terms = childmapping.getHeadTerms();
-
-							Function newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms);
-							TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);				
-							currentNodeMappings.mergeMappingsWithCQC(newmapping);
-						}
+		if (!(classSet.getRepresentative() instanceof OClass))
+			return mappingIndex;
+
+		OClass current = (OClass)classSet.getRepresentative();
+
+		// FIXME: consider equivalences
+		// USE OF excludeFromTMappings
+		if(excludeFromTMappings.contains(current)){
+			return mappingIndex;
+		}
+
+		/* Getting the current node mappings */
+		Predicate currentPredicate = current.getPredicate();
+		TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);
+
+		for (Equivalences<ClassExpression> descendants : reasoner.getClassDAG().getSub(classSet)) {
+			for (ClassExpression childDescription : descendants) {
+
+
+				/* adding the mappings of the children as own mappings, the new
+				 * mappings. There are three cases, when the child is a named
+				 * class, or when it is an \exists P or \exists \inv P.
+				 */
+
+				boolean isClass, isInverse;
+
+				Predicate childPredicate;
+				if (childDescription instanceof OClass) {
+					if (!full)
+						continue;
+					childPredicate = ((OClass) childDescription).getPredicate();
+					isClass = true;
+					isInverse = false;
+
+					/*
+					 * USE OF excludeFromTMappings
+					 */
+					if(excludeFromTMappings.contains((OClass) childDescription)){
+						continue;
 					}
+
+				}
+				else if (childDescription instanceof ObjectSomeValuesFrom) {
+					ObjectPropertyExpression some = ((ObjectSomeValuesFrom) childDescription).getProperty();
+					childPredicate = some.getPredicate();
+					isClass = false;
+					isInverse = some.isInverse();
+				}
+				else {
+					assert (childDescription instanceof DataSomeValuesFrom);
+					DataPropertyExpression some = ((DataSomeValuesFrom) childDescription).getProperty();
+					childPredicate = some.getPredicate();
+					isClass = false;
+					isInverse = false;  // can never be an inverse
 				}
-			}
 
-			/* Setting up mappings for the equivalent classes */
-			for (DataPropertyExpression equivProperty : propertySet) {
-			
-				 
-				Predicate p = equivProperty.getPredicate();
+				List<TMappingRule> childmappings = getOriginalMappings(childPredicate);
+				for (TMappingRule childmapping : childmappings) {
 
-				// skip the property and its inverse (if it is symmetric)
-				if (p.equals(current.getPredicate()))
-					continue;
-				
-				TMappingIndexEntry equivalentPropertyMappings = getMappings(mappingIndex, p);
-					
-				for (TMappingRule currentNodeMapping : currentNodeMappings) {
-					Function newhead = TERM_FACTORY.getFunction(p, currentNodeMapping.getHeadTerms());
-					
-					TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);				
-					equivalentPropertyMappings.mergeMappingsWithCQC(newrule);
+					List<Term> terms = childmapping.getHeadTerms();
+
+					Function newMappingHead;
+					if (isClass) {
+						newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms);
+					}
+					else {
+						if (!isInverse)
+							newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms.get(0));
+						else
+							newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms.get(1));
+					}
+					TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);
+					currentNodeMappings.mergeMappingsWithCQC(newmapping);
 				}
 			}
-		} // Properties loop ended
-		
+		}
+
+
+		/* Setting up mappings for the equivalent classes */
+		for (ClassExpression equiv : classSet) {
+			if (!(equiv instanceof OClass) || equiv.equals(current))
+				continue;
+
+			Predicate p = ((OClass) equiv).getPredicate();
+			TMappingIndexEntry equivalentClassMappings = getMappings(mappingIndex, p);
+
+			for (TMappingRule currentNodeMapping : currentNodeMappings) {
+				Function newhead = TERM_FACTORY.getFunction(p, currentNodeMapping.getHeadTerms());
+
+				TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);
+				equivalentClassMappings.mergeMappingsWithCQC(newrule);
+			}
+		}
+		return mappingIndex;
 	}
-	
+
+	/**
+	 * Predicates whose original mappings are used for the T-mappings of the equivalence set
+	 * (conservative: the exclusions are ignored)
+	 */
+	private static Stream<Predicate> getObjectChildPredicates(EquivalencesDAG<ObjectPropertyExpression> dag,
+															  Equivalences<ObjectPropertyExpression> propertySet) {
+		return dag.getSub(propertySet).stream()
+				.flatMap(s -> s.getMembers().stream())
+				.map(ObjectPropertyExpression::getPredicate);
+	}
+
+	private static Stream<Predicate> getDataChildPredicates(EquivalencesDAG<DataPropertyExpression> dag,
+															Equivalences<DataPropertyExpression> propertySet) {
+		return dag.getSub(propertySet).stream()
+				.flatMap(s -> s.getMembers().stream())
+				.map(DataPropertyExpression::getPredicate);
+	}
+
+	private static Stream<Predicate> getClassChildPredicates(EquivalencesDAG<ClassExpression> dag,
+															 Equivalences<ClassExpression> classSet) {
+		return dag.getSub(classSet).stream()
+				.flatMap(s -> s.getMembers().stream())
+				.map(c -> (c instanceof OClass)
+						? ((OClass) c).getPredicate()
+						: (c instanceof ObjectSomeValuesFrom)
+						? ((ObjectSomeValuesFrom) c).getProperty().getPredicate()
+						: ((DataSomeValuesFrom) c).getProperty().getPredicate());
+	}
+
+	/**
+	 * Computes the T-mappings of the equivalence sets depending on the modified predicates (in parallel)
+	 * and reuses the T-mappings of the previous index for the others.
+	 *
+	 * Each predicate is expected to appear in the T-mappings of exactly one equivalence set
+	 * (the inverse sets and the excluded sets are not processed).
+	 */
+	private ImmutableMap<Predicate, TMappingIndexEntry> saturate(ImmutableMap<Predicate, TMappingIndexEntry> previousMappingIndex,
+																 ImmutableSet<Predicate> modifiedPredicates) {
+
+		EquivalencesDAG<ObjectPropertyExpression> objectPropertyDAG = reasoner.getObjectPropertyDAG();
+		EquivalencesDAG<DataPropertyExpression> dataPropertyDAG = reasoner.getDataPropertyDAG();
+		EquivalencesDAG<ClassExpression> classDAG = reasoner.getClassDAG();
+
+		List<Supplier<Map<Predicate, TMappingIndexEntry>>> tasks = Stream.of(
+				stream(objectPropertyDAG)
+						.filter(s -> getObjectChildPredicates(objectPropertyDAG, s).anyMatch(modifiedPredicates::contains))
+						.map(s -> (Supplier<Map<Predicate, TMappingIndexEntry>>) () -> getObjectTMappings(s)),
+				stream(dataPropertyDAG)
+						.filter(s -> getDataChildPredicates(dataPropertyDAG, s).anyMatch(modifiedPredicates::contains))
+						.map(s -> (Supplier<Map<Predicate, TMappingIndexEntry>>) () -> getDataTMappings(s)),
+				stream(classDAG)
+						.filter(s -> getClassChildPredicates(classDAG, s).anyMatch(modifiedPredicates::contains))
+						.map(s -> (Supplier<Map<Predicate, TMappingIndexEntry>>) () -> getClassTMappings(s)))
+				.flatMap(s -> s)
+				.collect(Collectors.toList());
+
+		Map<Predicate, TMappingIndexEntry> newEntries = tasks.parallelStream()
+				.flatMap(t -> t.get().entrySet().stream())
+				// Should not happen (see above), but the rules of both sets are then kept
+				.collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, TMappingProcessor::mergeEntries));
+
+		// Predicates not processed (e.g., excluded or not in the TBox): their original mappings only
+		modifiedPredicates.stream()
+				.filter(p -> !newEntries.containsKey(p))
+				.forEach(p -> getMappings(newEntries, p));
+
+		// The previous entries are shared (never modified)
+		Map<Predicate, TMappingIndexEntry> saturatedIndex = new HashMap<>(previousMappingIndex);
+		saturatedIndex.putAll(newEntries);
+		return saturatedIndex.entrySet().stream()
+				.filter(e -> !e.getValue().isEmpty())
+				.collect(ImmutableCollectors.toMap());
+	}
+
+	/**
+	 * Side-effect on the first entry (not shared anymore by its task)
+	 */
+	private static TMappingIndexEntry mergeEntries(TMappingIndexEntry entry1, TMappingIndexEntry entry2) {
+		for (TMappingRule rule : entry2)
+			entry1.mergeMappingsWithCQC(rule);
+		return entry1;
+	}
+
+	private static <T> Stream<Equivalences<T>> stream(EquivalencesDAG<T> dag) {
+		return StreamSupport.stream(dag.spliterator(), false);
+	}
+
 	/**
 	 * constructs the TMappings using DAG
 	 * @param originalMappings
@@ -408,233 +770,133 @@ public class TMappingProcessor {
 	 */
 
 	public static List<CQIE> getTMappings(List<CQIE> originalMappings, TBoxReasoner reasoner, boolean full, CQContainmentCheckUnderLIDs cqc, TMappingExclusionConfig excludeFromTMappings) {
-		
-		final boolean printouts = false;
-		
-		if (printouts)
-			System.out.println("ORIGINAL MAPPING SIZE: " + originalMappings.size());
-		
+		return saturate(originalMappings, reasoner, full, cqc, excludeFromTMappings).getSaturatedMappings();
+	}
+
+	/**
+	 * constructs the TMappings using DAG
+	 * @param originalMappings
+	 * @param reasoner
+	 * @param full (false for the Semantic Index)
+	 */
+	public static TMappingProcessor saturate(List<CQIE> originalMappings, TBoxReasoner reasoner, boolean full,
+											 CQContainmentCheckUnderLIDs cqc,
+											 TMappingExclusionConfig excludeFromTMappings) {
 		if (excludeFromTMappings == null)
 			throw new NullPointerException("excludeFromTMappings");
-		
-		Map<Predicate, TMappingIndexEntry> mappingIndex = new HashMap<>();
+
+		ImmutableMap<Predicate, ImmutableList<TMappingRule>> originalMappingIndex =
+				indexOriginalMappings(ImmutableMap.of(), originalMappings, cqc);
+
+		return new TMappingProcessor(reasoner, full, cqc, excludeFromTMappings, originalMappingIndex,
+				ImmutableMap.of(), originalMappingIndex.keySet());
+	}
+
+	/**
+	 * Incremental re-saturation: the original mapping assertions of the given predicates are replaced
+	 * by newMappings (possibly empty, for removing them).
+	 *
+	 * Only the T-mappings depending on these predicates are recomputed: the same T-mappings as
+	 * a full saturation of the updated mapping assertions.
+	 *
+	 * @param predicates all the head predicates of newMappings must be among them
+	 */
+	public TMappingProcessor update(ImmutableSet<Predicate> predicates, List<CQIE> newMappings) {
+		newMappings.stream()
+				.map(m -> m.getHead().getFunctionSymbol())
+				.filter(p -> !predicates.contains(p))
+				.findAny()
+				.ifPresent(p -> {
+					throw new IllegalArgumentException("Unexpected predicate in the new mappings: " + p);
+				});
+
+		ImmutableMap<Predicate, ImmutableList<TMappingRule>> remainingMappingIndex = originalMappingIndex.entrySet().stream()
+				.filter(e -> !predicates.contains(e.getKey()))
+				.collect(ImmutableCollectors.toMap());
+
+		ImmutableMap<Predicate, TMappingIndexEntry> remainingEntries = mappingIndex.entrySet().stream()
+				.filter(e -> !predicates.contains(e.getKey()))
+				.collect(ImmutableCollectors.toMap());
+
+		return new TMappingProcessor(reasoner, full, cqc, excludeFromTMappings,
+				indexOriginalMappings(remainingMappingIndex, newMappings, cqc),
+				remainingEntries, predicates);
+	}
+
+	/**
+	 * Creates an index of all mappings based on the predicate of the head of
+	 * the mapping. The returned map can be used for fast access to the mapping
+	 * list.
+	 */
+	private static ImmutableMap<Predicate, ImmutableList<TMappingRule>> indexOriginalMappings(
+			ImmutableMap<Predicate, ImmutableList<TMappingRule>> existingIndex,
+			List<CQIE> originalMappings, CQContainmentCheckUnderLIDs cqc) {
 
 		Map<Predicate, List<TMappingRule>> originalMappingIndex = new HashMap<>();
-		
-		/***
-		 * Creates an index of all mappings based on the predicate of the head of
-		 * the mapping. The returned map can be used for fast access to the mapping
-		 * list.
-		 */
-		
-		//CQContainmentCheckUnderLIDs cqc0 = new CQContainmentCheckUnderLIDs(null);
+		existingIndex.forEach((p, l) -> originalMappingIndex.put(p, new ArrayList<>(l)));
 
-		if (printouts)
-			System.out.println("===CHECKING REDUNDANCY: " + cqc);
-		for (CQIE mapping : originalMappings) {	
+		for (CQIE mapping : originalMappings) {
 
 			if (!noCQC)
 				mapping = cqc.removeRedundantAtoms(mapping);
 			else {
 				int c = 0;
-				for (Function a : mapping.getBody()) 
+				for (Function a : mapping.getBody())
 					if (!(a.getFunctionSymbol() instanceof BuiltinPredicate))
 						c++;
-				
+
 				if (c == 1)
 					CQContainmentCheckUnderLIDs.oneAtomQs++;
 				else if (c == 2)
 					CQContainmentCheckUnderLIDs.twoAtomQs++;
-			}	
-			
+			}
+
 			TMappingRule rule = new TMappingRule(mapping.getHead(), mapping.getBody(), cqc);
 			Predicate ruleIndex = mapping.getHead().getFunctionSymbol();
-			List<TMappingRule> ms = originalMappingIndex.get(ruleIndex);
-			if (ms == null) {
-				ms = new LinkedList<>();
-				originalMappingIndex.put(ruleIndex, ms);
-			}
-			ms.add(rule);
-						
-			TMappingIndexEntry set = getMappings(mappingIndex, ruleIndex);
-			set.mergeMappingsWithCQC(rule);
+			originalMappingIndex.computeIfAbsent(ruleIndex, p -> new ArrayList<>())
+					.add(rule);
 		}
-		if (printouts)
-			System.out.println("===END OF CHECKING REDUNDANCY: " + CQContainmentCheckUnderLIDs.oneAtomQs + "/" + CQContainmentCheckUnderLIDs.twoAtomQs);
-		
-
-		/*
-		 * We start with the property mappings, since class t-mappings require
-		 * that these are already processed. 
-		 * Processing mappings for all Properties
-		 *
-		 * We process the mappings for the descendants of the current node,
-		 * adding them to the list of mappings of the current node as defined in
-		 * the TMappings specification.
-		 */
 
-		getObjectTMappings(mappingIndex, originalMappingIndex, reasoner.getObjectPropertyDAG(), full, excludeFromTMappings);
-		getDataTMappings(mappingIndex, originalMappingIndex, reasoner.getDataPropertyDAG(), full, excludeFromTMappings);
-
-		/*
-		 * Property t-mappings are done, we now continue with class t-mappings.
-		 * Starting with the leafs.
-		 */
-
-		for (Equivalences<ClassExpression> classSet : reasoner.getClassDAG()) {
-
-			if (!(classSet.getRepresentative() instanceof OClass)) 
-				continue;
-
-			OClass current = (OClass)classSet.getRepresentative();
-
-			// FIXME: consider equivalences
-            // USE OF excludeFromTMappings
-			if(excludeFromTMappings.contains(current)){
-				continue;
-			}
-
-			/* Getting the current node mappings */
-			Predicate currentPredicate = current.getPredicate();
-			TMappingIndexEntry currentNodeMappings = getMappings(mappingIndex, currentPredicate);
-
-			for (Equivalences<ClassExpression> descendants : reasoner.getClassDAG().getSub(classSet)) {
-				for (ClassExpression childDescription : descendants) {
-
-
-                    /* adding the mappings of the children as own mappings, the new
-					 * mappings. There are three cases, when the child is a named
-					 * class, or when it is an \exists P or \exists \inv P. 
-					 */
-					
-					boolean isClass, isInverse;
-
-					Predicate childPredicate;					
-					if (childDescription instanceof OClass) {
-						if (!full)
-							continue;
-						childPredicate = ((OClass) childDescription).getPredicate();
-						isClass = true;
-						isInverse = false;
-
-                        /*
-                         * USE OF excludeFromTMappings
-                         */
-                        if(excludeFromTMappings.contains((OClass) childDescription)){
-                            continue;
-                        }
-
-					} 
-					else if (childDescription instanceof ObjectSomeValuesFrom) {
-						ObjectPropertyExpression some = ((ObjectSomeValuesFrom) childDescription).getProperty();
-						childPredicate = some.getPredicate();
-						isClass = false;
-						isInverse = some.isInverse();
-					} 
-					else {
-						assert (childDescription instanceof DataSomeValuesFrom);
-						DataPropertyExpression some = ((DataSomeValuesFrom) childDescription).getProperty();
-						childPredicate = some.getPredicate();
-						isClass = false;
-						isInverse = false;  // can never be an inverse
-					} 
-					
-					List<TMappingRule> childmappings = originalMappingIndex.get(childPredicate);
-					if (childmappings == null)
-						continue;
-					
-					for (TMappingRule childmapping : childmappings) {
-						
-						List<Term> terms = childmapping.getHeadTerms();
+		return originalMappingIndex.entrySet().stream()
+				.collect(ImmutableCollectors.toMap(
+						Map.Entry::getKey,
+						e -> ImmutableList.copyOf(e.getValue())));
+	}
 
-						Function newMappingHead;
-						if (isClass) {
-							newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms);
-						} 
-						else {
-							if (!isInverse) 
-								newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms.get(0));
-							else 
-								newMappingHead = TERM_FACTORY.getFunction(currentPredicate, terms.get(1));
-						}
-						TMappingRule newmapping = new TMappingRule(newMappingHead, childmapping);				
-						currentNodeMappings.mergeMappingsWithCQC(newmapping);
-					}
-				}
-			}
+	/**
+	 * T-mappings, as Datalog rules
+	 */
+	public ImmutableList<CQIE> getSaturatedMappings() {
+		return mappingIndex.values().stream()
+				.flatMap(e -> e.getRules().stream())
+				.map(TMappingRule::asCQIE)
+				.collect(ImmutableCollectors.toList());
+	}
 
-			
-			/* Setting up mappings for the equivalent classes */
-			for (ClassExpression equiv : classSet) {
-				if (!(equiv instanceof OClass) || equiv.equals(current))
-					continue;
-				
-				Predicate p = ((OClass) equiv).getPredicate();
-				TMappingIndexEntry equivalentClassMappings = getMappings(mappingIndex, p);	
-				
-				for (TMappingRule currentNodeMapping : currentNodeMappings) {
-					Function newhead = TERM_FACTORY.getFunction(p, currentNodeMapping.getHeadTerms());
-
-					TMappingRule newrule = new TMappingRule(newhead, currentNodeMapping);				
-					equivalentClassMappings.mergeMappingsWithCQC(newrule);
-				}
-			}
-		}
-		
-		Map<Integer, Set<Predicate>> frequences = new HashMap<>();
-		
-		
-		List<CQIE> tmappingsProgram = new LinkedList<>();
-		for (Entry<Predicate, TMappingIndexEntry> entry : mappingIndex.entrySet()) {
-			if (printouts && !entry.getValue().rules.isEmpty()) {
-				Set<Predicate> freq = frequences.get(entry.getValue().rules.size());
-				if (freq == null) {
-					freq = new HashSet<>();
-					frequences.put(entry.getValue().rules.size(), freq);
-				}
-				freq.add(entry.getKey());
-			}
-			for (TMappingRule mapping : entry.getValue()) {
-				CQIE cq = mapping.asCQIE();
-				tmappingsProgram.add(cq);
-			}
-		}
-		
-		if (printouts) {
-			System.out.println("T-MAPPING SIZE: " + tmappingsProgram.size());
-			List<Integer> sorted = new ArrayList<>(frequences.keySet());
-			Collections.sort(sorted);
-			for (Integer idx : sorted) {
-				for (Predicate p : frequences.get(idx)) {
-					TMappingIndexEntry e = 	mappingIndex.get(p);
-					System.out.println(p + " " + e.rules.size());
-					for (TMappingRule r : e.rules) 
-						System.out.println("    " + r.asCQIE());
-				}
-			}
-			int total = 0;
-			for (Integer idx: sorted) {
-				System.out.println("   " + idx + ": " +  frequences.get(idx).size() + " " + frequences.get(idx));
-				total += frequences.get(idx).size();
-			}
-			System.out.println("NUMBER OF PREDICATES: " + total);
-		}
-				
-		return tmappingsProgram;
+	/**
+	 * Copies of the original mappings of the predicate.
+	 *
+	 * NB: the original rules are shared by the concurrent computations, and building terms
+	 * out of their terms would register listeners on them, so they are only read for being copied.
+	 */
+	private List<TMappingRule> getOriginalMappings(Predicate predicate) {
+		return originalMappingIndex.getOrDefault(predicate, ImmutableList.of()).stream()
+				.map(TMappingRule::copy)
+				.collect(Collectors.toList());
 	}
 
-	
-	private static TMappingIndexEntry getMappings(Map<Predicate, TMappingIndexEntry> mappingIndex, Predicate current) {
-		
-		TMappingIndexEntry currentMappings = mappingIndex.get(current);	
+	/**
+	 * Created with the original mappings of the predicate
+	 */
+	private TMappingIndexEntry getMappings(Map<Predicate, TMappingIndexEntry> mappingIndex, Predicate current) {
+
+		TMappingIndexEntry currentMappings = mappingIndex.get(current);
 		if (currentMappings == null) {
 			currentMappings = new TMappingIndexEntry();
+			for (TMappingRule rule : getOriginalMappings(current))
+				currentMappings.mergeMappingsWithCQC(rule);
 			mappingIndex.put(current, currentMappings);
 		}
 		return currentMappings;
 	}
-
-
-	
-
 }
@@ -131,6 +131,13 @@ public class TMappingRule {
 	}
 	
 	
+	/**
+	 * Deep copy (does not share any term with this rule)
+	 */
+	TMappingRule copy() {
+		return new TMappingRule((Function)head.clone(), this);
+	}
+	
 	public static List<Function> cloneList(List<Function> list) {
 		List<Function> newlist = new ArrayList<>(list.size());
 		for (Function atom : list) {
@@ -154,26 +161,27 @@ public class TMappingRule {
 	}
 	
 	public CQIE asCQIE() {
+		// the atoms are copied because the normalization of the equalities modifies them
 		List<Function> combinedBody;
 		if (!filterAtoms.isEmpty()) {
 			combinedBody = new ArrayList<>(databaseAtoms.size() + filterAtoms.size()); 
-			combinedBody.addAll(databaseAtoms);
+			combinedBody.addAll(cloneList(databaseAtoms));
 			
 			Iterator<List<Function>> iterOR = filterAtoms.iterator();
 			List<Function> list = iterOR.next(); // IMPORTANT: assume that conditions is non-empty
-			Function mergedConditions = getMergedByAND(list);
+			Function mergedConditions = getMergedByAND(cloneList(list));
 			while (iterOR.hasNext()) {
 				list = iterOR.next();
-				Function e = getMergedByAND(list);
+				Function e = getMergedByAND(cloneList(list));
 				mergedConditions = TERM_FACTORY.getFunctionOR(e, mergedConditions);
 			}
 			
 			combinedBody.add(mergedConditions);
 		}
 		else
-			combinedBody = databaseAtoms;
+			combinedBody = cloneList(databaseAtoms);
 		
-		CQIE cq = DATALOG_FACTORY.getCQIE(head, combinedBody);
+		CQIE cq = DATALOG_FACTORY.getCQIE((Function)head.clone(), combinedBody);
 		EQNormalizer.enforceEqualities(cq);
 		return cq;
 	}
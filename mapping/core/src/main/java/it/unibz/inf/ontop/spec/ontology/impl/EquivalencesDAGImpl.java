@@ -21,14 +21,14 @@ package it.unibz.inf.ontop.spec.ontology.impl;
  */
 
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import it.unibz.inf.ontop.spec.ontology.Equivalences;
 import it.unibz.inf.ontop.spec.ontology.EquivalencesDAG;
 import org.jgrapht.graph.DefaultDirectedGraph;
 import org.jgrapht.graph.DefaultEdge;
-import org.jgrapht.graph.EdgeReversedGraph;
 import org.jgrapht.graph.SimpleDirectedGraph;
-import org.jgrapht.traverse.BreadthFirstIterator;
+import org.jgrapht.traverse.TopologicalOrderIterator;
 
 import java.util.*;
 
@@ -39,6 +39,9 @@ import java.util.*;
  * The vertices of the DAG are equivalence sets (Equivalences)
  * The edges form the minimal set whose transitive and reflexive closure
  * coincides with the transitive and reflexive closure of the ontology graph
+ *
+ * The closures (getSub, getSuper) are computed once, at construction time,
+ * and are safe for concurrent reads
  *  
  *  @author Roman Kontchakov
  * 
@@ -52,8 +55,13 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	// maps all Ts (even from the non-reduced DAG) to the vertices of the possibly reduced  DAG
 	private final ImmutableMap<T, Equivalences<T>> fullVertexIndex;   
 	
-	private final Map<Equivalences<T>, Set<Equivalences<T>>> cacheSub;
-	private final Map<T, Set<T>> cacheSubRep;
+	// dense vertex ids: super-vertices have smaller ids than their sub-vertices
+	private final ImmutableList<Equivalences<T>> vertices;
+	private final ImmutableMap<Equivalences<T>, Integer> vertexIds;
+
+	// reflexive and transitive closures, indexed by vertex ids (immutable once built)
+	private final VertexClosure[] subClosures;
+	private final VertexClosure[] superClosures;
 
 	private DefaultDirectedGraph<T,DefaultEdge> graph; // used in tests only
 	
@@ -62,12 +70,50 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 		this.dag = dag;
 		this.vertexIndex = vertexIndex;
 		this.fullVertexIndex = fullVertexIndex;
-		
-		this.cacheSub = new HashMap<>();
-		this.cacheSubRep = new HashMap<>();
+
+		// the topological order starts with the vertices that have no sub-vertices
+		List<Equivalences<T>> order = new ArrayList<>(dag.vertexSet().size());
+		new TopologicalOrderIterator<>(dag).forEachRemaining(order::add);
+		Collections.reverse(order);
+		this.vertices = ImmutableList.copyOf(order);
+
+		ImmutableMap.Builder<Equivalences<T>, Integer> vertexIdBuilder = ImmutableMap.builder();
+		for (int i = 0; i < vertices.size(); i++)
+			vertexIdBuilder.put(vertices.get(i), i);
+		this.vertexIds = vertexIdBuilder.build();
+
+		this.subClosures = computeClosures(true);
+		this.superClosures = computeClosures(false);
+	}
+
+	/**
+	 * Sub-closures are computed bottom-up (from the largest ids),
+	 * super-closures top-down (from the smallest ids).
+	 */
+	private VertexClosure[] computeClosures(boolean sub) {
+		int n = vertices.size();
+		VertexClosure[] closures = new VertexClosure[n];
+		BitSet buffer = new BitSet(n);
+		for (int k = 0; k < n; k++) {
+			int id = sub ? n - 1 - k : k;
+			Equivalences<T> v = vertices.get(id);
+			buffer.set(id);
+			for (DefaultEdge edge : sub ? dag.incomingEdgesOf(v) : dag.outgoingEdgesOf(v)) {
+				Equivalences<T> next = sub ? dag.getEdgeSource(edge) : dag.getEdgeTarget(edge);
+				closures[vertexIds.get(next)].addTo(buffer);
+			}
+			closures[id] = VertexClosure.extract(buffer, n);
+		}
+		return closures;
+	}
+
+	private int getVertexId(Equivalences<T> v) {
+		Integer id = vertexIds.get(v);
+		if (id == null)
+			throw new IllegalArgumentException("the DAG does not contain " + v);
+		return id;
 	}
 
-	
 	/** 
 	 * 
 	 */
@@ -104,23 +150,8 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	 */
 	@Override
 	public Set<Equivalences<T>> getSub(Equivalences<T> v) {
-
-		Set<Equivalences<T>> result = cacheSub.get(v);
-		if (result == null) {
-			result = new LinkedHashSet<>();
-
-			BreadthFirstIterator<Equivalences<T>, DefaultEdge>  iterator = 
-						new BreadthFirstIterator<Equivalences<T>, DefaultEdge>(
-								new EdgeReversedGraph<>(dag), v);
-
-			while (iterator.hasNext()) {
-				Equivalences<T> child = iterator.next();
-				result.add(child);
-			}
-			result = Collections.unmodifiableSet(result);
-			cacheSub.put(v, result);
-		}
-		return result; 
+		// ascending ids: v comes first
+		return new VertexSet(subClosures[getVertexId(v)], false);
 	}
 
 	/** 
@@ -132,23 +163,9 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 		
 		if (eq == null)
 			return Collections.singleton(v);
-		
-		Set<T> result = cacheSubRep.get(eq.getRepresentative());
-		if (result == null) {
-			result = new LinkedHashSet<T>();
-
-			BreadthFirstIterator<Equivalences<T>, DefaultEdge>  iterator = 
-						new BreadthFirstIterator<Equivalences<T>, DefaultEdge>(
-								new EdgeReversedGraph<>(dag), eq);
 
-			while (iterator.hasNext()) {
-				Equivalences<T> child = iterator.next();
-				result.add(child.getRepresentative());
-			}
-			result = Collections.unmodifiableSet(result);
-			cacheSubRep.put(eq.getRepresentative(), result);
-		}
-		return result; 
+		// representatives are read on demand: they are chosen after the DAG is constructed
+		return new RepresentativeSet(subClosures[getVertexId(eq)]);
 	}
 	
 
@@ -172,17 +189,84 @@ public class EquivalencesDAGImpl<T> implements EquivalencesDAG<T> {
 	 */
 	@Override
 	public Set<Equivalences<T>> getSuper(Equivalences<T> v) {
+		// descending ids: v comes first
+		return new VertexSet(superClosures[getVertexId(v)], true);
+	}
 
-		Set<Equivalences<T>> result = new LinkedHashSet<>();
+	/**
+	 * Read-only view of a closure as a set of vertices
+	 */
+	private final class VertexSet extends AbstractSet<Equivalences<T>> {
+		private final VertexClosure closure;
+		private final boolean descending;
 
-		BreadthFirstIterator<Equivalences<T>, DefaultEdge>  iterator = 
-				new BreadthFirstIterator<Equivalences<T>, DefaultEdge>(dag, v);
+		VertexSet(VertexClosure closure, boolean descending) {
+			this.closure = closure;
+			this.descending = descending;
+		}
 
-		while (iterator.hasNext()) {
-			Equivalences<T> parent = iterator.next();
-			result.add(parent);
+		@Override
+		public Iterator<Equivalences<T>> iterator() {
+			PrimitiveIterator.OfInt ids = closure.iterator(descending);
+			return new Iterator<Equivalences<T>>() {
+				@Override
+				public boolean hasNext() {
+					return ids.hasNext();
+				}
+				@Override
+				public Equivalences<T> next() {
+					return vertices.get(ids.nextInt());
+				}
+			};
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			Integer id = vertexIds.get(o);
+			return id != null && closure.contains(id);
+		}
+
+		@Override
+		public int size() {
+			return closure.size();
+		}
+	}
+
+	/**
+	 * Read-only view of a closure as a set of representatives
+	 */
+	private final class RepresentativeSet extends AbstractSet<T> {
+		private final VertexClosure closure;
+
+		RepresentativeSet(VertexClosure closure) {
+			this.closure = closure;
+		}
+
+		@Override
+		public Iterator<T> iterator() {
+			PrimitiveIterator.OfInt ids = closure.iterator(false);
+			return new Iterator<T>() {
+				@Override
+				public boolean hasNext() {
+					return ids.hasNext();
+				}
+				@Override
+				public T next() {
+					return vertices.get(ids.nextInt()).getRepresentative();
+				}
+			};
+		}
+
+		@Override
+		public boolean contains(Object o) {
+			Equivalences<T> eq = vertexIndex.get(o);
+			return eq != null && o.equals(eq.getRepresentative()) && closure.contains(vertexIds.get(eq));
+		}
+
+		@Override
+		public int size() {
+			return closure.size();
 		}
-		return Collections.unmodifiableSet(result);
 	}
 
 	@Override
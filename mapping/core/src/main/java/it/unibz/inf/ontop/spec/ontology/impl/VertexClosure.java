@@ -0,0 +1,125 @@
+package it.unibz.inf.ontop.spec.ontology.impl;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Set of dense vertex ids (the reflexive and transitive closure of a vertex in a DAG)
+ *
+ * Large closures (e.g., the sub-vertices of a top vertex) are stored as bitsets
+ * and the other ones as sorted arrays, whichever takes less memory.
+ *
+ * Immutable
+ */
+final class VertexClosure {
+
+    // exactly one of them is non-null
+    private final int[] ids;
+    private final BitSet bits;
+    private final int size;
+
+    private VertexClosure(int[] ids, BitSet bits, int size) {
+        this.ids = ids;
+        this.bits = bits;
+        this.size = size;
+    }
+
+    /**
+     * Copies the ids set in the buffer and clears the buffer
+     *
+     * vertexCount: the ids are lower than it
+     */
+    static VertexClosure extract(BitSet buffer, int vertexCount) {
+        int size = buffer.cardinality();
+        // an int takes as much memory as 32 bits
+        if ((long) size * Integer.SIZE >= vertexCount) {
+            VertexClosure closure = new VertexClosure(null, (BitSet) buffer.clone(), size);
+            buffer.clear();
+            return closure;
+        }
+
+        int[] ids = buffer.stream().toArray();
+        for (int id : ids)
+            buffer.clear(id);
+        return new VertexClosure(ids, null, size);
+    }
+
+    void addTo(BitSet buffer) {
+        if (bits != null)
+            buffer.or(bits);
+        else
+            for (int id : ids)
+                buffer.set(id);
+    }
+
+    boolean contains(int id) {
+        return (bits != null)
+                ? bits.get(id)
+                : Arrays.binarySearch(ids, id) >= 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    PrimitiveIterator.OfInt iterator(boolean descending) {
+        return (bits != null)
+                ? new BitSetIterator(bits, descending)
+                : new ArrayIterator(ids, descending);
+    }
+
+
+    private static final class ArrayIterator implements PrimitiveIterator.OfInt {
+        private final int[] ids;
+        private final boolean descending;
+        private int index;
+
+        ArrayIterator(int[] ids, boolean descending) {
+            this.ids = ids;
+            this.descending = descending;
+            this.index = descending ? ids.length - 1 : 0;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return descending ? index >= 0 : index < ids.length;
+        }
+
+        @Override
+        public int nextInt() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            return descending ? ids[index--] : ids[index++];
+        }
+    }
+
+    private static final class BitSetIterator implements PrimitiveIterator.OfInt {
+        private final BitSet bits;
+        private final boolean descending;
+        private int next;
+
+        BitSetIterator(BitSet bits, boolean descending) {
+            this.bits = bits;
+            this.descending = descending;
+            this.next = descending ? bits.previousSetBit(bits.length() - 1) : bits.nextSetBit(0);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next >= 0;
+        }
+
+        @Override
+        public int nextInt() {
+            if (next < 0)
+                throw new NoSuchElementException();
+            int current = next;
+            next = descending
+                    ? (current == 0 ? -1 : bits.previousSetBit(current - 1))
+                    : bits.nextSetBit(current + 1);
+            return current;
+        }
+    }
+}
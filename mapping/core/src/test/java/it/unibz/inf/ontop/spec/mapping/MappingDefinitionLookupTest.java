@@ -0,0 +1,220 @@
+package it.unibz.inf.ontop.spec.mapping;
+
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.*;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.IntermediateQueryBuilder;
+import it.unibz.inf.ontop.iq.node.ConstructionNode;
+import it.unibz.inf.ontop.iq.node.QueryNode;
+import it.unibz.inf.ontop.iq.node.UnionNode;
+import it.unibz.inf.ontop.model.atom.AtomPredicate;
+import it.unibz.inf.ontop.model.atom.DistinctVariableOnlyDataAtom;
+import it.unibz.inf.ontop.model.term.*;
+import it.unibz.inf.ontop.model.term.functionsymbol.URITemplatePredicate;
+import it.unibz.inf.ontop.model.term.impl.URITemplatePredicateImpl;
+import it.unibz.inf.ontop.utils.UriTemplateMatcher;
+import org.junit.Test;
+
+import java.sql.Types;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static it.unibz.inf.ontop.model.OntopModelSingletons.ATOM_FACTORY;
+import static it.unibz.inf.ontop.model.OntopModelSingletons.SUBSTITUTION_FACTORY;
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
+import static it.unibz.inf.ontop.utils.MappingTestingTools.*;
+import static org.junit.Assert.*;
+
+/**
+ * Look-up of mapping definitions restricted to the branches compatible with ground arguments
+ */
+public class MappingDefinitionLookupTest {
+
+    private static final AtomPredicate TABLE2_PREDICATE;
+    private static final AtomPredicate TABLE1_PREDICATE;
+    private static final DBMetadata DB_METADATA;
+
+    private static final AtomPredicate KNOWS_PREDICATE = ATOM_FACTORY.getAtomPredicate("http://example.org/knows", 2);
+    private static final AtomPredicate PERSON_PREDICATE = ATOM_FACTORY.getAtomPredicate("http://example.org/Person", 1);
+    private static final AtomPredicate UNKNOWN_PREDICATE = ATOM_FACTORY.getAtomPredicate("http://example.org/unknown", 1);
+
+    private static final URITemplatePredicate URI_PREDICATE = new URITemplatePredicateImpl(2);
+    private static final Constant PERSON_TEMPLATE = TERM_FACTORY.getConstantLiteral("http://example.org/person/{}");
+    private static final Constant COMPANY_TEMPLATE = TERM_FACTORY.getConstantLiteral("http://example.org/company/{}");
+    private static final Constant PRODUCT_TEMPLATE = TERM_FACTORY.getConstantLiteral("http://example.org/product/{}");
+    private static final URIConstant ADMIN = TERM_FACTORY.getConstantURI("http://example.org/person/admin");
+    private static final URIConstant OTHER = TERM_FACTORY.getConstantURI("http://example.org/person/other");
+
+    private static final Variable S = TERM_FACTORY.getVariable("s");
+    private static final Variable O = TERM_FACTORY.getVariable("o");
+    private static final Variable A = TERM_FACTORY.getVariable("a");
+    private static final Variable B = TERM_FACTORY.getVariable("b");
+    private static final Variable C = TERM_FACTORY.getVariable("c");
+    private static final Variable D = TERM_FACTORY.getVariable("d");
+    private static final Variable E = TERM_FACTORY.getVariable("e");
+
+    static {
+        BasicDBMetadata dbMetadata = DBMetadataTestingTools.createDummyMetadata();
+        QuotedIDFactory idFactory = dbMetadata.getQuotedIDFactory();
+
+        DatabaseRelationDefinition table1Def = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, "t1"));
+        table1Def.addAttribute(idFactory.createAttributeID("col1"), Types.INTEGER, null, false);
+        TABLE1_PREDICATE = Relation2Predicate.createAtomPredicateFromRelation(table1Def);
+
+        DatabaseRelationDefinition table2Def = dbMetadata.createDatabaseRelation(idFactory.createRelationID(null, "t2"));
+        table2Def.addAttribute(idFactory.createAttributeID("col1"), Types.INTEGER, null, false);
+        table2Def.addAttribute(idFactory.createAttributeID("col2"), Types.INTEGER, null, false);
+        TABLE2_PREDICATE = Relation2Predicate.createAtomPredicateFromRelation(table2Def);
+
+        dbMetadata.freeze();
+        DB_METADATA = dbMetadata;
+    }
+
+    /**
+     * knows(s, o) is defined by a union of 3 branches:
+     *   0. person(a) knows person(b)
+     *   1. company(c) knows person(d)
+     *   2. person(e) knows the admin (constant)
+     *
+     * Person(s) is defined by a single branch: person(a)
+     */
+    private static Mapping createMapping() {
+        ImmutableSet<Variable> knowsVariables = ImmutableSet.of(S, O);
+        DistinctVariableOnlyDataAtom knowsAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(KNOWS_PREDICATE,
+                ImmutableList.of(S, O));
+
+        IntermediateQueryBuilder knowsBuilder = createQueryBuilder(DB_METADATA);
+        ConstructionNode knowsRoot = IQ_FACTORY.createConstructionNode(knowsVariables);
+        knowsBuilder.init(knowsAtom, knowsRoot);
+        UnionNode unionNode = IQ_FACTORY.createUnionNode(knowsVariables);
+        knowsBuilder.addChild(knowsRoot, unionNode);
+
+        ConstructionNode branch0 = IQ_FACTORY.createConstructionNode(knowsVariables,
+                SUBSTITUTION_FACTORY.getSubstitution(S, generateURI(PERSON_TEMPLATE, A), O, generateURI(PERSON_TEMPLATE, B)));
+        knowsBuilder.addChild(unionNode, branch0);
+        knowsBuilder.addChild(branch0, IQ_FACTORY.createExtensionalDataNode(
+                ATOM_FACTORY.getDataAtom(TABLE2_PREDICATE, ImmutableList.of(A, B))));
+
+        ConstructionNode branch1 = IQ_FACTORY.createConstructionNode(knowsVariables,
+                SUBSTITUTION_FACTORY.getSubstitution(S, generateURI(COMPANY_TEMPLATE, C), O, generateURI(PERSON_TEMPLATE, D)));
+        knowsBuilder.addChild(unionNode, branch1);
+        knowsBuilder.addChild(branch1, IQ_FACTORY.createExtensionalDataNode(
+                ATOM_FACTORY.getDataAtom(TABLE2_PREDICATE, ImmutableList.of(C, D))));
+
+        ConstructionNode branch2 = IQ_FACTORY.createConstructionNode(knowsVariables,
+                SUBSTITUTION_FACTORY.getSubstitution(S, generateURI(PERSON_TEMPLATE, E), O, ADMIN));
+        knowsBuilder.addChild(unionNode, branch2);
+        knowsBuilder.addChild(branch2, IQ_FACTORY.createExtensionalDataNode(
+                ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, ImmutableList.of(E))));
+
+        DistinctVariableOnlyDataAtom personAtom = ATOM_FACTORY.getDistinctVariableOnlyDataAtom(PERSON_PREDICATE,
+                ImmutableList.of(S));
+        IntermediateQueryBuilder personBuilder = createQueryBuilder(DB_METADATA);
+        ConstructionNode personRoot = IQ_FACTORY.createConstructionNode(ImmutableSet.of(S),
+                SUBSTITUTION_FACTORY.getSubstitution(S, generateURI(PERSON_TEMPLATE, A)));
+        personBuilder.init(personAtom, personRoot);
+        personBuilder.addChild(personRoot, IQ_FACTORY.createExtensionalDataNode(
+                ATOM_FACTORY.getDataAtom(TABLE1_PREDICATE, ImmutableList.of(A))));
+
+        MappingMetadata mappingMetadata = MAPPING_FACTORY.createMetadata(
+                MAPPING_FACTORY.createPrefixManager(ImmutableMap.of()), UriTemplateMatcher.create(Stream.of()));
+        return MAPPING_FACTORY.createMapping(mappingMetadata,
+                ImmutableMap.of(KNOWS_PREDICATE, knowsBuilder.build(), PERSON_PREDICATE, personBuilder.build()),
+                EXECUTOR_REGISTRY);
+    }
+
+    @Test
+    public void testVariableArguments() {
+        Mapping mapping = createMapping();
+        Optional<IntermediateQuery> definition = mapping.getDefinition(KNOWS_PREDICATE, ImmutableList.of(S, O));
+        assertTrue(definition.isPresent());
+        assertEquals(mapping.getDefinition(KNOWS_PREDICATE).get(), definition.get());
+    }
+
+    @Test
+    public void testGroundIRIArgument() {
+        Mapping mapping = createMapping();
+
+        // Branches 0 and 2
+        Optional<IntermediateQuery> personDefinition = mapping.getDefinition(KNOWS_PREDICATE,
+                ImmutableList.of(generateGroundURI(PERSON_TEMPLATE, "1"), O));
+        assertEquals(ImmutableList.of(0, 2), getBranchIndexes(mapping, personDefinition.get()));
+
+        // Branch 1 only: no union anymore
+        Optional<IntermediateQuery> companyDefinition = mapping.getDefinition(KNOWS_PREDICATE,
+                ImmutableList.of(generateGroundURI(COMPANY_TEMPLATE, "1"), O));
+        assertEquals(ImmutableList.of(1), getBranchIndexes(mapping, companyDefinition.get()));
+        IntermediateQuery query = companyDefinition.get();
+        assertFalse(query.getChildren(query.getRootNode()).get(0) instanceof UnionNode);
+    }
+
+    @Test
+    public void testIncompatibleArguments() {
+        Mapping mapping = createMapping();
+
+        assertFalse(mapping.getDefinition(KNOWS_PREDICATE,
+                ImmutableList.of(generateGroundURI(PRODUCT_TEMPLATE, "1"), O)).isPresent());
+        // Compatible subject, but no branch constructs a company as object
+        assertFalse(mapping.getDefinition(KNOWS_PREDICATE,
+                ImmutableList.of(S, generateGroundURI(COMPANY_TEMPLATE, "1"))).isPresent());
+    }
+
+    @Test
+    public void testConstantArguments() {
+        Mapping mapping = createMapping();
+
+        // Not compared to the IRI templates (conservative), but compared to the constant of branch 2
+        Optional<IntermediateQuery> adminDefinition = mapping.getDefinition(KNOWS_PREDICATE, ImmutableList.of(S, ADMIN));
+        assertEquals(mapping.getDefinition(KNOWS_PREDICATE).get(), adminDefinition.get());
+
+        Optional<IntermediateQuery> otherDefinition = mapping.getDefinition(KNOWS_PREDICATE, ImmutableList.of(S, OTHER));
+        assertEquals(ImmutableList.of(0, 1), getBranchIndexes(mapping, otherDefinition.get()));
+    }
+
+    @Test
+    public void testSingleBranchDefinition() {
+        Mapping mapping = createMapping();
+        IntermediateQuery personDefinition = mapping.getDefinition(PERSON_PREDICATE).get();
+
+        assertEquals(personDefinition, mapping.getDefinition(PERSON_PREDICATE,
+                ImmutableList.of(generateGroundURI(PERSON_TEMPLATE, "1"))).get());
+        assertFalse(mapping.getDefinition(PERSON_PREDICATE,
+                ImmutableList.of(generateGroundURI(COMPANY_TEMPLATE, "1"))).isPresent());
+    }
+
+    @Test
+    public void testUnknownPredicate() {
+        assertFalse(createMapping().getDefinition(UNKNOWN_PREDICATE, ImmutableList.of(S)).isPresent());
+    }
+
+    /**
+     * Indexes (in the full definition) of the branches kept in the restricted one
+     */
+    private static ImmutableList<Integer> getBranchIndexes(Mapping mapping, IntermediateQuery restrictedDefinition) {
+        IntermediateQuery fullDefinition = mapping.getDefinition(KNOWS_PREDICATE).get();
+        ImmutableList<QueryNode> allBranches = fullDefinition.getChildren(
+                fullDefinition.getChildren(fullDefinition.getRootNode()).get(0));
+
+        QueryNode child = restrictedDefinition.getChildren(restrictedDefinition.getRootNode()).get(0);
+        ImmutableList<QueryNode> branches = (child instanceof UnionNode)
+                ? restrictedDefinition.getChildren(child)
+                : ImmutableList.of(child);
+
+        ImmutableList.Builder<Integer> indexBuilder = ImmutableList.builder();
+        for (QueryNode branch : branches)
+            indexBuilder.add(allBranches.indexOf(branch));
+        return indexBuilder.build();
+    }
+
+    private static ImmutableFunctionalTerm generateURI(Constant template, Variable argument) {
+        return TERM_FACTORY.getImmutableFunctionalTerm(URI_PREDICATE, template, argument);
+    }
+
+    private static GroundFunctionalTerm generateGroundURI(Constant template, String value) {
+        return (GroundFunctionalTerm) TERM_FACTORY.getImmutableFunctionalTerm(URI_PREDICATE, template,
+                TERM_FACTORY.getConstantLiteral(value));
+    }
+}
@@ -0,0 +1,175 @@
+package it.unibz.inf.ontop.spec.mapping.transformer.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.datalog.CQIE;
+import it.unibz.inf.ontop.datalog.impl.CQContainmentCheckUnderLIDs;
+import it.unibz.inf.ontop.model.term.Function;
+import it.unibz.inf.ontop.model.term.Term;
+import it.unibz.inf.ontop.model.term.Variable;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.spec.mapping.TMappingExclusionConfig;
+import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyFactoryImpl;
+import it.unibz.inf.ontop.spec.ontology.impl.TBoxReasonerImpl;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static it.unibz.inf.ontop.model.OntopModelSingletons.DATALOG_FACTORY;
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TMappingProcessorTest {
+
+    private static final OntologyFactory ONTOLOGY_FACTORY = OntologyFactoryImpl.getInstance();
+    private static final String NS = "http://example.org/voc#";
+    private static final int CLASS_COUNT = 31;
+    private static final int OBJECT_PROPERTY_COUNT = 8;
+    private static final int DATA_PROPERTY_COUNT = 4;
+
+    private static final Variable X = TERM_FACTORY.getVariable("x");
+    private static final Variable Y = TERM_FACTORY.getVariable("y");
+
+    /**
+     * The T-mappings computed in parallel are the same as the ones computed by a single thread
+     * (the parallel stream runs in the pool of the calling task)
+     */
+    @Test
+    public void testParallelSaturation() throws Exception {
+        Ontology ontology = createOntology();
+        TBoxReasoner reasoner = TBoxReasonerImpl.create(ontology);
+
+        ImmutableMultiset<String> sequentialMappings = saturate(reasoner, ontology.getVocabulary(), 1);
+        // More than the original mappings
+        assertTrue(sequentialMappings.size() > CLASS_COUNT + OBJECT_PROPERTY_COUNT + DATA_PROPERTY_COUNT);
+
+        for (int i = 0; i < 3; i++)
+            assertEquals(sequentialMappings, saturate(reasoner, ontology.getVocabulary(), 4));
+    }
+
+    /**
+     * The mapping assertions of a class (C5) are replaced and the ones of a property (P3, whose domain is C27)
+     * are removed: same T-mappings as a full saturation of the updated mapping assertions
+     */
+    @Test
+    public void testUpdate() throws Exception {
+        Ontology ontology = createOntology();
+        TBoxReasoner reasoner = TBoxReasonerImpl.create(ontology);
+        ImmutableOntologyVocabulary vocabulary = ontology.getVocabulary();
+
+        Predicate c5 = vocabulary.getClass(NS + "C5").getPredicate();
+        Predicate p3 = vocabulary.getObjectProperty(NS + "P3").getPredicate();
+        CQIE newC5Mapping = DATALOG_FACTORY.getCQIE(
+                TERM_FACTORY.getFunction(c5, getIRI(X)),
+                TERM_FACTORY.getFunction(TERM_FACTORY.getPredicate("TC5b", 1), X));
+
+        TMappingProcessor processor = TMappingProcessor.saturate(createMappings(vocabulary), reasoner, true,
+                new CQContainmentCheckUnderLIDs(), TMappingExclusionConfig.empty());
+        ImmutableMultiset<String> before = toMultiset(processor.getSaturatedMappings());
+
+        TMappingProcessor updatedProcessor = processor.update(ImmutableSet.of(c5, p3),
+                ImmutableList.of(newC5Mapping));
+
+        List<CQIE> updatedMappings = new ArrayList<>();
+        for (CQIE mapping : createMappings(vocabulary)) {
+            Predicate predicate = mapping.getHead().getFunctionSymbol();
+            if (predicate.equals(c5))
+                updatedMappings.add(newC5Mapping.clone());
+            else if (!predicate.equals(p3))
+                updatedMappings.add(mapping);
+        }
+        ImmutableMultiset<String> expected = toMultiset(TMappingProcessor.getTMappings(updatedMappings, reasoner,
+                true, new CQContainmentCheckUnderLIDs(), TMappingExclusionConfig.empty()));
+
+        assertEquals(expected, toMultiset(updatedProcessor.getSaturatedMappings()));
+        assertNotEquals(before, expected);
+        // The previous T-mappings are not affected
+        assertEquals(before, toMultiset(processor.getSaturatedMappings()));
+    }
+
+    private static ImmutableMultiset<String> toMultiset(List<CQIE> mappings) {
+        return mappings.stream()
+                .map(Object::toString)
+                .collect(ImmutableCollectors.toMultiset());
+    }
+
+    private static ImmutableMultiset<String> saturate(TBoxReasoner reasoner, ImmutableOntologyVocabulary vocabulary,
+                                                      int parallelism) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            // Fresh mappings (the rules may be modified when removing redundant atoms)
+            List<CQIE> mappings = createMappings(vocabulary);
+            List<CQIE> saturatedMappings = pool.submit(() -> TMappingProcessor.getTMappings(mappings, reasoner, true,
+                    new CQContainmentCheckUnderLIDs(), TMappingExclusionConfig.empty()))
+                    .get();
+            return toMultiset(saturatedMappings);
+        }
+        finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Classes organized as a binary tree, sub-properties of the first property (whose domains are classes)
+     */
+    private static Ontology createOntology() throws InconsistentOntologyException {
+        OntologyVocabulary vocabulary = ONTOLOGY_FACTORY.createVocabulary();
+        for (int i = 0; i < CLASS_COUNT; i++)
+            vocabulary.createClass(NS + "C" + i);
+        for (int i = 0; i < OBJECT_PROPERTY_COUNT; i++)
+            vocabulary.createObjectProperty(NS + "P" + i);
+        for (int i = 0; i < DATA_PROPERTY_COUNT; i++)
+            vocabulary.createDataProperty(NS + "D" + i);
+
+        Ontology ontology = ONTOLOGY_FACTORY.createOntology(vocabulary);
+        ImmutableOntologyVocabulary voc = ontology.getVocabulary();
+
+        for (int i = 1; i < CLASS_COUNT; i++)
+            ontology.addSubClassOfAxiom(voc.getClass(NS + "C" + i), voc.getClass(NS + "C" + ((i - 1) / 2)));
+
+        for (int i = 0; i < OBJECT_PROPERTY_COUNT; i++) {
+            ObjectPropertyExpression property = voc.getObjectProperty(NS + "P" + i);
+            if (i > 0)
+                ontology.addSubPropertyOfAxiom(property, voc.getObjectProperty(NS + "P0"));
+            ontology.addSubClassOfAxiom(property.getDomain(), voc.getClass(NS + "C" + (CLASS_COUNT - 1 - i)));
+        }
+
+        for (int i = 1; i < DATA_PROPERTY_COUNT; i++)
+            ontology.addSubPropertyOfAxiom(voc.getDataProperty(NS + "D" + i), voc.getDataProperty(NS + "D0"));
+
+        return ontology;
+    }
+
+    /**
+     * One mapping assertion per class and property, each over its own table
+     */
+    private static List<CQIE> createMappings(ImmutableOntologyVocabulary vocabulary) {
+        List<CQIE> mappings = new ArrayList<>();
+        for (int i = 0; i < CLASS_COUNT; i++)
+            mappings.add(DATALOG_FACTORY.getCQIE(
+                    TERM_FACTORY.getFunction(vocabulary.getClass(NS + "C" + i).getPredicate(), getIRI(X)),
+                    TERM_FACTORY.getFunction(TERM_FACTORY.getPredicate("TC" + i, 1), X)));
+        for (int i = 0; i < OBJECT_PROPERTY_COUNT; i++)
+            mappings.add(DATALOG_FACTORY.getCQIE(
+                    TERM_FACTORY.getFunction(vocabulary.getObjectProperty(NS + "P" + i).getPredicate(), getIRI(X), getIRI(Y)),
+                    TERM_FACTORY.getFunction(TERM_FACTORY.getPredicate("TP" + i, 2), X, Y)));
+        for (int i = 0; i < DATA_PROPERTY_COUNT; i++)
+            mappings.add(DATALOG_FACTORY.getCQIE(
+                    TERM_FACTORY.getFunction(vocabulary.getDataProperty(NS + "D" + i).getPredicate(), getIRI(X),
+                            TERM_FACTORY.getTypedTerm(Y, COL_TYPE.STRING)),
+                    TERM_FACTORY.getFunction(TERM_FACTORY.getPredicate("TD" + i, 2), X, Y)));
+        return mappings;
+    }
+
+    private static Function getIRI(Term term) {
+        return TERM_FACTORY.getUriTemplate(TERM_FACTORY.getConstantLiteral("http://example.org/{}"), term);
+    }
+}
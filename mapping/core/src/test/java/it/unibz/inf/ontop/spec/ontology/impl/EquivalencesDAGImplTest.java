@@ -0,0 +1,69 @@
+package it.unibz.inf.ontop.spec.ontology.impl;
+
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.spec.ontology.Equivalences;
+import org.jgrapht.graph.DefaultDirectedGraph;
+import org.jgrapht.graph.DefaultEdge;
+import org.junit.Test;
+
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class EquivalencesDAGImplTest {
+
+    /**
+     * a <= b, b <= a, b <= c, d <= c, c <= e
+     */
+    private static EquivalencesDAGImpl<String> getDAG() {
+        DefaultDirectedGraph<String, DefaultEdge> graph = new DefaultDirectedGraph<>(DefaultEdge.class);
+        for (String v : new String[] { "a", "b", "c", "d", "e" })
+            graph.addVertex(v);
+        graph.addEdge("a", "b");
+        graph.addEdge("b", "a");
+        graph.addEdge("b", "c");
+        graph.addEdge("d", "c");
+        graph.addEdge("c", "e");
+
+        EquivalencesDAGImpl<String> dag = EquivalencesDAGImpl.getEquivalencesDAG(graph);
+        for (Equivalences<String> v : dag)
+            v.setRepresentative(v.getMembers().contains("a") ? "a" : v.iterator().next());
+        return dag;
+    }
+
+    @Test
+    public void testSub() {
+        EquivalencesDAGImpl<String> dag = getDAG();
+        Set<Equivalences<String>> sub = dag.getSub(dag.getVertex("e"));
+
+        assertEquals(4, sub.size());
+        assertEquals(dag.getVertex("e"), sub.iterator().next());
+        assertTrue(sub.contains(new Equivalences<>(ImmutableSet.of("a", "b"))));
+        assertEquals(ImmutableSet.of(dag.getVertex("a"), dag.getVertex("c"), dag.getVertex("d"), dag.getVertex("e")), sub);
+
+        assertEquals(ImmutableSet.of(dag.getVertex("d")), dag.getSub(dag.getVertex("d")));
+    }
+
+    @Test
+    public void testSuper() {
+        EquivalencesDAGImpl<String> dag = getDAG();
+        Set<Equivalences<String>> sup = dag.getSuper(dag.getVertex("b"));
+
+        assertEquals(dag.getVertex("a"), sup.iterator().next());
+        assertEquals(ImmutableSet.of(dag.getVertex("a"), dag.getVertex("c"), dag.getVertex("e")), sup);
+        assertFalse(sup.contains(dag.getVertex("d")));
+    }
+
+    @Test
+    public void testSubRepresentatives() {
+        EquivalencesDAGImpl<String> dag = getDAG();
+        Set<String> reps = dag.getSubRepresentatives("c");
+
+        assertEquals(ImmutableSet.of("a", "c", "d"), reps);
+        // b is not a representative
+        assertFalse(reps.contains("b"));
+        assertEquals(ImmutableSet.of("x"), dag.getSubRepresentatives("x"));
+    }
+}
@@ -0,0 +1,116 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import it.unibz.inf.ontop.dbschema.RDBMetadata;
+import it.unibz.inf.ontop.dbschema.RDBMetadataExtractionTools;
+import it.unibz.inf.ontop.injection.OntopMappingSQLAllConfiguration;
+import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
+import it.unibz.inf.ontop.spec.mapping.pp.SQLPPTriplesMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The expanded mappings are in the order of the original ones, with the ids of the original ones
+ * (suffixed for the meta-mappings)
+ */
+public class MetaMappingExpansionOrderTest {
+
+    private static final String OBDA_FILE = "src/test/resources/metamapping-order.obda";
+    private static final String URL = "jdbc:h2:mem:metamappingorder";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+    private static final String NS = "http://example.org/voc#";
+
+    private Connection conn;
+
+    @Before
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"item\" (\"id\" INT PRIMARY KEY, \"cls\" VARCHAR(20), " +
+                    "\"prop\" VARCHAR(20), \"name\" VARCHAR(20))");
+            st.executeUpdate("INSERT INTO \"item\" VALUES (1, 'A', 'p', 'n1'), (2, 'B', 'q', 'n2'), " +
+                    "(3, 'A', 'q', 'n3')");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @Test
+    public void testSequential() throws Exception {
+        testExpansion(1);
+    }
+
+    @Test
+    public void testParallel() throws Exception {
+        testExpansion(3);
+    }
+
+    private void testExpansion(int parallelism) throws Exception {
+        Properties properties = new Properties();
+        properties.setProperty(OntopMappingSQLSettings.META_MAPPING_EXPANSION_PARALLELISM,
+                String.valueOf(parallelism));
+        OntopMappingSQLAllConfiguration configuration = OntopMappingSQLAllConfiguration.defaultBuilder()
+                .nativeOntopMappingFile(OBDA_FILE)
+                .jdbcUrl(URL)
+                .jdbcUser(USER)
+                .jdbcPassword(PASSWORD)
+                .properties(properties)
+                .build();
+
+        RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(conn);
+        RDBMetadataExtractionTools.loadMetadata(metadata, conn, null);
+
+        ImmutableList<SQLPPTriplesMap> expandedMappings = MetaMappingExpander.expand(
+                configuration.loadProvidedPPMapping().getTripleMaps(), configuration.getSettings(), metadata);
+
+        assertEquals(5, expandedMappings.size());
+
+        List<SQLPPTriplesMap> classMappings = expandedMappings.subList(0, 2);
+        assertEquals(ImmutableSet.of(NS + "A", NS + "B"), getPredicates(classMappings));
+        for (SQLPPTriplesMap mapping : classMappings)
+            assertTrue(mapping.getId(), mapping.getId().startsWith("classes#"));
+
+        assertEquals("plain", expandedMappings.get(2).getId());
+        assertEquals(ImmutableSet.of(NS + "name"), getPredicates(expandedMappings.subList(2, 3)));
+
+        List<SQLPPTriplesMap> propertyMappings = expandedMappings.subList(3, 5);
+        assertEquals(ImmutableSet.of(NS + "p", NS + "q"), getPredicates(propertyMappings));
+        for (SQLPPTriplesMap mapping : propertyMappings)
+            assertTrue(mapping.getId(), mapping.getId().startsWith("properties#"));
+
+        // The ids remain unique
+        Set<String> ids = expandedMappings.stream()
+                .map(SQLPPTriplesMap::getId)
+                .collect(Collectors.toSet());
+        assertEquals(5, ids.size());
+    }
+
+    private static Set<String> getPredicates(List<SQLPPTriplesMap> mappings) {
+        Set<String> predicates = new HashSet<>();
+        for (SQLPPTriplesMap mapping : mappings)
+            mapping.getTargetAtoms().forEach(a -> predicates.add(a.getFunctionSymbol().getName()));
+        return predicates;
+    }
+}
@@ -1,6 +1,45 @@
 package it.unibz.inf.ontop.injection;
 
+import java.util.Optional;
+
 
 public interface OntopMappingSQLSettings extends OntopMappingSettings, OntopSQLCredentialSettings {
 
+    /**
+     * Maximum number of connections used for extracting the DB metadata.
+     *
+     * Only one connection is used for in-memory DBs.
+     */
+    int getMetadataExtractionParallelism();
+
+    /**
+     * Directory where the extracted DB metadata is saved, and reloaded from at the next start
+     * (if the mapping, the DB connection settings and the columns of the mapped relations are unchanged).
+     * Changes of the constraints alone are not detected.
+     *
+     * If absent, the DB metadata is always extracted from the DB.
+     */
+    Optional<String> getMetadataSnapshotDirectory();
+
+    /**
+     * Maximum number of connections used for retrieving the values of the meta-mapping templates
+     */
+    int getMetaMappingExpansionParallelism();
+
+    /**
+     * Directory where the values of the meta-mapping templates are saved, and reloaded from at the next start
+     * (if the source query and the DB connection settings are unchanged).
+     *
+     * If absent, the values are always retrieved from the DB.
+     */
+    Optional<String> getMetaMappingCacheDirectory();
+
+    //--------------------------
+    // Keys
+    //--------------------------
+
+    String METADATA_EXTRACTION_PARALLELISM = "ontop.metadataExtraction.parallelism";
+    String METADATA_SNAPSHOT_DIRECTORY = "ontop.metadataSnapshot.directory";
+    String META_MAPPING_EXPANSION_PARALLELISM = "ontop.metaMappingExpansion.parallelism";
+    String META_MAPPING_CACHE_DIRECTORY = "ontop.metaMappingCache.directory";
 }
@@ -51,4 +51,24 @@ public class OntopMappingSQLSettingsImpl extends OntopMappingSettingsImpl implem
     public Optional<String> getJdbcDriver() {
         return sqlSettings.getJdbcDriver();
     }
+
+    @Override
+    public int getMetadataExtractionParallelism() {
+        return getRequiredInteger(METADATA_EXTRACTION_PARALLELISM);
+    }
+
+    @Override
+    public Optional<String> getMetadataSnapshotDirectory() {
+        return getProperty(METADATA_SNAPSHOT_DIRECTORY);
+    }
+
+    @Override
+    public int getMetaMappingExpansionParallelism() {
+        return getRequiredInteger(META_MAPPING_EXPANSION_PARALLELISM);
+    }
+
+    @Override
+    public Optional<String> getMetaMappingCacheDirectory() {
+        return getProperty(META_MAPPING_CACHE_DIRECTORY);
+    }
 }
@@ -1,8 +1,11 @@
 package it.unibz.inf.ontop.spec.dbschema.impl;
 
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 
 import it.unibz.inf.ontop.dbschema.RDBMetadata;
 import it.unibz.inf.ontop.dbschema.RDBMetadataExtractionTools;
+import it.unibz.inf.ontop.dbschema.RDBMetadataSnapshotTools;
 import it.unibz.inf.ontop.dbschema.RelationID;
 import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
 import it.unibz.inf.ontop.dbschema.DBMetadata;
@@ -11,11 +14,17 @@ import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
 import it.unibz.inf.ontop.spec.dbschema.RDBMetadataExtractor;
 import it.unibz.inf.ontop.spec.dbschema.PreProcessedImplicitRelationalDBConstraintExtractor;
 import it.unibz.inf.ontop.spec.dbschema.PreProcessedImplicitRelationalDBConstraintSet;
+import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
 import net.sf.jsqlparser.JSQLParserException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Optional;
@@ -28,11 +37,15 @@ import static it.unibz.inf.ontop.spec.dbschema.impl.SQLTableNameExtractor.getRea
  */
 public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
 
+    private static final Logger log = LoggerFactory.getLogger(DefaultRDBMetadataExtractor.class);
+
     /**
      * If we have to parse the full metadata or just the table list in the mappings.
      */
     private final Boolean obtainFullMetadata;
 
+    private final OntopMappingSQLSettings settings;
+
     /**
      * This represents user-supplied constraints, i.e. primary
      * and foreign keys not present in the database metadata
@@ -45,6 +58,7 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
     private DefaultRDBMetadataExtractor(OntopMappingSQLSettings settings,
                                         PreProcessedImplicitRelationalDBConstraintExtractor implicitDBConstraintExtractor) {
         this.obtainFullMetadata = settings.isFullMetadataExtractionEnabled();
+        this.settings = settings;
         this.implicitDBConstraintExtractor = implicitDBConstraintExtractor;
     }
 
@@ -77,7 +91,7 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
 
             // if we have to parse the full metadata or just the table list in the mappings
             if (obtainFullMetadata) {
-                RDBMetadataExtractionTools.loadMetadata(metadata, connection, null);
+                loadMetadata(metadata, connection, null);
             }
             else {
                 try {
@@ -93,7 +107,7 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
                         realTables.addAll(referredTables);
                     });
 
-                    RDBMetadataExtractionTools.loadMetadata(metadata, connection, realTables);
+                    loadMetadata(metadata, connection, realTables);
                 }
                 catch (JSQLParserException e) {
                     System.out.println("Error obtaining the tables" + e);
@@ -113,4 +127,74 @@ public class DefaultRDBMetadataExtractor implements RDBMetadataExtractor {
         } catch (SQLException e) {
             throw new DBMetadataExtractionException(e.getMessage());
         }    }
+
+    /**
+     * Reuses the snapshot of a previous extraction when available (and saves one otherwise)
+     */
+    private void loadMetadata(RDBMetadata metadata, Connection connection, @Nullable Set<RelationID> realTables)
+            throws SQLException {
+
+        // Additional connections to an in-memory DB may not see the same data
+        RDBMetadataExtractionTools.ConnectionSupplier connectionSupplier =
+                LocalJDBCConnectionUtils.isInMemoryDatabase(settings.getJdbcUrl())
+                        ? null
+                        : () -> LocalJDBCConnectionUtils.createConnection(settings);
+
+        // Only when nothing has been provided by the user
+        Optional<String> snapshotDirectory = metadata.getDatabaseRelations().isEmpty()
+                ? settings.getMetadataSnapshotDirectory()
+                : Optional.empty();
+        Optional<Path> snapshotFile = snapshotDirectory.isPresent()
+                ? Optional.of(Paths.get(snapshotDirectory.get(), "dbmetadata-"
+                        + computeSnapshotKey(metadata, connection, realTables, connectionSupplier) + ".bin"))
+                : Optional.empty();
+
+        if (snapshotFile.isPresent()) {
+            try {
+                if (RDBMetadataSnapshotTools.load(metadata, snapshotFile.get())) {
+                    log.info("DB metadata loaded from the snapshot {}", snapshotFile.get());
+                    return;
+                }
+            } catch (IOException e) {
+                log.warn("Cannot read the DB metadata snapshot " + snapshotFile.get() + ": " + e);
+            }
+        }
+
+        RDBMetadataExtractionTools.loadMetadata(metadata, connection, realTables, connectionSupplier,
+                settings.getMetadataExtractionParallelism());
+
+        if (snapshotFile.isPresent()) {
+            try {
+                RDBMetadataSnapshotTools.save(metadata, snapshotFile.get());
+            } catch (IOException e) {
+                log.warn("Cannot save the DB metadata snapshot " + snapshotFile.get() + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Hash of everything the extracted metadata depends on, including the fingerprint of the columns
+     * of the extracted relations (the mapped ones, unless the full metadata is extracted)
+     */
+    private String computeSnapshotKey(RDBMetadata metadata, Connection connection,
+                                      @Nullable Set<RelationID> realTables,
+                                      @Nullable RDBMetadataExtractionTools.ConnectionSupplier connectionSupplier)
+            throws SQLException {
+        Hasher hasher = Hashing.sha256().newHasher();
+        RDBMetadataSnapshotTools.putString(hasher, settings.getJdbcUrl());
+        RDBMetadataSnapshotTools.putString(hasher, settings.getJdbcUser());
+        RDBMetadataSnapshotTools.putString(hasher, metadata.getDbmsProductName());
+        RDBMetadataSnapshotTools.putString(hasher, metadata.getDbmsVersion());
+        hasher.putBoolean(realTables == null);
+        if (realTables != null) {
+            hasher.putInt(realTables.size());
+            realTables.stream()
+                    .map(RelationID::getSQLRendering)
+                    .sorted()
+                    .forEach(t -> RDBMetadataSnapshotTools.putString(hasher, t));
+        }
+        hasher.putBytes(RDBMetadataExtractionTools.computeColumnFingerprint(metadata, connection, realTables,
+                connectionSupplier, settings.getMetadataExtractionParallelism()).asBytes());
+        return hasher.hash().toString();
+    }
 }
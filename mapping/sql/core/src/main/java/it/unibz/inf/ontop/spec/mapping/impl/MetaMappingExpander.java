@@ -23,6 +23,8 @@ package it.unibz.inf.ontop.spec.mapping.impl;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import it.unibz.inf.ontop.dbschema.*;
 import it.unibz.inf.ontop.exception.MetaMappingExpansionException;
 import it.unibz.inf.ontop.injection.OntopMappingSQLSettings;
@@ -53,8 +55,11 @@ import net.sf.jsqlparser.statement.select.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
+import java.nio.file.Paths;
 import java.sql.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
 
@@ -74,18 +79,24 @@ public class MetaMappingExpander {
 	/**
 	 * this method expand the input mappings, which may include meta mappings, to the concrete mappings
 	 *
+	 * The source query of each meta-mapping is parsed once and then used as a template.
+	 * The SELECT DISTINCT queries retrieving the values of the templates are evaluated in parallel,
+	 * over up to ontop.metaMappingExpansion.parallelism connections (closed afterwards).
+	 * Their results are saved in the cache directory, when configured.
+	 *
 	 * @param mappings
 	 * 		a list of mappings, which may include meta mappings
 	 * @return
-	 * 		expanded normal mappings
+	 * 		expanded normal mappings (in the same order)
 	 */
 	public static ImmutableList<SQLPPTriplesMap> expand(Collection<SQLPPTriplesMap> mappings,
 														OntopMappingSQLSettings settings, DBMetadata metadata)
 			throws MetaMappingExpansionException {
 
-		List<String> errorMessages = new LinkedList<>();
+		List<String> errorMessages = new ArrayList<>();
 
-		List<SQLPPTriplesMap> expandedMappings = new LinkedList<>();
+		List<PendingExpansion> pendingExpansions = new ArrayList<>();
+		Set<String> distinctValuesQueries = new LinkedHashSet<>();
 
 		for (SQLPPTriplesMap mapping : mappings) {
 
@@ -96,102 +107,281 @@ public class MetaMappingExpander {
 				String id = mapping.getId();
 				OBDASQLQuery sourceQuery = mapping.getSourceQuery();
 
-				try (Connection connection = LocalJDBCConnectionUtils.createConnection(settings)) {
-
-					for (ImmutableFunctionalTerm atom : mapping.getTargetAtoms()) {
-						if (!atom.getFunctionSymbol().isTriplePredicate()) {
-							// for normal mappings, we do not need to expand it.
-							SQLPPTriplesMap newMapping = mapping.extractPPMappingAssertion(atom);
-
-							expandedMappings.add(newMapping);
-						} else {
-							try {
-								expandedMappings.addAll(instantiateMapping(connection, metadata, id, atom, sourceQuery.toString()));
-							} catch (Exception e) {
-								log.warn("Parse exception, check no SQL reserved keywords have been used " + e.getMessage());
-								errorMessages.add(e.getMessage());
-							}
+				for (ImmutableFunctionalTerm atom : mapping.getTargetAtoms()) {
+					if (!atom.getFunctionSymbol().isTriplePredicate()) {
+						// for normal mappings, we do not need to expand it.
+						SQLPPTriplesMap newMapping = mapping.extractPPMappingAssertion(atom);
+
+						pendingExpansions.add(values -> ImmutableList.of(newMapping));
+					} else {
+						try {
+							MetaMappingTemplate template = new MetaMappingTemplate(metadata, id, atom,
+									sourceQuery.toString());
+							distinctValuesQueries.add(template.distinctValuesQuery);
+							pendingExpansions.add(values -> Optional.ofNullable(values.get(template.distinctValuesQuery))
+									.map(template::instantiate)
+									// the error has already been reported
+									.orElseGet(ImmutableList::of));
+						} catch (Exception e) {
+							log.warn("Parse exception, check no SQL reserved keywords have been used " + e.getMessage());
+							errorMessages.add(e.getMessage());
 						}
 					}
-				} catch (SQLException e) {
-					throw new MetaMappingExpansionException(e);
 				}
 			}
 			else
-				expandedMappings.add(mapping);
+				pendingExpansions.add(values -> ImmutableList.of(mapping));
 		}
 
+		ImmutableMap<String, ImmutableList<List<String>>> templateValues = distinctValuesQueries.isEmpty()
+				? ImmutableMap.of()
+				: getTemplateValues(distinctValuesQueries,
+						settings.getMetaMappingCacheDirectory()
+								.map(d -> new MetaMappingValueCache(Paths.get(d), settings.getJdbcUrl(),
+										settings.getJdbcUser())),
+						settings.getMetaMappingExpansionParallelism(),
+						() -> LocalJDBCConnectionUtils.createConnection(settings),
+						errorMessages);
+
 		if (!errorMessages.isEmpty())
 			throw new MetaMappingExpansionException(Joiner.on("\n").join(errorMessages));
 
-		return ImmutableList.copyOf(expandedMappings);
+		ImmutableList.Builder<SQLPPTriplesMap> expandedMappings = ImmutableList.builder();
+		for (PendingExpansion pendingExpansion : pendingExpansions)
+			expandedMappings.addAll(pendingExpansion.complete(templateValues));
+		return expandedMappings.build();
 	}
 
-	private static List<SQLPPTriplesMap> instantiateMapping(Connection connection, DBMetadata metadata, String id,
-															ImmutableFunctionalTerm target, String sql)
-			throws SQLException, JSQLParserException, InvalidSelectQueryException, UnsupportedSelectQueryException {
+	/**
+	 * Expansion of a mapping (or of a target atom), once the values of the templates are known
+	 */
+	@FunctionalInterface
+	private interface PendingExpansion {
+		ImmutableList<SQLPPTriplesMap> complete(ImmutableMap<String, ImmutableList<List<String>>> templateValues);
+	}
 
-		ImmutableList<SelectExpressionItem> queryColumns = getQueryColumns(metadata, sql);
+	/**
+	 * A meta-mapping target atom, with its source query parsed once
+	 *
+	 * Not thread-safe: the parsed query is modified for each value of the template.
+	 */
+	private static class MetaMappingTemplate {
+		private final String id;
+		private final ImmutableFunctionalTerm target;
+		private final int arity;
+		private final Function templateAtom;
+		private final ImmutableList<SelectExpressionItem> templateColumns;
+		// projects the non-template columns
+		private final Select select;
+		@Nullable
+		private final Expression originalWhere;
+		// the query for params is almost the same with the original source query, except that
+		// we only need to distinct project the columns needed for the template expansion
+		private final String distinctValuesQuery;
 
-		int arity = isURIRDFType(target.getTerm(1)) ? 1 : 2;
-		Function templateAtom = (Function)((arity == 1)
-				? target.getTerm(2)   // template is in the position of object
-				: target.getTerm(1)); // template is in the position of predicate
+		MetaMappingTemplate(DBMetadata metadata, String id, ImmutableFunctionalTerm target, String sql)
+				throws JSQLParserException, InvalidSelectQueryException, UnsupportedSelectQueryException {
+			this.id = id;
+			this.target = target;
 
-		ImmutableList<SelectExpressionItem> templateColumns =
-				getTemplateColumns(metadata.getQuotedIDFactory(), templateAtom, queryColumns);
+			ImmutableList<SelectExpressionItem> queryColumns = getQueryColumns(metadata, sql);
 
-		ImmutableList<SelectItem> newColumns = queryColumns.stream()
-				.filter(c -> !templateColumns.contains(c))
-				.collect(ImmutableCollectors.toList());
-		if (newColumns.isEmpty())   // avoid empty SELECT clause
-			newColumns = ImmutableList.of(new AllColumns());
+			arity = isURIRDFType(target.getTerm(1)) ? 1 : 2;
+			templateAtom = (Function)((arity == 1)
+					? target.getTerm(2)   // template is in the position of object
+					: target.getTerm(1)); // template is in the position of predicate
 
-		List<List<String>> templateValues = getTemplateValues(connection, sql, templateColumns);
+			templateColumns = getTemplateColumns(metadata.getQuotedIDFactory(), templateAtom, queryColumns);
 
-		List<SQLPPTriplesMap> expandedMappings = new ArrayList<>(templateValues.size());
+			ImmutableList<SelectItem> newColumns = queryColumns.stream()
+					.filter(c -> !templateColumns.contains(c))
+					.collect(ImmutableCollectors.toList());
+			if (newColumns.isEmpty())   // avoid empty SELECT clause
+				newColumns = ImmutableList.of(new AllColumns());
 
-		for(List<String> values : templateValues) {
-			// create a new  query with the changed projection and selection
-			Expression whereClauseExtension = getWhereClauseExtension(templateColumns, values);
+			select = (Select) CCJSqlParserUtil.parse(sql);
+			PlainSelect plainSelect = (PlainSelect) select.getSelectBody();
+			originalWhere = plainSelect.getWhere();
 
-			Select select = (Select) CCJSqlParserUtil.parse(sql);
-			PlainSelect plainSelect = (PlainSelect)select.getSelectBody();
+			plainSelect.setDistinct(new Distinct());
+			plainSelect.setSelectItems(ImmutableList.copyOf(templateColumns)); // SelectExpressionItem -> SelectItem
+			distinctValuesQuery = select.toString();
 
+			plainSelect.setDistinct(null);
 			plainSelect.setSelectItems(newColumns);
+		}
+
+		ImmutableList<SQLPPTriplesMap> instantiate(ImmutableList<List<String>> templateValues) {
+			PlainSelect plainSelect = (PlainSelect) select.getSelectBody();
+			ImmutableList.Builder<SQLPPTriplesMap> expandedMappings = ImmutableList.builder();
+
+			for (List<String> values : templateValues) {
+				// create a new  query with the changed projection and selection
+				Expression whereClauseExtension = getWhereClauseExtension(templateColumns, values);
+
+				// whereClauseExtension is never null
+				plainSelect.setWhere((originalWhere == null)
+						? whereClauseExtension
+						: new AndExpression(originalWhere, whereClauseExtension));
+
+				OBDASQLQuery newSourceQuery =  MAPPING_FACTORY.getSQLQuery(select.toString());
 
-			// whereClauseExtension is never null
-			plainSelect.setWhere((plainSelect.getWhere() == null)
-					? whereClauseExtension
-					: new AndExpression(plainSelect.getWhere(), whereClauseExtension));
+				// construct new Target Query by expanding higher order atoms of the form
+				// <pre>triple(t1, 'rdf:type', URI("http://example.org/{}", X))</pre>
+				// to
+				// <pre>http://example.org/cls(t1)</pre>, if X is t1
+				// (similarly for properties)
 
-			OBDASQLQuery newSourceQuery =  MAPPING_FACTORY.getSQLQuery(select.toString());
+				String predicateName = getPredicateName(templateAtom.getTerm(0), values);
+				ImmutableFunctionalTerm newTarget = (arity == 1)
+						? TERM_FACTORY.getImmutableFunctionalTerm(TERM_FACTORY.getClassPredicate(predicateName),
+						target.getTerm(0))
+						: TERM_FACTORY.getImmutableFunctionalTerm(TERM_FACTORY.getObjectPropertyPredicate(predicateName),
+						target.getTerm(0), target.getTerm(2));
 
-			// construct new Target Query by expanding higher order atoms of the form
-			// <pre>triple(t1, 'rdf:type', URI("http://example.org/{}", X))</pre>
-			// to
-			// <pre>http://example.org/cls(t1)</pre>, if X is t1
-			// (similarly for properties)
+				String newId = IDGenerator.getNextUniqueID(id + "#");
 
-			String predicateName = getPredicateName(templateAtom.getTerm(0), values);
-			ImmutableFunctionalTerm newTarget = (arity == 1)
-					? TERM_FACTORY.getImmutableFunctionalTerm(TERM_FACTORY.getClassPredicate(predicateName),
-					target.getTerm(0))
-					: TERM_FACTORY.getImmutableFunctionalTerm(TERM_FACTORY.getObjectPropertyPredicate(predicateName),
-					target.getTerm(0), target.getTerm(2));
+				// TODO: see how to keep the provenance
+				SQLPPTriplesMap mapping = new OntopNativeSQLPPTriplesMap(newId, newSourceQuery,
+						ImmutableList.of(newTarget));
 
-			String newId = IDGenerator.getNextUniqueID(id + "#");
+				expandedMappings.add(mapping);
+
+				log.debug("Expanded Mapping: {}", mapping);
+			}
+			plainSelect.setWhere(originalWhere);
+
+			return expandedMappings.build();
+		}
+	}
+
+	@FunctionalInterface
+	interface ConnectionSupplier {
+		Connection get() throws SQLException;
+	}
+
+	/**
+	 * Evaluates the SELECT DISTINCT queries (unless their results are in the cache).
+	 *
+	 * The queries are shared by up to parallelism connections, each one obtained from the connection supplier
+	 * and closed afterwards. Only the connection of the current thread is required.
+	 * The failed queries are reported in errorMessages and are absent from the returned map.
+	 */
+	static ImmutableMap<String, ImmutableList<List<String>>> getTemplateValues(
+			Set<String> queries, Optional<MetaMappingValueCache> cache, int parallelism,
+			ConnectionSupplier connectionSupplier, List<String> errorMessages)
+			throws MetaMappingExpansionException {
+
+		Map<String, ImmutableList<List<String>>> results = new ConcurrentHashMap<>();
+		Queue<String> queue = new ConcurrentLinkedQueue<>();
+		for (String query : queries) {
+			Optional<ImmutableList<List<String>>> cachedValues = cache.flatMap(c -> c.load(query));
+			if (cachedValues.isPresent())
+				results.put(query, cachedValues.get());
+			else
+				queue.add(query);
+		}
+		if (cache.isPresent())
+			log.debug("Values of {} meta-mapping queries loaded from the cache", results.size());
+
+		Queue<String> errors = new ConcurrentLinkedQueue<>();
+		Set<String> fetchedQueries = ImmutableSet.copyOf(queue);
+
+		int connectionCount = Math.min(Math.max(parallelism, 1), queue.size());
+		if (connectionCount > 0) {
+			ExecutorService executor = (connectionCount > 1)
+					? Executors.newFixedThreadPool(connectionCount - 1, new ThreadFactoryBuilder()
+							.setNameFormat("ontop-metamapping-%d")
+							.setDaemon(true)
+							.build())
+					: null;
+			try {
+				List<Future<?>> futures = new ArrayList<>();
+				for (int i = 1; i < connectionCount; i++) {
+					futures.add(executor.submit(() -> {
+						Connection additionalConnection;
+						try {
+							additionalConnection = connectionSupplier.get();
+						}
+						catch (SQLException e) {
+							// Not critical: the other connections take over
+							log.warn("Cannot open an additional connection for expanding the meta-mappings: " + e);
+							return null;
+						}
+						try (Connection c = additionalConnection) {
+							evaluateAll(c, queue, results, errors);
+						}
+						return null;
+					}));
+				}
+				// The current thread also evaluates queries
+				try (Connection connection = connectionSupplier.get()) {
+					evaluateAll(connection, queue, results, errors);
+				}
+
+				for (Future<?> future : futures)
+					future.get();
+			}
+			catch (SQLException e) {
+				throw new MetaMappingExpansionException(e);
+			}
+			catch (ExecutionException e) {
+				throw new MetaMappingExpansionException(e.getCause() instanceof Exception
+						? (Exception) e.getCause()
+						: new RuntimeException(e.getCause()));
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new MetaMappingExpansionException(e);
+			}
+			finally {
+				if (executor != null)
+					executor.shutdownNow();
+			}
+		}
+		errorMessages.addAll(errors);
 
-			// TODO: see how to keep the provenance
-			SQLPPTriplesMap mapping = new OntopNativeSQLPPTriplesMap(newId, newSourceQuery,
-					ImmutableList.of(newTarget));
+		cache.ifPresent(c -> fetchedQueries.stream()
+				.filter(results::containsKey)
+				.forEach(q -> c.save(q, results.get(q))));
 
-			expandedMappings.add(mapping);
+		return ImmutableMap.copyOf(results);
+	}
 
-			log.debug("Expanded Mapping: {}", mapping);
+	private static void evaluateAll(Connection connection, Queue<String> queue,
+									Map<String, ImmutableList<List<String>>> results, Queue<String> errors) {
+		String query;
+		while ((query = queue.poll()) != null) {
+			try {
+				results.put(query, evaluateDistinctValuesQuery(connection, query));
+			}
+			catch (SQLException e) {
+				log.warn("Cannot retrieve the values of a meta-mapping template " + e.getMessage());
+				errors.add(e.getMessage());
+			}
 		}
+	}
 
-		return expandedMappings;
+	/**
+	 * The values may be null
+	 */
+	private static ImmutableList<List<String>> evaluateDistinctValuesQuery(Connection connection, String distinctParamsSQL)
+			throws SQLException {
+
+		ImmutableList.Builder<List<String>> templateValues = ImmutableList.builder();
+		try (Statement st = connection.createStatement()) {
+			try (ResultSet rs = st.executeQuery(distinctParamsSQL)) {
+				int size = rs.getMetaData().getColumnCount();
+				while (rs.next()) {
+					List<String> params = new ArrayList<>(size);
+					for (int i = 1; i <= size; i++)
+						params.add(rs.getString(i));
+
+					templateValues.add(params);
+				}
+			}
+		}
+		return templateValues.build();
 	}
 
 
@@ -238,38 +428,6 @@ public class MetaMappingExpander {
 		return ImmutableList.copyOf(list);
 	}
 
-	private static List<List<String>> getTemplateValues(Connection connection, String sql,
-														ImmutableList<SelectExpressionItem> templateColumns)
-			throws SQLException, JSQLParserException {
-
-
-		// The query for params is almost the same with the original source query, except that
-		// we only need to distinct project the columns needed for the template expansion
-
-		Select select = (Select)CCJSqlParserUtil.parse(sql);
-		PlainSelect plainSelect = (PlainSelect)select.getSelectBody();
-
-		plainSelect.setDistinct(new Distinct());
-		plainSelect.setSelectItems(ImmutableList.copyOf(templateColumns)); // SelectExpressionItem -> SelectItem
-
-		String distinctParamsSQL = select.toString();
-
-		List<List<String>> templateValues = new ArrayList<>();
-		try (Statement st = connection.createStatement()) {
-			try (ResultSet rs = st.executeQuery(distinctParamsSQL)) {
-				int size = templateColumns.size();
-				while (rs.next()) {
-					List<String> params = new ArrayList<>(size);
-					for (int i = 1; i <= size; i++)
-						params.add(rs.getString(i));
-
-					templateValues.add(params);
-				}
-			}
-		}
-		return templateValues;
-	}
-
 	/**
 	 * check if the term is {@code URI("http://www.w3.org/1999/02/22-rdf-syntax-ns#type")}
 	 * @param term
@@ -0,0 +1,137 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import it.unibz.inf.ontop.dbschema.RDBMetadataSnapshotTools;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Saves the values of the meta-mapping templates (the results of the SELECT DISTINCT queries)
+ * in a directory, one file per query, so that they can be reused at the next start.
+ *
+ * The files are keyed by a SHA-256 hash of the JDBC URL, the user and the query (each one length-prefixed).
+ * Changes of the data are not detected: delete the directory after modifying the tables used by the meta-mappings.
+ *
+ * Thread-safe.
+ */
+class MetaMappingValueCache {
+
+	private static final int MAGIC_NUMBER = 0x4f4d4d56; // "OMMV"
+	private static final int FORMAT_VERSION = 1;
+
+	private static final Logger log = LoggerFactory.getLogger(MetaMappingValueCache.class);
+
+	private final Path directory;
+	private final String jdbcUrl;
+	private final String jdbcUser;
+
+	MetaMappingValueCache(Path directory, String jdbcUrl, String jdbcUser) {
+		this.directory = directory;
+		this.jdbcUrl = jdbcUrl;
+		this.jdbcUser = jdbcUser;
+	}
+
+	/**
+	 * Empty if the values of the query have not been saved (or cannot be read)
+	 */
+	Optional<ImmutableList<List<String>>> load(String query) {
+		Path file = getFile(query);
+		if (!Files.exists(file))
+			return Optional.empty();
+
+		try {
+			byte[] content;
+			try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+				content = ByteStreams.toByteArray(in);
+			}
+			try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(content))) {
+				if (in.readInt() != MAGIC_NUMBER || in.readInt() != FORMAT_VERSION) {
+					log.warn("Ignoring the meta-mapping values " + file + " (incompatible format)");
+					return Optional.empty();
+				}
+				// Protects against hash collisions
+				if (!in.readUTF().equals(query))
+					return Optional.empty();
+
+				int rowCount = in.readInt();
+				int columnCount = in.readInt();
+				ImmutableList.Builder<List<String>> rows = ImmutableList.builder();
+				for (int i = 0; i < rowCount; i++) {
+					// May contain nulls
+					List<String> row = new ArrayList<>(columnCount);
+					for (int j = 0; j < columnCount; j++)
+						row.add(readNullableString(in));
+					rows.add(row);
+				}
+				return Optional.of(rows.build());
+			}
+		}
+		catch (IOException e) {
+			log.warn("Cannot read the meta-mapping values " + file + ": " + e);
+			return Optional.empty();
+		}
+	}
+
+	/**
+	 * The file is first written next to its final location and then moved, so that concurrent readers
+	 * never see a partial file.
+	 */
+	void save(String query, ImmutableList<List<String>> rows) {
+		Path file = getFile(query);
+		try {
+			Files.createDirectories(directory);
+			Path tmpFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+						new GZIPOutputStream(Files.newOutputStream(tmpFile))))) {
+					out.writeInt(MAGIC_NUMBER);
+					out.writeInt(FORMAT_VERSION);
+					out.writeUTF(query);
+					out.writeInt(rows.size());
+					out.writeInt(rows.isEmpty() ? 0 : rows.get(0).size());
+					for (List<String> row : rows)
+						for (String value : row)
+							writeNullableString(out, value);
+				}
+				Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			finally {
+				Files.deleteIfExists(tmpFile);
+			}
+		}
+		catch (IOException e) {
+			log.warn("Cannot save the meta-mapping values " + file + ": " + e);
+		}
+	}
+
+	Path getFile(String query) {
+		Hasher hasher = Hashing.sha256().newHasher();
+		RDBMetadataSnapshotTools.putString(hasher, jdbcUrl);
+		RDBMetadataSnapshotTools.putString(hasher, jdbcUser);
+		RDBMetadataSnapshotTools.putString(hasher, query);
+		return directory.resolve("metamapping-" + hasher.hash().toString() + ".bin");
+	}
+
+	private static void writeNullableString(DataOutputStream out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null)
+			out.writeUTF(value);
+	}
+
+	private static String readNullableString(DataInputStream in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+}
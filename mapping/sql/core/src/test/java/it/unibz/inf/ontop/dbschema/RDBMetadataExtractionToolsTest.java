@@ -0,0 +1,141 @@
+package it.unibz.inf.ontop.dbschema;
+
+import it.unibz.inf.ontop.utils.LocalJDBCConnectionUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class RDBMetadataExtractionToolsTest {
+
+    // Named, so that the additional connections see the same DB
+    private static final String URL = "jdbc:h2:mem:metadataextraction";
+    private static final String USER = "sa";
+    private static final String PASSWORD = "";
+
+    // Enough for the schema-wide and for the parallel per-relation retrieval
+    private static final int TABLE_COUNT = 45;
+
+    private Connection conn;
+
+    @Before
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection(URL, USER, PASSWORD);
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE PARENT (ID INT PRIMARY KEY, NAME VARCHAR(20) UNIQUE)");
+            for (int i = 0; i < TABLE_COUNT - 1; i++)
+                st.executeUpdate("CREATE TABLE CHILD" + i + " (ID INT PRIMARY KEY, "
+                        + "PARENT_ID INT NOT NULL REFERENCES PARENT(ID), LABEL VARCHAR(10))");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @Test
+    public void testAllRelationsInParallel() throws SQLException {
+        String sequential = describe(load(null, null, 1));
+
+        AtomicInteger openedConnections = new AtomicInteger();
+        String parallel = describe(load(null, () -> {
+            openedConnections.incrementAndGet();
+            return DriverManager.getConnection(URL, USER, PASSWORD);
+        }, 4));
+
+        assertEquals(sequential, parallel);
+        assertTrue(openedConnections.get() > 0);
+    }
+
+    @Test
+    public void testSelectedRelationsInParallel() throws SQLException {
+        QuotedIDFactory idfac = RDBMetadataExtractionTools.createMetadata(conn).getQuotedIDFactory();
+        Set<RelationID> realTables = new HashSet<>();
+        realTables.add(idfac.createRelationID(null, "PARENT"));
+        for (int i = 0; i < TABLE_COUNT - 1; i += 2)
+            realTables.add(idfac.createRelationID(null, "CHILD" + i));
+
+        String sequential = describe(load(realTables, null, 1));
+
+        AtomicInteger openedConnections = new AtomicInteger();
+        RDBMetadata parallelMetadata = load(realTables, () -> {
+            openedConnections.incrementAndGet();
+            return DriverManager.getConnection(URL, USER, PASSWORD);
+        }, 2);
+
+        assertEquals(sequential, describe(parallelMetadata));
+        assertEquals(realTables.size(), parallelMetadata.getDatabaseRelations().size());
+        assertTrue(openedConnections.get() > 0);
+    }
+
+    @Test
+    public void testConstraints() throws SQLException {
+        RDBMetadata metadata = load(null, () -> DriverManager.getConnection(URL, USER, PASSWORD), 4);
+        QuotedIDFactory idfac = metadata.getQuotedIDFactory();
+
+        assertEquals(TABLE_COUNT, metadata.getDatabaseRelations().size());
+
+        DatabaseRelationDefinition parent = metadata.getDatabaseRelation(
+                RelationID.createRelationIdFromDatabaseRecord(idfac, "PUBLIC", "PARENT"));
+        assertNotNull(parent.getPrimaryKey());
+
+        DatabaseRelationDefinition child = metadata.getDatabaseRelation(
+                RelationID.createRelationIdFromDatabaseRecord(idfac, "PUBLIC", "CHILD17"));
+        assertEquals(3, child.getAttributes().size());
+        assertNotNull(child.getPrimaryKey());
+        assertEquals(1, child.getForeignKeys().size());
+        assertSame(parent, child.getForeignKeys().get(0).getReferencedRelation());
+    }
+
+    @Test
+    public void testAdditionalConnectionsUnavailable() throws SQLException {
+        String sequential = describe(load(null, null, 1));
+        String degraded = describe(load(null, () -> {
+            throw new SQLException("No more connections");
+        }, 4));
+
+        assertEquals(sequential, degraded);
+    }
+
+    @Test
+    public void testInMemoryDatabase() {
+        assertTrue(LocalJDBCConnectionUtils.isInMemoryDatabase("jdbc:h2:mem:"));
+        assertTrue(LocalJDBCConnectionUtils.isInMemoryDatabase(URL));
+        assertTrue(LocalJDBCConnectionUtils.isInMemoryDatabase("jdbc:hsqldb:mem:test"));
+        assertFalse(LocalJDBCConnectionUtils.isInMemoryDatabase("jdbc:h2:tcp://localhost/books"));
+        assertFalse(LocalJDBCConnectionUtils.isInMemoryDatabase("jdbc:postgresql://localhost/db"));
+    }
+
+    private RDBMetadata load(Set<RelationID> realTables, RDBMetadataExtractionTools.ConnectionSupplier connectionSupplier,
+                             int parallelism) throws SQLException {
+        RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(conn);
+        RDBMetadataExtractionTools.loadMetadata(metadata, conn, realTables, connectionSupplier, parallelism);
+        return metadata;
+    }
+
+    private static String describe(RDBMetadata metadata) {
+        return metadata.getDatabaseRelations().stream()
+                .sorted(Comparator.comparing(r -> r.getID().toString()))
+                .map(r -> r + " " + r.getUniqueConstraints() + " " + r.getForeignKeys())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,154 @@
+package it.unibz.inf.ontop.dbschema;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.HashCode;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RDBMetadataSnapshotToolsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection conn;
+
+    @Before
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:h2:mem:metadatasnapshot", "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"Person\" (ID INT PRIMARY KEY, SSN VARCHAR(20) NOT NULL UNIQUE, " +
+                    "NAME VARCHAR(100))");
+            st.executeUpdate("CREATE TABLE ADDRESS (PERSON_ID INT NOT NULL, NUM INT NOT NULL, STREET VARCHAR(100), " +
+                    "PRIMARY KEY (PERSON_ID, NUM), FOREIGN KEY (PERSON_ID) REFERENCES \"Person\"(ID))");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        RDBMetadata extracted = RDBMetadataExtractionTools.createMetadata(conn);
+        RDBMetadataExtractionTools.loadMetadata(extracted, conn, null);
+
+        Path file = folder.getRoot().toPath().resolve("snapshot.bin");
+        RDBMetadataSnapshotTools.save(extracted, file);
+
+        RDBMetadata loaded = RDBMetadataExtractionTools.createMetadata(conn);
+        assertTrue(RDBMetadataSnapshotTools.load(loaded, file));
+
+        assertEquals(2, loaded.getDatabaseRelations().size());
+        assertEquals(describe(extracted), describe(loaded));
+    }
+
+    @Test
+    public void testMissingSnapshot() throws Exception {
+        RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(conn);
+        assertFalse(RDBMetadataSnapshotTools.load(metadata, folder.getRoot().toPath().resolve("missing.bin")));
+        assertTrue(metadata.getDatabaseRelations().isEmpty());
+    }
+
+    @Test
+    public void testIncompatibleFormat() throws Exception {
+        Path file = folder.getRoot().toPath().resolve("other.bin");
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(0x12345678);
+            out.writeInt(1);
+        }
+
+        RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(conn);
+        assertFalse(RDBMetadataSnapshotTools.load(metadata, file));
+        assertTrue(metadata.getDatabaseRelations().isEmpty());
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedSnapshot() throws Exception {
+        RDBMetadata extracted = RDBMetadataExtractionTools.createMetadata(conn);
+        RDBMetadataExtractionTools.loadMetadata(extracted, conn, null);
+        Path file = folder.getRoot().toPath().resolve("truncated.bin");
+        RDBMetadataSnapshotTools.save(extracted, file);
+
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length / 2));
+
+        RDBMetadataSnapshotTools.load(RDBMetadataExtractionTools.createMetadata(conn), file);
+    }
+
+    @Test
+    public void testColumnFingerprint() throws SQLException {
+        RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(conn);
+        HashCode initial = computeColumnFingerprint(metadata, null);
+        assertEquals(initial, computeColumnFingerprint(metadata, null));
+
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("ALTER TABLE ADDRESS ADD COLUMN CITY VARCHAR(100)");
+        }
+        HashCode withColumn = computeColumnFingerprint(metadata, null);
+        assertNotEquals(initial, withColumn);
+
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("ALTER TABLE ADDRESS ALTER COLUMN CITY VARCHAR(100) NOT NULL");
+        }
+        assertNotEquals(withColumn, computeColumnFingerprint(metadata, null));
+    }
+
+    /**
+     * Only the columns of the given relations are considered
+     */
+    @Test
+    public void testColumnFingerprintOfMappedRelations() throws SQLException {
+        RDBMetadata metadata = RDBMetadataExtractionTools.createMetadata(conn);
+        Set<RelationID> mappedRelations = ImmutableSet.of(
+                metadata.getQuotedIDFactory().createRelationID(null, "ADDRESS"));
+        HashCode initial = computeColumnFingerprint(metadata, mappedRelations);
+
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("ALTER TABLE \"Person\" ADD COLUMN AGE INT");
+            st.executeUpdate("CREATE TABLE OTHER (ID INT PRIMARY KEY)");
+        }
+        assertEquals(initial, computeColumnFingerprint(metadata, mappedRelations));
+
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("ALTER TABLE ADDRESS ADD COLUMN CITY VARCHAR(100)");
+        }
+        assertNotEquals(initial, computeColumnFingerprint(metadata, mappedRelations));
+    }
+
+    private HashCode computeColumnFingerprint(RDBMetadata metadata, Set<RelationID> relations) throws SQLException {
+        return RDBMetadataExtractionTools.computeColumnFingerprint(metadata, conn, relations, null, 1);
+    }
+
+    private static String describe(RDBMetadata metadata) {
+        return metadata.getDatabaseRelations().stream()
+                .sorted(Comparator.comparing(r -> r.getID().toString()))
+                .map(r -> r + " " + r.getUniqueConstraints() + " " + r.getForeignKeys())
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -0,0 +1,137 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Retrieval of the values of the meta-mapping templates
+ */
+public class MetaMappingExpanderTest {
+
+    private static final String URL = "jdbc:h2:mem:metamappingvalues";
+    private static final String CLASS_QUERY = "SELECT DISTINCT \"cls\" FROM \"item\"";
+    private static final String PROPERTY_QUERY = "SELECT DISTINCT \"prop\", \"code\" FROM \"item\"";
+    private static final String MISSING_TABLE_QUERY = "SELECT DISTINCT \"cls\" FROM \"missing\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Connection conn;
+
+    @Before
+    public void setUp() throws SQLException {
+        conn = DriverManager.getConnection(URL, "sa", "");
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("CREATE TABLE \"item\" (\"id\" INT PRIMARY KEY, \"cls\" VARCHAR(20), " +
+                    "\"prop\" VARCHAR(20), \"code\" INT)");
+            st.executeUpdate("INSERT INTO \"item\" VALUES (1, 'A', 'p', 1), (2, 'B', 'p', NULL), (3, 'A', 'q', 2)");
+        }
+    }
+
+    @After
+    public void tearDown() throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeUpdate("DROP ALL OBJECTS");
+        }
+        conn.close();
+    }
+
+    @Test
+    public void testValues() throws Exception {
+        List<String> errors = new ArrayList<>();
+        ImmutableMap<String, ImmutableList<List<String>>> values = MetaMappingExpander.getTemplateValues(
+                ImmutableSet.of(CLASS_QUERY, PROPERTY_QUERY), Optional.empty(), 2, this::connect, errors);
+
+        assertTrue(errors.isEmpty());
+        assertEquals(ImmutableSet.of(Arrays.asList("A"), Arrays.asList("B")),
+                new HashSet<>(values.get(CLASS_QUERY)));
+        // NULL values are kept
+        assertEquals(ImmutableSet.of(Arrays.asList("p", "1"), Arrays.asList("p", null), Arrays.asList("q", "2")),
+                new HashSet<>(values.get(PROPERTY_QUERY)));
+    }
+
+    /**
+     * The failed query is reported and absent from the results
+     */
+    @Test
+    public void testFailedQuery() throws Exception {
+        List<String> errors = new ArrayList<>();
+        ImmutableMap<String, ImmutableList<List<String>>> values = MetaMappingExpander.getTemplateValues(
+                ImmutableSet.of(CLASS_QUERY, MISSING_TABLE_QUERY), Optional.empty(), 1, this::connect, errors);
+
+        assertEquals(ImmutableSet.of(CLASS_QUERY), values.keySet());
+        assertEquals(1, errors.size());
+    }
+
+    /**
+     * The additional connections cannot be opened: the connection of the current thread evaluates all the queries
+     */
+    @Test
+    public void testAdditionalConnectionFailure() throws Exception {
+        Thread currentThread = Thread.currentThread();
+        AtomicInteger failedConnections = new AtomicInteger();
+        MetaMappingExpander.ConnectionSupplier supplier = () -> {
+            if (Thread.currentThread() != currentThread) {
+                failedConnections.incrementAndGet();
+                throw new SQLException("Too many connections");
+            }
+            return connect();
+        };
+
+        List<String> errors = new ArrayList<>();
+        ImmutableMap<String, ImmutableList<List<String>>> values = MetaMappingExpander.getTemplateValues(
+                ImmutableSet.of(CLASS_QUERY, PROPERTY_QUERY), Optional.empty(), 3, supplier, errors);
+
+        assertTrue(errors.isEmpty());
+        assertEquals(ImmutableSet.of(CLASS_QUERY, PROPERTY_QUERY), values.keySet());
+        assertEquals(1, failedConnections.get());
+    }
+
+    /**
+     * The second time, the values are read from the cache (no connection)
+     */
+    @Test
+    public void testCache() throws Exception {
+        MetaMappingValueCache cache = new MetaMappingValueCache(folder.getRoot().toPath(), URL, "sa");
+
+        List<String> errors = new ArrayList<>();
+        ImmutableMap<String, ImmutableList<List<String>>> values = MetaMappingExpander.getTemplateValues(
+                ImmutableSet.of(CLASS_QUERY, MISSING_TABLE_QUERY), Optional.of(cache), 2, this::connect, errors);
+        assertEquals(1, errors.size());
+
+        // The failed query is not saved
+        assertEquals(Optional.empty(), cache.load(MISSING_TABLE_QUERY));
+        assertEquals(Optional.of(values.get(CLASS_QUERY)), cache.load(CLASS_QUERY));
+
+        ImmutableMap<String, ImmutableList<List<String>>> cachedValues = MetaMappingExpander.getTemplateValues(
+                ImmutableSet.of(CLASS_QUERY), Optional.of(cache), 2,
+                () -> { throw new SQLException("No connection expected"); },
+                errors);
+        assertEquals(values.get(CLASS_QUERY), cachedValues.get(CLASS_QUERY));
+        assertEquals(1, errors.size());
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(URL, "sa", "");
+    }
+}
@@ -0,0 +1,92 @@
+package it.unibz.inf.ontop.spec.mapping.impl;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+
+public class MetaMappingValueCacheTest {
+
+    private static final String URL = "jdbc:h2:mem:metamapping";
+    private static final String QUERY = "SELECT DISTINCT \"cls\", \"code\" FROM \"item\"";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() {
+        MetaMappingValueCache cache = new MetaMappingValueCache(folder.getRoot().toPath(), URL, "sa");
+        ImmutableList<List<String>> rows = ImmutableList.of(
+                Arrays.asList("A", "1"),
+                Arrays.asList("B", null),
+                Arrays.asList(null, ""),
+                Arrays.asList("été", "2"));
+        cache.save(QUERY, rows);
+
+        assertEquals(Optional.of(rows), cache.load(QUERY));
+        // Another instance over the same directory
+        assertEquals(Optional.of(rows), new MetaMappingValueCache(folder.getRoot().toPath(), URL, "sa").load(QUERY));
+    }
+
+    @Test
+    public void testEmptyResult() {
+        MetaMappingValueCache cache = new MetaMappingValueCache(folder.getRoot().toPath(), URL, null);
+        cache.save(QUERY, ImmutableList.of());
+        assertEquals(Optional.of(ImmutableList.of()), cache.load(QUERY));
+    }
+
+    @Test
+    public void testMissing() {
+        MetaMappingValueCache cache = new MetaMappingValueCache(folder.getRoot().toPath(), URL, "sa");
+        cache.save(QUERY, ImmutableList.of(Arrays.asList("A", "1")));
+
+        assertFalse(cache.load(QUERY + " WHERE \"code\" > 0").isPresent());
+        assertFalse(new MetaMappingValueCache(folder.getRoot().toPath(), URL, "other").load(QUERY).isPresent());
+    }
+
+    @Test
+    public void testIncompatibleFormat() throws Exception {
+        MetaMappingValueCache cache = new MetaMappingValueCache(folder.getRoot().toPath(), URL, "sa");
+        Path file = cache.getFile(QUERY);
+        Files.createDirectories(file.getParent());
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(0x12345678);
+            out.writeInt(1);
+        }
+        assertFalse(cache.load(QUERY).isPresent());
+
+        // Not even compressed
+        Files.write(file, new byte[] { 1, 2, 3 });
+        assertFalse(cache.load(QUERY).isPresent());
+
+        // Overwritten by the next save
+        cache.save(QUERY, ImmutableList.of(Arrays.asList("A", "1")));
+        assertEquals(Optional.of(ImmutableList.of(Arrays.asList("A", "1"))), cache.load(QUERY));
+    }
+
+    /**
+     * The URL, the user and the query are not simply concatenated
+     */
+    @Test
+    public void testKeySeparation() {
+        Path directory = folder.getRoot().toPath();
+        assertNotEquals(new MetaMappingValueCache(directory, URL + "a", "b").getFile(QUERY),
+                new MetaMappingValueCache(directory, URL, "ab").getFile(QUERY));
+        assertNotEquals(new MetaMappingValueCache(directory, URL, "sa").getFile(QUERY),
+                new MetaMappingValueCache(directory, URL, "sa" + QUERY.substring(0, 6)).getFile(QUERY.substring(6)));
+        assertNotEquals(new MetaMappingValueCache(directory, URL, null).getFile(QUERY),
+                new MetaMappingValueCache(directory, URL, "null").getFile(QUERY));
+    }
+}
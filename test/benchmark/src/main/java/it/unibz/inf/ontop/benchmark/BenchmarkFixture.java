@@ -0,0 +1,109 @@
+package it.unibz.inf.ontop.benchmark;
+
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.benchmark.generator.SyntheticScenario;
+import it.unibz.inf.ontop.exception.OBDASpecificationException;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.ReformulationFactory;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Synthetic scenario loaded into an in-memory H2 database, with its Ontop configuration and OBDA specification.
+ *
+ * The test mode is NOT enabled (it validates the intermediate queries after each transformation).
+ */
+public class BenchmarkFixture implements AutoCloseable {
+
+    private static final String JDBC_USER = "sa";
+    private static final String JDBC_PASSWORD = "";
+    private static final AtomicInteger DB_COUNTER = new AtomicInteger(0);
+
+    private final SyntheticScenario scenario;
+    private final String jdbcUrl;
+    // Keeps the in-memory DB alive
+    private final Connection connection;
+    private final File ontologyFile;
+    private final OntopSQLOWLAPIConfiguration configuration;
+    private final OBDASpecification specification;
+
+    /**
+     * @param properties e.g. ontop.queryCacheSize
+     */
+    public BenchmarkFixture(SyntheticScenario scenario, Properties properties)
+            throws SQLException, IOException, OBDASpecificationException {
+        this.scenario = scenario;
+        this.jdbcUrl = "jdbc:h2:mem:ontop-benchmark-" + DB_COUNTER.incrementAndGet();
+        this.connection = DriverManager.getConnection(jdbcUrl, JDBC_USER, JDBC_PASSWORD);
+        scenario.createDatabase(connection);
+
+        this.ontologyFile = File.createTempFile("ontop-benchmark", ".ttl");
+        Files.write(ontologyFile.toPath(), scenario.generateOntology().getBytes(StandardCharsets.UTF_8));
+
+        this.configuration = OntopSQLOWLAPIConfiguration.defaultBuilder()
+                .nativeOntopMappingReader(new StringReader(scenario.generateMapping()))
+                .ontologyFile(ontologyFile)
+                .jdbcUrl(jdbcUrl)
+                .jdbcUser(JDBC_USER)
+                .jdbcPassword(JDBC_PASSWORD)
+                .properties(properties)
+                .build();
+        this.specification = configuration.loadSpecification();
+    }
+
+    public BenchmarkFixture(SyntheticScenario scenario) throws SQLException, IOException, OBDASpecificationException {
+        this(scenario, new Properties());
+    }
+
+    public SyntheticScenario getScenario() {
+        return scenario;
+    }
+
+    public OntopSQLOWLAPIConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    public OBDASpecification getSpecification() {
+        return specification;
+    }
+
+    /**
+     * New reformulator for the already loaded specification
+     */
+    public QueryReformulator createReformulator() {
+        return configuration.getInjector().getInstance(ReformulationFactory.class)
+                .create(specification, configuration.getExecutorRegistry());
+    }
+
+    public QueryStages createQueryStages() {
+        return new QueryStages(configuration, specification);
+    }
+
+    /**
+     * Connection to the H2 database (not to be closed by the caller)
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    @Override
+    public void close() throws SQLException {
+        try (Statement st = connection.createStatement()) {
+            st.execute("SHUTDOWN");
+        } finally {
+            connection.close();
+            ontologyFile.delete();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package it.unibz.inf.ontop.benchmark;
+
+import it.unibz.inf.ontop.benchmark.generator.SyntheticScenario;
+
+/**
+ * SPARQL queries over a SyntheticScenario
+ */
+public enum BenchmarkQuery {
+
+    /**
+     * Instances of the root class: one union branch per class of the hierarchy
+     */
+    ROOT_CLASS {
+        @Override
+        public String getSPARQL(SyntheticScenario scenario) {
+            return PREFIX + "SELECT ?x WHERE { ?x a :C0 }";
+        }
+    },
+
+    /**
+     * Star-shaped join on a leaf class, followed by a second star through the object property
+     */
+    STAR_JOIN {
+        @Override
+        public String getSPARQL(SyntheticScenario scenario) {
+            int leaf = scenario.getLeafIndex();
+            return PREFIX + "SELECT ?x ?name ?score ?y ?created WHERE {\n" +
+                    "  ?x a :C" + leaf + " ; :name" + leaf + " ?name ; :score" + leaf + " ?score ; :p" + leaf + " ?y .\n" +
+                    "  ?y :created0 ?created .\n" +
+                    "}";
+        }
+    },
+
+    /**
+     * Optional pattern and filter on a class of the first level (and its sub-classes)
+     */
+    OPTIONAL_FILTER {
+        @Override
+        public String getSPARQL(SyntheticScenario scenario) {
+            return PREFIX + "SELECT ?x ?name ?score WHERE {\n" +
+                    "  ?x a :C1 ; :score1 ?score .\n" +
+                    "  OPTIONAL { ?x :name1 ?name }\n" +
+                    "  FILTER (?score > 10)\n" +
+                    "}";
+        }
+    },
+
+    /**
+     * All the values of a leaf class (one row per instance, with a string, a double and a dateTime)
+     */
+    LEAF_VALUES {
+        @Override
+        public String getSPARQL(SyntheticScenario scenario) {
+            int leaf = scenario.getLeafIndex();
+            return PREFIX + "SELECT ?x ?name ?score ?created WHERE {\n" +
+                    "  ?x :name" + leaf + " ?name ; :score" + leaf + " ?score ; :created" + leaf + " ?created .\n" +
+                    "}";
+        }
+    };
+
+    private static final String PREFIX = "PREFIX : <" + SyntheticScenario.VOCABULARY + ">\n";
+
+    public abstract String getSPARQL(SyntheticScenario scenario);
+}
@@ -0,0 +1,131 @@
+package it.unibz.inf.ontop.benchmark;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
+import it.unibz.inf.ontop.answering.reformulation.generation.NativeQueryGenerator;
+import it.unibz.inf.ontop.answering.reformulation.input.InputQuery;
+import it.unibz.inf.ontop.answering.reformulation.input.translation.InputQueryTranslator;
+import it.unibz.inf.ontop.answering.reformulation.unfolding.QueryUnfolder;
+import it.unibz.inf.ontop.datalog.*;
+import it.unibz.inf.ontop.dbschema.DBMetadata;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.injection.TranslationFactory;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import it.unibz.inf.ontop.iq.exception.EmptyQueryException;
+import it.unibz.inf.ontop.iq.optimizer.BindingLiftOptimizer;
+import it.unibz.inf.ontop.iq.optimizer.JoinLikeOptimizer;
+import it.unibz.inf.ontop.iq.optimizer.ProjectionShrinkingOptimizer;
+import it.unibz.inf.ontop.iq.optimizer.impl.PushUpBooleanExpressionOptimizerImpl;
+import it.unibz.inf.ontop.iq.tools.ExecutorRegistry;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+import it.unibz.inf.ontop.spec.OBDASpecification;
+
+import java.util.List;
+
+import static it.unibz.inf.ontop.model.OntopModelSingletons.DATALOG_FACTORY;
+import static it.unibz.inf.ontop.model.atom.PredicateConstants.ONTOP_QUERY;
+
+/**
+ * The phases of QuestQueryProcessor, exposed one by one so that they can be measured separately.
+ *
+ * Follows QuestQueryProcessor.reformulateIntoNativeQuery(), except that:
+ *   - the query is not rewritten (the default QueryRewriter does nothing when existential reasoning is disabled);
+ *   - the sameAs rewriting is skipped (the synthetic mappings have no owl:sameAs).
+ *
+ * The optimizers modify the intermediate query they receive: give them a snapshot.
+ */
+public class QueryStages {
+
+    private final InputQueryTranslator inputQueryTranslator;
+    private final VocabularyValidator vocabularyValidator;
+    private final DatalogProgram2QueryConverter datalogConverter;
+    private final QueryUnfolder queryUnfolder;
+    private final BindingLiftOptimizer bindingLiftOptimizer;
+    private final JoinLikeOptimizer joinLikeOptimizer;
+    private final NativeQueryGenerator nativeQueryGenerator;
+    private final DBMetadata dbMetadata;
+    private final ExecutorRegistry executorRegistry;
+
+    public QueryStages(OntopSQLOWLAPIConfiguration configuration, OBDASpecification specification) {
+        TranslationFactory translationFactory = configuration.getInjector().getInstance(TranslationFactory.class);
+
+        this.inputQueryTranslator = translationFactory.createInputQueryTranslator(
+                specification.getSaturatedMapping().getMetadata().getUriTemplateMatcher());
+        this.vocabularyValidator = new VocabularyValidator(specification.getSaturatedTBox(),
+                specification.getVocabulary());
+        this.datalogConverter = configuration.getInjector().getInstance(DatalogProgram2QueryConverter.class);
+        this.queryUnfolder = translationFactory.create(specification.getSaturatedMapping());
+        this.bindingLiftOptimizer = configuration.getInjector().getInstance(BindingLiftOptimizer.class);
+        this.joinLikeOptimizer = configuration.getInjector().getInstance(JoinLikeOptimizer.class);
+        this.dbMetadata = specification.getDBMetadata();
+        this.nativeQueryGenerator = translationFactory.create(dbMetadata);
+        this.executorRegistry = configuration.getExecutorRegistry();
+    }
+
+    /**
+     * SPARQL to Datalog
+     */
+    public InternalSparqlQuery translate(InputQuery inputQuery) throws OntopReformulationException {
+        return inputQuery.translate(inputQueryTranslator);
+    }
+
+    /**
+     * Equivalences, flattening and join trees (the translation is not modified)
+     */
+    public DatalogProgram normalize(InternalSparqlQuery translation) {
+        DatalogProgram program = translation.getProgram();
+
+        DatalogProgram programWithoutEquivalences = DATALOG_FACTORY.getDatalogProgram(program.getQueryModifiers());
+        Predicate topLevelPredicate = null;
+        for (CQIE query : program.getRules()) {
+            CQIE rule = query.clone();
+            EQNormalizer.enforceEqualities(rule);
+            CQIE newRule = vocabularyValidator.replaceEquivalences(rule);
+            if (newRule.getHead().getFunctionSymbol().getName().equals(ONTOP_QUERY))
+                topLevelPredicate = newRule.getHead().getFunctionSymbol();
+            programWithoutEquivalences.appendRule(newRule);
+        }
+
+        SPARQLQueryFlattener flattener = new SPARQLQueryFlattener(programWithoutEquivalences);
+        List<CQIE> rules = flattener.flatten(programWithoutEquivalences.getRules(topLevelPredicate).get(0));
+        DatalogProgram normalizedProgram = DATALOG_FACTORY.getDatalogProgram(program.getQueryModifiers(), rules);
+
+        for (CQIE rule : normalizedProgram.getRules())
+            DatalogNormalizer.unfoldJoinTrees(rule);
+        return normalizedProgram;
+    }
+
+    /**
+     * Datalog to the intermediate query (IQ)
+     */
+    public IntermediateQuery convert(DatalogProgram program) throws EmptyQueryException {
+        return datalogConverter.convertDatalogProgram(dbMetadata, program, ImmutableList.of(), executorRegistry);
+    }
+
+    public IntermediateQuery unfold(IntermediateQuery query) throws EmptyQueryException {
+        return queryUnfolder.optimize(query);
+    }
+
+    public IntermediateQuery liftBindings(IntermediateQuery query) throws EmptyQueryException {
+        return bindingLiftOptimizer.optimize(query);
+    }
+
+    /**
+     * Boolean expression push-up, projection shrinking and the fixed-point join optimizations
+     */
+    public IntermediateQuery optimizeJoins(IntermediateQuery query) throws EmptyQueryException {
+        IntermediateQuery newQuery = new PushUpBooleanExpressionOptimizerImpl(false).optimize(query);
+        newQuery = new ProjectionShrinkingOptimizer().optimize(newQuery);
+        return joinLikeOptimizer.optimize(newQuery);
+    }
+
+    /**
+     * SQL generation by the default NativeQueryGenerator (DirectSQLGenerator, which delegates the queries
+     * outside its fragment to OneShotSQLGeneratorEngine)
+     */
+    public ExecutableQuery generate(IntermediateQuery query, InternalSparqlQuery translation)
+            throws OntopReformulationException {
+        return nativeQueryGenerator.generateSourceQuery(query, ImmutableList.copyOf(translation.getSignature()));
+    }
+}
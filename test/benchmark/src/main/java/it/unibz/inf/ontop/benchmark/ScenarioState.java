@@ -0,0 +1,53 @@
+package it.unibz.inf.ontop.benchmark;
+
+import it.unibz.inf.ontop.benchmark.generator.SyntheticScenario;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+
+/**
+ * Base class of the benchmarks running on a SyntheticScenario, which is created once per trial.
+ *
+ * The parameters can be overridden on the command line (e.g. -p classCount=2000).
+ */
+@State(Scope.Benchmark)
+public abstract class ScenarioState {
+
+    @Param({"50", "500"})
+    public int classCount;
+
+    @Param({"4"})
+    public int fanOut;
+
+    @Param({"10"})
+    public int tableCount;
+
+    @Param({"1000"})
+    public int rowCount;
+
+    protected BenchmarkFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUpScenario() throws Exception {
+        fixture = new BenchmarkFixture(new SyntheticScenario(classCount, fanOut, tableCount, rowCount),
+                getProperties());
+        prepare();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownScenario() throws Exception {
+        fixture.close();
+    }
+
+    /**
+     * Settings of the Ontop configuration
+     */
+    protected Properties getProperties() {
+        return new Properties();
+    }
+
+    /**
+     * Called once the fixture is ready
+     */
+    protected abstract void prepare() throws Exception;
+}
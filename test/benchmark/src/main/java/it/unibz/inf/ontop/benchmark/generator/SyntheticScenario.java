@@ -0,0 +1,214 @@
+package it.unibz.inf.ontop.benchmark.generator;
+
+import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyFactoryImpl;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+/**
+ * Synthetic OBDA scenario whose size is controlled by a few parameters.
+ *
+ * Ontology: classes C0..C(n-1) organized in a tree of the given fan-out (Ci is a sub-class of C((i-1)/fanOut)).
+ * Below the second level, a class whose parent has a left sibling is also a sub-class of that sibling,
+ * so the hierarchy is a DAG. Every tenth class has an (unmapped) equivalent class. Each class Ci comes with
+ * an object property pi and the data properties namei, scorei and createdi, organized like the classes.
+ *
+ * Mapping: one mapping assertion per class, over the table t(i % tableCount) and with its own IRI template
+ * (http://example.org/bench/ci/{id}). Querying C0 therefore unfolds into one union branch per class.
+ *
+ * Data: each table contains rowCount rows (string, double and timestamp values).
+ *
+ * Immutable
+ */
+public class SyntheticScenario {
+
+    public static final String VOCABULARY = "http://example.org/bench/voc#";
+    public static final String IRI_PREFIX = "http://example.org/bench/";
+
+    private static final long BASE_TIME = Timestamp.valueOf("2017-01-01 00:00:00").getTime();
+
+    private final int classCount;
+    private final int fanOut;
+    private final int tableCount;
+    private final int rowCount;
+
+    public SyntheticScenario(int classCount, int fanOut, int tableCount, int rowCount) {
+        if (classCount < 3)
+            throw new IllegalArgumentException("At least 3 classes are expected");
+        if (fanOut < 1 || tableCount < 1 || rowCount < 1)
+            throw new IllegalArgumentException("The fan-out, the number of tables and the number of rows " +
+                    "must be positive");
+        this.classCount = classCount;
+        this.fanOut = fanOut;
+        this.tableCount = tableCount;
+        this.rowCount = rowCount;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Index of the deepest class (a leaf of the hierarchy)
+     */
+    public int getLeafIndex() {
+        return classCount - 1;
+    }
+
+    /**
+     * Ontology in the Turtle syntax
+     */
+    public String generateOntology() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("@prefix : <").append(VOCABULARY).append("> .\n")
+                .append("@prefix owl: <http://www.w3.org/2002/07/owl#> .\n")
+                .append("@prefix rdfs: <http://www.w3.org/2000/01/rdf-schema#> .\n\n")
+                .append("<").append(VOCABULARY).append("> a owl:Ontology .\n\n");
+
+        for (int i = 0; i < classCount; i++) {
+            sb.append(":C").append(i).append(" a owl:Class");
+            for (int parent : getParents(i))
+                sb.append(" ; rdfs:subClassOf :C").append(parent);
+            sb.append(" .\n");
+
+            if (hasEquivalentClass(i))
+                sb.append(":C").append(i).append("Alias a owl:Class ; owl:equivalentClass :C").append(i).append(" .\n");
+
+            appendProperty(sb, "p", i, "owl:ObjectProperty");
+            appendProperty(sb, "name", i, "owl:DatatypeProperty");
+            appendProperty(sb, "score", i, "owl:DatatypeProperty");
+            appendProperty(sb, "created", i, "owl:DatatypeProperty");
+        }
+        return sb.toString();
+    }
+
+    private void appendProperty(StringBuilder sb, String name, int i, String type) {
+        sb.append(":").append(name).append(i).append(" a ").append(type);
+        for (int parent : getParents(i))
+            sb.append(" ; rdfs:subPropertyOf :").append(name).append(parent);
+        sb.append(" .\n");
+    }
+
+    /**
+     * Same class hierarchy as generateOntology(), built directly with the internal ontology API
+     * (without going through OWLAPI)
+     */
+    public Ontology createOntology() throws InconsistentOntologyException {
+        OntologyFactory factory = OntologyFactoryImpl.getInstance();
+        OntologyVocabulary vocabulary = factory.createVocabulary();
+        for (int i = 0; i < classCount; i++) {
+            vocabulary.createClass(getClassIRI(i));
+            vocabulary.createObjectProperty(VOCABULARY + "p" + i);
+            if (hasEquivalentClass(i))
+                vocabulary.createClass(getClassIRI(i) + "Alias");
+        }
+
+        Ontology ontology = factory.createOntology(vocabulary);
+        ImmutableOntologyVocabulary voc = ontology.getVocabulary();
+        for (int i = 0; i < classCount; i++) {
+            OClass c = voc.getClass(getClassIRI(i));
+            ObjectPropertyExpression p = voc.getObjectProperty(VOCABULARY + "p" + i);
+            for (int parent : getParents(i)) {
+                ontology.addSubClassOfAxiom(c, voc.getClass(getClassIRI(parent)));
+                ontology.addSubPropertyOfAxiom(p, voc.getObjectProperty(VOCABULARY + "p" + parent));
+            }
+            if (hasEquivalentClass(i)) {
+                OClass alias = voc.getClass(getClassIRI(i) + "Alias");
+                ontology.addSubClassOfAxiom(c, alias);
+                ontology.addSubClassOfAxiom(alias, c);
+            }
+        }
+        return ontology;
+    }
+
+    /**
+     * Mapping in the native Ontop syntax
+     */
+    public String generateMapping() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[PrefixDeclaration]\n")
+                .append(":\t\t").append(VOCABULARY).append("\n")
+                .append("xsd:\t\thttp://www.w3.org/2001/XMLSchema#\n\n")
+                .append("[MappingDeclaration] @collection [[\n");
+
+        for (int i = 0; i < classCount; i++) {
+            int target = (i + 1) % classCount;
+            sb.append("mappingId\tc").append(i).append("\n")
+                    .append("target\t\t<").append(IRI_PREFIX).append("c").append(i).append("/{id}> a :C").append(i)
+                    .append(" ; :name").append(i).append(" {name}^^xsd:string")
+                    .append(" ; :score").append(i).append(" {score}^^xsd:double")
+                    .append(" ; :created").append(i).append(" {created}^^xsd:dateTime")
+                    .append(" ; :p").append(i).append(" <").append(IRI_PREFIX).append("c").append(target)
+                    .append("/{ref}> .\n")
+                    .append("source\t\tSELECT \"id\", \"name\", \"score\", \"created\", \"ref\" FROM \"")
+                    .append(getTableName(i)).append("\"\n\n");
+        }
+        sb.append("]]\n");
+        return sb.toString();
+    }
+
+    /**
+     * Creates and populates the tables
+     */
+    public void createDatabase(Connection connection) throws SQLException {
+        for (int t = 0; t < tableCount; t++) {
+            String table = "t" + t;
+            try (Statement st = connection.createStatement()) {
+                st.executeUpdate("CREATE TABLE \"" + table + "\" (\"id\" INT NOT NULL PRIMARY KEY, " +
+                        "\"name\" VARCHAR(100), \"score\" DOUBLE, \"created\" TIMESTAMP, \"ref\" INT)");
+            }
+            try (PreparedStatement st = connection.prepareStatement("INSERT INTO \"" + table + "\" " +
+                    "(\"id\", \"name\", \"score\", \"created\", \"ref\") VALUES (?, ?, ?, ?, ?)")) {
+                for (int id = 0; id < rowCount; id++) {
+                    st.setInt(1, id);
+                    st.setString(2, "name-" + t + "-" + id);
+                    st.setDouble(3, id * 0.5);
+                    st.setTimestamp(4, new Timestamp(BASE_TIME + id * 60_000L));
+                    st.setInt(5, (id * 7 + 3) % rowCount);
+                    st.addBatch();
+                }
+                st.executeBatch();
+            }
+        }
+        if (!connection.getAutoCommit())
+            connection.commit();
+    }
+
+    public String getClassIRI(int i) {
+        return VOCABULARY + "C" + i;
+    }
+
+    /**
+     * Templates of the IRIs, as they appear in the mapping
+     */
+    public String getIRITemplate(int i) {
+        return IRI_PREFIX + "c" + i + "/{}";
+    }
+
+    private String getTableName(int classIndex) {
+        return "t" + (classIndex % tableCount);
+    }
+
+    private int[] getParents(int i) {
+        if (i == 0)
+            return new int[0];
+        int parent = (i - 1) / fanOut;
+        // Left sibling of the parent, when it exists on the same level
+        int secondParent = parent - 1;
+        return (parent > fanOut && (secondParent - 1) / fanOut == (parent - 1) / fanOut)
+                ? new int[]{parent, secondParent}
+                : new int[]{parent};
+    }
+
+    private static boolean hasEquivalentClass(int i) {
+        return i % 10 == 9;
+    }
+}
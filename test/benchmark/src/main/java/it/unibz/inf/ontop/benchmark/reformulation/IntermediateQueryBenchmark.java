@@ -0,0 +1,85 @@
+package it.unibz.inf.ontop.benchmark.reformulation;
+
+import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
+import it.unibz.inf.ontop.benchmark.BenchmarkQuery;
+import it.unibz.inf.ontop.benchmark.QueryStages;
+import it.unibz.inf.ontop.benchmark.ScenarioState;
+import it.unibz.inf.ontop.datalog.InternalSparqlQuery;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phases of the reformulation operating on the intermediate query, measured separately:
+ * unfolding (BasicQueryUnfolder), binding lift and join optimization (fixed-point optimizers)
+ * and SQL generation (DirectSQLGenerator, the default, falling back to OneShotSQLGeneratorEngine).
+ *
+ * Each phase receives the output of the previous ones, computed once per trial. As the optimizers modify
+ * the query in place, they are given fresh snapshots before each invocation (not measured).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class IntermediateQueryBenchmark extends ScenarioState {
+
+    @Param({"ROOT_CLASS", "STAR_JOIN", "OPTIONAL_FILTER"})
+    public BenchmarkQuery query;
+
+    private QueryStages stages;
+    private InternalSparqlQuery translation;
+
+    private IntermediateQuery convertedQuery;
+    private IntermediateQuery unfoldedQuery;
+    private IntermediateQuery liftedQuery;
+    private IntermediateQuery optimizedQuery;
+
+    // Fresh copies (one per invocation)
+    private IntermediateQuery convertedSnapshot;
+    private IntermediateQuery unfoldedSnapshot;
+    private IntermediateQuery liftedSnapshot;
+    private IntermediateQuery optimizedSnapshot;
+
+    @Override
+    protected void prepare() throws Exception {
+        stages = fixture.createQueryStages();
+        translation = stages.translate(fixture.getConfiguration().getInputQueryFactory().createSelectQuery(
+                query.getSPARQL(fixture.getScenario())));
+
+        convertedQuery = stages.convert(stages.normalize(translation));
+        unfoldedQuery = stages.unfold(convertedQuery.createSnapshot());
+        liftedQuery = stages.liftBindings(unfoldedQuery.createSnapshot());
+        optimizedQuery = stages.optimizeJoins(liftedQuery.createSnapshot());
+    }
+
+    @Setup(Level.Invocation)
+    public void takeSnapshots() {
+        convertedSnapshot = convertedQuery.createSnapshot();
+        unfoldedSnapshot = unfoldedQuery.createSnapshot();
+        liftedSnapshot = liftedQuery.createSnapshot();
+        optimizedSnapshot = optimizedQuery.createSnapshot();
+    }
+
+    @Benchmark
+    public IntermediateQuery unfold() throws Exception {
+        return stages.unfold(convertedSnapshot);
+    }
+
+    @Benchmark
+    public IntermediateQuery liftBindings() throws Exception {
+        return stages.liftBindings(unfoldedSnapshot);
+    }
+
+    @Benchmark
+    public IntermediateQuery optimizeJoins() throws Exception {
+        return stages.optimizeJoins(liftedSnapshot);
+    }
+
+    @Benchmark
+    public ExecutableQuery generateSQL() throws Exception {
+        return stages.generate(optimizedSnapshot, translation);
+    }
+}
@@ -0,0 +1,50 @@
+package it.unibz.inf.ontop.benchmark.reformulation;
+
+import it.unibz.inf.ontop.answering.reformulation.ExecutableQuery;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.benchmark.BenchmarkQuery;
+import it.unibz.inf.ontop.benchmark.ScenarioState;
+import it.unibz.inf.ontop.exception.OntopReformulationException;
+import it.unibz.inf.ontop.injection.OntopReformulationSettings;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end reformulation of a SPARQL query into SQL (query cache disabled)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ReformulationBenchmark extends ScenarioState {
+
+    @Param({"ROOT_CLASS", "STAR_JOIN", "OPTIONAL_FILTER"})
+    public BenchmarkQuery query;
+
+    private QueryReformulator reformulator;
+    private SelectQuery inputQuery;
+
+    @Override
+    protected Properties getProperties() {
+        Properties properties = new Properties();
+        properties.setProperty(OntopReformulationSettings.QUERY_CACHE_MAX_SIZE, "0");
+        return properties;
+    }
+
+    @Override
+    protected void prepare() throws Exception {
+        reformulator = fixture.createReformulator();
+        inputQuery = reformulator.getInputQueryFactory().createSelectQuery(
+                query.getSPARQL(fixture.getScenario()));
+    }
+
+    @Benchmark
+    public ExecutableQuery reformulate() throws OntopReformulationException {
+        return reformulator.reformulateIntoNativeQuery(inputQuery);
+    }
+}
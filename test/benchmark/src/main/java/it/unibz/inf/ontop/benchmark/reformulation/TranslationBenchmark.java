@@ -0,0 +1,55 @@
+package it.unibz.inf.ontop.benchmark.reformulation;
+
+import it.unibz.inf.ontop.answering.reformulation.input.SelectQuery;
+import it.unibz.inf.ontop.benchmark.BenchmarkQuery;
+import it.unibz.inf.ontop.benchmark.QueryStages;
+import it.unibz.inf.ontop.benchmark.ScenarioState;
+import it.unibz.inf.ontop.datalog.DatalogProgram;
+import it.unibz.inf.ontop.datalog.InternalSparqlQuery;
+import it.unibz.inf.ontop.iq.IntermediateQuery;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Translation of the SPARQL query into an intermediate query (IQ).
+ *
+ * In this version, the SPARQL algebra is first translated into Datalog, which is then normalized
+ * and converted into an IQ: each step includes the previous ones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TranslationBenchmark extends ScenarioState {
+
+    @Param({"ROOT_CLASS", "STAR_JOIN", "OPTIONAL_FILTER"})
+    public BenchmarkQuery query;
+
+    private QueryStages stages;
+    private SelectQuery inputQuery;
+
+    @Override
+    protected void prepare() throws Exception {
+        stages = fixture.createQueryStages();
+        inputQuery = fixture.getConfiguration().getInputQueryFactory().createSelectQuery(
+                query.getSPARQL(fixture.getScenario()));
+    }
+
+    @Benchmark
+    public InternalSparqlQuery translateIntoDatalog() throws Exception {
+        return stages.translate(inputQuery);
+    }
+
+    @Benchmark
+    public DatalogProgram translateAndNormalize() throws Exception {
+        return stages.normalize(stages.translate(inputQuery));
+    }
+
+    @Benchmark
+    public IntermediateQuery translateIntoIQ() throws Exception {
+        return stages.convert(stages.normalize(stages.translate(inputQuery)));
+    }
+}
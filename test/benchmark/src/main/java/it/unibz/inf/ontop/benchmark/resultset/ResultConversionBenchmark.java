@@ -0,0 +1,106 @@
+package it.unibz.inf.ontop.benchmark.resultset;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.answering.reformulation.QueryReformulator;
+import it.unibz.inf.ontop.answering.reformulation.impl.SQLExecutableQuery;
+import it.unibz.inf.ontop.answering.resultset.OntopBindingSet;
+import it.unibz.inf.ontop.answering.resultset.TupleResultSet;
+import it.unibz.inf.ontop.answering.resultset.impl.SQLTupleResultSet;
+import it.unibz.inf.ontop.benchmark.BenchmarkQuery;
+import it.unibz.inf.ontop.benchmark.ScenarioState;
+import it.unibz.inf.ontop.dbschema.DBMetadata;
+import it.unibz.inf.ontop.rdf4j.query.impl.OntopRDF4JBindingSet;
+import org.eclipse.rdf4j.query.BindingSet;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of the SQL results into Ontop binding sets (JDBC2ConstantConverter, SQLOntopBindingSet)
+ * and into RDF4J binding sets.
+ *
+ * Each invocation evaluates the reformulated SQL query on H2 and consumes all its results.
+ * The JDBC baseline only reads the raw values: the difference with the other benchmarks
+ * is the cost of the conversion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class ResultConversionBenchmark extends ScenarioState {
+
+    @Param({"LEAF_VALUES", "ROOT_CLASS"})
+    public BenchmarkQuery query;
+
+    private PreparedStatement statement;
+    private ImmutableList<String> signature;
+    private DBMetadata dbMetadata;
+
+    @Override
+    protected void prepare() throws Exception {
+        QueryReformulator reformulator = fixture.createReformulator();
+        SQLExecutableQuery executableQuery = (SQLExecutableQuery) reformulator.reformulateIntoNativeQuery(
+                reformulator.getInputQueryFactory().createSelectQuery(query.getSPARQL(fixture.getScenario())));
+
+        statement = fixture.getConnection().prepareStatement(executableQuery.getSQL());
+        ImmutableList<Object> parameters = executableQuery.getParameters();
+        for (int i = 0; i < parameters.size(); i++)
+            statement.setObject(i + 1, parameters.get(i));
+
+        signature = executableQuery.getSignature();
+        dbMetadata = fixture.getSpecification().getDBMetadata();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeStatement() throws SQLException {
+        statement.close();
+    }
+
+    @Benchmark
+    public void jdbcBaseline(Blackhole blackhole) throws SQLException {
+        int columnCount = 3 * signature.size();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                for (int i = 1; i <= columnCount; i++)
+                    blackhole.consume(rs.getObject(i));
+            }
+        }
+    }
+
+    @Benchmark
+    public void ontopBindingSets(Blackhole blackhole) throws Exception {
+        TupleResultSet resultSet = new SQLTupleResultSet(statement.executeQuery(), signature, dbMetadata,
+                Optional.empty());
+        try {
+            while (resultSet.hasNext()) {
+                OntopBindingSet bindingSet = resultSet.next();
+                for (int i = 1; i <= signature.size(); i++)
+                    blackhole.consume(bindingSet.getConstant(i));
+            }
+        } finally {
+            resultSet.close();
+        }
+    }
+
+    @Benchmark
+    public void rdf4jBindingSets(Blackhole blackhole) throws Exception {
+        TupleResultSet resultSet = new SQLTupleResultSet(statement.executeQuery(), signature, dbMetadata,
+                Optional.empty());
+        try {
+            while (resultSet.hasNext()) {
+                BindingSet bindingSet = new OntopRDF4JBindingSet(resultSet.next());
+                for (String name : signature)
+                    blackhole.consume(bindingSet.getValue(name));
+            }
+        } finally {
+            resultSet.close();
+        }
+    }
+}
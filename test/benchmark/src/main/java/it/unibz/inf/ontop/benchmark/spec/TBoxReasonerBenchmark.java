@@ -0,0 +1,80 @@
+package it.unibz.inf.ontop.benchmark.spec;
+
+import it.unibz.inf.ontop.benchmark.generator.SyntheticScenario;
+import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.spec.ontology.impl.TBoxReasonerImpl;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Classification of a large generated class hierarchy (DAG with equivalent classes) and
+ * traversal of the sub- and super-closures of all its vertices (as done by the T-mapping saturation
+ * and by the query rewriting).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TBoxReasonerBenchmark {
+
+    @Param({"1000", "10000"})
+    public int classCount;
+
+    @Param({"4"})
+    public int fanOut;
+
+    private Ontology ontology;
+    private TBoxReasoner reasoner;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InconsistentOntologyException {
+        ontology = new SyntheticScenario(classCount, fanOut, 1, 1).createOntology();
+        reasoner = TBoxReasonerImpl.create(ontology);
+    }
+
+    @Benchmark
+    public TBoxReasoner classify() {
+        return TBoxReasonerImpl.create(ontology);
+    }
+
+    @Benchmark
+    public void traverseSubClosures(Blackhole blackhole) {
+        EquivalencesDAG<ClassExpression> dag = reasoner.getClassDAG();
+        for (Equivalences<ClassExpression> vertex : dag) {
+            for (Equivalences<ClassExpression> sub : dag.getSub(vertex))
+                blackhole.consume(sub);
+        }
+    }
+
+    @Benchmark
+    public void traverseSuperClosures(Blackhole blackhole) {
+        EquivalencesDAG<ClassExpression> dag = reasoner.getClassDAG();
+        for (Equivalences<ClassExpression> vertex : dag) {
+            for (Equivalences<ClassExpression> sup : dag.getSuper(vertex))
+                blackhole.consume(sup);
+        }
+    }
+
+    @Benchmark
+    public void subRepresentatives(Blackhole blackhole) {
+        EquivalencesDAG<ClassExpression> dag = reasoner.getClassDAG();
+        for (Equivalences<ClassExpression> vertex : dag)
+            blackhole.consume(dag.getSubRepresentatives(vertex.getRepresentative()).size());
+    }
+
+    /**
+     * Membership tests between all the pairs (vertex, parent of the vertex)
+     */
+    @Benchmark
+    public void containsInSuperClosures(Blackhole blackhole) {
+        EquivalencesDAG<ClassExpression> dag = reasoner.getClassDAG();
+        for (Equivalences<ClassExpression> vertex : dag) {
+            for (Equivalences<ClassExpression> parent : dag.getDirectSuper(vertex))
+                blackhole.consume(dag.getSub(parent).contains(vertex));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package it.unibz.inf.ontop.benchmark.spec;
+
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.benchmark.generator.SyntheticScenario;
+import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import it.unibz.inf.ontop.utils.ImmutableCollectors;
+import it.unibz.inf.ontop.utils.UriTemplateMatcher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
+
+/**
+ * Matching of IRI constants (e.g. from SPARQL queries) against many IRI templates.
+ *
+ * Half of the templates have one argument (prefix/ci/{}), the other half two arguments (prefix/ci/{}/v/{}).
+ * One tenth of the IRIs do not match any template.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class UriTemplateMatcherBenchmark {
+
+    private static final int IRI_COUNT = 1000;
+
+    @Param({"100", "1000", "10000"})
+    public int templateCount;
+
+    private ImmutableList<ImmutableFunctionalTerm> templates;
+    private UriTemplateMatcher matcher;
+    private ImmutableList<String> iris;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        templates = IntStream.range(0, templateCount)
+                .mapToObj(i -> (i % 2 == 0)
+                        ? template(SyntheticScenario.IRI_PREFIX + "c" + i + "/{}", 1)
+                        : template(SyntheticScenario.IRI_PREFIX + "c" + i + "/{}/v/{}", 2))
+                .collect(ImmutableCollectors.toList());
+        matcher = UriTemplateMatcher.create(templates.stream());
+
+        Random random = new Random(42);
+        iris = IntStream.range(0, IRI_COUNT)
+                .mapToObj(i -> {
+                    int t = random.nextInt(templateCount);
+                    if (i % 10 == 9)
+                        return "http://example.org/other/c" + t + "/" + i;
+                    return (t % 2 == 0)
+                            ? SyntheticScenario.IRI_PREFIX + "c" + t + "/" + i
+                            : SyntheticScenario.IRI_PREFIX + "c" + t + "/" + i + "/v/" + (i * 31);
+                })
+                .collect(ImmutableCollectors.toList());
+    }
+
+    @Benchmark
+    public UriTemplateMatcher create() {
+        return UriTemplateMatcher.create(templates.stream());
+    }
+
+    /**
+     * All the IRIs (IRI_COUNT) are matched in one invocation
+     */
+    @Benchmark
+    public void match(Blackhole blackhole) {
+        for (String iri : iris)
+            blackhole.consume(matcher.generateURIFunction(iri));
+    }
+
+    private static ImmutableFunctionalTerm template(String templateString, int arity) {
+        if (arity == 1)
+            return TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(templateString),
+                    TERM_FACTORY.getVariable("x"));
+        return TERM_FACTORY.getImmutableUriTemplate(TERM_FACTORY.getConstantLiteral(templateString),
+                TERM_FACTORY.getVariable("x"), TERM_FACTORY.getVariable("y"));
+    }
+}
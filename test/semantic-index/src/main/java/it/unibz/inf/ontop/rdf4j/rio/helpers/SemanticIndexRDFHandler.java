@@ -20,6 +20,7 @@ package it.unibz.inf.ontop.rdf4j.rio.helpers;
  * #L%
  */
 
+import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.model.IriConstants;
 import it.unibz.inf.ontop.model.term.ObjectConstant;
 import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
@@ -52,16 +53,30 @@ public class SemanticIndexRDFHandler extends AbstractRDFHandler {
 
 	private static final AssertionFactory ASSERTION_FACTORY = AssertionFactoryImpl.getInstance();
 	private final SIRepositoryManager repositoryManager;
-	private final Connection connection;
+	private final ImmutableList<Connection> connections;
+	private final int commitLimit;
+	private final int batchLimit;
 
 	private List<Statement> buffer;
-	private int MAX_BUFFER_SIZE = 5000;
+	private final int maxBufferSize;
 	private int count;
 
 	public SemanticIndexRDFHandler(SIRepositoryManager repositoryManager, Connection connection) {
+		this(repositoryManager, ImmutableList.of(connection), 5000, 500);
+	}
+
+	/**
+	 * The statements are inserted concurrently, one writer per connection
+	 */
+	public SemanticIndexRDFHandler(SIRepositoryManager repositoryManager, ImmutableList<Connection> connections,
+								   int commitLimit, int batchLimit) {
 		this.repositoryManager = repositoryManager;
-		this.connection = connection;
-		this.buffer = new ArrayList<>(MAX_BUFFER_SIZE);
+		this.connections = connections;
+		this.commitLimit = commitLimit;
+		this.batchLimit = batchLimit;
+		// at least one batch per connection
+		this.maxBufferSize = Math.max(commitLimit, batchLimit * connections.size());
+		this.buffer = new ArrayList<>(maxBufferSize);
 		this.count = 0;
 	}
 
@@ -78,7 +93,7 @@ public class SemanticIndexRDFHandler extends AbstractRDFHandler {
 		// Add statement to buffer
 		try {
 			buffer.add(st);
-			if (buffer.size() == MAX_BUFFER_SIZE) {
+			if (buffer.size() == maxBufferSize) {
 				loadBuffer();
 			}
 		} catch (Exception e) {
@@ -90,7 +105,7 @@ public class SemanticIndexRDFHandler extends AbstractRDFHandler {
 		Iterator<Assertion> assertionIterator = buffer.stream()
 				.map(SemanticIndexRDFHandler::constructAssertion)
 				.iterator();
-		count += repositoryManager.insertData(connection, assertionIterator, 5000, 500);
+		count += repositoryManager.insertData(connections, assertionIterator, commitLimit, batchLimit);
 		buffer.clear();
 	}
 
@@ -15,6 +15,24 @@ import java.util.Properties;
  */
 public interface OntopSemanticIndexLoader extends AutoCloseable {
 
+    //-------------------------------
+    // Loading properties (optional)
+    //-------------------------------
+
+    /**
+     * Number of ABox assertions per JDBC batch (default: 500)
+     */
+    String BATCH_SIZE = "ontop.si.batchSize";
+
+    /**
+     * Number of ABox assertions per transaction (default: 5000)
+     */
+    String COMMIT_SIZE = "ontop.si.commitSize";
+
+    /**
+     * Number of connections inserting the ABox assertions concurrently (default: 1)
+     */
+    String LOADING_CONNECTIONS = "ontop.si.loadingConnections";
 
     OntopSQLOWLAPIConfiguration getConfiguration();
 
@@ -1,6 +1,7 @@
 package it.unibz.inf.ontop.si.impl;
 
 
+import com.google.common.collect.ImmutableList;
 import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
 import it.unibz.inf.ontop.model.IriConstants;
 import it.unibz.inf.ontop.si.repository.SIRepositoryManager;
@@ -24,6 +25,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
 import java.sql.Connection;
+import java.sql.SQLException;
 import java.util.HashSet;
 import java.util.Properties;
 import java.util.Set;
@@ -43,7 +45,7 @@ public class GraphLoading {
             /*
             Loads the data
              */
-            insertDataset(init.dataRepository, init.localConnection, dataset);
+            insertDataset(init, dataset, getLoadingParams(properties));
 
             /*
             Creates the configuration and the loader object
@@ -58,20 +60,32 @@ public class GraphLoading {
 
 
 
-    private static void insertDataset(SIRepositoryManager dataRepository, Connection localConnection, Dataset dataset)
+    private static void insertDataset(RepositoryInit init, Dataset dataset, LoadingParams params)
             throws SemanticIndexException {
         // Merge default and named graphs to filter duplicates
         Set<IRI> graphIRIs = new HashSet<>();
         graphIRIs.addAll(dataset.getDefaultGraphs());
         graphIRIs.addAll(dataset.getNamedGraphs());
 
-        for (Resource graphIRI : graphIRIs) {
-            insertGraph(dataRepository, localConnection, ((IRI)graphIRI));
+        ImmutableList<Connection> connections;
+        try {
+            connections = openLoadingConnections(init, params);
+        } catch (SQLException e) {
+            throw new SemanticIndexException(e.getMessage());
+        }
+
+        try {
+            for (Resource graphIRI : graphIRIs) {
+                insertGraph(init.dataRepository, connections, params, ((IRI)graphIRI));
+            }
+        }
+        finally {
+            closeLoadingConnections(init, connections);
         }
     }
 
-    private static void insertGraph(SIRepositoryManager dataRepository, Connection localConnection,
-                                    IRI graphIRI) throws SemanticIndexException {
+    private static void insertGraph(SIRepositoryManager dataRepository, ImmutableList<Connection> connections,
+                                    LoadingParams params, IRI graphIRI) throws SemanticIndexException {
 
         RDFFormat rdfFormat = Rio.getParserFormatForFileName(graphIRI.toString()).get();
         RDFParser rdfParser = Rio.createParser(rdfFormat);
@@ -87,7 +101,8 @@ public class GraphLoading {
             URL graphURL = new URL(graphIRI.toString());
             InputStream in = graphURL.openStream();
 
-            SemanticIndexRDFHandler rdfHandler = new SemanticIndexRDFHandler(dataRepository, localConnection);
+            SemanticIndexRDFHandler rdfHandler = new SemanticIndexRDFHandler(dataRepository, connections,
+                    params.commitSize, params.batchSize);
             rdfParser.setRDFHandler(rdfHandler);
 
             rdfParser.parse(in, graphIRI.toString());
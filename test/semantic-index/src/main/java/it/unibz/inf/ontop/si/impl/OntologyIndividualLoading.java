@@ -55,7 +55,7 @@ public class OntologyIndividualLoading {
             OWLAPIABoxIterator aBoxIter = new OWLAPIABoxIterator(init.ontologyClosure
                     .orElseThrow(() -> new IllegalStateException("An ontology closure was expected")), init.vocabulary);
 
-            int count = init.dataRepository.insertData(init.localConnection, aBoxIter, 5000, 500);
+            int count = insertData(init, aBoxIter, properties);
             LOG.debug("Inserted {} triples from the ontology.", count);
 
             /*
@@ -7,12 +7,14 @@ import it.unibz.inf.ontop.exception.DuplicateMappingException;
 import it.unibz.inf.ontop.injection.SpecificationFactory;
 import it.unibz.inf.ontop.injection.OntopMappingConfiguration;
 import it.unibz.inf.ontop.injection.OntopSQLOWLAPIConfiguration;
+import it.unibz.inf.ontop.si.OntopSemanticIndexLoader;
 import it.unibz.inf.ontop.si.repository.SIRepositoryManager;
 import it.unibz.inf.ontop.spec.mapping.PrefixManager;
 import it.unibz.inf.ontop.spec.mapping.pp.SQLPPMapping;
 import it.unibz.inf.ontop.spec.mapping.pp.SQLPPTriplesMap;
 import it.unibz.inf.ontop.spec.mapping.pp.impl.SQLPPMappingImpl;
 import it.unibz.inf.ontop.model.term.ImmutableFunctionalTerm;
+import it.unibz.inf.ontop.spec.ontology.Assertion;
 import it.unibz.inf.ontop.spec.ontology.ImmutableOntologyVocabulary;
 import it.unibz.inf.ontop.spec.ontology.Ontology;
 import it.unibz.inf.ontop.spec.ontology.owlapi.OWLAPITranslatorUtility;
@@ -33,6 +35,7 @@ import org.slf4j.LoggerFactory;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.util.Iterator;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
@@ -44,6 +47,9 @@ class SILoadingTools {
     private static final String DEFAULT_USER = "sa";
     private static final String DEFAULT_PASSWORD = "";
     private static final boolean OPTIMIZE_EQUIVALENCES = true;;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_COMMIT_SIZE = 5000;
+    private static final int DEFAULT_LOADING_CONNECTIONS = 1;
 
     static class RepositoryInit {
         final SIRepositoryManager dataRepository;
@@ -62,6 +68,81 @@ class SILoadingTools {
         }
     }
 
+    static class LoadingParams {
+        final int batchSize;
+        final int commitSize;
+        final int connectionCount;
+
+        private LoadingParams(Properties properties) {
+            this.batchSize = getIntProperty(properties, OntopSemanticIndexLoader.BATCH_SIZE, DEFAULT_BATCH_SIZE);
+            this.commitSize = getIntProperty(properties, OntopSemanticIndexLoader.COMMIT_SIZE, DEFAULT_COMMIT_SIZE);
+            this.connectionCount = Math.max(1, getIntProperty(properties, OntopSemanticIndexLoader.LOADING_CONNECTIONS,
+                    DEFAULT_LOADING_CONNECTIONS));
+        }
+
+        private static int getIntProperty(Properties properties, String key, int defaultValue) {
+            String value = properties.getProperty(key);
+            if (value == null)
+                return defaultValue;
+            try {
+                return Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+            }
+        }
+    }
+
+    static LoadingParams getLoadingParams(Properties properties) {
+        return new LoadingParams(properties);
+    }
+
+    /**
+     * Inserts the assertions through the local connection and, if configured, additional connections
+     * to the same in-memory DB (closed afterwards)
+     */
+    static int insertData(RepositoryInit init, Iterator<Assertion> data, Properties properties) throws SQLException {
+        LoadingParams params = getLoadingParams(properties);
+        ImmutableList<Connection> connections = openLoadingConnections(init, params);
+        try {
+            return init.dataRepository.insertData(connections, data, params.commitSize, params.batchSize);
+        }
+        finally {
+            closeLoadingConnections(init, connections);
+        }
+    }
+
+    /**
+     * The first connection is the local one
+     */
+    static ImmutableList<Connection> openLoadingConnections(RepositoryInit init, LoadingParams params) throws SQLException {
+        ImmutableList.Builder<Connection> builder = ImmutableList.builder();
+        builder.add(init.localConnection);
+        try {
+            for (int i = 1; i < params.connectionCount; i++)
+                builder.add(DriverManager.getConnection(init.jdbcUrl, DEFAULT_USER, DEFAULT_PASSWORD));
+        }
+        catch (SQLException e) {
+            closeLoadingConnections(init, builder.build());
+            throw e;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Closes all the connections but the local one
+     */
+    static void closeLoadingConnections(RepositoryInit init, ImmutableList<Connection> connections) {
+        for (Connection connection : connections) {
+            if (connection == init.localConnection)
+                continue;
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                LOG.warn("Could not close a loading connection: " + e.getMessage());
+            }
+        }
+    }
+
     static RepositoryInit createRepository(OWLOntology owlOntology) throws SemanticIndexException {
 
         Set<OWLOntology> ontologyClosure = owlOntology.getOWLOntologyManager().getImportsClosure(owlOntology);
@@ -42,8 +42,7 @@ public class VirtualAboxLoading {
             try (MaterializedGraphResultSet graphResultSet = materializer.materialize(
                     obdaConfiguration, materializationParams)) {
 
-                int count = init.dataRepository.insertData(init.localConnection,
-                        new GraphResultSetIterator(graphResultSet), 5000, 500);
+                int count = insertData(init, new GraphResultSetIterator(graphResultSet), properties);
                 LOG.debug("Inserted {} triples from the mappings.", count);
             }
 
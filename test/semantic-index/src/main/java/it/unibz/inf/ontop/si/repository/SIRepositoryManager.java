@@ -27,6 +27,13 @@ public interface SIRepositoryManager extends Serializable {
 
     int insertData(Connection conn, Iterator<Assertion> data, int commitLimit, int batchLimit) throws SQLException;
 
+    /**
+     * Inserts the assertions concurrently, one writer per connection.
+     *
+     * The connections must point to the same DB. They are not closed.
+     */
+    int insertData(ImmutableList<Connection> connections, Iterator<Assertion> data, int commitLimit, int batchLimit) throws SQLException;
+
     void loadMetadata(Connection conn) throws SQLException;
 
     ImmutableList<SQLPPTriplesMap> getMappings();
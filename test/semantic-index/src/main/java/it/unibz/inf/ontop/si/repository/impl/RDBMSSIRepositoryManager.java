@@ -23,6 +23,7 @@ package it.unibz.inf.ontop.si.repository.impl;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import it.unibz.inf.ontop.answering.reformulation.generation.utils.XsdDatatypeConverter;
 import it.unibz.inf.ontop.model.term.*;
 import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
@@ -39,6 +40,8 @@ import java.math.BigDecimal;
 import java.sql.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
 
@@ -341,116 +344,54 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 
 	@Override
 	public int insertData(Connection conn, Iterator<Assertion> data, int commitLimit, int batchLimit) throws SQLException {
+		return insertData(ImmutableList.of(conn), data, commitLimit, batchLimit);
+	}
+
+	/**
+	 * Pipelined insertion: the assertions are dictionary-encoded by the calling thread, in batches,
+	 * and the batches are inserted concurrently, one writer per connection.
+	 */
+	@Override
+	public int insertData(ImmutableList<Connection> connections, Iterator<Assertion> data, int commitLimit, int batchLimit) throws SQLException {
 		log.debug("Inserting data into DB");
 
+		if (connections.isEmpty())
+			throw new IllegalArgumentException("At least one connection is required");
+
 		// The precondition for the limit number must be greater or equal to one.
-		commitLimit = (commitLimit < 1) ? 1 : commitLimit;
-		batchLimit = (batchLimit < 1) ? 1 : batchLimit;
+		int commitSize = (commitLimit < 1) ? 1 : commitLimit;
+		int batchSize = (batchLimit < 1) ? 1 : batchLimit;
 
-		boolean oldAutoCommit = conn.getAutoCommit();
-		conn.setAutoCommit(false);
+		long startTime = System.currentTimeMillis();
 
-		PreparedStatement uriidStm = conn.prepareStatement(uriIdTable.getINSERT("?, ?"));
-		Map<SemanticIndexViewID, PreparedStatement> stmMap = new HashMap<>();
-		
 		// For counting the insertion
 		int success = 0;
+		// encoding failures (by the calling thread)
 		Map<Predicate, Integer> failures = new HashMap<>();
 
-		int batchCount = 0;
-		int commitCount = 0;
-
-		try {
-			while (data.hasNext()) {
-				Assertion ax = data.next();
-
-				// log.debug("Inserting statement: {}", ax);
-				batchCount++;
-				commitCount++;
-
-				if (ax instanceof ClassAssertion) {
-					ClassAssertion ca = (ClassAssertion) ax; 
-					try {
-						process(conn, ca, uriidStm, stmMap);
-						success++;
-					}
-					catch (Exception e) {
-						Predicate predicate = ca.getConcept().getPredicate();
-						Integer counter = failures.get(predicate);
-						if (counter == null) 
-							counter = 0;
-						failures.put(predicate, counter + 1);					
-					}
-				} 
-				else if (ax instanceof ObjectPropertyAssertion) {
-					ObjectPropertyAssertion opa = (ObjectPropertyAssertion)ax;
-					try {
-						process(conn, opa, uriidStm, stmMap);	
-						success++;
-					}
-					catch (Exception e) {
-						Predicate predicate = opa.getProperty().getPredicate();
-						Integer counter = failures.get(predicate);
-						if (counter == null) 
-							counter = 0;
-						failures.put(predicate, counter + 1);					
-					}
-				}
-				else if (ax instanceof DataPropertyAssertion)  {
-					DataPropertyAssertion dpa = (DataPropertyAssertion)ax;
-					try {
-						process(conn, dpa, uriidStm, stmMap);				
-						success++;					
-					}
-					catch (Exception e) {
-						Predicate predicate = dpa.getProperty().getPredicate();
-						Integer counter = failures.get(predicate);
-						if (counter == null) 
-							counter = 0;
-						failures.put(predicate, counter + 1);					
-					}
-				}
-
-
-				// Check if the batch count is already in the batch limit
-				if (batchCount == batchLimit) {
-					uriidStm.executeBatch();
-					uriidStm.clearBatch();
-					for (PreparedStatement stm : stmMap.values()) {
-						stm.executeBatch();
-						stm.clearBatch();
-					}
-					batchCount = 0; // reset the counter
-				}
-
-				// Check if the commit count is already in the commit limit
-				if (commitCount == commitLimit) {
-					conn.commit();
-					commitCount = 0; // reset the counter
-				}
-			}
-
-			// Execute the rest of the batch
-			uriidStm.executeBatch();
-			uriidStm.clearBatch();
-			for (PreparedStatement stm : stmMap.values()) {
-				stm.executeBatch();
-				stm.clearBatch();
+		List<SIBatchWriter> writers;
+		if (connections.size() == 1) {
+			try (SIBatchWriter writer = new SIBatchWriter(connections.get(0), uriIdTable.getINSERT("?, ?"), commitSize)) {
+				SIInsertBatch batch;
+				while ((batch = encodeBatch(data, batchSize, failures)) != null)
+					writer.write(batch);
+				writer.finish();
+				writers = ImmutableList.of(writer);
 			}
-			// Commit the rest of the batch insert
-			conn.commit();
 		}
-		finally {
-			// Close all open statements
-			uriidStm.close();
-			for (PreparedStatement stm : stmMap.values()) 
-				stm.close();
+		else {
+			writers = insertInParallel(connections, commitSize, () -> encodeBatch(data, batchSize, failures));
 		}
 
-		conn.setAutoCommit(oldAutoCommit);
+		for (SIBatchWriter writer : writers) {
+			success += writer.getInsertedCount();
+			writer.getFailures().forEach((p, c) -> failures.merge(p, c, Integer::sum));
+		}
 
 		// Print the monitoring log
-		log.debug("Total successful insertions: " + success + ".");
+		long elapsedTime = Math.max(System.currentTimeMillis() - startTime, 1);
+		log.debug("Total successful insertions: " + success + " (" + elapsedTime + " ms, "
+				+ (success * 1000L / elapsedTime) + " assertions/s, " + connections.size() + " connection(s)).");
 		int totalFailures = 0;
 		for (Map.Entry<Predicate, Integer> entry : failures.entrySet()) {
 			log.warn("Failed to insert data for predicate {} ({} tuples).", entry.getKey(), entry.getValue());
@@ -471,8 +412,135 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 		return success;
 	}
 
+	// marks the end of the batches for the writers
+	private static final SIInsertBatch END_OF_DATA = new SIInsertBatch();
+
+	/**
+	 * batchSource returns null when there are no more batches
+	 *
+	 * Returns the (closed) writers, for their counts
+	 */
+	private List<SIBatchWriter> insertInParallel(ImmutableList<Connection> connections, int commitLimit,
+								  Supplier<SIInsertBatch> batchSource) throws SQLException {
+
+		// bounded, so that encoding does not get too far ahead of the writers
+		BlockingQueue<SIInsertBatch> queue = new ArrayBlockingQueue<>(2 * connections.size());
+		ExecutorService executor = Executors.newFixedThreadPool(connections.size(),
+				new ThreadFactoryBuilder()
+						.setNameFormat("ontop-si-loading-%d")
+						.setDaemon(true)
+						.build());
+		try {
+			List<Future<SIBatchWriter>> writers = new ArrayList<>(connections.size());
+			for (Connection conn : connections) {
+				writers.add(executor.submit(() -> {
+					try (SIBatchWriter writer = new SIBatchWriter(conn, uriIdTable.getINSERT("?, ?"), commitLimit)) {
+						for (SIInsertBatch batch = queue.take(); batch != END_OF_DATA; batch = queue.take())
+							writer.write(batch);
+						writer.finish();
+						return writer;
+					}
+				}));
+			}
+
+			SIInsertBatch batch;
+			while ((batch = batchSource.get()) != null)
+				enqueue(queue, batch, writers);
 
-	private void process(Connection conn, ObjectPropertyAssertion ax, PreparedStatement uriidStm, Map<SemanticIndexViewID, PreparedStatement> stmMap) throws SQLException {
+			for (int i = 0; i < connections.size(); i++)
+				enqueue(queue, END_OF_DATA, writers);
+
+			List<SIBatchWriter> finishedWriters = new ArrayList<>(writers.size());
+			for (Future<SIBatchWriter> writer : writers)
+				finishedWriters.add(waitFor(writer));
+			return finishedWriters;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new SQLException("Interrupted while inserting data", e);
+		}
+		finally {
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * Blocks while the queue is full, unless a writer has failed
+	 */
+	private static void enqueue(BlockingQueue<SIInsertBatch> queue, SIInsertBatch batch,
+								List<Future<SIBatchWriter>> writers) throws InterruptedException, SQLException {
+		while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+			for (Future<SIBatchWriter> writer : writers)
+				if (writer.isDone())
+					waitFor(writer);
+		}
+	}
+
+	private static SIBatchWriter waitFor(Future<SIBatchWriter> writer) throws InterruptedException, SQLException {
+		try {
+			return writer.get();
+		}
+		catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof SQLException)
+				throw (SQLException) cause;
+			if (cause instanceof RuntimeException)
+				throw (RuntimeException) cause;
+			throw new SQLException(cause);
+		}
+	}
+
+	/**
+	 * Encodes at most batchLimit assertions
+	 *
+	 * @return null if there are no more assertions
+	 */
+	private SIInsertBatch encodeBatch(Iterator<Assertion> data, int batchLimit, Map<Predicate, Integer> failures) {
+		if (!data.hasNext())
+			return null;
+
+		SIInsertBatch batch = new SIInsertBatch();
+		for (int batchCount = 0; batchCount < batchLimit && data.hasNext(); batchCount++) {
+			Assertion ax = data.next();
+
+			// log.debug("Inserting statement: {}", ax);
+
+			if (ax instanceof ClassAssertion) {
+				ClassAssertion ca = (ClassAssertion) ax; 
+				try {
+					encode(ca, batch);
+					batch.countAssertion();
+				}
+				catch (Exception e) {
+					failures.merge(ca.getConcept().getPredicate(), 1, Integer::sum);
+				}
+			} 
+			else if (ax instanceof ObjectPropertyAssertion) {
+				ObjectPropertyAssertion opa = (ObjectPropertyAssertion)ax;
+				try {
+					encode(opa, batch);
+					batch.countAssertion();
+				}
+				catch (Exception e) {
+					failures.merge(opa.getProperty().getPredicate(), 1, Integer::sum);
+				}
+			}
+			else if (ax instanceof DataPropertyAssertion)  {
+				DataPropertyAssertion dpa = (DataPropertyAssertion)ax;
+				try {
+					encode(dpa, batch);
+					batch.countAssertion();
+				}
+				catch (Exception e) {
+					failures.merge(dpa.getProperty().getPredicate(), 1, Integer::sum);
+				}
+			}
+		}
+		return batch;
+	}
+
+
+	private void encode(ObjectPropertyAssertion ax, SIInsertBatch batch) {
 
 		ObjectPropertyExpression ope0 = ax.getProperty();
 		if (ope0.isInverse()) 
@@ -500,26 +568,17 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 
 		SemanticIndexView view = views.getView(o1.getType(), o2.getType());
 		
-		PreparedStatement stm = stmMap.get(view.getId());
-		if (stm == null) {
-			stm = conn.prepareStatement(view.getINSERT());
-			stmMap.put(view.getId(), stm);
-		}
-		
-		int uri_id = getObjectConstantUriId(o1, uriidStm);
-		int uri2_id = getObjectConstantUriId(o2, uriidStm);
+		int uri_id = getObjectConstantUriId(o1, batch);
+		int uri2_id = getObjectConstantUriId(o2, batch);
 		
 		// Construct the database INSERT statements		
-		stm.setInt(1, uri_id);
-		stm.setInt(2, uri2_id);		
-		stm.setInt(3, idx);
-		stm.addBatch();
+		batch.addRow(view, ope0.getPredicate(), uri_id, uri2_id, idx);
 		
 		// Register non emptiness
 		view.addIndex(idx);
 	} 
 
-	private void process(Connection conn, DataPropertyAssertion ax, PreparedStatement uriidStm, Map<SemanticIndexViewID, PreparedStatement> stmMap) throws SQLException {
+	private void encode(DataPropertyAssertion ax, SIInsertBatch batch) {
 
 		// replace the property by its canonical representative
 		DataPropertyExpression dpe0 = ax.getProperty();
@@ -527,7 +586,7 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 		int idx = cacheSI.getEntry(dpe).getIndex();
 		
 		ObjectConstant subject = ax.getSubject();
-		int uri_id = getObjectConstantUriId(subject, uriidStm);
+		int uri_id = getObjectConstantUriId(subject, batch);
 
 		ValueConstant object = ax.getValue();
 		COL_TYPE objectType = object.getType();
@@ -535,34 +594,26 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 		// ROMAN (28 June 2016): quite fragile because objectType is UNSUPPORTED for SHORT, BYTE, etc.
 		//                       a a workaround, obtain the URI ID first, without triggering an exception here
 		SemanticIndexView view =  views.getView(subject.getType(), objectType);
-		PreparedStatement stm = stmMap.get(view.getId());
-		if (stm == null) {
-			stm = conn.prepareStatement(view.getINSERT());
-			stmMap.put(view.getId(), stm);
-		}
 
-		stm.setInt(1, uri_id);
-		
 		String value = object.getValue();
 		
 		switch (objectType) {
 			case LITERAL:  // 0
-				stm.setString(2, value);
+				batch.addRow(view, dpe0.getPredicate(), uri_id, value, idx);
 				break;  
 			case LANG_STRING:  // -3
-				stm.setString(2, value);
-				stm.setString(4, object.getLanguage());
+				batch.addRow(view, dpe0.getPredicate(), uri_id, value, idx, object.getLanguage());
 				break;  
 			case STRING:   // 1
-				stm.setString(2, value);
+				batch.addRow(view, dpe0.getPredicate(), uri_id, value, idx);
 				break;
 	        case INT:   // 3
 	            //if (value.charAt(0) == '+') // ROMAN: not needed in Java 7
 	            //    value = value.substring(1, value.length());
-	        	stm.setInt(2, Integer.parseInt(value));
+	        	batch.addRow(view, dpe0.getPredicate(), uri_id, Integer.parseInt(value), idx);
 	            break;
 	        case UNSIGNED_INT:  // 4
-	        	stm.setInt(2, Integer.parseInt(value));
+	        	batch.addRow(view, dpe0.getPredicate(), uri_id, Integer.parseInt(value), idx);
 	            break;
 	        case INTEGER:  // 2
 	        case NEGATIVE_INTEGER:   // 5
@@ -572,23 +623,23 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 	        case LONG: // 10
 	            //if (value.charAt(0) == '+')  // ROMAN: not needed in Java 7
 	            //    value = value.substring(1, value.length());
-	            stm.setLong(2, Long.parseLong(value));
+	            batch.addRow(view, dpe0.getPredicate(), uri_id, Long.parseLong(value), idx);
 	            break;
 	        case FLOAT: // 9
-				stm.setDouble(2, Float.parseFloat(value));
+				batch.addRow(view, dpe0.getPredicate(), uri_id, (double) Float.parseFloat(value), idx);
 	            break;
 			case DOUBLE: // 12
-				stm.setDouble(2, Double.parseDouble(value));
+				batch.addRow(view, dpe0.getPredicate(), uri_id, Double.parseDouble(value), idx);
 				break;
 			case DECIMAL: // 11
-				stm.setBigDecimal(2, new BigDecimal(value));
+				batch.addRow(view, dpe0.getPredicate(), uri_id, new BigDecimal(value), idx);
 				break;
 			case DATETIME_STAMP: // 15
 			case DATETIME: // 13
-				stm.setTimestamp(2, XsdDatatypeConverter.parseXsdDateTime(value));
+				batch.addRow(view, dpe0.getPredicate(), uri_id, XsdDatatypeConverter.parseXsdDateTime(value), idx);
 				break;
 			case BOOLEAN: // 14				
-				stm.setBoolean(2, XsdDatatypeConverter.parseXsdBoolean(value));
+				batch.addRow(view, dpe0.getPredicate(), uri_id, XsdDatatypeConverter.parseXsdBoolean(value), idx);
 				break;
 			default:
 				// UNSUPPORTED DATATYPE
@@ -596,15 +647,12 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 				return;				
 		}
 		
-		stm.setInt(3, idx);
-		stm.addBatch();
-		
 		// register non-emptiness
 		view.addIndex(idx);
 	}
 	
 		
-	private void process(Connection conn, ClassAssertion ax, PreparedStatement uriidStm, Map<SemanticIndexViewID, PreparedStatement> stmMap) throws SQLException {
+	private void encode(ClassAssertion ax, SIInsertBatch batch) {
 		
 		// replace concept by the canonical representative (which must be a concept name)
 		OClass concept0 = ax.getConcept();
@@ -614,19 +662,11 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 		ObjectConstant c1 = ax.getIndividual();
 
 		SemanticIndexView view =  views.getView(c1.getType());
-	
-		PreparedStatement stm = stmMap.get(view.getId());
-		if (stm == null) {
-			stm = conn.prepareStatement(view.getINSERT());
-			stmMap.put(view.getId(), stm);
-		}
 
-		int uri_id = getObjectConstantUriId(c1, uriidStm); 
+		int uri_id = getObjectConstantUriId(c1, batch); 
 		
 		// Construct the database INSERT statements
-		stm.setInt(1, uri_id);
-		stm.setInt(2, conceptIndex);
-		stm.addBatch();
+		batch.addRow(view, concept0.getPredicate(), uri_id, conceptIndex);
 	
 		// Register non emptiness
 		view.addIndex(conceptIndex);
@@ -637,7 +677,7 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 	// TODO: use database to get the maximum URIId
 	private int maxURIId = -1;
 	
-	private int getObjectConstantUriId(ObjectConstant c, PreparedStatement uriidStm) throws SQLException {
+	private int getObjectConstantUriId(ObjectConstant c, SIInsertBatch batch) {
 		
 		// TODO (ROMAN): I am not sure this is entirely correct for blank nodes
 		String uri = (c instanceof BNode) ? ((BNode) c).getName() : ((URIConstant) c).getURI().toString();
@@ -649,9 +689,7 @@ public class RDBMSSIRepositoryManager implements it.unibz.inf.ontop.si.repositor
 			maxURIId++;
 			
 			// Construct the database INSERT statement
-			uriidStm.setInt(1, uri_id);
-			uriidStm.setString(2, uri);
-			uriidStm.addBatch();								
+			batch.addURIId(uri_id, uri);
 		}
 			
 		return uri_id;
@@ -0,0 +1,156 @@
+package it.unibz.inf.ontop.si.repository.impl;
+
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Inserts batches of encoded rows through a single connection,
+ * committing every commitLimit assertions.
+ *
+ * When a JDBC batch fails, the rows that have not been inserted are retried one by one
+ * and the ones that still fail are counted by predicate (as the loading goes on).
+ * A failure of the URIID table is not recoverable and is thrown.
+ *
+ * Not thread-safe: one writer per connection.
+ */
+class SIBatchWriter implements AutoCloseable {
+
+	private final Connection conn;
+	private final boolean oldAutoCommit;
+	private final int commitLimit;
+
+	private final PreparedStatement uriIdStm;
+	// by INSERT command
+	private final Map<String, PreparedStatement> stmMap = new HashMap<>();
+
+	private int uncommittedCount = 0;
+
+	private int insertedCount = 0;
+	private final Map<Predicate, Integer> failures = new HashMap<>();
+
+	SIBatchWriter(Connection conn, String uriIdInsert, int commitLimit) throws SQLException {
+		this.conn = conn;
+		this.commitLimit = commitLimit;
+		this.oldAutoCommit = conn.getAutoCommit();
+		conn.setAutoCommit(false);
+		this.uriIdStm = conn.prepareStatement(uriIdInsert);
+	}
+
+	void write(SIInsertBatch batch) throws SQLException {
+		for (Object[] row : batch.getURIIdRows())
+			addBatch(uriIdStm, row);
+		uriIdStm.executeBatch();
+		uriIdStm.clearBatch();
+
+		for (Map.Entry<String, List<SIInsertBatch.Row>> e : batch.getRows().entrySet()) {
+			PreparedStatement stm = stmMap.get(e.getKey());
+			if (stm == null) {
+				stm = conn.prepareStatement(e.getKey());
+				stmMap.put(e.getKey(), stm);
+			}
+			write(stm, e.getValue());
+		}
+
+		uncommittedCount += batch.getAssertionCount();
+		if (uncommittedCount >= commitLimit) {
+			conn.commit();
+			uncommittedCount = 0;
+		}
+	}
+
+	private void write(PreparedStatement stm, List<SIInsertBatch.Row> rows) throws SQLException {
+		for (SIInsertBatch.Row row : rows)
+			addBatch(stm, row.getValues());
+		try {
+			stm.executeBatch();
+			insertedCount += rows.size();
+		}
+		catch (BatchUpdateException e) {
+			// The driver may stop at the first failure or go on with the remaining rows
+			int[] updateCounts = e.getUpdateCounts();
+			int processedCount = (updateCounts == null) ? 0 : updateCounts.length;
+			for (int i = 0; i < processedCount; i++) {
+				if (updateCounts[i] == Statement.EXECUTE_FAILED)
+					countFailure(rows.get(i));
+				else
+					insertedCount++;
+			}
+			if (processedCount < rows.size()) {
+				stm.clearBatch();
+				for (SIInsertBatch.Row row : rows.subList(processedCount, rows.size()))
+					insertRow(stm, row);
+			}
+		}
+		finally {
+			stm.clearBatch();
+		}
+	}
+
+	private void insertRow(PreparedStatement stm, SIInsertBatch.Row row) {
+		try {
+			Object[] values = row.getValues();
+			for (int i = 0; i < values.length; i++)
+				stm.setObject(i + 1, values[i]);
+			stm.executeUpdate();
+			insertedCount++;
+		}
+		catch (SQLException e) {
+			countFailure(row);
+		}
+	}
+
+	private void countFailure(SIInsertBatch.Row row) {
+		failures.merge(row.getPredicate(), 1, Integer::sum);
+	}
+
+	private static void addBatch(PreparedStatement stm, Object[] row) throws SQLException {
+		for (int i = 0; i < row.length; i++)
+			stm.setObject(i + 1, row[i]);
+		stm.addBatch();
+	}
+
+	/**
+	 * Commits the remaining rows
+	 */
+	void finish() throws SQLException {
+		conn.commit();
+		uncommittedCount = 0;
+	}
+
+	/**
+	 * Number of rows inserted into the semantic index views (the URIID table excluded)
+	 */
+	int getInsertedCount() {
+		return insertedCount;
+	}
+
+	/**
+	 * Number of rows that could not be inserted, by predicate
+	 */
+	Map<Predicate, Integer> getFailures() {
+		return failures;
+	}
+
+	/**
+	 * Closes the statements (but not the connection)
+	 */
+	@Override
+	public void close() throws SQLException {
+		try {
+			uriIdStm.close();
+			for (PreparedStatement stm : stmMap.values())
+				stm.close();
+		}
+		finally {
+			conn.setAutoCommit(oldAutoCommit);
+		}
+	}
+}
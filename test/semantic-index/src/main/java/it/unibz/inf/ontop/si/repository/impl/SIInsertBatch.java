@@ -0,0 +1,73 @@
+package it.unibz.inf.ontop.si.repository.impl;
+
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary-encoded rows of a batch of ABox assertions,
+ * grouped by INSERT command (one per semantic index view)
+ *
+ * Built by a single thread, then handed over to an SIBatchWriter.
+ */
+class SIInsertBatch {
+
+	/**
+	 * Parameters of an INSERT command, with the predicate of the assertion
+	 * (for counting the failed insertions)
+	 */
+	static final class Row {
+		private final Predicate predicate;
+		private final Object[] values;
+
+		private Row(Predicate predicate, Object[] values) {
+			this.predicate = predicate;
+			this.values = values;
+		}
+
+		Predicate getPredicate() {
+			return predicate;
+		}
+
+		Object[] getValues() {
+			return values;
+		}
+	}
+
+	private final List<Object[]> uriIdRows = new ArrayList<>();
+	private final Map<String, List<Row>> rows = new LinkedHashMap<>();
+	private int assertionCount = 0;
+
+	/**
+	 * row of the URIID table for a newly encoded URI
+	 */
+	void addURIId(int id, String uri) {
+		uriIdRows.add(new Object[] { id, uri });
+	}
+
+	/**
+	 * values: the parameters of the INSERT command (in order)
+	 */
+	void addRow(SemanticIndexView view, Predicate predicate, Object... values) {
+		rows.computeIfAbsent(view.getINSERT(), k -> new ArrayList<>()).add(new Row(predicate, values));
+	}
+
+	void countAssertion() {
+		assertionCount++;
+	}
+
+	int getAssertionCount() {
+		return assertionCount;
+	}
+
+	List<Object[]> getURIIdRows() {
+		return uriIdRows;
+	}
+
+	Map<String, List<Row>> getRows() {
+		return rows;
+	}
+}
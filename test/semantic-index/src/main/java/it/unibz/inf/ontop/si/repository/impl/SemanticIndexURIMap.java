@@ -2,22 +2,87 @@ package it.unibz.inf.ontop.si.repository.impl;
 
 import it.unibz.inf.ontop.answering.reformulation.IRIDictionary;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
+/**
+ * Compact dictionary of the URIs stored in the semantic index.
+ *
+ * Each URI is split into a prefix (up to its last '/' or '#'), shared among URIs,
+ * and a local name, stored in UTF-8 in large byte pages. The ids index primitive arrays
+ * and the URI-to-id direction is an open-addressing hash table of ids,
+ * so that there is no boxed integer, no map entry and no String kept per URI.
+ *
+ * Neither getId nor the comparisons it performs allocate memory.
+ *
+ * Single writer: the URIs are set while loading the data (not concurrently with lookups).
+ */
 public class SemanticIndexURIMap implements IRIDictionary {
-	
-	// Semantic Index URI reference structures
-	private final HashMap<String, Integer> uriIds = new HashMap<> (100000);
-	private final HashMap <Integer, String> uriMap2 = new HashMap<> (100000);
-	
-	
+
+	private static final int PAGE_BITS = 20;
+	private static final int PAGE_SIZE = 1 << PAGE_BITS;
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int NOT_FOUND = -2;
+
+	// prefixes (shared)
+	private final List<String> prefixes = new ArrayList<>();
+	private final Map<String, Integer> prefixIds = new HashMap<>();
+
+	// local names: UTF-8 bytes, in pages (a local name never spans two pages)
+	private final List<byte[]> pages = new ArrayList<>();
+	private int pageOffset = PAGE_SIZE;
+
+	// by id (-1 prefix for unused ids)
+	private int[] prefixOf = new int[0];
+	private long[] addresses = new long[0]; // page index << PAGE_BITS | offset in the page
+	private int[] lengths = new int[0];
+	private int[] hashes = new int[0];
+
+	// open addressing, linear probing: id + 1 (0 for empty slots)
+	private int[] table = new int[INITIAL_CAPACITY];
+	private int size = 0;
+
 	/**
 	 * set(uri, id) is used only by RDBMSSIRepository
-	 * 
+	 *
 	 */
 	void set(String uri, int id) {
-		uriIds.put(uri, id);
-		uriMap2.put(id, uri);
+		if (id < 0)
+			throw new IllegalArgumentException("Negative URI id: " + id);
+
+		int existingId = getId(uri);
+		if (existingId == id)
+			return;
+		if (existingId >= 0)
+			throw new IllegalArgumentException(uri + " already has the id " + existingId);
+		if (id < prefixOf.length && prefixOf[id] >= 0)
+			throw new IllegalArgumentException("The id " + id + " is already used by " + getURI(id));
+
+		ensureIdCapacity(id);
+
+		int split = Math.max(uri.lastIndexOf('/'), uri.lastIndexOf('#')) + 1;
+		String prefix = uri.substring(0, split);
+		Integer prefixId = prefixIds.get(prefix);
+		if (prefixId == null) {
+			prefixId = prefixes.size();
+			prefixes.add(prefix);
+			prefixIds.put(prefix, prefixId);
+		}
+		byte[] localName = uri.substring(split).getBytes(StandardCharsets.UTF_8);
+
+		prefixOf[id] = prefixId;
+		addresses[id] = store(localName);
+		lengths[id] = localName.length;
+		hashes[id] = uri.hashCode();
+
+		if (2 * (size + 1) > table.length)
+			rehash(2 * table.length);
+		insertInTable(id);
+		size++;
 	}
 
 	/***
@@ -29,14 +94,126 @@ public class SemanticIndexURIMap implements IRIDictionary {
 	 */
 	@Override
 	public int getId(String uri) {
-		Integer index =  uriIds.get(uri);
-		if (index != null)
-			return index;
-		return -2;
+		int hash = uri.hashCode();
+		int mask = table.length - 1;
+		for (int slot = mix(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+			int id = table[slot] - 1;
+			if (hashes[id] == hash && matches(id, uri))
+				return id;
+		}
+		return NOT_FOUND;
 	}
 
 	@Override
-	public String getURI(Integer id) {
-		return uriMap2.get(id);
+	public String getURI(int id) {
+		if (id < 0 || id >= prefixOf.length || prefixOf[id] < 0)
+			return null;
+
+		String prefix = prefixes.get(prefixOf[id]);
+		byte[] page = pages.get((int) (addresses[id] >>> PAGE_BITS));
+		int offset = (int) (addresses[id] & (PAGE_SIZE - 1));
+		return prefix.concat(new String(page, offset, lengths[id], StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Number of URIs
+	 */
+	public int size() {
+		return size;
+	}
+
+	private long store(byte[] localName) {
+		if (localName.length > PAGE_SIZE - pageOffset) {
+			// new page (larger than usual for very long local names)
+			pages.add(new byte[Math.max(PAGE_SIZE, localName.length)]);
+			pageOffset = 0;
+		}
+		int pageIndex = pages.size() - 1;
+		System.arraycopy(localName, 0, pages.get(pageIndex), pageOffset, localName.length);
+		long address = ((long) pageIndex << PAGE_BITS) | pageOffset;
+		pageOffset += localName.length;
+		return address;
+	}
+
+	private void ensureIdCapacity(int id) {
+		if (id < prefixOf.length)
+			return;
+		int oldLength = prefixOf.length;
+		int newLength = Math.max(id + 1, Math.max(16, oldLength + (oldLength >> 1)));
+		prefixOf = Arrays.copyOf(prefixOf, newLength);
+		Arrays.fill(prefixOf, oldLength, newLength, -1);
+		addresses = Arrays.copyOf(addresses, newLength);
+		lengths = Arrays.copyOf(lengths, newLength);
+		hashes = Arrays.copyOf(hashes, newLength);
+	}
+
+	private void rehash(int capacity) {
+		int[] oldTable = table;
+		table = new int[capacity];
+		for (int entry : oldTable)
+			if (entry != 0)
+				insertInTable(entry - 1);
+	}
+
+	private void insertInTable(int id) {
+		int mask = table.length - 1;
+		int slot = mix(hashes[id]) & mask;
+		while (table[slot] != 0)
+			slot = (slot + 1) & mask;
+		table[slot] = id + 1;
+	}
+
+	/**
+	 * Spreads the bits of String.hashCode(), which are weak in the lower bits for URIs sharing long prefixes
+	 */
+	private static int mix(int hash) {
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Compares the stored URI with the given one without decoding it
+	 */
+	private boolean matches(int id, String uri) {
+		String prefix = prefixes.get(prefixOf[id]);
+		if (!uri.startsWith(prefix))
+			return false;
+
+		byte[] page = pages.get((int) (addresses[id] >>> PAGE_BITS));
+		int offset = (int) (addresses[id] & (PAGE_SIZE - 1));
+		int end = offset + lengths[id];
+
+		int i = prefix.length();
+		int length = uri.length();
+		while (i < length) {
+			int codePoint = uri.codePointAt(i);
+			i += Character.charCount(codePoint);
+			// unpaired surrogates are encoded as '?' by String.getBytes
+			if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE)
+				codePoint = '?';
+
+			// UTF-8 encoding of the code point, byte by byte
+			if (codePoint < 0x80) {
+				if (offset >= end || page[offset++] != (byte) codePoint)
+					return false;
+			}
+			else {
+				int byteCount = codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+				if (end - offset < byteCount)
+					return false;
+				// leading byte
+				int lead = (byteCount == 2) ? (0xC0 | (codePoint >> 6))
+						: (byteCount == 3) ? (0xE0 | (codePoint >> 12))
+						: (0xF0 | (codePoint >> 18));
+				if (page[offset++] != (byte) lead)
+					return false;
+				// continuation bytes
+				for (int shift = 6 * (byteCount - 2); shift >= 0; shift -= 6) {
+					if (page[offset++] != (byte) (0x80 | ((codePoint >> shift) & 0x3F)))
+						return false;
+				}
+			}
+		}
+		return offset == end;
 	}
 }
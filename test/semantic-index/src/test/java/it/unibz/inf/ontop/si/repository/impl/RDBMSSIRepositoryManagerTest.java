@@ -0,0 +1,113 @@
+package it.unibz.inf.ontop.si.repository.impl;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import it.unibz.inf.ontop.model.term.URIConstant;
+import it.unibz.inf.ontop.model.term.functionsymbol.Predicate.COL_TYPE;
+import it.unibz.inf.ontop.spec.ontology.*;
+import it.unibz.inf.ontop.spec.ontology.impl.OntologyFactoryImpl;
+import it.unibz.inf.ontop.spec.ontology.impl.TBoxReasonerImpl;
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static it.unibz.inf.ontop.model.OntopModelSingletons.TERM_FACTORY;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Loading of ABox assertions through one or several connections
+ */
+public class RDBMSSIRepositoryManagerTest {
+
+    private static final OntologyFactory ONTOLOGY_FACTORY = OntologyFactoryImpl.getInstance();
+    private static final String NS = "http://example.org/voc#";
+    private static final int INDIVIDUAL_COUNT = 100;
+    // VAL is a VARCHAR(1000)
+    private static final String TOO_LONG_VALUE = Strings.repeat("a", 1001);
+
+    @Test
+    public void testSingleConnection() throws Exception {
+        testLoading("siloading1", 1, 0);
+    }
+
+    @Test
+    public void testSeveralConnections() throws Exception {
+        testLoading("siloading3", 3, 0);
+    }
+
+    @Test
+    public void testFailedInsertions() throws Exception {
+        testLoading("sifailures1", 1, 3);
+    }
+
+    @Test
+    public void testFailedInsertionsSeveralConnections() throws Exception {
+        testLoading("sifailures3", 3, 3);
+    }
+
+    /**
+     * The rows that cannot be inserted are not counted, and do not prevent the other ones from being inserted
+     */
+    private void testLoading(String dbName, int connectionCount, int failingAssertionCount) throws Exception {
+        OntologyVocabulary vocabulary = ONTOLOGY_FACTORY.createVocabulary();
+        OClass person = vocabulary.createClass(NS + "Person");
+        ObjectPropertyExpression knows = vocabulary.createObjectProperty(NS + "knows");
+        DataPropertyExpression name = vocabulary.createDataProperty(NS + "name");
+        Ontology ontology = ONTOLOGY_FACTORY.createOntology(vocabulary);
+
+        RDBMSSIRepositoryManager repositoryManager = new RDBMSSIRepositoryManager(
+                TBoxReasonerImpl.create(ontology, true), ontology.getVocabulary());
+        repositoryManager.generateMetadata();
+
+        List<Assertion> assertions = new ArrayList<>();
+        for (int i = 0; i < INDIVIDUAL_COUNT; i++) {
+            assertions.add(ONTOLOGY_FACTORY.createClassAssertion(person, getIndividual(i)));
+            assertions.add(ONTOLOGY_FACTORY.createObjectPropertyAssertion(knows, getIndividual(i),
+                    getIndividual((i + 1) % INDIVIDUAL_COUNT)));
+            // The failing ones are spread over several batches
+            String value = (i % 10 == 5 && i / 10 < failingAssertionCount) ? TOO_LONG_VALUE : "name" + i;
+            assertions.add(ONTOLOGY_FACTORY.createDataPropertyAssertion(name, getIndividual(i),
+                    TERM_FACTORY.getConstantLiteral(value, COL_TYPE.STRING)));
+        }
+
+        String jdbcUrl = "jdbc:h2:mem:" + dbName;
+        List<Connection> connections = new ArrayList<>();
+        try {
+            for (int i = 0; i < connectionCount; i++)
+                connections.add(DriverManager.getConnection(jdbcUrl, "sa", ""));
+            repositoryManager.createDBSchemaAndInsertMetadata(connections.get(0));
+
+            int insertedCount = repositoryManager.insertData(ImmutableList.copyOf(connections),
+                    assertions.iterator(), 20, 7);
+
+            assertEquals(3 * INDIVIDUAL_COUNT - failingAssertionCount, insertedCount);
+            assertEquals(INDIVIDUAL_COUNT, count(connections.get(0), "QUEST_CLASS_ASSERTION"));
+            assertEquals(INDIVIDUAL_COUNT, count(connections.get(0), "QUEST_OBJECT_PROPERTY_ASSERTION"));
+            assertEquals(INDIVIDUAL_COUNT - failingAssertionCount,
+                    count(connections.get(0), "QUEST_DATA_PROPERTY_STRING_ASSERTION"));
+            assertEquals(INDIVIDUAL_COUNT, count(connections.get(0), "URIID"));
+        }
+        finally {
+            for (Connection connection : connections)
+                connection.close();
+        }
+    }
+
+    private static URIConstant getIndividual(int i) {
+        return TERM_FACTORY.getConstantURI("http://example.org/person/" + i);
+    }
+
+    private static int count(Connection connection, String tableName) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT COUNT(*) FROM " + tableName)) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package it.unibz.inf.ontop.si.repository.impl;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class SemanticIndexURIMapTest {
+
+    @Test
+    public void testLookups() {
+        SemanticIndexURIMap map = new SemanticIndexURIMap();
+        map.set("http://example.org/a", 0);
+        map.set("http://example.org/voc#b", 1);
+        map.set("c", 2);
+        map.set("http://example.org/", 3);
+        map.set("http://example.org/d\u00e9j\u00e0-\u4e2d\ud83d\ude00", 4);
+
+        assertEquals(0, map.getId("http://example.org/a"));
+        assertEquals(1, map.getId("http://example.org/voc#b"));
+        assertEquals(2, map.getId("c"));
+        assertEquals(3, map.getId("http://example.org/"));
+        assertEquals(4, map.getId("http://example.org/d\u00e9j\u00e0-\u4e2d\ud83d\ude00"));
+
+        assertEquals("http://example.org/voc#b", map.getURI(1));
+        assertEquals("http://example.org/d\u00e9j\u00e0-\u4e2d\ud83d\ude00", map.getURI(4));
+
+        assertEquals(-2, map.getId("http://example.org/ab"));
+        assertEquals(-2, map.getId("http://example.org/d\u00e9j\u00e0"));
+        assertEquals(-2, map.getId("http://example.org"));
+        assertNull(map.getURI(5));
+        assertNull(map.getURI(-1));
+    }
+
+    @Test
+    public void testManyURIs() {
+        SemanticIndexURIMap map = new SemanticIndexURIMap();
+        Map<String, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 100000; i++) {
+            String uri = "http://example.org/ns" + random.nextInt(20) + "/" + Long.toHexString(random.nextLong());
+            if (!expected.containsKey(uri)) {
+                expected.put(uri, i);
+                map.set(uri, i);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<String, Integer> e : expected.entrySet()) {
+            assertEquals((int) e.getValue(), map.getId(e.getKey()));
+            assertEquals(e.getKey(), map.getURI(e.getValue()));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConflictingId() {
+        SemanticIndexURIMap map = new SemanticIndexURIMap();
+        map.set("http://example.org/a", 0);
+        map.set("http://example.org/b", 0);
+    }
+}